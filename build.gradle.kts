@@ -2,6 +2,7 @@ plugins {
     java
     application
     kotlin("jvm") version "1.9.23"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "org.example"
@@ -38,12 +39,55 @@ application {
     mainClass.set("app.App") // Classe principal para rodar a aplicação Javalin
 }
 
-// NOVO: Tarefa personalizada para rodar o ApiClient
-// Isso permite que você execute o cliente com ".\gradlew runClient"
+// NOVO: Tarefa personalizada para rodar o ApiClient (gerador de carga)
+// Isso permite que você execute o cliente com ".\gradlew runClient --args=\"--modo=aberto --taxa=5000\""
 val runClient by tasks.creating(JavaExec::class) {
     classpath = sourceSets.main.get().runtimeClasspath // Usa o classpath da aplicação principal
     mainClass.set("app.client.ApiClient") // Define a classe principal para esta tarefa como ApiClient
     standardInput = System.`in` // Permite entrada do usuário se necessário (não usado no cliente atual)
     group = "application" // Agrupa a tarefa na categoria "application"
-    description = "Runs the Java API Client." // Descrição da tarefa
-}
\ No newline at end of file
+    description = "Runs the Java API load generator." // Descrição da tarefa
+}
+
+// Compara threads de plataforma e virtuais sob carga: .\gradlew compararModos --args="1000 20 true"
+val compararModos by tasks.creating(JavaExec::class) {
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("app.client.ComparacaoModos")
+    group = "application"
+    description = "Compares throughput and tail latency with platform and virtual threads."
+}
+
+// Gera um snapshot com tarefas sintéticas para medir a inicialização: .\gradlew gerarSnapshot --args="dados 1000000"
+val gerarSnapshot by tasks.creating(JavaExec::class) {
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("app.persistencia.GeradorSnapshot")
+    group = "application"
+    description = "Generates a task snapshot for startup measurements."
+}
+
+// Memória e pausas do coletor em cada armazenamento de tarefas e de usuários: .\gradlew compararArmazenamento --args="1000000"
+val compararArmazenamento by tasks.creating(JavaExec::class) {
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("app.service.ComparacaoArmazenamento")
+    maxHeapSize = "3g"
+    group = "application"
+    description = "Compares heap, direct memory and GC cost per record across the task and user storage engines."
+}
+
+// Microbenchmarks em src/jmh/java: .\gradlew jmh (filtre com -PjmhInclude=Listagem)
+// O resultado vai para build/reports/jmh/results.json (ou -PjmhResultado=arquivo.json), para comparar entre commits
+jmh {
+    jmhVersion = "1.37"
+    resultFormat = "JSON"
+    resultsFile = project.findProperty("jmhResultado")?.let { file(it.toString()) }
+        ?: layout.buildDirectory.file("reports/jmh/results.json").get().asFile
+    (project.findProperty("jmhInclude") as String?)?.let { includes = listOf(it) }
+}
+
+// Compara dois resultados do JMH: .\gradlew compararJmh --args="base.json atual.json 10"
+val compararJmh by tasks.creating(JavaExec::class) {
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("app.benchmark.CompararResultados")
+    group = "verification"
+    description = "Compares two JMH JSON result files and fails on regressions."
+}
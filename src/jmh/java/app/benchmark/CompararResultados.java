@@ -0,0 +1,63 @@
+package app.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Compara dois arquivos de resultado do JMH (formato JSON), por exemplo de dois commits:
+//   .\gradlew compararJmh --args="base.json atual.json [limite%]"
+// Imprime a variação de cada benchmark e termina com código 1 se algum piorou além do limite (padrão 10%).
+public class CompararResultados {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: CompararResultados <base.json> <atual.json> [limite%]");
+            System.exit(2);
+        }
+        double limite = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, JsonNode> base = carregar(new File(args[0]));
+        Map<String, JsonNode> atual = carregar(new File(args[1]));
+
+        int regressoes = 0;
+        for (Map.Entry<String, JsonNode> entrada : atual.entrySet()) {
+            JsonNode anterior = base.get(entrada.getKey());
+            double pontuacao = entrada.getValue().path("primaryMetric").path("score").asDouble();
+            String unidade = entrada.getValue().path("primaryMetric").path("scoreUnit").asText();
+            if (anterior == null) {
+                System.out.printf("%-90s %14.3f %-10s (novo)%n", entrada.getKey(), pontuacao, unidade);
+                continue;
+            }
+            double pontuacaoAnterior = anterior.path("primaryMetric").path("score").asDouble();
+            double variacao = (pontuacao - pontuacaoAnterior) / pontuacaoAnterior * 100;
+            // Em vazão (thrpt) maior é melhor; nos modos de tempo (avgt, sample, ss) menor é melhor
+            boolean maiorEMelhor = "thrpt".equals(entrada.getValue().path("mode").asText());
+            double piora = maiorEMelhor ? -variacao : variacao;
+            boolean regressao = piora > limite;
+            if (regressao) {
+                regressoes++;
+            }
+            System.out.printf("%-90s %14.3f %-10s %+7.1f%%%s%n", entrada.getKey(), pontuacao, unidade, variacao,
+                    regressao ? "  REGRESSÃO" : "");
+        }
+        if (regressoes > 0) {
+            System.out.println(regressoes + " benchmark(s) pioraram mais de " + limite + "%");
+            System.exit(1);
+        }
+    }
+
+    // Chave: nome do benchmark + parâmetros + threads, para que cada combinação seja comparada com a mesma
+    private static Map<String, JsonNode> carregar(File arquivo) throws IOException {
+        Map<String, JsonNode> resultados = new LinkedHashMap<>();
+        for (JsonNode resultado : new ObjectMapper().readTree(arquivo)) {
+            StringBuilder chave = new StringBuilder(resultado.path("benchmark").asText());
+            resultado.path("params").fields().forEachRemaining(p -> chave.append(' ').append(p.getKey()).append('=').append(p.getValue().asText()));
+            chave.append(" threads=").append(resultado.path("threads").asInt());
+            resultados.put(chave.toString(), resultado);
+        }
+        return resultados;
+    }
+}
@@ -0,0 +1,89 @@
+package app.benchmark;
+
+import app.model.Tarefa;
+import app.service.TarefaService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Vazão de escrita do TarefaService no armazém padrão (MAPA) e no particionado com uma escritora por partição,
+// com 1, 2, 4, 8 e N threads (N = núcleos da máquina). O JMH roda cada armazenamento num processo próprio, então
+// a propriedade lida pelo TarefaService na inicialização vale para o processo todo.
+//   .\gradlew jmh -PjmhInclude=EscritaTarefas
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class EscritaTarefasBenchmark {
+
+    @Param({"MAPA", "PARTICIONADO"})
+    public String armazenamento;
+
+    @Param({"100000"})
+    public int quantidade;
+
+    private TarefaService tarefaService;
+
+    @Setup
+    public void preparar() {
+        System.setProperty("app.tarefas.armazenamento", armazenamento);
+        tarefaService = new TarefaService();
+        tarefaService.resetState();
+        for (int i = 1; i <= quantidade; i++) {
+            tarefaService.adicionarTarefa(new Tarefa("Tarefa " + i, "Descrição da tarefa " + i, i % 2 == 0));
+        }
+    }
+
+    @Benchmark
+    public Tarefa atualizarTarefa() {
+        int id = ThreadLocalRandom.current().nextInt(1, quantidade + 1);
+        return tarefaService.atualizarTarefa(id, new Tarefa("Tarefa " + id, "Atualizada", true));
+    }
+
+    // Criar e excluir em par mantém o tamanho da coleção estável; inclui a alocação de IDs
+    @Benchmark
+    public boolean criarEDeletarTarefa() {
+        Tarefa criada = tarefaService.adicionarTarefa(new Tarefa("Nova", "Criada no benchmark", false));
+        return tarefaService.deletarTarefa(criada.getId());
+    }
+
+    // As leituras não passam pelas escritoras e não devem mudar entre os armazenamentos
+    @Benchmark
+    public Tarefa buscarTarefa() {
+        return tarefaService.buscarTarefaPorId(ThreadLocalRandom.current().nextInt(1, quantidade + 1));
+    }
+
+    @Threads(1)
+    public static class UmaThread extends EscritaTarefasBenchmark {
+    }
+
+    @Threads(2)
+    public static class DuasThreads extends EscritaTarefasBenchmark {
+    }
+
+    @Threads(4)
+    public static class QuatroThreads extends EscritaTarefasBenchmark {
+    }
+
+    @Threads(8)
+    public static class OitoThreads extends EscritaTarefasBenchmark {
+    }
+
+    @Threads(Threads.MAX)
+    public static class TodasAsThreads extends EscritaTarefasBenchmark {
+    }
+}
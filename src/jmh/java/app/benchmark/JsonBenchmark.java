@@ -0,0 +1,95 @@
+package app.benchmark;
+
+import app.App;
+import app.json.CodecJson;
+import app.model.Tarefa;
+import app.model.Usuario;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Serialização e desserialização de uma entidade com o mesmo ObjectMapper do App: pelo data-binding do Jackson
+// e pelo CodecJson (o caminho do MapeadorJson e do cache de JSON). Com -prof gc o JMH mostra também os bytes
+// alocados por operação (gc.alloc.rate.norm).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Tarefa tarefa;
+    private Usuario usuario;
+    private byte[] tarefaJson;
+    private byte[] usuarioJson;
+
+    @Setup
+    public void preparar() throws IOException {
+        objectMapper = App.criarObjectMapper();
+        tarefa = new Tarefa("Revisar relatório", "Conferir os números do trimestre antes da reunião", false);
+        tarefa.setId(12345);
+        usuario = new Usuario("Maria Silva", "maria.silva@example.com", 34);
+        tarefaJson = objectMapper.writeValueAsBytes(tarefa);
+        usuarioJson = objectMapper.writeValueAsBytes(usuario);
+    }
+
+    @Benchmark
+    public byte[] serializarTarefa() throws IOException {
+        return objectMapper.writeValueAsBytes(tarefa);
+    }
+
+    @Benchmark
+    public Tarefa desserializarTarefa() throws IOException {
+        return objectMapper.readValue(tarefaJson, Tarefa.class);
+    }
+
+    @Benchmark
+    public byte[] serializarUsuario() throws IOException {
+        return objectMapper.writeValueAsBytes(usuario);
+    }
+
+    @Benchmark
+    public Usuario desserializarUsuario() throws IOException {
+        return objectMapper.readValue(usuarioJson, Usuario.class);
+    }
+
+    @Benchmark
+    public byte[] serializarTarefaCodec() throws IOException {
+        return CodecJson.serializarTarefa(objectMapper, tarefa);
+    }
+
+    @Benchmark
+    public Tarefa desserializarTarefaCodec() throws IOException {
+        try (JsonParser parser = objectMapper.createParser(tarefaJson)) {
+            parser.nextToken();
+            return CodecJson.lerTarefa(parser, objectMapper);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializarUsuarioCodec() throws IOException {
+        return CodecJson.serializarUsuario(objectMapper, usuario);
+    }
+
+    @Benchmark
+    public Usuario desserializarUsuarioCodec() throws IOException {
+        try (JsonParser parser = objectMapper.createParser(usuarioJson)) {
+            parser.nextToken();
+            return CodecJson.lerUsuario(parser, objectMapper);
+        }
+    }
+}
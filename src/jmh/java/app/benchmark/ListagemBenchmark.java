@@ -0,0 +1,106 @@
+package app.benchmark;
+
+import app.App;
+import app.model.Tarefa;
+import app.service.TarefaService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// GET /tarefas em vários tamanhos de coleção: a cópia feita por listarTarefas, a serialização
+// em streaming com JsonGenerator e a concatenação dos fragmentos do cache de JSON
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListagemBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int quantidade;
+
+    private TarefaService tarefaService;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void preparar() {
+        objectMapper = App.criarObjectMapper();
+        tarefaService = new TarefaService();
+        tarefaService.resetState();
+        for (int i = 1; i <= quantidade; i++) {
+            tarefaService.adicionarTarefa(new Tarefa("Tarefa " + i, "Descrição da tarefa " + i, i % 2 == 0));
+        }
+    }
+
+    @Benchmark
+    public List<Tarefa> listarTarefas() {
+        return tarefaService.listarTarefas();
+    }
+
+    @Benchmark
+    public long serializarListaEmStreaming() throws IOException {
+        ContadorBytes saida = new ContadorBytes();
+        try (JsonGenerator gerador = objectMapper.createGenerator(saida)) {
+            gerador.writeStartArray();
+            Iterator<Tarefa> tarefas = tarefaService.percorrerTarefas(null);
+            while (tarefas.hasNext()) {
+                objectMapper.writeValue(gerador, tarefas.next());
+            }
+            gerador.writeEndArray();
+        }
+        return saida.total;
+    }
+
+    // O que o controller faz hoje: concatena o JSON de cada tarefa guardado no CacheJson do serviço
+    // (depois da primeira iteração de aquecimento, todas as leituras são acertos)
+    @Benchmark
+    public long concatenarFragmentosDoCache() throws IOException {
+        ContadorBytes saida = new ContadorBytes();
+        saida.write('[');
+        Iterator<Tarefa> tarefas = tarefaService.percorrerTarefas(null);
+        boolean primeiro = true;
+        while (tarefas.hasNext()) {
+            Tarefa tarefa = tarefas.next();
+            if (!primeiro) {
+                saida.write(',');
+            }
+            saida.write(tarefaService.getCacheJson().obter(tarefa.getId(), tarefa.getVersao(),
+                    () -> objectMapper.writeValueAsBytes(tarefa)));
+            primeiro = false;
+        }
+        saida.write(']');
+        return saida.total;
+    }
+
+    // Descarta o que é escrito, contando os bytes (o resultado evita que o JIT elimine o trabalho)
+    static final class ContadorBytes extends OutputStream {
+        long total;
+
+        @Override
+        public void write(int b) {
+            total++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            total += len;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package app.benchmark;
+
+import app.model.AlteracaoTarefa;
+import app.model.Tarefa;
+import app.model.Usuario;
+import app.service.TarefaService;
+import app.service.UsuarioService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Operações CRUD dos serviços, só em memória (sem app.dados.dir).
+// As mesmas operações rodam com 1, 4 e N threads (N = núcleos da máquina) nas subclasses abaixo.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class ServicosBenchmark {
+
+    @Param({"10000"})
+    public int quantidade;
+
+    private TarefaService tarefaService;
+    private UsuarioService usuarioService;
+
+    @Setup
+    public void preparar() {
+        tarefaService = new TarefaService();
+        usuarioService = new UsuarioService();
+        tarefaService.resetState();
+        usuarioService.resetState();
+        for (int i = 1; i <= quantidade; i++) {
+            tarefaService.adicionarTarefa(new Tarefa("Tarefa " + i, "Descrição da tarefa " + i, i % 2 == 0));
+            usuarioService.adicionarUsuario(new Usuario("Usuário " + i, email(i), 20 + i % 50));
+        }
+    }
+
+    @Benchmark
+    public Tarefa buscarTarefa() {
+        return tarefaService.buscarTarefaPorId(idAleatorio());
+    }
+
+    @Benchmark
+    public Tarefa atualizarTarefa() {
+        int id = idAleatorio();
+        return tarefaService.atualizarTarefa(id, new Tarefa("Tarefa " + id, "Atualizada", true));
+    }
+
+    // Entidade quente: todas as threads fazem PATCH na mesma tarefa (id 1), alternando os campos
+    @Benchmark
+    public Tarefa alterarTarefaConcorrida() {
+        AlteracaoTarefa alteracao = new AlteracaoTarefa();
+        if (ThreadLocalRandom.current().nextBoolean()) {
+            alteracao.setConcluida(true);
+        } else {
+            alteracao.setDescricao("Alterada");
+        }
+        return tarefaService.alterarTarefa(1, alteracao, 0);
+    }
+
+    // Criar e excluir em par mantém o tamanho da coleção estável entre as iterações
+    @Benchmark
+    public boolean criarEDeletarTarefa() {
+        Tarefa criada = tarefaService.adicionarTarefa(new Tarefa("Nova", "Criada no benchmark", false));
+        return tarefaService.deletarTarefa(criada.getId());
+    }
+
+    @Benchmark
+    public Usuario buscarUsuario() {
+        return usuarioService.buscarUsuarioPorEmail(email(idAleatorio()));
+    }
+
+    @Benchmark
+    public Usuario atualizarUsuario() {
+        int i = idAleatorio();
+        return usuarioService.atualizarUsuario(email(i), new Usuario("Usuário " + i, email(i), 30));
+    }
+
+    @Benchmark
+    public boolean criarEDeletarUsuario() {
+        String email = "bench-" + Thread.currentThread().threadId() + "-" + ThreadLocalRandom.current().nextLong() + "@example.com";
+        usuarioService.adicionarUsuario(new Usuario("Novo", email, 40));
+        return usuarioService.deletarUsuario(email);
+    }
+
+    private int idAleatorio() {
+        return ThreadLocalRandom.current().nextInt(1, quantidade + 1);
+    }
+
+    private static String email(int i) {
+        return "usuario" + i + "@example.com";
+    }
+
+    @Threads(1)
+    public static class UmaThread extends ServicosBenchmark {
+    }
+
+    @Threads(4)
+    public static class QuatroThreads extends ServicosBenchmark {
+    }
+
+    @Threads(Threads.MAX)
+    public static class TodasAsThreads extends ServicosBenchmark {
+    }
+}
@@ -1,46 +1,193 @@
 package app;
 
+import app.admissao.ControleAdmissao;
+import app.admissao.OpcoesAdmissao;
+import app.cache.CacheJson;
+import app.controller.CacheCondicional;
 import app.controller.TarefaController;
+import app.config.Configuracao;
+import app.config.ModoExecucao;
+import app.config.OpcoesServidor;
 import app.controller.UsuarioController;
+import app.eventos.FeedAlteracoes;
+import app.json.MapeadorJson;
+import app.log.OpcoesRegistro;
+import app.log.RegistroAssincrono;
+import app.metricas.MetricasHttp;
+import app.persistencia.OpcoesLog;
+import app.replicacao.CanaisReplicacao;
+import app.replicacao.LiderReplicacao;
+import app.replicacao.NoReplicacao;
+import app.replicacao.OpcoesReplicacao;
+import app.replicacao.PapelReplicacao;
+import app.replicacao.SeguidorReplicacao;
 import app.service.TarefaService;
 import app.service.UsuarioService;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.javalin.Javalin;
+import io.javalin.http.Context;
+import io.javalin.http.HandlerType;
 import io.javalin.json.JavalinJackson; 
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class App {
 
     private static final UsuarioService usuarioService = new UsuarioService();
     private static final TarefaService tarefaService = new TarefaService();
+    // Usado para medir o tempo entre o início do processo e a primeira resposta enviada
+    private static final AtomicBoolean primeiraRespostaEnviada = new AtomicBoolean();
+    // Log das requisições, escrito por uma thread própria (veja RegistroAssincrono)
+    private static final RegistroAssincrono registroRequisicoes =
+            RegistroAssincrono.iniciar(OpcoesRegistro.daConfiguracao(), System.out);
+    // Latências e contadores por rota, expostos em GET /metrics
+    private static final MetricasHttp metricas = new MetricasHttp();
+    // Corpos maiores que isso não são relidos para o log (as rotas de lote leem o corpo em streaming)
+    private static final long CORPO_MAXIMO_RELIDO = 1024 * 1024;
+    // Lado da replicação que roda neste servidor (null = independente) e, num seguidor, o endereço HTTP do líder
+    private static volatile NoReplicacao replicacao;
+    private static volatile String liderHttp;
 
     public static void resetState() {
         usuarioService.resetState();
         tarefaService.resetState();
     }
 
-    public static Javalin createApp() {
+    // Com app.dados.dir configurado, usuários e tarefas passam a ser gravados em disco (write-ahead log)
+    public static void iniciarPersistencia() throws IOException {
+        Path dados = Configuracao.diretorioDados();
+        if (dados == null) {
+            return;
+        }
+        OpcoesLog opcoes = OpcoesLog.daConfiguracao();
+        long inicio = System.nanoTime();
+        usuarioService.ativarPersistencia(dados, opcoes);
+        tarefaService.ativarPersistencia(dados, opcoes);
+        System.out.printf("Dados carregados em %d ms: %d usuários, %d tarefas%n",
+                (System.nanoTime() - inicio) / 1_000_000, usuarioService.contarUsuarios(), tarefaService.contarTarefas());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                usuarioService.encerrarPersistencia();
+                tarefaService.encerrarPersistencia();
+            } catch (IOException e) {
+                System.err.println("Erro ao fechar o log: " + e.getMessage());
+            }
+        }));
+        System.out.println("Persistência ativa em " + dados.toAbsolutePath() + " (modo " + opcoes.getModo() + ")");
+    }
+
+    // Com app.replicacao.papel = LIDER ou SEGUIDOR, liga a replicação entre servidores (veja app.replicacao)
+    public static void iniciarReplicacao() throws IOException {
+        iniciarReplicacao(OpcoesReplicacao.daConfiguracao());
+    }
+
+    public static void iniciarReplicacao(OpcoesReplicacao opcoes) throws IOException {
+        switch (opcoes.getPapel()) {
+            case LIDER -> {
+                LiderReplicacao lider = LiderReplicacao.iniciar(opcoes, CanaisReplicacao.dos(tarefaService, usuarioService));
+                replicacao = lider;
+                CacheCondicional.seguirReplicacao(lider);
+                System.out.println("Replicação: líder aceitando seguidores na porta " + lider.getPorta());
+            }
+            case SEGUIDOR -> {
+                SeguidorReplicacao seguidor = SeguidorReplicacao.iniciar(opcoes,
+                        CanaisReplicacao.dos(tarefaService, usuarioService));
+                replicacao = seguidor;
+                CacheCondicional.seguirReplicacao(seguidor);
+                liderHttp = opcoes.getLiderHttp();
+                System.out.println("Replicação: seguidor de " + opcoes.getLider() + ", escritas redirecionadas para "
+                        + liderHttp);
+            }
+            case INDEPENDENTE -> {
+            }
+        }
+    }
+
+    public static void encerrarReplicacao() throws IOException {
+        NoReplicacao atual = replicacao;
+        replicacao = null;
+        liderHttp = null;
+        CacheCondicional.seguirReplicacao(null);
+        if (atual != null) {
+            atual.close();
+        }
+    }
+
+    // ObjectMapper usado pelo Javalin e pelos controllers (streaming de listas)
+    public static ObjectMapper criarObjectMapper() {
         ObjectMapper customObjectMapper = new ObjectMapper();
         customObjectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        return customObjectMapper;
+    }
+
+    public static Javalin createApp() {
+        return createApp(OpcoesServidor.daConfiguracao());
+    }
+
+    public static Javalin createApp(OpcoesServidor opcoesServidor) {
+        return createApp(opcoesServidor, OpcoesAdmissao.daConfiguracao());
+    }
+
+    public static Javalin createApp(OpcoesServidor opcoesServidor, OpcoesAdmissao opcoesAdmissao) {
+        ObjectMapper customObjectMapper = criarObjectMapper();
+        // Tokens por cliente, limite de concorrência e descarte de carga (veja ControleAdmissao); um por servidor
+        ControleAdmissao admissao = new ControleAdmissao(opcoesAdmissao);
 
         Javalin app = Javalin.create(config -> {
-            config.jsonMapper(new JavalinJackson(customObjectMapper, true)); 
+            // Tarefa, Usuario e listas deles pelo CodecJson; o resto pelo JavalinJackson com o mesmo ObjectMapper
+            config.jsonMapper(new MapeadorJson(customObjectMapper, new JavalinJackson(customObjectMapper, true)));
             config.router.ignoreTrailingSlashes = true; 
             config.showJavalinBanner = false; 
 
+            if (opcoesServidor.getModo() == ModoExecucao.VIRTUAL) {
+                config.useVirtualThreads = true; // o Javalin troca o pool do Jetty por uma thread virtual por tarefa
+            } else {
+                QueuedThreadPool pool = new QueuedThreadPool(opcoesServidor.getThreadsMax(),
+                        opcoesServidor.getThreadsMin(), opcoesServidor.getOciosoMs());
+                pool.setName("jetty-http");
+                config.jetty.threadPool = pool;
+            }
+            if (opcoesServidor.getAcceptors() >= 0 || opcoesServidor.getSelectors() >= 0) {
+                // Conector próprio só para fixar acceptors/selectors; porta e host continuam vindo de start()
+                config.jetty.addConnector((servidor, configuracaoHttp) -> {
+                    ServerConnector conector = new ServerConnector(servidor, opcoesServidor.getAcceptors(),
+                            opcoesServidor.getSelectors(), new HttpConnectionFactory(configuracaoHttp));
+                    conector.setPort(config.jetty.defaultPort);
+                    conector.setHost(config.jetty.defaultHost);
+                    return conector;
+                });
+            }
+
             config.requestLogger.http((ctx, executionTimeMs) -> {
-                System.out.println(">>> Requisição Recebida: " + ctx.method() + " " + ctx.path() + " | Tempo: " + executionTimeMs + "ms");
-                if ((ctx.method().equals("POST") || ctx.method().equals("PUT")) && ctx.body().length() > 0) { 
-                    System.out.println("    Corpo da Requisição: " + ctx.body());
-                }
+                admissao.liberar(ctx); // devolve a vaga antes do registro, que não precisa dela
+                registrarRequisicao(ctx, executionTimeMs);
             });
         }); 
 
-        app.after(ctx -> {
-            System.out.println("<<< Resposta Enviada: " + ctx.method() + " " + ctx.path() + " | Status: " + ctx.status());
+        UsuarioController usuarioController = new UsuarioController(usuarioService, customObjectMapper);
+        TarefaController tarefaController = new TarefaController(tarefaService, customObjectMapper);
+
+        app.before(metricas::iniciar);
+        // Depois das métricas, para que as recusas (429 e 503) também apareçam nelas
+        app.before(App::redirecionarEscrita);
+        app.before(admissao::admitir);
+        app.get("/metrics", ctx -> ctx.contentType("text/plain; version=0.0.4; charset=utf-8")
+                .result(metricas.exportar() + CacheJson.exportar(tarefaService.getCacheJson(), usuarioService.getCacheJson(),
+                        tarefaController.getCacheListas(), usuarioController.getCacheListas())
+                        + FeedAlteracoes.exportar(tarefaService.getFeed(), usuarioService.getFeed()) + admissao.exportar()
+                        + (replicacao == null ? "" : replicacao.exportar())));
+        app.get("/replicacao", ctx -> {
+            NoReplicacao atual = replicacao;
+            ctx.json(atual == null ? Map.of("papel", PapelReplicacao.INDEPENDENTE) : atual.status());
         });
 
         app.get("/hello", ctx -> ctx.result("Olá, Javalin!"));
@@ -55,19 +202,67 @@ public class App {
             ctx.json(Map.of("mensagem", "Olá, " + nome + "!"));
         });
 
-        new UsuarioController(usuarioService).registrarEndpoints(app);
-        new TarefaController(tarefaService).registrarEndpoints(app);
+        usuarioController.registrarEndpoints(app);
+        tarefaController.registrarEndpoints(app);
 
         return app; 
     }
 
-    public static void main(String[] args) {
-        Javalin app = createApp(); 
-        app.start(7000); 
-        System.out.println("Servidor Javalin iniciado na porta 7000.");
-        System.out.println("Acesse: http://localhost:7000/hello");
+    // Num seguidor, as escritas de tarefas e usuários vão para o líder; o 307 faz o cliente repetir método e corpo
+    private static void redirecionarEscrita(Context ctx) {
+        String lider = liderHttp;
+        HandlerType metodo = ctx.method();
+        if (lider == null || !(metodo == HandlerType.POST || metodo == HandlerType.PUT || metodo == HandlerType.PATCH
+                || metodo == HandlerType.DELETE)) {
+            return;
+        }
+        String caminho = ctx.path();
+        if (!caminho.startsWith("/tarefas") && !caminho.startsWith("/usuarios")) {
+            return;
+        }
+        String consulta = ctx.queryString();
+        ctx.header("Location", lider + caminho + (consulta == null ? "" : "?" + consulta));
+        ctx.status(307).result("Este servidor é um seguidor; escritas vão para o líder em " + lider);
+        ctx.skipRemainingHandlers();
+    }
+
+    // Chamado pelo Javalin ao fim de cada requisição, já com o status da resposta
+    private static void registrarRequisicao(Context ctx, Float executionTimeMs) {
+        metricas.registrar(ctx, executionTimeMs);
+        if (primeiraRespostaEnviada.compareAndSet(false, true)) {
+            System.out.println("Primeira requisição atendida " + ManagementFactory.getRuntimeMXBean().getUptime()
+                    + " ms após o início da JVM");
+        }
+        int status = ctx.statusCode();
+        if (!registroRequisicoes.deveRegistrar(status)) {
+            return;
+        }
+        HandlerType metodo = ctx.method();
+        StringBuilder linha = new StringBuilder(128)
+                .append(">>> ").append(metodo).append(' ').append(ctx.path())
+                .append(" | Status: ").append(status)
+                .append(" | Tempo: ").append(executionTimeMs).append("ms");
+        long tamanhoCorpo = ctx.contentLength();
+        if ((metodo == HandlerType.POST || metodo == HandlerType.PUT || metodo == HandlerType.PATCH)
+                && registroRequisicoes.getOpcoes().getCorpoMaximo() > 0
+                && tamanhoCorpo > 0 && tamanhoCorpo <= CORPO_MAXIMO_RELIDO) {
+            // O Javalin guarda o corpo já lido pelo handler, então isso não relê a requisição
+            linha.append(" | Corpo: ").append(registroRequisicoes.resumirCorpo(ctx.bodyAsBytes()));
+        }
+        registroRequisicoes.registrar(linha.toString());
+    }
+
+    public static void main(String[] args) throws IOException {
+        Runtime.getRuntime().addShutdownHook(new Thread(registroRequisicoes::close));
+        iniciarPersistencia();
+        iniciarReplicacao();
+        OpcoesServidor opcoesServidor = OpcoesServidor.daConfiguracao();
+        Javalin app = createApp(opcoesServidor); 
+        app.start(Configuracao.inteiro("app.servidor.porta", 7000)); 
+        System.out.println("Servidor Javalin iniciado na porta " + app.port() + " (threads " + opcoesServidor.getModo() + ").");
+        System.out.println("Acesse: http://localhost:" + app.port() + "/hello");
         // CORRIGIDO: O caractere de escape '\' foi escapado com '\\'
-        System.out.println("Endpoints disponíveis: /hello, /status, /echo, /saudacao/{nome}, /usuarios (CRUD), /tarefas (CRUD)");
+        System.out.println("Endpoints disponíveis: /hello, /status, /echo, /saudacao/{nome}, /usuarios (CRUD), /tarefas (CRUD), /metrics, /replicacao");
         System.out.println("Para testar o cliente Java, execute '.\\gradlew runClient' em um novo terminal."); 
     }
 }
\ No newline at end of file
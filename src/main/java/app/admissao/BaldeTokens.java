@@ -0,0 +1,40 @@
+package app.admissao;
+
+// Balde de tokens de um cliente: enche a 'taxa' tokens por segundo até 'capacidade', e cada requisição gasta
+// o seu custo. O tempo vem de fora (System.nanoTime) para os testes controlarem o relógio.
+class BaldeTokens {
+    private final double tokensPorNano;
+    private final double capacidade;
+    private double tokens;
+    private long atualizadoEm;
+
+    BaldeTokens(double taxaPorSegundo, double capacidade, long agora) {
+        this.tokensPorNano = taxaPorSegundo / 1_000_000_000.0;
+        this.capacidade = capacidade;
+        this.tokens = capacidade;
+        this.atualizadoEm = agora;
+    }
+
+    // Gasta 'custo' tokens se houver; senão não gasta nada e devolve quantos nanossegundos faltam para haver
+    synchronized long consumir(double custo, long agora) {
+        repor(agora);
+        if (tokens >= custo) {
+            tokens -= custo;
+            return 0;
+        }
+        return (long) Math.ceil((custo - tokens) / tokensPorNano);
+    }
+
+    // Um balde cheio não guarda nada que um novo não teria; pode ser descartado
+    synchronized boolean cheio(long agora) {
+        repor(agora);
+        return tokens >= capacidade;
+    }
+
+    private void repor(long agora) {
+        if (agora > atualizadoEm) {
+            tokens = Math.min(capacidade, tokens + (agora - atualizadoEm) * tokensPorNano);
+            atualizadoEm = agora;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package app.admissao;
+
+import io.javalin.http.Context;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Controle de admissão na frente das rotas (app.before), em três etapas:
+//   1. tokens por cliente (IP): quem passa da sua taxa recebe 429 com Retry-After, sem ocupar o servidor;
+//   2. limite de requisições simultâneas, ajustado pela latência (LimiteAdaptativo); sem vaga, a requisição espera;
+//   3. descarte: se a espera passa de atrasoMaximoMs, ou a fila já está cheia, responde 503 com Retry-After.
+// Assim, numa sobrecarga parte das requisições é recusada logo e o restante continua rápido, em vez de todas
+// ficarem lentas juntas. As rotas essenciais (Prioridade.ESSENCIAL) não passam por nada disso, e os lotes gastam
+// mais tokens e só ocupam parte do limite.
+//
+// A vaga é devolvida em liberar, chamado pelo requestLogger do Javalin ao fim de cada requisição.
+public class ControleAdmissao {
+    // Atributo da requisição com o instante (nanoTime) em que ela ganhou a vaga; ausente se não ocupou vaga
+    private static final String ATRIBUTO_VAGA = "admissao.vaga";
+    // Acima disso, os baldes cheios (clientes parados) são descartados na próxima requisição de um cliente novo
+    private static final int CLIENTES_MAXIMO = 10_000;
+
+    private final OpcoesAdmissao opcoes;
+    private final LimiteAdaptativo limite;
+    private final Map<String, BaldeTokens> baldes = new ConcurrentHashMap<>();
+    private final ReentrantLock trava = new ReentrantLock();
+    private final Condition vagaLiberada = trava.newCondition();
+    private int emUso;
+    private int emUsoLote;
+    private int esperando;
+    private final LongAdder recusadasPorTaxa = new LongAdder();
+    private final LongAdder descartadasPorAtraso = new LongAdder();
+    private final LongAdder descartadasPorFila = new LongAdder();
+
+    public ControleAdmissao(OpcoesAdmissao opcoes) {
+        this.opcoes = opcoes;
+        this.limite = new LimiteAdaptativo(opcoes.getLimiteInicial(), opcoes.getLimiteMinimo(),
+                opcoes.getLimiteMaximo(), opcoes.getTolerancia(), TimeUnit.MILLISECONDS.toNanos(opcoes.getFolgaMs()));
+    }
+
+    // Chamado antes de cada requisição (app.before). Recusando, já deixa a resposta pronta e pula os demais handlers
+    public void admitir(Context ctx) {
+        if (!opcoes.isAtiva()) {
+            return;
+        }
+        Prioridade prioridade = Prioridade.doCaminho(ctx.path());
+        if (prioridade == Prioridade.ESSENCIAL) {
+            return;
+        }
+        long espera = consumirTokens(ctx.ip(), prioridade, System.nanoTime());
+        if (espera > 0) {
+            recusar(ctx, 429, espera, "Limite de requisições do cliente excedido");
+            return;
+        }
+        if (prioridade == Prioridade.FLUXO) {
+            return;
+        }
+        if (!ocupar(prioridade)) {
+            recusar(ctx, 503, TimeUnit.MILLISECONDS.toNanos(opcoes.getAtrasoMaximoMs()), "Servidor sobrecarregado");
+            return;
+        }
+        ctx.attribute(ATRIBUTO_VAGA, System.nanoTime());
+    }
+
+    // Chamado ao fim de cada requisição (requestLogger); só devolve vaga se admitir a ocupou
+    public void liberar(Context ctx) {
+        Long admitidaEm = ctx.attribute(ATRIBUTO_VAGA);
+        if (admitidaEm != null) {
+            ctx.attribute(ATRIBUTO_VAGA, null);
+            desocupar(Prioridade.doCaminho(ctx.path()), System.nanoTime() - admitidaEm);
+        }
+    }
+
+    private static void recusar(Context ctx, int status, long esperaNanos, String mensagem) {
+        long segundos = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(esperaNanos + 999_999_999));
+        ctx.header("Retry-After", Long.toString(segundos));
+        ctx.status(status).result(mensagem);
+        ctx.skipRemainingHandlers();
+    }
+
+    // Gasta os tokens da requisição no balde do cliente; devolve 0 se havia, senão quantos nanos faltam
+    long consumirTokens(String cliente, Prioridade prioridade, long agora) {
+        if (opcoes.getTaxaPorCliente() <= 0) {
+            return 0;
+        }
+        BaldeTokens balde = baldes.get(cliente);
+        if (balde == null) {
+            if (baldes.size() >= CLIENTES_MAXIMO) {
+                baldes.values().removeIf(outro -> outro.cheio(agora));
+            }
+            balde = baldes.computeIfAbsent(cliente,
+                    c -> new BaldeTokens(opcoes.getTaxaPorCliente(), opcoes.getRajadaPorCliente(), agora));
+        }
+        double custo = prioridade == Prioridade.LOTE
+                ? Math.min(opcoes.getCustoLote(), opcoes.getRajadaPorCliente()) : 1;
+        long espera = balde.consumir(custo, agora);
+        if (espera > 0) {
+            recusadasPorTaxa.increment();
+        }
+        return espera;
+    }
+
+    // Espera uma vaga por até atrasoMaximoMs; false se o prazo passou ou a fila estava cheia
+    boolean ocupar(Prioridade prioridade) {
+        long prazo = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(opcoes.getAtrasoMaximoMs());
+        trava.lock();
+        try {
+            while (!haVaga(prioridade)) {
+                if (esperando >= opcoes.getFilaMaxima()) {
+                    descartadasPorFila.increment();
+                    return false;
+                }
+                long restante = prazo - System.nanoTime();
+                if (restante <= 0) {
+                    descartadasPorAtraso.increment();
+                    return false;
+                }
+                esperando++;
+                try {
+                    vagaLiberada.awaitNanos(restante);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    descartadasPorAtraso.increment();
+                    return false;
+                } finally {
+                    esperando--;
+                }
+            }
+            emUso++;
+            if (prioridade == Prioridade.LOTE) {
+                emUsoLote++;
+            }
+            return true;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    private boolean haVaga(Prioridade prioridade) {
+        int atual = limite.getLimite();
+        if (emUso >= atual) {
+            return false;
+        }
+        return prioridade != Prioridade.LOTE || emUsoLote < Math.max(1, (int) (atual * opcoes.getFracaoLote()));
+    }
+
+    // Devolve a vaga. A latência dos lotes não entra no limite: eles são lentos por natureza, não por haver fila
+    void desocupar(Prioridade prioridade, long latencia) {
+        int ocupadas;
+        trava.lock();
+        try {
+            ocupadas = emUso;
+            emUso--;
+            if (prioridade == Prioridade.LOTE) {
+                emUsoLote--;
+            }
+            // Todas: quem espera por um lote pode não caber no limite dos lotes, e um signal acordaria só ele
+            vagaLiberada.signalAll();
+        } finally {
+            trava.unlock();
+        }
+        if (prioridade != Prioridade.LOTE) {
+            limite.registrar(latencia, ocupadas, System.nanoTime());
+        }
+    }
+
+    public int getLimite() {
+        return limite.getLimite();
+    }
+
+    // Texto no formato de exposição do Prometheus, anexado ao GET /metrics
+    public String exportar() {
+        int ocupadas;
+        int fila;
+        trava.lock();
+        try {
+            ocupadas = emUso;
+            fila = esperando;
+        } finally {
+            trava.unlock();
+        }
+        return "# HELP admissao_limite Requisições simultâneas admitidas no momento (ajustado pela latência)\n"
+                + "# TYPE admissao_limite gauge\n"
+                + "admissao_limite " + limite.getLimite() + '\n'
+                + "# HELP admissao_em_uso Requisições ocupando vaga\n"
+                + "# TYPE admissao_em_uso gauge\n"
+                + "admissao_em_uso " + ocupadas + '\n'
+                + "# HELP admissao_fila Requisições esperando vaga\n"
+                + "# TYPE admissao_fila gauge\n"
+                + "admissao_fila " + fila + '\n'
+                + "# HELP admissao_recusadas_total Requisições recusadas pelo controle de admissão\n"
+                + "# TYPE admissao_recusadas_total counter\n"
+                + "admissao_recusadas_total{motivo=\"taxa\"} " + recusadasPorTaxa.sum() + '\n'
+                + "admissao_recusadas_total{motivo=\"atraso\"} " + descartadasPorAtraso.sum() + '\n'
+                + "admissao_recusadas_total{motivo=\"fila\"} " + descartadasPorFila.sum() + '\n';
+    }
+}
@@ -0,0 +1,53 @@
+package app.admissao;
+
+// Limite de requisições simultâneas que acompanha a latência (AIMD, como o controle de congestionamento do TCP).
+// A referência é a menor latência vista na janela anterior de amostras: enquanto as respostas ficam perto dela,
+// o limite sobe devagar (+1 a cada 'limite' respostas, se ele está sendo usado); quando uma resposta passa de
+// tolerancia × referência + folga, há fila dentro do servidor e o limite cai 10%, no máximo uma vez por latência
+// observada, para que uma rajada de respostas lentas não o derrube de uma vez.
+class LimiteAdaptativo {
+    // Amostras por janela; ao fim de cada uma, a menor latência dela vira a referência da seguinte
+    static final int JANELA = 500;
+    private static final double REDUCAO = 0.9;
+
+    private final int minimo;
+    private final int maximo;
+    private final double tolerancia;
+    private final long folgaNanos;
+    private double limite;
+    private long referencia = Long.MAX_VALUE;
+    private long menorDaJanela = Long.MAX_VALUE;
+    private int amostrasDaJanela;
+    private long ultimaReducao = Long.MIN_VALUE;
+
+    LimiteAdaptativo(int inicial, int minimo, int maximo, double tolerancia, long folgaNanos) {
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.tolerancia = tolerancia;
+        this.folgaNanos = folgaNanos;
+        this.limite = Math.max(minimo, Math.min(maximo, inicial));
+    }
+
+    synchronized int getLimite() {
+        return (int) limite;
+    }
+
+    // latencia: do fim da espera por vaga até a resposta; emUso: requisições ocupando vaga quando esta terminou
+    synchronized void registrar(long latencia, int emUso, long agora) {
+        menorDaJanela = Math.min(menorDaJanela, latencia);
+        if (++amostrasDaJanela >= JANELA) {
+            referencia = menorDaJanela;
+            menorDaJanela = Long.MAX_VALUE;
+            amostrasDaJanela = 0;
+        }
+        long base = Math.min(referencia, menorDaJanela);
+        if (latencia > base * tolerancia + folgaNanos) {
+            if (ultimaReducao == Long.MIN_VALUE || agora - ultimaReducao >= latencia) {
+                limite = Math.max(minimo, limite * REDUCAO);
+                ultimaReducao = agora;
+            }
+        } else if (emUso * 2 >= limite) {
+            limite = Math.min(maximo, limite + 1 / limite);
+        }
+    }
+}
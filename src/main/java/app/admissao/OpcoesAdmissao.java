@@ -0,0 +1,110 @@
+package app.admissao;
+
+import app.config.Configuracao;
+
+// Opções do controle de admissão, lidas de app.admissao.* (veja Configuracao)
+public class OpcoesAdmissao {
+    private final boolean ativa;
+    private final double taxaPorCliente;
+    private final double rajadaPorCliente;
+    private final double custoLote;
+    private final int limiteInicial;
+    private final int limiteMinimo;
+    private final int limiteMaximo;
+    private final double tolerancia;
+    private final int folgaMs;
+    private final double fracaoLote;
+    private final int atrasoMaximoMs;
+    private final int filaMaxima;
+
+    public OpcoesAdmissao(boolean ativa, double taxaPorCliente, double rajadaPorCliente, double custoLote,
+                          int limiteInicial, int limiteMinimo, int limiteMaximo, double tolerancia, int folgaMs,
+                          double fracaoLote, int atrasoMaximoMs, int filaMaxima) {
+        this.ativa = ativa;
+        this.taxaPorCliente = taxaPorCliente;
+        this.rajadaPorCliente = rajadaPorCliente;
+        this.custoLote = custoLote;
+        this.limiteInicial = limiteInicial;
+        this.limiteMinimo = limiteMinimo;
+        this.limiteMaximo = limiteMaximo;
+        this.tolerancia = tolerancia;
+        this.folgaMs = folgaMs;
+        this.fracaoLote = fracaoLote;
+        this.atrasoMaximoMs = atrasoMaximoMs;
+        this.filaMaxima = filaMaxima;
+    }
+
+    public static OpcoesAdmissao daConfiguracao() {
+        return new OpcoesAdmissao(
+                Configuracao.booleano("app.admissao.ativa", true),
+                Configuracao.decimal("app.admissao.taxaPorCliente", 1000),
+                Configuracao.decimal("app.admissao.rajadaPorCliente", 2000),
+                Configuracao.decimal("app.admissao.custoLote", 50),
+                Configuracao.inteiro("app.admissao.limiteInicial", 64),
+                Configuracao.inteiro("app.admissao.limiteMinimo", 16),
+                Configuracao.inteiro("app.admissao.limiteMaximo", 1024),
+                Configuracao.decimal("app.admissao.tolerancia", 2.0),
+                Configuracao.inteiro("app.admissao.folgaMs", 5),
+                Configuracao.decimal("app.admissao.fracaoLote", 0.5),
+                Configuracao.inteiro("app.admissao.atrasoMaximoMs", 100),
+                Configuracao.inteiro("app.admissao.filaMaxima", 1000));
+    }
+
+    // false deixa passar tudo, sem tokens nem limite de concorrência
+    public boolean isAtiva() {
+        return ativa;
+    }
+
+    // Requisições por segundo que cada cliente (IP) pode manter; 0 desliga os tokens por cliente
+    public double getTaxaPorCliente() {
+        return taxaPorCliente;
+    }
+
+    // Tokens acumulados no máximo por cliente: quanto ele pode gastar de uma vez depois de ficar parado
+    public double getRajadaPorCliente() {
+        return rajadaPorCliente;
+    }
+
+    // Tokens gastos por um POST .../batch (limitado à rajada)
+    public double getCustoLote() {
+        return custoLote;
+    }
+
+    // Requisições simultâneas no início; daí em diante o limite segue a latência observada
+    public int getLimiteInicial() {
+        return limiteInicial;
+    }
+
+    public int getLimiteMinimo() {
+        return limiteMinimo;
+    }
+
+    public int getLimiteMaximo() {
+        return limiteMaximo;
+    }
+
+    // Uma resposta mais lenta que tolerancia × a menor latência recente (mais a folga) indica fila no servidor
+    public double getTolerancia() {
+        return tolerancia;
+    }
+
+    // Folga somada ao limiar, para que oscilações de poucos milissegundos em rotas muito rápidas não derrubem o limite
+    public int getFolgaMs() {
+        return folgaMs;
+    }
+
+    // Fração do limite de concorrência que as requisições de lote podem ocupar
+    public double getFracaoLote() {
+        return fracaoLote;
+    }
+
+    // Espera máxima por uma vaga; passou disso, a requisição é descartada com 503 e Retry-After
+    public int getAtrasoMaximoMs() {
+        return atrasoMaximoMs;
+    }
+
+    // Requisições esperando vaga ao mesmo tempo; com a fila cheia, as novas recebem 503 na hora
+    public int getFilaMaxima() {
+        return filaMaxima;
+    }
+}
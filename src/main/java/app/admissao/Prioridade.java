@@ -0,0 +1,20 @@
+package app.admissao;
+
+// Como o controle de admissão trata cada requisição, conforme o caminho
+public enum Prioridade {
+    ESSENCIAL, // /status, /hello, /metrics e /replicacao: sempre atendidas, sem token nem vaga, para o servidor continuar observável
+    NORMAL,    // leituras e escritas comuns: um token do cliente e uma vaga do limite de concorrência
+    LOTE,      // POST .../batch: custam mais tokens e só usam parte do limite, para não tomar as vagas das demais
+    FLUXO;     // GET .../changes (SSE): um token para abrir, mas sem vaga, porque a conexão fica aberta sem ocupar thread
+
+    public static Prioridade doCaminho(String caminho) {
+        if (caminho.equals("/status") || caminho.equals("/hello") || caminho.equals("/metrics")
+                || caminho.equals("/replicacao")) {
+            return ESSENCIAL;
+        }
+        if (caminho.endsWith("/changes")) {
+            return FLUXO;
+        }
+        return caminho.endsWith("/batch") ? LOTE : NORMAL;
+    }
+}
@@ -0,0 +1,206 @@
+package app.cache;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+// Cache dos bytes UTF-8 do JSON de cada entidade, para que as leituras não passem pelo Jackson.
+// Cada entrada guarda a versão da entidade que a gerou e só é servida para essa mesma versão: uma
+// leitura concorrente que grave o JSON antigo depois da invalidação nunca faz um dado velho sair.
+// A memória é limitada por bytesMaximo; acima dele, a política de despejo escolhe quem sai.
+public class CacheJson<K> {
+
+    // Custo estimado de cada entrada além dos bytes do JSON (objetos, cabeçalho do array, nós do mapa e da fila)
+    static final int CUSTO_ENTRADA = 96;
+    // Entradas invalidadas que podem ficar esquecidas na fila antes de uma limpeza
+    private static final int FOLGA_FILA = 1024;
+
+    @FunctionalInterface
+    public interface Serializador {
+        byte[] serializar() throws IOException;
+    }
+
+    private static final class Entrada<K> {
+        final K chave;
+        final long versao;
+        final byte[] json;
+        // Marcada a cada acerto; na SEGUNDA_CHANCE, a entrada lida desde a última passada volta para o fim da fila
+        volatile boolean lida;
+
+        Entrada(K chave, long versao, byte[] json) {
+            this.chave = chave;
+            this.versao = versao;
+            this.json = json;
+        }
+
+        long custo() {
+            return json.length + CUSTO_ENTRADA;
+        }
+    }
+
+    private final String nome;
+    private final OpcoesCache opcoes;
+    private final ConcurrentHashMap<K, Entrada<K>> entradas = new ConcurrentHashMap<>();
+    // Ordem de chegada usada no despejo. Entradas invalidadas ficam aqui até chegarem à frente ou até uma limpeza
+    private final ConcurrentLinkedQueue<Entrada<K>> fila = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger tamanhoFila = new AtomicInteger();
+    private final AtomicBoolean limpandoFila = new AtomicBoolean();
+    private final AtomicLong bytes = new AtomicLong();
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder faltas = new LongAdder();
+    private final LongAdder despejos = new LongAdder();
+
+    public CacheJson(String nome, OpcoesCache opcoes) {
+        this.nome = nome;
+        this.opcoes = opcoes;
+    }
+
+    // Devolve o JSON da versão pedida, serializando e guardando quando ela ainda não está no cache
+    public byte[] obter(K chave, long versao, Serializador serializador) throws IOException {
+        Entrada<K> entrada = entradas.get(chave);
+        if (entrada != null && entrada.versao == versao) {
+            if (!entrada.lida) {
+                entrada.lida = true; // Só escreve quando muda, para leituras simultâneas não disputarem a linha de cache
+            }
+            acertos.increment();
+            return entrada.json;
+        }
+        faltas.increment();
+        byte[] json = serializador.serializar();
+        guardar(chave, versao, json);
+        return json;
+    }
+
+    // Chamado pelos serviços a cada atualização ou exclusão da entidade
+    public void invalidar(K chave) {
+        Entrada<K> removida = entradas.remove(chave);
+        if (removida != null) {
+            bytes.addAndGet(-removida.custo());
+            if (tamanhoFila.get() > 2 * entradas.size() + FOLGA_FILA) {
+                limparFila();
+            }
+        }
+    }
+
+    public void limpar() {
+        for (K chave : entradas.keySet()) {
+            invalidar(chave);
+        }
+    }
+
+    private void guardar(K chave, long versao, byte[] json) {
+        Entrada<K> nova = new Entrada<>(chave, versao, json);
+        if (nova.custo() > opcoes.getBytesMaximo()) {
+            return; // Cache desligado (limite 0) ou entrada maior que o cache inteiro
+        }
+        Entrada<K> resultado = entradas.compute(chave, (k, atual) -> {
+            if (atual != null && atual.versao >= versao) {
+                return atual; // Outra leitura já guardou esta versão, ou uma escrita já trouxe uma mais nova
+            }
+            bytes.addAndGet(nova.custo() - (atual != null ? atual.custo() : 0));
+            return nova;
+        });
+        if (resultado == nova) {
+            fila.add(nova);
+            tamanhoFila.incrementAndGet();
+            despejar();
+        }
+    }
+
+    // Tira entradas da frente da fila até a memória voltar ao limite
+    private void despejar() {
+        long limite = opcoes.getBytesMaximo();
+        // Na SEGUNDA_CHANCE cada entrada pode voltar uma vez por passada; duas voltas completas bastam
+        int tentativas = 2 * tamanhoFila.get() + 1;
+        while (bytes.get() > limite && tentativas-- > 0) {
+            Entrada<K> entrada = fila.poll();
+            if (entrada == null) {
+                return;
+            }
+            tamanhoFila.decrementAndGet();
+            if (entradas.get(entrada.chave) != entrada) {
+                continue; // Já invalidada ou substituída: os bytes já foram descontados
+            }
+            if (opcoes.getPolitica() == PoliticaDespejo.SEGUNDA_CHANCE && entrada.lida) {
+                entrada.lida = false;
+                fila.add(entrada);
+                tamanhoFila.incrementAndGet();
+                continue;
+            }
+            if (entradas.remove(entrada.chave, entrada)) {
+                bytes.addAndGet(-entrada.custo());
+                despejos.increment();
+            }
+        }
+    }
+
+    // Remove da fila as entradas que já saíram do mapa, para a fila não crescer com atualizações repetidas
+    private void limparFila() {
+        if (!limpandoFila.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Iterator<Entrada<K>> iterador = fila.iterator();
+            while (iterador.hasNext()) {
+                Entrada<K> entrada = iterador.next();
+                if (entradas.get(entrada.chave) != entrada) {
+                    iterador.remove();
+                    tamanhoFila.decrementAndGet();
+                }
+            }
+        } finally {
+            limpandoFila.set(false);
+        }
+    }
+
+    public long getAcertos() {
+        return acertos.sum();
+    }
+
+    public long getFaltas() {
+        return faltas.sum();
+    }
+
+    public long getDespejos() {
+        return despejos.sum();
+    }
+
+    // Memória estimada ocupada pelas entradas, sempre perto de bytesMaximo ou abaixo dele
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public int getEntradas() {
+        return entradas.size();
+    }
+
+    // Formato de texto do Prometheus, uma série por cache, acrescentado à saída de GET /metrics
+    public static String exportar(CacheJson<?>... caches) {
+        StringBuilder saida = new StringBuilder();
+        serie(saida, "json_cache_hits_total", "counter", "Leituras servidas com o JSON já serializado", caches,
+                CacheJson::getAcertos);
+        serie(saida, "json_cache_misses_total", "counter", "Leituras que precisaram serializar a entidade", caches,
+                CacheJson::getFaltas);
+        serie(saida, "json_cache_evictions_total", "counter", "Entradas removidas para respeitar o limite de memória",
+                caches, CacheJson::getDespejos);
+        serie(saida, "json_cache_bytes", "gauge", "Memória estimada ocupada pelo cache", caches, CacheJson::getBytes);
+        serie(saida, "json_cache_entries", "gauge", "Entidades com JSON em cache", caches, CacheJson::getEntradas);
+        return saida.toString();
+    }
+
+    private static void serie(StringBuilder saida, String metrica, String tipo, String descricao, CacheJson<?>[] caches,
+                              ToLongFunction<CacheJson<?>> valor) {
+        saida.append("# HELP ").append(metrica).append(' ').append(descricao).append('\n');
+        saida.append("# TYPE ").append(metrica).append(' ').append(tipo).append('\n');
+        for (CacheJson<?> cache : caches) {
+            saida.append(metrica).append("{cache=\"").append(cache.nome).append("\"} ")
+                    .append(valor.applyAsLong(cache)).append('\n');
+        }
+    }
+}
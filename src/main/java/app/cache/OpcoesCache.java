@@ -0,0 +1,29 @@
+package app.cache;
+
+import app.config.Configuracao;
+
+// Opções do cache de JSON serializado, lidas de app.cache.* (veja Configuracao)
+public class OpcoesCache {
+    private final long bytesMaximo;
+    private final PoliticaDespejo politica;
+
+    public OpcoesCache(long bytesMaximo, PoliticaDespejo politica) {
+        this.bytesMaximo = bytesMaximo;
+        this.politica = politica;
+    }
+
+    public static OpcoesCache daConfiguracao() {
+        return new OpcoesCache(
+                Configuracao.longo("app.cache.bytesMaximo", 64L * 1024 * 1024),
+                Configuracao.opcao("app.cache.politica", PoliticaDespejo.class, PoliticaDespejo.SEGUNDA_CHANCE));
+    }
+
+    // Limite de memória de cada cache (um por serviço), contando uma estimativa do custo de cada entrada; 0 desliga
+    public long getBytesMaximo() {
+        return bytesMaximo;
+    }
+
+    public PoliticaDespejo getPolitica() {
+        return politica;
+    }
+}
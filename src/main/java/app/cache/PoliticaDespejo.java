@@ -0,0 +1,7 @@
+package app.cache;
+
+// Qual entrada sai quando o cache de JSON passa do limite de bytes
+public enum PoliticaDespejo {
+    FIFO,          // a mais antiga, mesmo que esteja sendo muito lida
+    SEGUNDA_CHANCE // CLOCK: entradas lidas desde a última passada ganham outra volta (aproxima LRU sem trava na leitura)
+}
@@ -0,0 +1,52 @@
+package app.client;
+
+import app.App;
+import app.config.ModoExecucao;
+import app.config.OpcoesServidor;
+import io.javalin.Javalin;
+
+import java.nio.file.Files;
+
+// Compara vazão e latência de cauda de /tarefas e /usuarios com o servidor em threads de
+// plataforma e em threads virtuais, sob alta concorrência:
+//   .\gradlew compararModos --args="<conexões simultâneas> <segundos por modo> <persistir true|false>"
+//
+// Cada modo sobe a aplicação neste mesmo processo numa porta livre e recebe a mesma carga do
+// GeradorCarga (modo fechado, mistura padrão de leituras e escritas sobre 10 mil tarefas e usuários). Com persistir=true as escritas passam
+// pelo write-ahead log em modo SINCRONO (cada escrita espera o fsync), que é o cenário de espera
+// bloqueante em que as threads virtuais fazem diferença. Cliente e servidor dividem a máquina, então
+// os números servem para comparar os modos entre si, não como capacidade absoluta.
+public class ComparacaoModos {
+
+    public static void main(String[] args) throws Exception {
+        int concorrencia = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        boolean persistir = args.length > 2 && Boolean.parseBoolean(args[2]);
+
+        // Antes de carregar a classe App: o log de cada requisição no console distorceria a medição
+        System.setProperty("app.log.ativo", "false");
+        // Todas as conexões vêm do mesmo IP; a medição é da vazão do servidor, não do controle de admissão
+        System.setProperty("app.admissao.ativa", "false");
+        if (persistir) {
+            System.setProperty("app.dados.dir", Files.createTempDirectory("comparacao-modos").toString());
+            App.iniciarPersistencia();
+        }
+
+        System.out.printf("%d conexões simultâneas, %d s por modo, persistência %s, %d núcleos%n%n",
+                concorrencia, segundos, persistir ? "SINCRONO" : "desligada", Runtime.getRuntime().availableProcessors());
+        for (ModoExecucao modo : ModoExecucao.values()) {
+            App.resetState();
+            Javalin app = App.createApp(OpcoesServidor.daConfiguracao().comModo(modo)).start(0);
+            try {
+                // Um terço do tempo aquece o JIT e as conexões e fica fora da medição
+                OpcoesCarga carga = OpcoesCarga.deArgumentos("--url=http://localhost:" + app.port(),
+                        "--conexoes=" + concorrencia, "--duracao=" + Math.max(1, segundos * 2 / 3),
+                        "--aquecimento=" + segundos / 3);
+                new GeradorCarga(carga).executar().imprimir(System.out, "Threads " + modo);
+                System.out.println();
+            } finally {
+                app.stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package app.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Gerador de carga HTTP sobre /tarefas e /usuarios.
+//
+// Um único HttpClient (que reaproveita as conexões HTTP/1.1) é compartilhado por threads
+// virtuais, uma por conexão no modo fechado ou uma por requisição no modo aberto.
+//
+// Omissão coordenada: quando o servidor trava, um cliente que só mede "enviei -> recebi" deixa de
+// enviar durante a trava e registra uma única amostra lenta, escondendo todas as requisições que
+// teriam saído nesse intervalo. Por isso cada requisição tem um horário previsto de envio (pela
+// --taxa) e a latência registrada é contada a partir dele: uma requisição que saiu atrasada porque
+// a anterior demorou carrega o atraso. A latência "de serviço" (do envio real à resposta) é
+// registrada à parte. Sem --taxa no modo fechado não há horário previsto e as duas coincidem.
+public class GeradorCarga {
+
+    public enum Operacao { CRIAR, LER, ATUALIZAR, DELETAR, LISTAR }
+
+    public enum Recurso { TAREFAS, USUARIOS }
+
+    private final OpcoesCarga opcoes;
+    private final HttpClient cliente;
+    private final ExecutorService threads;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ResultadoCarga resultado;
+
+    // Chaves existentes: as criadas na preparação e as criadas durante a carga (que DELETAR consome)
+    private int[] idsIniciais = new int[0];
+    private final Queue<Integer> idsCriados = new ConcurrentLinkedQueue<>();
+    private final Queue<String> emailsCriados = new ConcurrentLinkedQueue<>();
+
+    private final Operacao[] sorteioOperacoes;
+    private final Recurso[] sorteioRecursos;
+
+    public GeradorCarga(OpcoesCarga opcoes) {
+        this.opcoes = opcoes;
+        this.threads = Executors.newVirtualThreadPerTaskExecutor();
+        this.cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(threads)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.resultado = new ResultadoCarga(opcoes);
+        this.sorteioOperacoes = tabelaSorteio(opcoes.getMistura(), new Operacao[0]);
+        this.sorteioRecursos = tabelaSorteio(opcoes.getRecursos(), new Recurso[0]);
+    }
+
+    public ResultadoCarga executar() throws IOException, InterruptedException {
+        try {
+            preparar();
+            long inicio = System.nanoTime();
+            long inicioMedicao = inicio + TimeUnit.SECONDS.toNanos(opcoes.getAquecimentoSegundos());
+            long fim = inicioMedicao + TimeUnit.SECONDS.toNanos(opcoes.getDuracaoSegundos());
+            if (opcoes.getModo() == ModoCarga.ABERTO) {
+                executarAberto(inicio, inicioMedicao, fim);
+            } else {
+                executarFechado(inicio, inicioMedicao, fim);
+            }
+            resultado.concluir(opcoes.getDuracaoSegundos());
+            return resultado;
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    // Cria --dados tarefas e usuários pelas rotas de lote e guarda as chaves para as leituras
+    private void preparar() throws IOException, InterruptedException {
+        StringBuilder tarefas = new StringBuilder();
+        StringBuilder usuarios = new StringBuilder();
+        for (int i = 0; i < opcoes.getDadosIniciais(); i++) {
+            tarefas.append(tarefaJson("Tarefa de carga " + i, false)).append('\n');
+            usuarios.append(usuarioJson(emailInicial(i), 18 + i % 60)).append('\n');
+        }
+        HttpResponse<byte[]> resposta = cliente.send(enviar("POST", "/tarefas/batch", tarefas.toString()),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (resposta.statusCode() != 200) {
+            throw new IOException("Falha ao preparar as tarefas: HTTP " + resposta.statusCode());
+        }
+        List<Integer> ids = new ArrayList<>();
+        for (JsonNode item : objectMapper.readTree(resposta.body())) {
+            if (item.path("status").asInt() == 201) {
+                ids.add(item.path("id").asInt());
+            }
+        }
+        idsIniciais = ids.stream().mapToInt(Integer::intValue).toArray();
+        // Usuários que já existirem (409) continuam valendo como chaves de leitura
+        cliente.send(enviar("POST", "/usuarios/batch", usuarios.toString()), HttpResponse.BodyHandlers.discarding());
+    }
+
+    // Um despachante agenda as requisições no ritmo da taxa; cada uma roda numa thread virtual.
+    // --conexoes limita quantas ficam em andamento: se o limite segura o despachante, o atraso
+    // entra na latência porque ela é contada do horário previsto.
+    private void executarAberto(long inicio, long inicioMedicao, long fim) throws InterruptedException {
+        double intervalo = 1e9 / opcoes.getTaxa();
+        Semaphore emAndamento = new Semaphore(opcoes.getConexoes());
+        for (long i = 0; ; i++) {
+            long previsto = inicio + (long) (i * intervalo);
+            if (previsto >= fim) {
+                break;
+            }
+            esperarAte(previsto);
+            emAndamento.acquire();
+            threads.execute(() -> {
+                try {
+                    executarUma(previsto, previsto >= inicioMedicao);
+                } finally {
+                    emAndamento.release();
+                }
+            });
+        }
+        emAndamento.acquire(opcoes.getConexoes()); // espera as que ainda estão em andamento
+    }
+
+    // Cada conexão envia uma requisição por vez. Com --taxa, cada uma segue a sua parte do ritmo
+    // (taxa / conexoes); se uma resposta atrasar, as seguintes saem em sequência até alcançar os
+    // horários previstos, e cada uma conta a latência a partir do seu horário.
+    private void executarFechado(long inicio, long inicioMedicao, long fim) throws InterruptedException {
+        int conexoes = opcoes.getConexoes();
+        double intervalo = opcoes.getTaxa() > 0 ? conexoes * 1e9 / opcoes.getTaxa() : 0;
+        List<Future<?>> trabalhadores = new ArrayList<>(conexoes);
+        for (int c = 0; c < conexoes; c++) {
+            long deslocamento = (long) (intervalo * c / conexoes);
+            trabalhadores.add(threads.submit(() -> {
+                long previsto = inicio + deslocamento;
+                while (previsto < fim && !Thread.currentThread().isInterrupted()) {
+                    long envio;
+                    if (intervalo > 0) {
+                        esperarAte(previsto);
+                        envio = previsto;
+                    } else {
+                        envio = System.nanoTime();
+                    }
+                    executarUma(envio, envio >= inicioMedicao);
+                    previsto = intervalo > 0 ? previsto + (long) intervalo : System.nanoTime();
+                }
+            }));
+        }
+        for (Future<?> trabalhador : trabalhadores) {
+            try {
+                trabalhador.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Falha num trabalhador de carga", e.getCause());
+            }
+        }
+    }
+
+    private void executarUma(long previsto, boolean medir) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        Recurso recurso = sorteioRecursos[aleatorio.nextInt(sorteioRecursos.length)];
+        Operacao operacao = sorteioOperacoes[aleatorio.nextInt(sorteioOperacoes.length)];
+        HttpRequest requisicao = recurso == Recurso.TAREFAS ? requisicaoTarefa(operacao) : requisicaoUsuario(operacao);
+
+        long envio = System.nanoTime();
+        int status;
+        try {
+            if (operacao == Operacao.CRIAR && recurso == Recurso.TAREFAS) {
+                HttpResponse<byte[]> resposta = cliente.send(requisicao, HttpResponse.BodyHandlers.ofByteArray());
+                status = resposta.statusCode();
+                if (status == 201) {
+                    idsCriados.add(objectMapper.readTree(resposta.body()).path("id").asInt());
+                }
+            } else {
+                status = cliente.send(requisicao, HttpResponse.BodyHandlers.discarding()).statusCode();
+            }
+        } catch (IOException e) {
+            status = -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long chegada = System.nanoTime();
+        if (medir) {
+            resultado.registrar(recurso, operacao, status, chegada - Math.min(previsto, envio), chegada - envio);
+        }
+    }
+
+    private HttpRequest requisicaoTarefa(Operacao operacao) {
+        return switch (operacao) {
+            case CRIAR -> enviar("POST", "/tarefas", tarefaJson("Criada na carga", false));
+            case LER -> get("/tarefas/" + idExistente());
+            case ATUALIZAR -> enviar("PUT", "/tarefas/" + idExistente(), tarefaJson("Atualizada na carga", true));
+            case DELETAR -> {
+                Integer criado = idsCriados.poll();
+                yield HttpRequest.newBuilder(uri("/tarefas/" + (criado != null ? criado : idExistente()))).DELETE().build();
+            }
+            case LISTAR -> get("/tarefas?limit=20&after=" + idExistente());
+        };
+    }
+
+    private HttpRequest requisicaoUsuario(Operacao operacao) {
+        return switch (operacao) {
+            case CRIAR -> {
+                String email = "carga-" + Long.toHexString(ThreadLocalRandom.current().nextLong()) + "@example.com";
+                emailsCriados.add(email);
+                yield enviar("POST", "/usuarios", usuarioJson(email, 30));
+            }
+            case LER -> get("/usuarios/" + codificar(emailExistente()));
+            case ATUALIZAR -> {
+                String email = emailExistente();
+                yield enviar("PUT", "/usuarios/" + codificar(email), usuarioJson(email, 40));
+            }
+            case DELETAR -> {
+                String criado = emailsCriados.poll();
+                yield HttpRequest.newBuilder(uri("/usuarios/" + codificar(criado != null ? criado : emailExistente()))).DELETE().build();
+            }
+            case LISTAR -> get("/usuarios?limit=20&after=" + codificar(emailExistente()));
+        };
+    }
+
+    private int idExistente() {
+        return idsIniciais.length == 0 ? 1 : idsIniciais[ThreadLocalRandom.current().nextInt(idsIniciais.length)];
+    }
+
+    private String emailExistente() {
+        return emailInicial(ThreadLocalRandom.current().nextInt(opcoes.getDadosIniciais()));
+    }
+
+    private static String emailInicial(int i) {
+        return "carga" + i + "@example.com";
+    }
+
+    private HttpRequest get(String caminho) {
+        return HttpRequest.newBuilder(uri(caminho)).GET().build();
+    }
+
+    private HttpRequest enviar(String metodo, String caminho, String corpo) {
+        return HttpRequest.newBuilder(uri(caminho))
+                .header("Content-Type", "application/json")
+                .method(metodo, HttpRequest.BodyPublishers.ofString(corpo))
+                .build();
+    }
+
+    private URI uri(String caminho) {
+        return URI.create(opcoes.getUrl() + caminho);
+    }
+
+    private static String codificar(String valor) {
+        return URLEncoder.encode(valor, StandardCharsets.UTF_8);
+    }
+
+    private static String tarefaJson(String titulo, boolean concluida) {
+        return "{\"titulo\": \"" + titulo + "\", \"descricao\": \"Gerada pelo ApiClient\", \"concluida\": " + concluida + "}";
+    }
+
+    private static String usuarioJson(String email, int idade) {
+        return "{\"nome\": \"Usuário de carga\", \"email\": \"" + email + "\", \"idade\": " + idade + "}";
+    }
+
+    // Tabela com cada item repetido pelo seu peso: sortear é um acesso a posição aleatória
+    private static <E> E[] tabelaSorteio(Map<E, Integer> pesos, E[] tipo) {
+        List<E> tabela = new ArrayList<>();
+        pesos.forEach((item, peso) -> {
+            for (int i = 0; i < peso; i++) {
+                tabela.add(item);
+            }
+        });
+        return tabela.toArray(tipo);
+    }
+
+    // Dorme até o instante (System.nanoTime) informado; em threads virtuais parkNanos não ocupa a portadora
+    private static void esperarAte(long instante) {
+        long restante;
+        while ((restante = instante - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(restante);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package app.client;
+
+// Como o gerador de carga decide quando enviar a próxima requisição
+public enum ModoCarga {
+    FECHADO, // cada conexão espera a resposta antes de enviar a próxima (com --taxa, no ritmo dela)
+    ABERTO   // as requisições saem no ritmo de --taxa, chegue ou não a resposta das anteriores
+}
@@ -0,0 +1,140 @@
+package app.client;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Opções do gerador de carga, lidas dos argumentos no formato --chave=valor (veja ApiClient)
+public class OpcoesCarga {
+
+    public static final String USO = String.join(System.lineSeparator(),
+            "Uso: ApiClient [--chave=valor ...]",
+            "  --url=http://localhost:7000   endereço da API",
+            "  --modo=fechado|aberto         fechado: cada conexão envia a próxima requisição quando a anterior volta;",
+            "                                aberto: requisições saem no ritmo de --taxa, independentemente das respostas",
+            "  --taxa=0                      requisições por segundo (obrigatória no modo aberto; 0 = o máximo possível)",
+            "  --conexoes=64                 conexões (modo fechado) ou requisições em andamento no máximo (modo aberto)",
+            "  --duracao=30                  segundos medidos",
+            "  --aquecimento=5               segundos iniciais descartados",
+            "  --mistura=ler:60,listar:10,criar:15,atualizar:10,deletar:5",
+            "  --recursos=tarefas:50,usuarios:50",
+            "  --dados=10000                 tarefas e usuários criados antes da medição",
+            "  --json=arquivo.json           grava o resultado também em JSON",
+            "  --demo                        só faz algumas requisições de exemplo e imprime as respostas");
+
+    private final String url;
+    private final ModoCarga modo;
+    private final double taxa;
+    private final int conexoes;
+    private final int duracaoSegundos;
+    private final int aquecimentoSegundos;
+    private final Map<GeradorCarga.Operacao, Integer> mistura;
+    private final Map<GeradorCarga.Recurso, Integer> recursos;
+    private final int dadosIniciais;
+    private final Path arquivoJson;
+    private final boolean demonstracao;
+
+    private OpcoesCarga(Map<String, String> valores) {
+        this.url = valores.getOrDefault("url", "http://localhost:7000").replaceAll("/+$", "");
+        this.modo = ModoCarga.valueOf(valores.getOrDefault("modo", "fechado").toUpperCase(Locale.ROOT));
+        this.taxa = Double.parseDouble(valores.getOrDefault("taxa", "0"));
+        this.conexoes = Integer.parseInt(valores.getOrDefault("conexoes", "64"));
+        this.duracaoSegundos = Integer.parseInt(valores.getOrDefault("duracao", "30"));
+        this.aquecimentoSegundos = Integer.parseInt(valores.getOrDefault("aquecimento", "5"));
+        this.mistura = pesos(GeradorCarga.Operacao.class, valores.getOrDefault("mistura", "ler:60,listar:10,criar:15,atualizar:10,deletar:5"));
+        this.recursos = pesos(GeradorCarga.Recurso.class, valores.getOrDefault("recursos", "tarefas:50,usuarios:50"));
+        this.dadosIniciais = Integer.parseInt(valores.getOrDefault("dados", "10000"));
+        this.arquivoJson = valores.containsKey("json") ? Paths.get(valores.get("json")) : null;
+        this.demonstracao = valores.containsKey("demo");
+
+        if (modo == ModoCarga.ABERTO && taxa <= 0) {
+            throw new IllegalArgumentException("O modo aberto exige --taxa maior que zero");
+        }
+        if (conexoes < 1 || duracaoSegundos < 1 || aquecimentoSegundos < 0 || dadosIniciais < 1) {
+            throw new IllegalArgumentException("--conexoes, --duracao e --dados devem ser positivos");
+        }
+    }
+
+    public static OpcoesCarga deArgumentos(String... argumentos) {
+        Map<String, String> valores = new HashMap<>();
+        for (String argumento : argumentos) {
+            if (!argumento.startsWith("--")) {
+                throw new IllegalArgumentException("Argumento inválido: " + argumento);
+            }
+            int igual = argumento.indexOf('=');
+            if (igual < 0) {
+                valores.put(argumento.substring(2), "true");
+            } else {
+                valores.put(argumento.substring(2, igual), argumento.substring(igual + 1));
+            }
+        }
+        return new OpcoesCarga(valores);
+    }
+
+    // "ler:60,criar:40" -> {LER=60, CRIAR=40}; itens omitidos ficam com peso 0
+    private static <E extends Enum<E>> Map<E, Integer> pesos(Class<E> tipo, String texto) {
+        Map<E, Integer> pesos = new EnumMap<>(tipo);
+        int total = 0;
+        for (String item : texto.split(",")) {
+            String[] partes = item.trim().split(":");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Peso inválido: " + item + " (use nome:peso)");
+            }
+            int peso = Integer.parseInt(partes[1].trim());
+            pesos.put(Enum.valueOf(tipo, partes[0].trim().toUpperCase(Locale.ROOT)), peso);
+            total += peso;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("A soma dos pesos deve ser positiva: " + texto);
+        }
+        return pesos;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public ModoCarga getModo() {
+        return modo;
+    }
+
+    public double getTaxa() {
+        return taxa;
+    }
+
+    public int getConexoes() {
+        return conexoes;
+    }
+
+    public int getDuracaoSegundos() {
+        return duracaoSegundos;
+    }
+
+    public int getAquecimentoSegundos() {
+        return aquecimentoSegundos;
+    }
+
+    public Map<GeradorCarga.Operacao, Integer> getMistura() {
+        return mistura;
+    }
+
+    public Map<GeradorCarga.Recurso, Integer> getRecursos() {
+        return recursos;
+    }
+
+    public int getDadosIniciais() {
+        return dadosIniciais;
+    }
+
+    // null quando o resultado vai só para o console
+    public Path getArquivoJson() {
+        return arquivoJson;
+    }
+
+    public boolean isDemonstracao() {
+        return demonstracao;
+    }
+}
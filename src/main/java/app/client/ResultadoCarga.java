@@ -0,0 +1,195 @@
+package app.client;
+
+import app.metricas.Histograma;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Resultado de uma execução do GeradorCarga: vazão e percentis de latência por recurso e operação.
+// A latência principal é a corrigida (contada do horário previsto de envio); a de serviço vai junto.
+public class ResultadoCarga {
+
+    private static final double[] PERCENTIS = {0.5, 0.9, 0.99, 0.999, 1.0};
+    private static final String[] NOMES_PERCENTIS = {"p50", "p90", "p99", "p999", "max"};
+
+    private static final class Medicao {
+        final Histograma latencia = new Histograma();
+        final Histograma latenciaServico = new Histograma();
+        final LongAdder erros = new LongAdder();
+        final LongAdder ausentes = new LongAdder();
+    }
+
+    private final OpcoesCarga opcoes;
+    private final Medicao[][] medicoes;
+    private double segundos;
+
+    ResultadoCarga(OpcoesCarga opcoes) {
+        this.opcoes = opcoes;
+        this.medicoes = new Medicao[GeradorCarga.Recurso.values().length][GeradorCarga.Operacao.values().length];
+        for (Medicao[] linha : medicoes) {
+            for (int i = 0; i < linha.length; i++) {
+                linha[i] = new Medicao();
+            }
+        }
+    }
+
+    // status -1 indica falha de conexão; 404 e 409 são esperados com exclusões concorrentes e contam à parte
+    void registrar(GeradorCarga.Recurso recurso, GeradorCarga.Operacao operacao, int status,
+                   long latenciaNanos, long latenciaServicoNanos) {
+        Medicao medicao = medicoes[recurso.ordinal()][operacao.ordinal()];
+        medicao.latencia.registrar(latenciaNanos / 1000);
+        medicao.latenciaServico.registrar(latenciaServicoNanos / 1000);
+        if (status == 404 || status == 409) {
+            medicao.ausentes.increment();
+        } else if (status < 200 || status >= 400) {
+            medicao.erros.increment();
+        }
+    }
+
+    void concluir(double segundosMedidos) {
+        this.segundos = segundosMedidos;
+    }
+
+    public long getRequisicoes() {
+        long total = 0;
+        for (Medicao[] linha : medicoes) {
+            for (Medicao medicao : linha) {
+                total += medicao.latencia.getTotal();
+            }
+        }
+        return total;
+    }
+
+    public long getErros() {
+        long total = 0;
+        for (Medicao[] linha : medicoes) {
+            for (Medicao medicao : linha) {
+                total += medicao.erros.sum();
+            }
+        }
+        return total;
+    }
+
+    public double getVazao() {
+        return getRequisicoes() / segundos;
+    }
+
+    public void imprimir(PrintStream saida, String titulo) {
+        saida.printf("%s: modo %s, %s, %d conexões, %d s medidos (+%d s de aquecimento)%n", titulo, opcoes.getModo(),
+                opcoes.getTaxa() > 0 ? String.format(Locale.ROOT, "taxa alvo %.0f req/s", opcoes.getTaxa()) : "sem taxa alvo",
+                opcoes.getConexoes(), opcoes.getDuracaoSegundos(), opcoes.getAquecimentoSegundos());
+        saida.printf("%-20s %9s %9s %9s %9s %9s %9s %11s %7s %8s%n", "operação", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "máx ms", "p99 serv.", "erros", "404/409");
+        long[] todas = null;
+        long[] todasServico = null;
+        long total = 0;
+        long erros = 0;
+        long ausentes = 0;
+        for (GeradorCarga.Recurso recurso : GeradorCarga.Recurso.values()) {
+            for (GeradorCarga.Operacao operacao : GeradorCarga.Operacao.values()) {
+                Medicao medicao = medicoes[recurso.ordinal()][operacao.ordinal()];
+                if (medicao.latencia.getTotal() == 0) {
+                    continue;
+                }
+                long[] contagens = medicao.latencia.contagens();
+                long[] contagensServico = medicao.latenciaServico.contagens();
+                imprimirLinha(saida, rotulo(recurso, operacao), medicao.latencia.getTotal(), contagens, contagensServico,
+                        medicao.erros.sum(), medicao.ausentes.sum());
+                todas = somar(todas, contagens);
+                todasServico = somar(todasServico, contagensServico);
+                total += medicao.latencia.getTotal();
+                erros += medicao.erros.sum();
+                ausentes += medicao.ausentes.sum();
+            }
+        }
+        if (todas != null) {
+            imprimirLinha(saida, "total", total, todas, todasServico, erros, ausentes);
+        }
+    }
+
+    private void imprimirLinha(PrintStream saida, String rotulo, long quantidade, long[] contagens, long[] contagensServico,
+                               long erros, long ausentes) {
+        saida.printf(Locale.ROOT, "%-20s %9.0f %9.2f %9.2f %9.2f %9.2f %9.2f %11.2f %7d %8d%n", rotulo, quantidade / segundos,
+                ms(contagens, 0.5), ms(contagens, 0.9), ms(contagens, 0.99), ms(contagens, 0.999), ms(contagens, 1.0),
+                ms(contagensServico, 0.99), erros, ausentes);
+    }
+
+    public void gravarJson(Path arquivo) throws IOException {
+        Map<String, Object> raiz = new LinkedHashMap<>();
+        Map<String, Object> configuracao = new LinkedHashMap<>();
+        configuracao.put("url", opcoes.getUrl());
+        configuracao.put("modo", opcoes.getModo().name());
+        configuracao.put("taxa", opcoes.getTaxa());
+        configuracao.put("conexoes", opcoes.getConexoes());
+        configuracao.put("duracaoSegundos", opcoes.getDuracaoSegundos());
+        configuracao.put("aquecimentoSegundos", opcoes.getAquecimentoSegundos());
+        configuracao.put("mistura", opcoes.getMistura());
+        configuracao.put("recursos", opcoes.getRecursos());
+        raiz.put("configuracao", configuracao);
+        raiz.put("requisicoes", getRequisicoes());
+        raiz.put("vazao", getVazao());
+
+        long[] todas = null;
+        long[] todasServico = null;
+        List<Map<String, Object>> operacoes = new ArrayList<>();
+        for (GeradorCarga.Recurso recurso : GeradorCarga.Recurso.values()) {
+            for (GeradorCarga.Operacao operacao : GeradorCarga.Operacao.values()) {
+                Medicao medicao = medicoes[recurso.ordinal()][operacao.ordinal()];
+                if (medicao.latencia.getTotal() == 0) {
+                    continue;
+                }
+                long[] contagens = medicao.latencia.contagens();
+                long[] contagensServico = medicao.latenciaServico.contagens();
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("operacao", rotulo(recurso, operacao));
+                item.put("requisicoes", medicao.latencia.getTotal());
+                item.put("vazao", medicao.latencia.getTotal() / segundos);
+                item.put("erros", medicao.erros.sum());
+                item.put("ausentes", medicao.ausentes.sum());
+                item.put("latenciaMs", percentis(contagens));
+                item.put("latenciaServicoMs", percentis(contagensServico));
+                operacoes.add(item);
+                todas = somar(todas, contagens);
+                todasServico = somar(todasServico, contagensServico);
+            }
+        }
+        if (todas != null) {
+            raiz.put("latenciaMs", percentis(todas));
+            raiz.put("latenciaServicoMs", percentis(todasServico));
+        }
+        raiz.put("operacoes", operacoes);
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(arquivo.toFile(), raiz);
+    }
+
+    private static Map<String, Double> percentis(long[] contagens) {
+        Map<String, Double> valores = new LinkedHashMap<>();
+        for (int i = 0; i < PERCENTIS.length; i++) {
+            valores.put(NOMES_PERCENTIS[i], ms(contagens, PERCENTIS[i]));
+        }
+        return valores;
+    }
+
+    private static double ms(long[] contagens, double percentil) {
+        return Histograma.percentil(contagens, percentil) / 1000.0;
+    }
+
+    private static String rotulo(GeradorCarga.Recurso recurso, GeradorCarga.Operacao operacao) {
+        return recurso.name().toLowerCase(Locale.ROOT) + "." + operacao.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static long[] somar(long[] acumulado, long[] contagens) {
+        long[] resultado = acumulado == null ? new long[contagens.length] : acumulado;
+        for (int i = 0; i < contagens.length; i++) {
+            resultado[i] += contagens[i];
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,93 @@
+package app.compressao;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Codificações de conteúdo que a API sabe produzir, só com o que vem no JDK (java.util.zip).
+// Brotli e zstd ficam de fora: o JDK não traz compressor para eles, e as bibliotecas disponíveis dependem de código nativo.
+public enum Codificacao {
+    GZIP("gzip"),
+    DEFLATE("deflate"); // formato zlib (RFC 1950), que é o que "deflate" significa no HTTP
+
+    private static final int TAMANHO_BUFFER = 8192;
+
+    private final String nome;
+
+    Codificacao(String nome) {
+        this.nome = nome;
+    }
+
+    // Valor dos cabeçalhos Content-Encoding e Accept-Encoding
+    public String getNome() {
+        return nome;
+    }
+
+    public OutputStream abrir(OutputStream destino, int nivel) throws IOException {
+        if (this == GZIP) {
+            return new GZIPOutputStream(destino, TAMANHO_BUFFER) {
+                {
+                    def.setLevel(nivel);
+                }
+            };
+        }
+        Deflater deflater = new Deflater(nivel);
+        return new DeflaterOutputStream(destino, deflater, TAMANHO_BUFFER) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    deflater.end(); // Um Deflater passado de fora não é liberado pelo close do stream
+                }
+            }
+        };
+    }
+
+    // Escolhe pelo Accept-Encoding, respeitando os pesos (q=); no empate vale a ordem do enum (gzip primeiro).
+    // Devolve null quando o cliente não aceita nenhuma das duas.
+    public static Codificacao negociar(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return null;
+        }
+        Map<Codificacao, Double> pesos = new EnumMap<>(Codificacao.class);
+        double curinga = 0;
+        for (String item : acceptEncoding.split(",")) {
+            String[] partes = item.trim().split(";");
+            String nome = partes[0].trim().toLowerCase(Locale.ROOT);
+            double peso = 1;
+            for (int i = 1; i < partes.length; i++) {
+                String parametro = partes[i].trim();
+                if (parametro.startsWith("q=")) {
+                    try {
+                        peso = Double.parseDouble(parametro.substring(2));
+                    } catch (NumberFormatException e) {
+                        peso = 0;
+                    }
+                }
+            }
+            if (nome.equals("*")) {
+                curinga = peso;
+            } else if (nome.equals("gzip") || nome.equals("x-gzip")) {
+                pesos.put(GZIP, peso);
+            } else if (nome.equals("deflate")) {
+                pesos.put(DEFLATE, peso);
+            }
+        }
+        Codificacao escolhida = null;
+        double melhor = 0;
+        for (Codificacao codificacao : values()) {
+            double peso = pesos.getOrDefault(codificacao, curinga);
+            if (peso > melhor) {
+                escolhida = codificacao;
+                melhor = peso;
+            }
+        }
+        return escolhida;
+    }
+}
@@ -0,0 +1,90 @@
+package app.compressao;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Monta um corpo de resposta já comprimido, em memória, para ser guardado em cache e reenviado sem recomprimir
+public final class Compressao {
+
+    @FunctionalInterface
+    public interface Corpo {
+        void escrever(OutputStream saida) throws IOException;
+    }
+
+    private Compressao() {
+    }
+
+    // Escreve o corpo e o comprime se ele passar do limiar. Abaixo do limiar devolve o próprio JSON:
+    // o que é uma coisa ou outra se reconhece pelo primeiro byte (veja estaComprimido)
+    public static byte[] montar(Corpo corpo, Codificacao codificacao, OpcoesCompressao opcoes) throws IOException {
+        SaidaComLimiar saida = new SaidaComLimiar(codificacao, opcoes);
+        corpo.escrever(saida);
+        saida.close();
+        return saida.resultado();
+    }
+
+    // JSON começa com [ ou {; gzip começa com 0x1f e zlib com 0x78
+    public static boolean estaComprimido(byte[] corpo) {
+        return corpo.length > 0 && corpo[0] != '[' && corpo[0] != '{';
+    }
+
+    // Acumula o JSON cru até o limiar; ao passar dele, abre o compressor, despeja o que já tinha e segue comprimindo.
+    // Assim uma listagem grande nunca fica inteira em memória sem compressão.
+    private static final class SaidaComLimiar extends OutputStream {
+        private final Codificacao codificacao;
+        private final OpcoesCompressao opcoes;
+        private final ByteArrayOutputStream cru = new ByteArrayOutputStream();
+        private ByteArrayOutputStream comprimido;
+        private OutputStream compressor;
+
+        SaidaComLimiar(Codificacao codificacao, OpcoesCompressao opcoes) {
+            this.codificacao = codificacao;
+            this.opcoes = opcoes;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (compressor != null) {
+                compressor.write(b);
+                return;
+            }
+            cru.write(b);
+            if (cru.size() >= opcoes.getLimiar()) {
+                iniciarCompressao();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (compressor == null && cru.size() + len >= opcoes.getLimiar()) {
+                iniciarCompressao();
+            }
+            if (compressor != null) {
+                compressor.write(b, off, len);
+            } else {
+                cru.write(b, off, len);
+            }
+        }
+
+        private void iniciarCompressao() throws IOException {
+            comprimido = new ByteArrayOutputStream(Math.max(256, cru.size() / 4));
+            // O buffer junta as vírgulas e colchetes escritos um a um antes de chegarem ao Deflater
+            compressor = new BufferedOutputStream(codificacao.abrir(comprimido, opcoes.getNivel()), 8192);
+            cru.writeTo(compressor);
+            cru.reset();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (compressor != null) {
+                compressor.close();
+            }
+        }
+
+        byte[] resultado() {
+            return compressor != null ? comprimido.toByteArray() : cru.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package app.compressao;
+
+import app.config.Configuracao;
+
+// Opções da compressão das listagens, lidas de app.compressao.* (veja Configuracao)
+public class OpcoesCompressao {
+    private final boolean ativa;
+    private final int limiar;
+    private final int nivel;
+    private final long bytesMaximo;
+
+    public OpcoesCompressao(boolean ativa, int limiar, int nivel, long bytesMaximo) {
+        this.ativa = ativa;
+        this.limiar = limiar;
+        this.nivel = nivel;
+        this.bytesMaximo = bytesMaximo;
+    }
+
+    public static OpcoesCompressao daConfiguracao() {
+        return new OpcoesCompressao(
+                Configuracao.booleano("app.compressao.ativa", true),
+                Configuracao.inteiro("app.compressao.limiar", 1024),
+                Configuracao.inteiro("app.compressao.nivel", 6),
+                Configuracao.longo("app.compressao.bytesMaximo", 32L * 1024 * 1024));
+    }
+
+    public boolean isAtiva() {
+        return ativa;
+    }
+
+    // Corpos menores que isso (em bytes de JSON) saem sem compressão: o ganho não paga o custo
+    public int getLimiar() {
+        return limiar;
+    }
+
+    // Nível do Deflater, de 1 (mais rápido) a 9 (menor); como o resultado fica em cache, vale comprimir bem
+    public int getNivel() {
+        return nivel;
+    }
+
+    // Memória do cache de listagens comprimidas de cada controller; 0 desliga o cache (comprime a cada requisição)
+    public long getBytesMaximo() {
+        return bytesMaximo;
+    }
+}
@@ -0,0 +1,53 @@
+package app.config;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+// Leitura centralizada das configurações da aplicação.
+// Cada chave é procurada primeiro nas propriedades do sistema (-Dapp.dados.dir=...)
+// e depois nas variáveis de ambiente (APP_DADOS_DIR=...); se não existir, vale o padrão.
+public final class Configuracao {
+
+    private Configuracao() {
+    }
+
+    public static String texto(String chave, String padrao) {
+        String valor = System.getProperty(chave);
+        if (valor == null) {
+            valor = System.getenv(chave.toUpperCase(Locale.ROOT).replace('.', '_'));
+        }
+        return valor == null || valor.isBlank() ? padrao : valor.trim();
+    }
+
+    public static int inteiro(String chave, int padrao) {
+        String valor = texto(chave, null);
+        return valor == null ? padrao : Integer.parseInt(valor);
+    }
+
+    public static long longo(String chave, long padrao) {
+        String valor = texto(chave, null);
+        return valor == null ? padrao : Long.parseLong(valor);
+    }
+
+    public static double decimal(String chave, double padrao) {
+        String valor = texto(chave, null);
+        return valor == null ? padrao : Double.parseDouble(valor);
+    }
+
+    public static boolean booleano(String chave, boolean padrao) {
+        String valor = texto(chave, null);
+        return valor == null ? padrao : Boolean.parseBoolean(valor);
+    }
+
+    public static <E extends Enum<E>> E opcao(String chave, Class<E> tipo, E padrao) {
+        String valor = texto(chave, null);
+        return valor == null ? padrao : Enum.valueOf(tipo, valor.toUpperCase(Locale.ROOT));
+    }
+
+    // Diretório onde os dados são persistidos; null quando a aplicação roda só em memória
+    public static Path diretorioDados() {
+        String valor = texto("app.dados.dir", null);
+        return valor == null ? null : Paths.get(valor);
+    }
+}
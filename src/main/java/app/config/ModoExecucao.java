@@ -0,0 +1,7 @@
+package app.config;
+
+// Onde os handlers das requisições rodam
+public enum ModoExecucao {
+    PLATAFORMA, // pool de threads do Jetty (QueuedThreadPool), limitado por app.servidor.threadsMax
+    VIRTUAL     // uma thread virtual por requisição: esperas (fsync do log, chamadas externas) não ocupam o pool
+}
@@ -0,0 +1,64 @@
+package app.config;
+
+// Opções do servidor HTTP (Jetty), lidas de app.servidor.* (veja Configuracao).
+// Acceptors e selectors com -1 usam o padrão do Jetty, calculado pelo número de núcleos.
+public class OpcoesServidor {
+    private final ModoExecucao modo;
+    private final int threadsMin;
+    private final int threadsMax;
+    private final int ociosoMs;
+    private final int acceptors;
+    private final int selectors;
+
+    public OpcoesServidor(ModoExecucao modo, int threadsMin, int threadsMax, int ociosoMs, int acceptors, int selectors) {
+        this.modo = modo;
+        this.threadsMin = threadsMin;
+        this.threadsMax = threadsMax;
+        this.ociosoMs = ociosoMs;
+        this.acceptors = acceptors;
+        this.selectors = selectors;
+    }
+
+    public static OpcoesServidor daConfiguracao() {
+        return new OpcoesServidor(
+                Configuracao.opcao("app.servidor.modo", ModoExecucao.class, ModoExecucao.PLATAFORMA),
+                Configuracao.inteiro("app.servidor.threadsMin", 8),
+                Configuracao.inteiro("app.servidor.threadsMax", 250),
+                Configuracao.inteiro("app.servidor.ociosoMs", 60_000),
+                Configuracao.inteiro("app.servidor.acceptors", -1),
+                Configuracao.inteiro("app.servidor.selectors", -1));
+    }
+
+    // Cópia com outro modo de execução, mantendo o restante
+    public OpcoesServidor comModo(ModoExecucao outroModo) {
+        return new OpcoesServidor(outroModo, threadsMin, threadsMax, ociosoMs, acceptors, selectors);
+    }
+
+    public ModoExecucao getModo() {
+        return modo;
+    }
+
+    // Tamanho do pool de threads de plataforma (modo PLATAFORMA)
+    public int getThreadsMin() {
+        return threadsMin;
+    }
+
+    public int getThreadsMax() {
+        return threadsMax;
+    }
+
+    // Tempo até uma thread ociosa do pool ser encerrada
+    public int getOciosoMs() {
+        return ociosoMs;
+    }
+
+    // Threads que aceitam conexões novas
+    public int getAcceptors() {
+        return acceptors;
+    }
+
+    // Threads que monitoram as conexões abertas (NIO) e despacham as requisições para o pool
+    public int getSelectors() {
+        return selectors;
+    }
+}
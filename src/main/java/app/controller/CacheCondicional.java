@@ -0,0 +1,137 @@
+package app.controller;
+
+import app.compressao.Codificacao;
+import app.replicacao.NoReplicacao;
+import app.service.VersaoDivergenteException;
+import io.javalin.http.Context;
+
+// Requisições condicionais por ETag: If-None-Match nas leituras (304) e If-Match nas escritas (412).
+// As tags saem das versões que os serviços mantêm a cada gravação, então decidir entre 200 e 304 não
+// exige serializar nem calcular hash do corpo.
+public final class CacheCondicional {
+
+    // Muda a cada início do processo: as versões recomeçam do zero e uma tag antiga não pode coincidir por acaso.
+    // Vale para as listagens, cuja versão da coleção é contada em cada servidor, e para as entidades fora da
+    // replicação
+    private static final String ORIGEM = Long.toString(System.currentTimeMillis(), 36);
+
+    // Nó de replicação deste servidor (null sem replicação); veja origemEntidades
+    private static volatile NoReplicacao replicacao;
+
+    private CacheCondicional() {
+    }
+
+    // Chamado pelo App ao ligar e desligar a replicação
+    public static void seguirReplicacao(NoReplicacao no) {
+        replicacao = no;
+    }
+
+    // Com replicação, a versão de uma entidade é a que o líder deu e o seguidor mantém, então a tag leva a época
+    // do líder: a tag lida num seguidor confere no If-Match da escrita redirecionada (307) para o líder, e o
+    // If-None-Match vale em qualquer servidor. Um seguidor que ainda não recebeu os dados da época atual usa a
+    // origem do processo.
+    private static String origemEntidades() {
+        NoReplicacao no = replicacao;
+        long epoca = no == null ? 0 : no.getEpoca();
+        return epoca == 0 ? ORIGEM : Long.toString(epoca, 36);
+    }
+
+    // Tag de uma entidade
+    static String etag(long versao) {
+        return "\"" + origemEntidades() + "-" + Long.toString(versao, 36) + "\"";
+    }
+
+    // Tag de uma listagem (ou das estatísticas, com consulta null): a mesma versão da coleção com outros
+    // parâmetros é outra representação
+    static String etag(long versao, String consulta) {
+        String base = "\"" + ORIGEM + "-" + Long.toString(versao, 36);
+        if (consulta == null || consulta.isEmpty()) {
+            return base + "\"";
+        }
+        return base + "-" + Integer.toHexString(consulta.hashCode()) + "\"";
+    }
+
+    // Tag da mesma versão enviada com Content-Encoding: o corpo comprimido é outra representação (outros bytes),
+    // então não pode dividir a tag forte com o corpo sem compressão. Ex.: "x-1" vira "x-1-gzip"
+    static String etag(String etag, Codificacao codificacao) {
+        return etag.substring(0, etag.length() - 1) + "-" + codificacao.getNome() + "\"";
+    }
+
+    // Troca a ETag já enviada por naoModificado pela da codificação escolhida para o corpo
+    static void informarCodificacao(Context ctx, Codificacao codificacao) {
+        String etag = ctx.res().getHeader("ETag");
+        if (etag != null) {
+            ctx.header("ETag", etag(etag, codificacao));
+        }
+    }
+
+    // Envia a ETag; se o If-None-Match do cliente conferir, responde 304 sem corpo e devolve true
+    static boolean naoModificado(Context ctx, String etag) {
+        ctx.header("ETag", etag);
+        // O cliente pode guardar a resposta, mas precisa revalidar antes de usá-la
+        ctx.header("Cache-Control", "no-cache");
+        String ifNoneMatch = ctx.header("If-None-Match");
+        if (ifNoneMatch != null && confere(ifNoneMatch, etag)) {
+            ctx.status(304);
+            return true;
+        }
+        return false;
+    }
+
+    // Versão exigida pelo If-Match, para a escrita condicional do serviço: 0 sem o cabeçalho ou com *, e -1
+    // quando nenhuma tag da lista é desta origem (nenhuma versão confere e a escrita recebe 412).
+    // Vale a comparação forte: tags W/ não conferem. Numa lista, vale a primeira tag desta origem.
+    static long versaoExigida(Context ctx) {
+        String ifMatch = ctx.header("If-Match");
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return 0;
+        }
+        String prefixo = "\"" + origemEntidades() + "-";
+        for (String candidata : ifMatch.split(",")) {
+            String tag = candidata.trim();
+            if (tag.equals("*")) {
+                return 0;
+            }
+            if (tag.startsWith(prefixo) && tag.endsWith("\"") && tag.length() > prefixo.length() + 1) {
+                try {
+                    return Long.parseLong(tag.substring(prefixo.length(), tag.length() - 1), 36);
+                } catch (NumberFormatException e) {
+                    // Tag de listagem (com o hash da consulta) ou malformada: não identifica uma entidade
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Envia a ETag da versão recém-gravada, para o cliente encadear o próximo If-Match
+    static void informarVersao(Context ctx, long versao) {
+        ctx.header("ETag", etag(versao));
+    }
+
+    // 412 Precondition Failed, com a ETag da versão atual para o cliente reler e tentar de novo
+    static void versaoDivergente(Context ctx, VersaoDivergenteException e) {
+        informarVersao(ctx, e.getVersaoAtual());
+        ctx.status(412).result("A versão informada em If-Match não é a atual");
+    }
+
+    // Comparação fraca, como manda o RFC 9110 para If-None-Match: ignora o prefixo W/ e aceita lista e *.
+    // A tag de qualquer codificação da mesma versão também confere: o 304 só diz ao cliente que a cópia que ele
+    // guardou, comprimida ou não, continua valendo (o corpo é sempre o mesmo JSON)
+    private static boolean confere(String cabecalho, String etag) {
+        for (String candidata : cabecalho.split(",")) {
+            String tag = candidata.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+            for (Codificacao codificacao : Codificacao.values()) {
+                if (tag.equals(etag(etag, codificacao))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
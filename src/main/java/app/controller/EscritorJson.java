@@ -0,0 +1,115 @@
+package app.controller;
+
+import app.cache.CacheJson;
+import app.compressao.Codificacao;
+import app.compressao.Compressao;
+import app.compressao.OpcoesCompressao;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.javalin.http.Context;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.function.Function;
+
+// Escreve coleções diretamente no corpo da resposta, um item de cada vez. Cada item chega como um
+// fragmento JSON já serializado (em geral vindo do CacheJson do serviço) e é só concatenado.
+// Sem compressão nada é acumulado em memória: o uso de heap é o mesmo para 10 ou 1 milhão de itens.
+// Com gzip/deflate negociado, o corpo comprimido é montado uma vez por versão da coleção e reenviado do cache.
+final class EscritorJson {
+
+    static final int LIMITE_PADRAO = 100;
+    static final int LIMITE_MAXIMO = 1000;
+    private static final int TAMANHO_BUFFER = 8192;
+    private static final byte[] INICIO_PAGINA = "{\"itens\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CURSOR_PAGINA = "],\"proximoCursor\":".getBytes(StandardCharsets.UTF_8);
+
+    // JSON de um item em UTF-8
+    @FunctionalInterface
+    interface Fragmento<T> {
+        byte[] serializar(T item) throws IOException;
+    }
+
+    private EscritorJson() {
+    }
+
+    // Responde uma listagem. versao é a versão da coleção lida antes dos dados (a mesma da ETag); ela e a
+    // consulta identificam o corpo no cache de comprimidos, então ele só é recomprimido depois de uma escrita
+    static void responder(Context ctx, CacheJson<String> comprimidos, long versao, OpcoesCompressao opcoes,
+                          Compressao.Corpo corpo) throws IOException {
+        ctx.contentType("application/json");
+        Codificacao codificacao = null;
+        if (opcoes.isAtiva()) {
+            ctx.header("Vary", "Accept-Encoding");
+            codificacao = Codificacao.negociar(ctx.header("Accept-Encoding"));
+        }
+        if (codificacao == null) {
+            OutputStream saida = new BufferedOutputStream(ctx.outputStream(), TAMANHO_BUFFER);
+            corpo.escrever(saida);
+            saida.flush(); // Quem fecha o stream da resposta é o Javalin/Jetty
+            return;
+        }
+
+        Codificacao escolhida = codificacao;
+        String chave = escolhida.getNome() + " " + Objects.toString(ctx.queryString(), "");
+        byte[] bytes = comprimidos.obter(chave, versao, () -> Compressao.montar(corpo, escolhida, opcoes));
+        if (Compressao.estaComprimido(bytes)) {
+            ctx.header("Content-Encoding", escolhida.getNome());
+            CacheCondicional.informarCodificacao(ctx, escolhida);
+        }
+        ctx.res().setContentLength(bytes.length);
+        // Direto no stream do servlet: o stream do Javalin poderia comprimir de novo o que já está comprimido
+        ctx.res().getOutputStream().write(bytes);
+    }
+
+    // Escreve um array JSON com todos os itens do iterador
+    static <T> void escreverLista(OutputStream saida, Iterator<T> itens, Fragmento<T> fragmento) throws IOException {
+        saida.write('[');
+        boolean primeiro = true;
+        while (itens.hasNext()) {
+            if (!primeiro) {
+                saida.write(',');
+            }
+            saida.write(fragmento.serializar(itens.next()));
+            primeiro = false;
+        }
+        saida.write(']');
+    }
+
+    // Escreve uma página no formato {"itens": [...], "proximoCursor": ...}.
+    // O cursor é a chave do último item escrito, ou null quando não há mais itens.
+    static <T> void escreverPagina(OutputStream saida, ObjectMapper mapper, Iterator<T> itens, int limite,
+                                   Function<T, Object> chave, Fragmento<T> fragmento) throws IOException {
+        saida.write(INICIO_PAGINA);
+        Object ultimaChave = null;
+        int escritos = 0;
+        while (escritos < limite && itens.hasNext()) {
+            T item = itens.next();
+            if (escritos > 0) {
+                saida.write(',');
+            }
+            saida.write(fragmento.serializar(item));
+            ultimaChave = chave.apply(item);
+            escritos++;
+        }
+        saida.write(CURSOR_PAGINA);
+        saida.write(mapper.writeValueAsBytes(itens.hasNext() ? ultimaChave : null));
+        saida.write('}');
+    }
+
+    // Lê o parâmetro ?limit=, aplicando o padrão e o máximo permitidos
+    static int lerLimite(Context ctx) {
+        String limit = ctx.queryParam("limit");
+        if (limit == null) {
+            return LIMITE_PADRAO;
+        }
+        int limite = Integer.parseInt(limit);
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new NumberFormatException("limit fora do intervalo");
+        }
+        return limite;
+    }
+}
@@ -0,0 +1,105 @@
+package app.controller;
+
+import app.service.ResultadoLote;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.javalin.http.Context;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// Ingestão em lote: lê o corpo da requisição item a item (array JSON ou NDJSON, um objeto por linha),
+// aplica os itens no serviço em blocos e escreve o resultado de cada item assim que o bloco termina.
+// Nem o corpo nem a resposta ficam inteiros em memória.
+final class IngestaoLote {
+
+    static final int TAMANHO_BLOCO = 1000;
+
+    // Lê um item a partir do token atual do parser (veja CodecJson)
+    @FunctionalInterface
+    interface LeituraItem<T> {
+        T ler(JsonParser parser, ObjectMapper mapper) throws IOException;
+    }
+
+    private IngestaoLote() {
+    }
+
+    // Responde um array com {"indice", "status", campoChave | "erro"} por item recebido
+    static <T> void processar(Context ctx, ObjectMapper mapper, LeituraItem<T> leitura, String campoChave,
+                              Function<List<T>, List<ResultadoLote>> aplicar) throws IOException {
+        ctx.contentType("application/json");
+        try (JsonParser itens = mapper.createParser(ctx.bodyInputStream());
+             JsonGenerator gerador = mapper.getFactory().createGenerator(ctx.outputStream())) {
+            gerador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            gerador.writeStartArray();
+
+            List<T> bloco = new ArrayList<>(TAMANHO_BLOCO);
+            int indice = 0;
+            // Um array na raiz é desembrulhado; senão cada valor na raiz é um item (NDJSON)
+            boolean emArray = false;
+            boolean primeiro = true;
+            while (true) {
+                T item;
+                try {
+                    JsonToken token = itens.nextToken();
+                    if (primeiro && token == JsonToken.START_ARRAY) {
+                        emArray = true;
+                        token = itens.nextToken();
+                    }
+                    primeiro = false;
+                    if (token == null || (emArray && token == JsonToken.END_ARRAY)) {
+                        break;
+                    }
+                    item = leitura.ler(itens, mapper);
+                } catch (IOException | RuntimeException e) {
+                    // Depois de um erro de sintaxe não dá para saber onde começa o próximo item: para aqui
+                    indice = aplicarBloco(gerador, bloco, indice, campoChave, aplicar);
+                    escreverErro(gerador, indice, 400, "JSON mal-formado ou formato de dados inválido.");
+                    break;
+                }
+                bloco.add(item);
+                if (bloco.size() == TAMANHO_BLOCO) {
+                    indice = aplicarBloco(gerador, bloco, indice, campoChave, aplicar);
+                }
+            }
+            aplicarBloco(gerador, bloco, indice, campoChave, aplicar);
+            gerador.writeEndArray();
+        }
+    }
+
+    private static <T> int aplicarBloco(JsonGenerator gerador, List<T> bloco, int indice, String campoChave,
+                                        Function<List<T>, List<ResultadoLote>> aplicar) throws IOException {
+        if (bloco.isEmpty()) {
+            return indice;
+        }
+        for (ResultadoLote resultado : aplicar.apply(bloco)) {
+            if (resultado.isSucesso()) {
+                gerador.writeStartObject();
+                gerador.writeNumberField("indice", indice);
+                gerador.writeNumberField("status", 201);
+                gerador.writeFieldName(campoChave);
+                gerador.writeObject(resultado.chave());
+                gerador.writeEndObject();
+            } else {
+                escreverErro(gerador, indice, resultado.conflito() ? 409 : 400, resultado.erro());
+            }
+            indice++;
+        }
+        bloco.clear();
+        // Entrega o bloco ao cliente em vez de acumular a resposta
+        gerador.flush();
+        return indice;
+    }
+
+    private static void escreverErro(JsonGenerator gerador, int indice, int status, String erro) throws IOException {
+        gerador.writeStartObject();
+        gerador.writeNumberField("indice", indice);
+        gerador.writeNumberField("status", status);
+        gerador.writeStringField("erro", erro);
+        gerador.writeEndObject();
+    }
+}
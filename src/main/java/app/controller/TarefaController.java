@@ -1,23 +1,53 @@
 package app.controller;
 
+import app.cache.CacheJson;
+import app.cache.OpcoesCache;
+import app.compressao.OpcoesCompressao;
+import app.eventos.OpcoesEventos;
+import app.json.CodecJson;
+import app.model.AlteracaoTarefa;
 import app.model.Tarefa;
+import app.service.Iteradores;
 import app.service.TarefaService;
+import app.service.VersaoDivergenteException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.javalin.Javalin;
 import io.javalin.http.Context;
 
+import java.io.IOException;
+
 public class TarefaController { // Início da classe
 
+    private static final int LIMITE_BUSCA = 20;
+
     private final TarefaService tarefaService;
+    private final ObjectMapper objectMapper;
+    private final OpcoesCompressao compressao = OpcoesCompressao.daConfiguracao();
+    private final OpcoesEventos eventos = OpcoesEventos.daConfiguracao();
+    // Listagens já comprimidas, por codificação e consulta; valem enquanto a versão da coleção não mudar
+    private final CacheJson<String> listasComprimidas = new CacheJson<>("tarefas_listas",
+            new OpcoesCache(compressao.getBytesMaximo(), OpcoesCache.daConfiguracao().getPolitica()));
 
-    public TarefaController(TarefaService tarefaService) {
+    public TarefaController(TarefaService tarefaService, ObjectMapper objectMapper) {
         this.tarefaService = tarefaService;
+        this.objectMapper = objectMapper;
+    }
+
+    public CacheJson<String> getCacheListas() {
+        return listasComprimidas;
     }
 
     public void registrarEndpoints(Javalin app) {
         app.post("/tarefas", this::criarTarefa); // C - Create
+        app.post("/tarefas/batch", this::criarTarefasEmLote); // C - Create em lote (array JSON ou NDJSON)
         app.get("/tarefas", this::listarTarefas); // R - Read all
+        app.get("/tarefas/search", this::buscarTexto); // Busca textual (antes de /tarefas/{id})
+        app.get("/tarefas/stats", this::estatisticas); // Contagens mantidas a cada escrita (antes de /tarefas/{id})
+        app.sse("/tarefas/changes", cliente -> TransmissaoSse.assinar(cliente, tarefaService.getFeed(),
+                eventos.getBatimentoSegundos(), objectMapper, this::json)); // Alterações em tempo real (veja TransmissaoSse)
         app.get("/tarefas/{id}", this::buscarTarefaPorId); // R - Read one
         app.put("/tarefas/{id}", this::atualizarTarefa); // U - Update
+        app.patch("/tarefas/{id}", this::alterarTarefa); // U - Update parcial (só os campos enviados)
         app.delete("/tarefas/{id}", this::deletarTarefa); // D - Delete
     }
 
@@ -25,7 +55,8 @@ public class TarefaController { // Início da classe
         try {
             Tarefa novaTarefa = ctx.bodyAsClass(Tarefa.class);
             Tarefa tarefaCriada = tarefaService.adicionarTarefa(novaTarefa);
-            ctx.status(201).json(tarefaCriada);
+            CacheCondicional.informarVersao(ctx, tarefaCriada.getVersao());
+            ctx.status(201).contentType("application/json").result(json(tarefaCriada));
         } catch (IllegalArgumentException e) {
             ctx.status(400).result(e.getMessage());
         } catch (Exception e) {
@@ -34,17 +65,106 @@ public class TarefaController { // Início da classe
         }
     }
 
-    private void listarTarefas(Context ctx) {
-        ctx.json(tarefaService.listarTarefas());
+    // POST /tarefas/batch responde o status de cada item: [{"indice": 0, "status": 201, "id": 7}, ...]
+    private void criarTarefasEmLote(Context ctx) throws IOException {
+        IngestaoLote.processar(ctx, objectMapper, CodecJson::lerTarefa, "id", tarefaService::adicionarTarefas);
     }
 
-    private void buscarTarefaPorId(Context ctx) {
+    // GET /tarefas escreve o array em streaming; com ?limit= e/ou ?after= responde uma página por cursor.
+    // Com ?concluida= e/ou ?tituloPrefix= usa os índices secundários (?limit= limita o resultado).
+    // A ETag vem da versão da coleção, lida antes dos dados: com If-None-Match igual responde 304.
+    // Com Accept-Encoding gzip ou deflate, a resposta sai comprimida do cache (veja EscritorJson.responder).
+    private void listarTarefas(Context ctx) throws IOException {
+        long versao = tarefaService.getVersaoColecao();
+        String etag = CacheCondicional.etag(versao, ctx.queryString());
+        String concluida = ctx.queryParam("concluida");
+        String tituloPrefix = ctx.queryParam("tituloPrefix");
+        if (concluida != null || tituloPrefix != null) {
+            filtrarTarefas(ctx, concluida, tituloPrefix, versao, etag);
+            return;
+        }
+
+        String after = ctx.queryParam("after");
+        if (ctx.queryParam("limit") == null && after == null) {
+            if (!CacheCondicional.naoModificado(ctx, etag)) {
+                EscritorJson.responder(ctx, listasComprimidas, versao, compressao,
+                        saida -> EscritorJson.escreverLista(saida, tarefaService.percorrerTarefas(null), this::json));
+            }
+            return;
+        }
+
+        int limite;
+        Integer cursor;
+        try {
+            limite = EscritorJson.lerLimite(ctx);
+            cursor = after != null ? Integer.valueOf(after) : null;
+        } catch (NumberFormatException e) {
+            ctx.status(400).result("Parâmetros de paginação inválidos");
+            return;
+        }
+        if (!CacheCondicional.naoModificado(ctx, etag)) {
+            EscritorJson.responder(ctx, listasComprimidas, versao, compressao,
+                    saida -> EscritorJson.escreverPagina(saida, objectMapper, tarefaService.percorrerTarefas(cursor), limite,
+                            Tarefa::getId, this::json));
+        }
+    }
+
+    private void filtrarTarefas(Context ctx, String concluida, String tituloPrefix, long versao, String etag)
+            throws IOException {
+        if (concluida != null && !concluida.equals("true") && !concluida.equals("false")) {
+            ctx.status(400).result("Parâmetro concluida inválido");
+            return;
+        }
+        int limite;
+        try {
+            limite = ctx.queryParam("limit") != null ? EscritorJson.lerLimite(ctx) : Integer.MAX_VALUE;
+        } catch (NumberFormatException e) {
+            ctx.status(400).result("Parâmetros de paginação inválidos");
+            return;
+        }
+        if (CacheCondicional.naoModificado(ctx, etag)) {
+            return;
+        }
+        Boolean filtroConcluida = concluida != null ? Boolean.valueOf(concluida) : null;
+        EscritorJson.responder(ctx, listasComprimidas, versao, compressao, saida -> EscritorJson.escreverLista(saida,
+                Iteradores.limitar(tarefaService.filtrarTarefas(filtroConcluida, tituloPrefix), limite), this::json));
+    }
+
+    // GET /tarefas/search?q=...&limit=... devolve as tarefas mais relevantes primeiro
+    private void buscarTexto(Context ctx) {
+        String consulta = ctx.queryParam("q");
+        if (consulta == null || consulta.isBlank()) {
+            ctx.status(400).result("Parâmetro q é obrigatório");
+            return;
+        }
+        int limite;
+        try {
+            limite = ctx.queryParam("limit") != null ? EscritorJson.lerLimite(ctx) : LIMITE_BUSCA;
+        } catch (NumberFormatException e) {
+            ctx.status(400).result("Parâmetros de paginação inválidos");
+            return;
+        }
+        ctx.json(tarefaService.buscarTexto(consulta, limite));
+    }
+
+    // GET /tarefas/stats: {"total": 10, "concluidas": 4, "abertas": 6, "taxaConclusao": 0.4}, sem percorrer as tarefas.
+    // A ETag vem da versão da coleção, como na listagem
+    private void estatisticas(Context ctx) {
+        String etag = CacheCondicional.etag(tarefaService.getVersaoColecao(), null);
+        if (!CacheCondicional.naoModificado(ctx, etag)) {
+            ctx.json(tarefaService.calcularEstatisticas());
+        }
+    }
+
+    private void buscarTarefaPorId(Context ctx) throws IOException {
         try {
             int id = Integer.parseInt(ctx.pathParam("id"));
             Tarefa tarefa = tarefaService.buscarTarefaPorId(id);
 
             if (tarefa != null) {
-                ctx.json(tarefa);
+                if (!CacheCondicional.naoModificado(ctx, CacheCondicional.etag(tarefa.getVersao()))) {
+                    ctx.contentType("application/json").result(json(tarefa));
+                }
             } else {
                 ctx.status(404).result("Tarefa não encontrada");
             }
@@ -58,15 +178,18 @@ public class TarefaController { // Início da classe
             int id = Integer.parseInt(ctx.pathParam("id"));
             Tarefa tarefaAtualizada = ctx.bodyAsClass(Tarefa.class);
 
-            Tarefa resultado = tarefaService.atualizarTarefa(id, tarefaAtualizada);
+            Tarefa resultado = tarefaService.atualizarTarefa(id, tarefaAtualizada, CacheCondicional.versaoExigida(ctx));
 
             if (resultado != null) {
-                ctx.status(200).json(resultado); // 200 OK
+                CacheCondicional.informarVersao(ctx, resultado.getVersao());
+                ctx.status(200).contentType("application/json").result(json(resultado)); // 200 OK
             } else {
                 ctx.status(404).result("Tarefa não encontrada para atualização."); // 404 Not Found
             }
         } catch (NumberFormatException e) {
             ctx.status(400).result("ID inválido");
+        } catch (VersaoDivergenteException e) {
+            CacheCondicional.versaoDivergente(ctx, e);
         } catch (IllegalArgumentException e) {
             ctx.status(400).result(e.getMessage());
         } catch (Exception e) {
@@ -75,10 +198,42 @@ public class TarefaController { // Início da classe
         }
     }
 
+    // PATCH /tarefas/{id} com {"concluida": true} altera só esse campo; o resto da tarefa fica como está
+    private void alterarTarefa(Context ctx) {
+        try {
+            int id = Integer.parseInt(ctx.pathParam("id"));
+            AlteracaoTarefa alteracao = ctx.bodyAsClass(AlteracaoTarefa.class);
+
+            Tarefa resultado = tarefaService.alterarTarefa(id, alteracao, CacheCondicional.versaoExigida(ctx));
+
+            if (resultado != null) {
+                CacheCondicional.informarVersao(ctx, resultado.getVersao());
+                ctx.status(200).contentType("application/json").result(json(resultado));
+            } else {
+                ctx.status(404).result("Tarefa não encontrada para atualização.");
+            }
+        } catch (NumberFormatException e) {
+            ctx.status(400).result("ID inválido");
+        } catch (VersaoDivergenteException e) {
+            CacheCondicional.versaoDivergente(ctx, e);
+        } catch (IllegalArgumentException e) {
+            ctx.status(400).result(e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Erro ao alterar tarefa: " + e.getMessage());
+            ctx.status(400).result("JSON mal-formado ou formato de dados inválido.");
+        }
+    }
+
+    // JSON da tarefa vindo do cache do serviço: o CodecJson só roda na primeira leitura de cada versão
+    private byte[] json(Tarefa tarefa) throws IOException {
+        return tarefaService.getCacheJson().obter(tarefa.getId(), tarefa.getVersao(),
+                () -> CodecJson.serializarTarefa(objectMapper, tarefa));
+    }
+
     private void deletarTarefa(Context ctx) {
         try {
             int id = Integer.parseInt(ctx.pathParam("id"));
-            boolean deletado = tarefaService.deletarTarefa(id);
+            boolean deletado = tarefaService.deletarTarefa(id, CacheCondicional.versaoExigida(ctx));
 
             if (deletado) {
                 ctx.status(204); // 204 No Content
@@ -87,6 +242,8 @@ public class TarefaController { // Início da classe
             }
         } catch (NumberFormatException e) {
             ctx.status(400).result("ID inválido");
+        } catch (VersaoDivergenteException e) {
+            CacheCondicional.versaoDivergente(ctx, e);
         }
     }
 } 
\ No newline at end of file
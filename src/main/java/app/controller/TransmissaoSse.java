@@ -0,0 +1,120 @@
+package app.controller;
+
+import app.eventos.EventoAlteracao;
+import app.eventos.FeedAlteracoes;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.javalin.http.Context;
+import io.javalin.http.sse.SseClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+// Entrega um feed de alterações a um assinante SSE (GET /tarefas/changes e /usuarios/changes).
+//
+// A requisição fica aberta sem prender uma thread do servidor (keepAlive); cada assinante ganha uma thread
+// virtual que lê o feed a partir do seu cursor e escreve na conexão. Um cliente lento só atrasa a própria thread:
+// se ele ficar mais que a capacidade do feed para trás, recebe "ressincronizar" e a conexão é fechada.
+//
+// Eventos: "conectado" ao abrir; "criacao", "atualizacao" e "exclusao" com id: <sequência> e dados
+// {"sequencia": 8, "tipo": "atualizacao", "chave": "3", "versao": 12, "dados": {...}}; "ressincronizar" com a
+// sequência atual, depois da qual o cliente recarrega a coleção e assina de novo a partir dela.
+// Para retomar depois de uma queda: Last-Event-ID (o EventSource do navegador envia sozinho) ou ?desde=<sequência>.
+final class TransmissaoSse {
+
+    private static final int LOTE = 64;
+
+    private TransmissaoSse() {
+    }
+
+    static <T> void assinar(SseClient cliente, FeedAlteracoes<T> feed, int batimentoSegundos, ObjectMapper objectMapper,
+                            EscritorJson.Fragmento<T> json) {
+        long cursor = cursorInicial(cliente.ctx(), feed);
+        Function<EventoAlteracao<T>, String> formatar = evento -> formatar(evento, objectMapper, json);
+        long batimento = TimeUnit.SECONDS.toNanos(batimentoSegundos);
+        cliente.keepAlive();
+
+        Thread assinante = Thread.ofVirtual().name("sse-" + feed.getNome())
+                .unstarted(() -> transmitir(cliente, feed, cursor, batimento, formatar));
+        if (!feed.inscrever(assinante)) {
+            cliente.sendComment("limite de assinantes atingido");
+            cliente.close();
+            return;
+        }
+        cliente.onClose(() -> LockSupport.unpark(assinante));
+        assinante.start();
+    }
+
+    // ?desde= ou Last-Event-ID; sem nenhum dos dois, só o que for publicado daqui em diante.
+    // Um valor inválido vira -1, que o feed trata como cursor perdido (ressincronizar)
+    private static long cursorInicial(Context ctx, FeedAlteracoes<?> feed) {
+        String desde = ctx.queryParam("desde");
+        if (desde == null) {
+            desde = ctx.header("Last-Event-ID");
+        }
+        if (desde == null || desde.isBlank()) {
+            return feed.getUltimaSequencia();
+        }
+        try {
+            return Long.parseLong(desde.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static <T> void transmitir(SseClient cliente, FeedAlteracoes<T> feed, long inicio, long batimento,
+                                       Function<EventoAlteracao<T>, String> formatar) {
+        long cursor = inicio;
+        List<EventoAlteracao<T>> lote = new ArrayList<>(LOTE);
+        try {
+            cliente.sendEvent("conectado", "{\"sequencia\":" + cursor + "}");
+            long ultimoEnvio = System.nanoTime();
+            while (!cliente.terminated()) {
+                lote.clear();
+                if (!feed.ler(cursor, lote, LOTE)) {
+                    cliente.sendEvent("ressincronizar", "{\"sequencia\":" + feed.getUltimaSequencia() + "}");
+                    return;
+                }
+                for (EventoAlteracao<T> evento : lote) {
+                    cliente.sendEvent(evento.getTipo().getEvento(), evento.texto(formatar), Long.toString(evento.getSequencia()));
+                    cursor = evento.getSequencia();
+                }
+                long agora = System.nanoTime();
+                if (!lote.isEmpty()) {
+                    ultimoEnvio = agora;
+                } else if (agora - ultimoEnvio >= batimento) {
+                    cliente.sendComment("batimento");
+                    ultimoEnvio = agora;
+                } else {
+                    // Acordada pelo feed a cada publicação, pelo onClose ou pelo prazo do próximo batimento
+                    LockSupport.parkNanos(ultimoEnvio + batimento - agora);
+                }
+            }
+        } finally {
+            feed.desinscrever(Thread.currentThread());
+            cliente.close();
+        }
+    }
+
+    // Montado uma vez por evento (EventoAlteracao.texto), com o JSON da entidade vindo do cache do serviço
+    private static <T> String formatar(EventoAlteracao<T> evento, ObjectMapper objectMapper, EscritorJson.Fragmento<T> json) {
+        try {
+            StringBuilder texto = new StringBuilder(256)
+                    .append("{\"sequencia\":").append(evento.getSequencia())
+                    .append(",\"tipo\":\"").append(evento.getTipo().getEvento())
+                    .append("\",\"chave\":").append(objectMapper.writeValueAsString(evento.getChave()))
+                    .append(",\"versao\":").append(evento.getVersao());
+            if (evento.getValor() != null) {
+                texto.append(",\"dados\":").append(new String(json.serializar(evento.getValor()), StandardCharsets.UTF_8));
+            }
+            return texto.append('}').toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
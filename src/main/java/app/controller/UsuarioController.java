@@ -1,26 +1,53 @@
 package app.controller;
 
+import app.cache.CacheJson;
+import app.cache.OpcoesCache;
+import app.compressao.OpcoesCompressao;
+import app.eventos.OpcoesEventos;
+import app.json.CodecJson;
+import app.model.AlteracaoUsuario;
 import app.model.Usuario;
+import app.service.Iteradores;
 import app.service.UsuarioService;
+import app.service.VersaoDivergenteException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.javalin.Javalin;
 import io.javalin.http.Context;
 
+import java.io.IOException;
+
 // Início da classe UsuarioController
 public class UsuarioController { 
 
     private final UsuarioService usuarioService;
+    private final ObjectMapper objectMapper;
+    private final OpcoesCompressao compressao = OpcoesCompressao.daConfiguracao();
+    private final OpcoesEventos eventos = OpcoesEventos.daConfiguracao();
+    // Listagens já comprimidas, por codificação e consulta; valem enquanto a versão da coleção não mudar
+    private final CacheJson<String> listasComprimidas = new CacheJson<>("usuarios_listas",
+            new OpcoesCache(compressao.getBytesMaximo(), OpcoesCache.daConfiguracao().getPolitica()));
 
     // Início do construtor
-    public UsuarioController(UsuarioService usuarioService) {
+    public UsuarioController(UsuarioService usuarioService, ObjectMapper objectMapper) {
         this.usuarioService = usuarioService;
+        this.objectMapper = objectMapper;
     } // Fim do construtor
 
+    public CacheJson<String> getCacheListas() {
+        return listasComprimidas;
+    }
+
     // Início do método registrarEndpoints
     public void registrarEndpoints(Javalin app) {
         app.post("/usuarios", this::criarUsuario); // C - Create
+        app.post("/usuarios/batch", this::criarUsuariosEmLote); // C - Create em lote (array JSON ou NDJSON)
         app.get("/usuarios", this::listarUsuarios); // R - Read all
+        app.get("/usuarios/stats", this::estatisticas); // Contagens mantidas a cada escrita (antes de /usuarios/{email})
+        app.sse("/usuarios/changes", cliente -> TransmissaoSse.assinar(cliente, usuarioService.getFeed(),
+                eventos.getBatimentoSegundos(), objectMapper, this::json)); // Alterações em tempo real (veja TransmissaoSse)
         app.get("/usuarios/{email}", this::buscarUsuarioPorEmail); // R - Read one
         app.put("/usuarios/{email}", this::atualizarUsuario); // U - Update
+        app.patch("/usuarios/{email}", this::alterarUsuario); // U - Update parcial (só os campos enviados)
         app.delete("/usuarios/{email}", this::deletarUsuario); // D - Delete
     } // Fim do método registrarEndpoints
 
@@ -31,7 +58,8 @@ public class UsuarioController {
             Usuario usuarioCriado = usuarioService.adicionarUsuario(novoUsuario);
 
             if (usuarioCriado != null) {
-                ctx.status(201).json(usuarioCriado);
+                CacheCondicional.informarVersao(ctx, usuarioCriado.getVersao());
+                ctx.status(201).contentType("application/json").result(json(usuarioCriado));
             } else {
                 ctx.status(409).result("Usuário já existe");
             }
@@ -43,18 +71,90 @@ public class UsuarioController {
         }
     } // Fim do método criarUsuario
 
+    // Início do método criarUsuariosEmLote
+    // Responde o status de cada item: [{"indice": 0, "status": 201, "email": "..."}, {"indice": 1, "status": 409, ...}]
+    private void criarUsuariosEmLote(Context ctx) throws IOException {
+        IngestaoLote.processar(ctx, objectMapper, CodecJson::lerUsuario, "email", usuarioService::adicionarUsuarios);
+    } // Fim do método criarUsuariosEmLote
+
     // Início do método listarUsuarios
-    private void listarUsuarios(Context ctx) {
-        ctx.json(usuarioService.listarUsuarios());
+    // Sem parâmetros escreve o array em streaming; com ?limit= e/ou ?after=<email> responde uma página por cursor
+    // Com ?dominio= e/ou ?emailPrefix= filtra pelo índice de domínios ou pela ordem dos emails (?limit= limita o resultado).
+    // A ETag vem da versão da coleção, lida antes dos dados: com If-None-Match igual responde 304.
+    // Com Accept-Encoding gzip ou deflate, a resposta sai comprimida do cache (veja EscritorJson.responder).
+    private void listarUsuarios(Context ctx) throws IOException {
+        long versao = usuarioService.getVersaoColecao();
+        String etag = CacheCondicional.etag(versao, ctx.queryString());
+        String dominio = ctx.queryParam("dominio");
+        String emailPrefix = ctx.queryParam("emailPrefix");
+        if (dominio != null || emailPrefix != null) {
+            filtrarUsuarios(ctx, dominio, emailPrefix, versao, etag);
+            return;
+        }
+
+        String after = ctx.queryParam("after");
+        if (ctx.queryParam("limit") == null && after == null) {
+            if (!CacheCondicional.naoModificado(ctx, etag)) {
+                EscritorJson.responder(ctx, listasComprimidas, versao, compressao,
+                        saida -> EscritorJson.escreverLista(saida, usuarioService.percorrerUsuarios(null), this::json));
+            }
+            return;
+        }
+
+        int limite;
+        try {
+            limite = EscritorJson.lerLimite(ctx);
+        } catch (NumberFormatException e) {
+            ctx.status(400).result("Parâmetros de paginação inválidos");
+            return;
+        }
+        if (!CacheCondicional.naoModificado(ctx, etag)) {
+            EscritorJson.responder(ctx, listasComprimidas, versao, compressao,
+                    saida -> EscritorJson.escreverPagina(saida, objectMapper, usuarioService.percorrerUsuarios(after), limite,
+                            Usuario::getEmail, this::json));
+        }
     } // Fim do método listarUsuarios
 
+    // Início do método filtrarUsuarios
+    private void filtrarUsuarios(Context ctx, String dominio, String emailPrefix, long versao, String etag)
+            throws IOException {
+        if (dominio != null && dominio.isBlank()) {
+            ctx.status(400).result("Parâmetro dominio inválido");
+            return;
+        }
+        int limite;
+        try {
+            limite = ctx.queryParam("limit") != null ? EscritorJson.lerLimite(ctx) : Integer.MAX_VALUE;
+        } catch (NumberFormatException e) {
+            ctx.status(400).result("Parâmetros de paginação inválidos");
+            return;
+        }
+        if (CacheCondicional.naoModificado(ctx, etag)) {
+            return;
+        }
+        EscritorJson.responder(ctx, listasComprimidas, versao, compressao, saida -> EscritorJson.escreverLista(saida,
+                Iteradores.limitar(usuarioService.filtrarUsuarios(dominio, emailPrefix), limite), this::json));
+    } // Fim do método filtrarUsuarios
+
+    // Início do método estatisticas
+    // GET /usuarios/stats: {"total": 3, "idadeMedia": 31.5, "faixasIdade": {"0-17": 0, "18-24": 1, ...}},
+    // sem percorrer os usuários. A ETag vem da versão da coleção, como na listagem
+    private void estatisticas(Context ctx) {
+        String etag = CacheCondicional.etag(usuarioService.getVersaoColecao(), null);
+        if (!CacheCondicional.naoModificado(ctx, etag)) {
+            ctx.json(usuarioService.calcularEstatisticas());
+        }
+    } // Fim do método estatisticas
+
     // Início do método buscarUsuarioPorEmail
-    private void buscarUsuarioPorEmail(Context ctx) {
+    private void buscarUsuarioPorEmail(Context ctx) throws IOException {
         String email = ctx.pathParam("email");
         Usuario usuario = usuarioService.buscarUsuarioPorEmail(email);
 
         if (usuario != null) {
-            ctx.json(usuario);
+            if (!CacheCondicional.naoModificado(ctx, CacheCondicional.etag(usuario.getVersao()))) {
+                ctx.contentType("application/json").result(json(usuario));
+            }
         } else {
             ctx.status(404).result("Usuário não encontrado");
         }
@@ -65,13 +165,16 @@ public class UsuarioController {
         String email = ctx.pathParam("email");
         try {
             Usuario usuarioAtualizado = ctx.bodyAsClass(Usuario.class);
-            Usuario resultado = usuarioService.atualizarUsuario(email, usuarioAtualizado);
+            Usuario resultado = usuarioService.atualizarUsuario(email, usuarioAtualizado, CacheCondicional.versaoExigida(ctx));
 
             if (resultado != null) {
-                ctx.status(200).json(resultado); // 200 OK
+                CacheCondicional.informarVersao(ctx, resultado.getVersao());
+                ctx.status(200).contentType("application/json").result(json(resultado)); // 200 OK
             } else {
                 ctx.status(404).result("Usuário não encontrado para atualização."); // 404 Not Found
             }
+        } catch (VersaoDivergenteException e) {
+            CacheCondicional.versaoDivergente(ctx, e);
         } catch (IllegalArgumentException e) {
             ctx.status(400).result(e.getMessage());
         } catch (Exception e) {
@@ -80,15 +183,50 @@ public class UsuarioController {
         }
     } // Fim do método atualizarUsuario
 
+    // Início do método alterarUsuario
+    // PATCH /usuarios/{email} com {"idade": 31} altera só esse campo; o email só muda pelo PUT
+    private void alterarUsuario(Context ctx) {
+        String email = ctx.pathParam("email");
+        try {
+            AlteracaoUsuario alteracao = ctx.bodyAsClass(AlteracaoUsuario.class);
+            Usuario resultado = usuarioService.alterarUsuario(email, alteracao, CacheCondicional.versaoExigida(ctx));
+
+            if (resultado != null) {
+                CacheCondicional.informarVersao(ctx, resultado.getVersao());
+                ctx.status(200).contentType("application/json").result(json(resultado));
+            } else {
+                ctx.status(404).result("Usuário não encontrado para atualização.");
+            }
+        } catch (VersaoDivergenteException e) {
+            CacheCondicional.versaoDivergente(ctx, e);
+        } catch (IllegalArgumentException e) {
+            ctx.status(400).result(e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Erro ao alterar usuário: " + e.getMessage());
+            ctx.status(400).result("JSON mal-formado ou formato de dados inválido.");
+        }
+    } // Fim do método alterarUsuario
+
+    // Início do método json
+    // JSON do usuário vindo do cache do serviço: o CodecJson só roda na primeira leitura de cada versão
+    private byte[] json(Usuario usuario) throws IOException {
+        return usuarioService.getCacheJson().obter(usuario.getEmail(), usuario.getVersao(),
+                () -> CodecJson.serializarUsuario(objectMapper, usuario));
+    } // Fim do método json
+
     // Início do método deletarUsuario
     private void deletarUsuario(Context ctx) {
         String email = ctx.pathParam("email");
-        boolean deletado = usuarioService.deletarUsuario(email);
+        try {
+            boolean deletado = usuarioService.deletarUsuario(email, CacheCondicional.versaoExigida(ctx));
 
-        if (deletado) {
-            ctx.status(204); // 204 No Content
-        } else {
-            ctx.status(404).result("Usuário não encontrado para exclusão.");
+            if (deletado) {
+                ctx.status(204); // 204 No Content
+            } else {
+                ctx.status(404).result("Usuário não encontrado para exclusão.");
+            }
+        } catch (VersaoDivergenteException e) {
+            CacheCondicional.versaoDivergente(ctx, e);
         }
     } 
 
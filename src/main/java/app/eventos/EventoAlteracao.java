@@ -0,0 +1,60 @@
+package app.eventos;
+
+import java.util.function.Function;
+
+// Um evento do feed: a sequência, o tipo, a chave e a versão da entidade, a entidade como ficou (null na exclusão)
+// e o instante da publicação, com que a replicação calcula o atraso dos seguidores.
+// O texto enviado aos assinantes é montado uma vez, pelo primeiro que o pede, e reaproveitado pelos demais.
+public final class EventoAlteracao<T> {
+    private final long sequencia;
+    private final TipoAlteracao tipo;
+    private final String chave;
+    private final long versao;
+    private final T valor;
+    private final long instante;
+    private volatile String texto;
+
+    EventoAlteracao(long sequencia, TipoAlteracao tipo, String chave, long versao, T valor, long instante) {
+        this.sequencia = sequencia;
+        this.tipo = tipo;
+        this.chave = chave;
+        this.versao = versao;
+        this.valor = valor;
+        this.instante = instante;
+    }
+
+    public long getSequencia() {
+        return sequencia;
+    }
+
+    public TipoAlteracao getTipo() {
+        return tipo;
+    }
+
+    public String getChave() {
+        return chave;
+    }
+
+    public long getVersao() {
+        return versao;
+    }
+
+    public T getValor() {
+        return valor;
+    }
+
+    // System.currentTimeMillis() de quando o evento foi publicado
+    public long getInstante() {
+        return instante;
+    }
+
+    // Duas threads podem montar o texto ao mesmo tempo; as duas chegam ao mesmo resultado, então tanto faz qual fica
+    public String texto(Function<EventoAlteracao<T>, String> formatar) {
+        String atual = texto;
+        if (atual == null) {
+            atual = formatar.apply(this);
+            texto = atual;
+        }
+        return atual;
+    }
+}
@@ -0,0 +1,149 @@
+package app.eventos;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ToLongFunction;
+
+// Feed de alterações de um serviço: um anel com os últimos eventos, numerados por uma sequência que só cresce.
+//
+// Quem escreve nunca espera por quem lê: publicar tira a próxima sequência, grava o evento na posição dela e
+// acorda a thread de sinal, tudo sem trava e sem depender de quantos assinantes existem. Cada assinante tem só
+// um cursor (a última sequência que recebeu) e lê do anel no seu ritmo; o anel é o buffer limitado de cada um.
+// Quem fica mais de 'capacidade' eventos para trás encontra suas posições sobrescritas e precisa ressincronizar.
+//
+// Os assinantes esperam estacionados (LockSupport.park). Uma única thread de sinal os acorda depois de cada
+// publicação; publicações seguidas enquanto ela percorre os assinantes viram uma passada só.
+public class FeedAlteracoes<T> {
+    private final String nome;
+    private final int mascara;
+    private final int assinantesMaximo;
+    private final AtomicReferenceArray<EventoAlteracao<T>> anel;
+    private final AtomicLong ultimaSequencia = new AtomicLong();
+    private final Set<Thread> assinantes = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean sinalPendente = new AtomicBoolean();
+    private final LongAdder ressincronizacoes = new LongAdder();
+    private volatile Thread sinalizador;
+
+    public FeedAlteracoes(String nome, OpcoesEventos opcoes) {
+        this.nome = nome;
+        int capacidade = Integer.highestOneBit(Math.max(2, opcoes.getCapacidade() - 1)) << 1;
+        this.mascara = capacidade - 1;
+        this.assinantesMaximo = opcoes.getAssinantesMaximo();
+        this.anel = new AtomicReferenceArray<>(capacidade);
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public int getCapacidade() {
+        return mascara + 1;
+    }
+
+    // Chamado pelos serviços dentro da gravação atômica, então eventos da mesma chave saem na ordem em que as
+    // escritas foram aplicadas. Devolve a sequência do evento
+    public long publicar(TipoAlteracao tipo, String chave, long versao, T valor) {
+        long sequencia = ultimaSequencia.incrementAndGet();
+        anel.set((int) (sequencia & mascara), new EventoAlteracao<>(sequencia, tipo, chave, versao, valor,
+                System.currentTimeMillis()));
+        Thread atual = sinalizador;
+        if (atual != null && sinalPendente.compareAndSet(false, true)) {
+            LockSupport.unpark(atual);
+        }
+        return sequencia;
+    }
+
+    // Sequência do último evento publicado (0 se nenhum); é de onde parte quem assina sem informar um cursor
+    public long getUltimaSequencia() {
+        return ultimaSequencia.get();
+    }
+
+    // Copia para 'destino' os eventos depois de 'cursor', em ordem, até 'maximo'. Para antes de um evento cuja
+    // sequência já foi tirada mas que ainda está sendo gravado (ele chega na próxima leitura). Devolve false se
+    // o assinante ficou para trás: o próximo evento que ele precisa já foi sobrescrito, ou o cursor é de outra
+    // execução do servidor (maior que a última sequência)
+    public boolean ler(long cursor, List<EventoAlteracao<T>> destino, int maximo) {
+        long fim = ultimaSequencia.get();
+        if (cursor > fim || cursor < 0) {
+            ressincronizacoes.increment();
+            return false;
+        }
+        for (long sequencia = cursor + 1; sequencia <= fim && destino.size() < maximo; sequencia++) {
+            EventoAlteracao<T> evento = anel.get((int) (sequencia & mascara));
+            if (evento == null || evento.getSequencia() < sequencia) {
+                break;
+            }
+            if (evento.getSequencia() > sequencia) {
+                ressincronizacoes.increment();
+                return false;
+            }
+            destino.add(evento);
+        }
+        return true;
+    }
+
+    // Registra a thread de um assinante para ser acordada a cada publicação; false se o limite foi atingido
+    public boolean inscrever(Thread assinante) {
+        if (assinantes.size() >= assinantesMaximo) {
+            return false;
+        }
+        iniciarSinalizador();
+        assinantes.add(assinante);
+        return true;
+    }
+
+    public void desinscrever(Thread assinante) {
+        assinantes.remove(assinante);
+    }
+
+    public int getAssinantes() {
+        return assinantes.size();
+    }
+
+    // A thread de sinal só existe depois do primeiro assinante; até lá publicar não acorda ninguém
+    private synchronized void iniciarSinalizador() {
+        if (sinalizador != null) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            while (true) {
+                LockSupport.park();
+                if (sinalPendente.getAndSet(false)) {
+                    for (Thread assinante : assinantes) {
+                        LockSupport.unpark(assinante);
+                    }
+                }
+            }
+        }, "feed-" + nome);
+        thread.setDaemon(true);
+        thread.start();
+        sinalizador = thread;
+    }
+
+    // Texto no formato de exposição do Prometheus, anexado ao GET /metrics
+    public static String exportar(FeedAlteracoes<?>... feeds) {
+        StringBuilder saida = new StringBuilder();
+        serie(saida, "change_feed_sequence", "counter", "Sequência do último evento publicado", feeds,
+                FeedAlteracoes::getUltimaSequencia);
+        serie(saida, "change_feed_subscribers", "gauge", "Assinantes conectados", feeds, FeedAlteracoes::getAssinantes);
+        serie(saida, "change_feed_resyncs_total", "counter", "Assinantes que ficaram para trás e precisaram ressincronizar",
+                feeds, feed -> feed.ressincronizacoes.sum());
+        return saida.toString();
+    }
+
+    private static void serie(StringBuilder saida, String metrica, String tipo, String descricao, FeedAlteracoes<?>[] feeds,
+                              ToLongFunction<FeedAlteracoes<?>> valor) {
+        saida.append("# HELP ").append(metrica).append(' ').append(descricao).append('\n');
+        saida.append("# TYPE ").append(metrica).append(' ').append(tipo).append('\n');
+        for (FeedAlteracoes<?> feed : feeds) {
+            saida.append(metrica).append("{feed=\"").append(feed.nome).append("\"} ")
+                    .append(valor.applyAsLong(feed)).append('\n');
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package app.eventos;
+
+import app.config.Configuracao;
+
+// Opções dos feeds de alterações (GET /tarefas/changes e /usuarios/changes), lidas de app.eventos.*
+public class OpcoesEventos {
+    private final int capacidade;
+    private final int assinantesMaximo;
+    private final int batimentoSegundos;
+
+    public OpcoesEventos(int capacidade, int assinantesMaximo, int batimentoSegundos) {
+        this.capacidade = capacidade;
+        this.assinantesMaximo = assinantesMaximo;
+        this.batimentoSegundos = batimentoSegundos;
+    }
+
+    public static OpcoesEventos daConfiguracao() {
+        return new OpcoesEventos(
+                Configuracao.inteiro("app.eventos.capacidade", 4096),
+                Configuracao.inteiro("app.eventos.assinantesMaximo", 10_000),
+                Configuracao.inteiro("app.eventos.batimentoSegundos", 15));
+    }
+
+    // Eventos guardados no anel de cada feed (arredondado para potência de 2). É também o atraso máximo de um
+    // assinante: quem fica mais que isso para trás recebe "ressincronizar"
+    public int getCapacidade() {
+        return capacidade;
+    }
+
+    // Assinantes simultâneos por feed; acima disso a conexão é encerrada logo após abrir
+    public int getAssinantesMaximo() {
+        return assinantesMaximo;
+    }
+
+    // Sem eventos por esse tempo, o assinante recebe um comentário, que mantém proxies abertos e revela conexões mortas
+    public int getBatimentoSegundos() {
+        return batimentoSegundos;
+    }
+}
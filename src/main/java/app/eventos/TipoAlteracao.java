@@ -0,0 +1,27 @@
+package app.eventos;
+
+// O que uma escrita fez com a entidade; o nome vai no campo "event:" do SSE
+public enum TipoAlteracao {
+    CRIACAO("criacao"),         // não existia e passou a existir
+    ATUALIZACAO("atualizacao"), // PUT ou PATCH sobre uma existente
+    EXCLUSAO("exclusao"),       // deixou de existir; o evento não traz os dados
+    RENOMEACAO("renomeacao");   // trocou de chave: o evento leva a chave antiga e os dados já com a nova
+
+    private final String evento;
+
+    TipoAlteracao(String evento) {
+        this.evento = evento;
+    }
+
+    public String getEvento() {
+        return evento;
+    }
+
+    // anterior e nova como no gravar dos serviços: null = ausente
+    public static TipoAlteracao de(Object anterior, Object nova) {
+        if (anterior == null) {
+            return CRIACAO;
+        }
+        return nova == null ? EXCLUSAO : ATUALIZACAO;
+    }
+}
@@ -0,0 +1,206 @@
+package app.json;
+
+import app.model.AlteracaoTarefa;
+import app.model.AlteracaoUsuario;
+import app.model.Tarefa;
+import app.model.Usuario;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+// Leitura e escrita de Tarefa, Usuario e dos corpos de PATCH direto sobre JsonParser/JsonGenerator, sem a
+// introspecção e as chamadas por reflexão do data-binding. O JSON é o mesmo que o ObjectMapper produz: campos na
+// ordem de declaração, versao de fora, strings null escritas como null.
+//
+// Na leitura, os casos comuns (string, número inteiro, true/false, null) são tratados aqui; qualquer outro valor
+// (um número em string, um decimal no id, um objeto no lugar de texto...) é entregue ao ObjectMapper a partir do
+// token atual, então coerções e mensagens de erro continuam as do Jackson. Campos desconhecidos e "versao" são
+// ignorados, como com FAIL_ON_UNKNOWN_PROPERTIES desligado.
+public final class CodecJson {
+
+    // Escreve um valor num gerador já aberto
+    @FunctionalInterface
+    interface Escrita<T> {
+        void escrever(JsonGenerator gerador, T valor) throws IOException;
+    }
+
+    private CodecJson() {
+    }
+
+    // Escrita
+
+    // Mesmos bytes de mapper.writeValueAsBytes(tarefa), com os buffers reciclados do JsonFactory
+    public static byte[] serializarTarefa(ObjectMapper mapper, Tarefa tarefa) throws IOException {
+        return bytes(mapper, tarefa, CodecJson::escreverTarefa);
+    }
+
+    public static byte[] serializarUsuario(ObjectMapper mapper, Usuario usuario) throws IOException {
+        return bytes(mapper, usuario, CodecJson::escreverUsuario);
+    }
+
+    // Como o writeValueAsBytes do ObjectMapper, menos a busca do serializador e o SerializerProvider por chamada
+    static <T> byte[] bytes(ObjectMapper mapper, T valor, Escrita<T> escrita) throws IOException {
+        try (ByteArrayBuilder saida = new ByteArrayBuilder(mapper.getFactory()._getBufferRecycler())) {
+            try (JsonGenerator gerador = mapper.createGenerator(saida, JsonEncoding.UTF8)) {
+                escrita.escrever(gerador, valor);
+            }
+            byte[] bytes = saida.toByteArray();
+            saida.release();
+            return bytes;
+        }
+    }
+
+    // Como o writeValueAsString do ObjectMapper
+    static <T> String texto(ObjectMapper mapper, T valor, Escrita<T> escrita) throws IOException {
+        SegmentedStringWriter saida = new SegmentedStringWriter(mapper.getFactory()._getBufferRecycler());
+        try (JsonGenerator gerador = mapper.createGenerator(saida)) {
+            escrita.escrever(gerador, valor);
+        }
+        return saida.getAndClear();
+    }
+
+    public static void escreverTarefa(JsonGenerator gerador, Tarefa tarefa) throws IOException {
+        gerador.writeStartObject();
+        gerador.writeNumberField("id", tarefa.getId());
+        gerador.writeStringField("titulo", tarefa.getTitulo());
+        gerador.writeStringField("descricao", tarefa.getDescricao());
+        gerador.writeBooleanField("concluida", tarefa.isConcluida());
+        gerador.writeEndObject();
+    }
+
+    public static void escreverUsuario(JsonGenerator gerador, Usuario usuario) throws IOException {
+        gerador.writeStartObject();
+        gerador.writeStringField("nome", usuario.getNome());
+        gerador.writeStringField("email", usuario.getEmail());
+        gerador.writeNumberField("idade", usuario.getIdade());
+        gerador.writeEndObject();
+    }
+
+    // Leitura: o parser deve estar no primeiro token do valor (nextToken já chamado) e termina no último
+
+    public static Tarefa lerTarefa(JsonParser parser, ObjectMapper reserva) throws IOException {
+        if (!parser.hasToken(JsonToken.START_OBJECT)) {
+            return reserva.readValue(parser, Tarefa.class); // null, array, fim do corpo...
+        }
+        Tarefa tarefa = new Tarefa();
+        String campo;
+        while ((campo = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            switch (campo) {
+                case "id" -> tarefa.setId(lerInt(parser, token, reserva));
+                case "titulo" -> tarefa.setTitulo(lerTexto(parser, token, reserva));
+                case "descricao" -> tarefa.setDescricao(lerTexto(parser, token, reserva));
+                case "concluida" -> tarefa.setConcluida(lerBoolean(parser, token, reserva));
+                default -> parser.skipChildren();
+            }
+        }
+        return tarefa;
+    }
+
+    public static Usuario lerUsuario(JsonParser parser, ObjectMapper reserva) throws IOException {
+        if (!parser.hasToken(JsonToken.START_OBJECT)) {
+            return reserva.readValue(parser, Usuario.class);
+        }
+        Usuario usuario = new Usuario();
+        String campo;
+        while ((campo = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            switch (campo) {
+                case "nome" -> usuario.setNome(lerTexto(parser, token, reserva));
+                case "email" -> usuario.setEmail(lerTexto(parser, token, reserva));
+                case "idade" -> usuario.setIdade(lerInt(parser, token, reserva));
+                default -> parser.skipChildren();
+            }
+        }
+        return usuario;
+    }
+
+    // Só os setters dos campos presentes são chamados, incluindo null explícito (JSON Merge Patch)
+    public static AlteracaoTarefa lerAlteracaoTarefa(JsonParser parser, ObjectMapper reserva) throws IOException {
+        if (!parser.hasToken(JsonToken.START_OBJECT)) {
+            return reserva.readValue(parser, AlteracaoTarefa.class);
+        }
+        AlteracaoTarefa alteracao = new AlteracaoTarefa();
+        String campo;
+        while ((campo = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            switch (campo) {
+                case "titulo" -> alteracao.setTitulo(lerTexto(parser, token, reserva));
+                case "descricao" -> alteracao.setDescricao(lerTexto(parser, token, reserva));
+                case "concluida" -> alteracao.setConcluida(lerBooleanOuNull(parser, token, reserva));
+                default -> parser.skipChildren();
+            }
+        }
+        return alteracao;
+    }
+
+    public static AlteracaoUsuario lerAlteracaoUsuario(JsonParser parser, ObjectMapper reserva) throws IOException {
+        if (!parser.hasToken(JsonToken.START_OBJECT)) {
+            return reserva.readValue(parser, AlteracaoUsuario.class);
+        }
+        AlteracaoUsuario alteracao = new AlteracaoUsuario();
+        String campo;
+        while ((campo = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            switch (campo) {
+                case "nome" -> alteracao.setNome(lerTexto(parser, token, reserva));
+                case "email" -> alteracao.setEmail(lerTexto(parser, token, reserva));
+                case "idade" -> alteracao.setIdade(lerIntegerOuNull(parser, token, reserva));
+                default -> parser.skipChildren();
+            }
+        }
+        return alteracao;
+    }
+
+    private static String lerTexto(JsonParser parser, JsonToken token, ObjectMapper reserva) throws IOException {
+        if (token == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        return reserva.readValue(parser, String.class);
+    }
+
+    private static int lerInt(JsonParser parser, JsonToken token, ObjectMapper reserva) throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT) {
+            return parser.getIntValue();
+        }
+        return reserva.readValue(parser, int.class); // null vira 0, decimais e strings seguem as coerções do Jackson
+    }
+
+    private static Integer lerIntegerOuNull(JsonParser parser, JsonToken token, ObjectMapper reserva)
+            throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT) {
+            return parser.getIntValue();
+        }
+        return reserva.readValue(parser, Integer.class);
+    }
+
+    private static boolean lerBoolean(JsonParser parser, JsonToken token, ObjectMapper reserva) throws IOException {
+        if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE) {
+            return token == JsonToken.VALUE_TRUE;
+        }
+        return reserva.readValue(parser, boolean.class);
+    }
+
+    private static Boolean lerBooleanOuNull(JsonParser parser, JsonToken token, ObjectMapper reserva)
+            throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE) {
+            return token == JsonToken.VALUE_TRUE;
+        }
+        return reserva.readValue(parser, Boolean.class);
+    }
+}
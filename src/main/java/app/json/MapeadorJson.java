@@ -0,0 +1,154 @@
+package app.json;
+
+import app.model.AlteracaoTarefa;
+import app.model.AlteracaoUsuario;
+import app.model.Tarefa;
+import app.model.Usuario;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.javalin.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+// JsonMapper do Javalin: ctx.bodyAsClass e ctx.json de Tarefa, Usuario, dos corpos de PATCH e de listas de
+// tarefas ou usuários passam pelo CodecJson; o resto (estatísticas, mapas, resultados de busca) segue para o
+// mapeador de reserva, o JavalinJackson com o mesmo ObjectMapper.
+public class MapeadorJson implements JsonMapper {
+    // Lê um valor a partir do token atual do parser
+    @FunctionalInterface
+    private interface Leitura<T> {
+        T ler(JsonParser parser, ObjectMapper reserva) throws IOException;
+    }
+
+    private final ObjectMapper mapper;
+    private final JsonMapper reserva;
+
+    public MapeadorJson(ObjectMapper mapper, JsonMapper reserva) {
+        this.mapper = mapper;
+        this.reserva = reserva;
+    }
+
+    @Override
+    public String toJsonString(Object obj, Type type) {
+        try {
+            if (obj instanceof Tarefa tarefa) {
+                return CodecJson.texto(mapper, tarefa, CodecJson::escreverTarefa);
+            }
+            if (obj instanceof Usuario usuario) {
+                return CodecJson.texto(mapper, usuario, CodecJson::escreverUsuario);
+            }
+            if (obj instanceof Collection<?> itens && todos(itens, Tarefa.class)) {
+                return CodecJson.texto(mapper, itens,
+                        (gerador, lista) -> escreverLista(gerador, lista, Tarefa.class, CodecJson::escreverTarefa));
+            }
+            if (obj instanceof Collection<?> itens && todos(itens, Usuario.class)) {
+                return CodecJson.texto(mapper, itens,
+                        (gerador, lista) -> escreverLista(gerador, lista, Usuario.class, CodecJson::escreverUsuario));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return reserva.toJsonString(obj, type);
+    }
+
+    // Coleção não vazia só com instâncias exatas do modelo (subclasses e null ficam com o Jackson)
+    private static boolean todos(Collection<?> itens, Class<?> modelo) {
+        if (itens.isEmpty()) {
+            return false;
+        }
+        for (Object item : itens) {
+            if (item == null || item.getClass() != modelo) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static <T> void escreverLista(JsonGenerator gerador, Collection<?> itens, Class<T> modelo,
+                                          CodecJson.Escrita<T> escrita) throws IOException {
+        gerador.writeStartArray();
+        for (Object item : itens) {
+            escrita.escrever(gerador, modelo.cast(item));
+        }
+        gerador.writeEndArray();
+    }
+
+    @Override
+    public InputStream toJsonStream(Object obj, Type type) {
+        return reserva.toJsonStream(obj, type);
+    }
+
+    @Override
+    public void writeToOutputStream(Stream<?> stream, OutputStream outputStream) {
+        reserva.writeToOutputStream(stream, outputStream);
+    }
+
+    @Override
+    public <T> T fromJsonString(String json, Type type) {
+        Leitura<?> leitura = leitura(type);
+        if (leitura == null) {
+            return reserva.fromJsonString(json, type);
+        }
+        try (JsonParser parser = mapper.createParser(json)) {
+            parser.nextToken();
+            @SuppressWarnings("unchecked")
+            T valor = (T) leitura.ler(parser, mapper);
+            return valor;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public <T> T fromJsonStream(InputStream json, Type type) {
+        return reserva.fromJsonStream(json, type);
+    }
+
+    private static Leitura<?> leitura(Type type) {
+        if (type == Tarefa.class) {
+            return CodecJson::lerTarefa;
+        }
+        if (type == Usuario.class) {
+            return CodecJson::lerUsuario;
+        }
+        if (type == AlteracaoTarefa.class) {
+            return CodecJson::lerAlteracaoTarefa;
+        }
+        if (type == AlteracaoUsuario.class) {
+            return CodecJson::lerAlteracaoUsuario;
+        }
+        if (type instanceof ParameterizedType parametrizado && parametrizado.getRawType() == List.class) {
+            Type item = parametrizado.getActualTypeArguments()[0];
+            if (item == Tarefa.class) {
+                return (parser, reserva) -> lerLista(parser, reserva, type, CodecJson::lerTarefa);
+            }
+            if (item == Usuario.class) {
+                return (parser, reserva) -> lerLista(parser, reserva, type, CodecJson::lerUsuario);
+            }
+        }
+        return null;
+    }
+
+    private static <T> List<T> lerLista(JsonParser parser, ObjectMapper reserva, Type tipo, Leitura<T> item)
+            throws IOException {
+        if (!parser.hasToken(JsonToken.START_ARRAY)) {
+            return reserva.readValue(parser, reserva.constructType(tipo));
+        }
+        List<T> itens = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            itens.add(item.ler(parser, reserva));
+        }
+        return itens;
+    }
+}
@@ -0,0 +1,45 @@
+package app.log;
+
+import app.config.Configuracao;
+
+// Opções do log de requisições, lidas de app.log.* (veja Configuracao)
+public class OpcoesRegistro {
+    private final boolean ativo;
+    private final double amostragem;
+    private final int corpoMaximo;
+    private final int capacidade;
+
+    public OpcoesRegistro(boolean ativo, double amostragem, int corpoMaximo, int capacidade) {
+        this.ativo = ativo;
+        this.amostragem = amostragem;
+        this.corpoMaximo = corpoMaximo;
+        this.capacidade = capacidade;
+    }
+
+    public static OpcoesRegistro daConfiguracao() {
+        return new OpcoesRegistro(
+                Configuracao.booleano("app.log.ativo", true),
+                Configuracao.decimal("app.log.amostragem", 1.0),
+                Configuracao.inteiro("app.log.corpoMaximo", 256),
+                Configuracao.inteiro("app.log.capacidade", 8192));
+    }
+
+    public boolean isAtivo() {
+        return ativo;
+    }
+
+    // Fração das requisições registradas, de 0 a 1 (erros 5xx são sempre registrados)
+    public double getAmostragem() {
+        return amostragem;
+    }
+
+    // Quantidade máxima de bytes do corpo da requisição copiada para o log (0 não registra o corpo)
+    public int getCorpoMaximo() {
+        return corpoMaximo;
+    }
+
+    // Quantidade de linhas que podem esperar pela escrita; além disso, as linhas são descartadas
+    public int getCapacidade() {
+        return capacidade;
+    }
+}
@@ -0,0 +1,179 @@
+package app.log;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Log assíncrono: as threads de requisição só colocam a linha num buffer circular e seguem em
+// frente; uma única thread em segundo plano escreve as linhas na saída, em lotes.
+//
+// O buffer tem tamanho fixo e não usa travas (fila limitada de Vyukov): cada posição tem um número
+// de sequência que diz se ela está livre para o próximo produtor ou pronta para o consumidor.
+// Com o buffer cheio a linha é descartada e contada, nunca bloqueia quem está registrando; a
+// quantidade descartada aparece no próprio log.
+public class RegistroAssincrono implements Closeable {
+
+    private static final int LOTE = 1024;
+    private static final long ESPERA_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final OpcoesRegistro opcoes;
+    private final PrintStream saida;
+    private final String[] linhas;
+    private final AtomicLongArray sequencias;
+    private final int mascara;
+    private final AtomicLong proximaEscrita = new AtomicLong();
+    private long proximaLeitura; // só a thread de escrita usa
+    private final LongAdder descartadas = new LongAdder();
+    private long descartesInformados;
+    private final Thread escritor;
+    private volatile boolean fechado;
+
+    private RegistroAssincrono(OpcoesRegistro opcoes, PrintStream saida) {
+        this.opcoes = opcoes;
+        this.saida = saida;
+        int capacidade = Integer.highestOneBit(Math.max(2, opcoes.getCapacidade() - 1)) << 1;
+        this.linhas = new String[capacidade];
+        this.sequencias = new AtomicLongArray(capacidade);
+        this.mascara = capacidade - 1;
+        for (int i = 0; i < capacidade; i++) {
+            sequencias.set(i, i);
+        }
+        this.escritor = new Thread(this::executarEscritor, "log-requisicoes");
+        this.escritor.setDaemon(true);
+    }
+
+    public static RegistroAssincrono iniciar(OpcoesRegistro opcoes, PrintStream saida) {
+        RegistroAssincrono registro = new RegistroAssincrono(opcoes, saida);
+        if (opcoes.isAtivo()) {
+            registro.escritor.start();
+        }
+        return registro;
+    }
+
+    public OpcoesRegistro getOpcoes() {
+        return opcoes;
+    }
+
+    // Decide pela amostragem se uma requisição com esse status deve ir para o log.
+    // Chamado antes de montar a linha, para que as requisições não sorteadas não custem nada.
+    public boolean deveRegistrar(int status) {
+        if (!opcoes.isAtivo() || fechado) {
+            return false;
+        }
+        return status >= 500 || opcoes.getAmostragem() >= 1.0
+                || ThreadLocalRandom.current().nextDouble() < opcoes.getAmostragem();
+    }
+
+    // Coloca a linha no buffer; devolve false se ela foi descartada (buffer cheio ou log fechado)
+    public boolean registrar(String linha) {
+        if (!opcoes.isAtivo()) {
+            return false;
+        }
+        if (fechado) {
+            descartadas.increment();
+            return false;
+        }
+        long posicao = proximaEscrita.get();
+        while (true) {
+            int indice = (int) (posicao & mascara);
+            long diferenca = sequencias.get(indice) - posicao;
+            if (diferenca == 0) {
+                if (proximaEscrita.compareAndSet(posicao, posicao + 1)) {
+                    linhas[indice] = linha;
+                    // Publica a linha: o consumidor só lê a posição depois de ver a nova sequência
+                    sequencias.set(indice, posicao + 1);
+                    return true;
+                }
+                posicao = proximaEscrita.get();
+            } else if (diferenca < 0) {
+                descartadas.increment(); // o consumidor ainda não liberou a posição: buffer cheio
+                return false;
+            } else {
+                posicao = proximaEscrita.get(); // outro produtor ocupou a posição
+            }
+        }
+    }
+
+    public long getDescartadas() {
+        return descartadas.sum();
+    }
+
+    // Primeiros bytes do corpo como texto de uma linha, com "..." quando cortado
+    public String resumirCorpo(byte[] corpo) {
+        int limite = opcoes.getCorpoMaximo();
+        if (corpo == null || corpo.length == 0 || limite <= 0) {
+            return "";
+        }
+        int tamanho = Math.min(corpo.length, limite);
+        // Não corta no meio de um caractere UTF-8 (bytes de continuação são 10xxxxxx)
+        while (tamanho < corpo.length && tamanho > 0 && (corpo[tamanho] & 0xC0) == 0x80) {
+            tamanho--;
+        }
+        String texto = new String(corpo, 0, tamanho, StandardCharsets.UTF_8).replace("\r", "\\r").replace("\n", "\\n");
+        return tamanho < corpo.length ? texto + "..." : texto;
+    }
+
+    // Escreve o que ainda estiver no buffer e para a thread de escrita
+    @Override
+    public void close() {
+        fechado = true;
+        if (escritor.isAlive()) {
+            LockSupport.unpark(escritor);
+            try {
+                escritor.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void executarEscritor() {
+        StringBuilder lote = new StringBuilder(64 * 1024);
+        while (true) {
+            boolean encerrar = fechado;
+            int lidas = drenar(lote);
+            if (lidas == 0) {
+                if (encerrar) {
+                    return;
+                }
+                LockSupport.parkNanos(this, ESPERA_NANOS);
+            }
+        }
+    }
+
+    // Lê até LOTE linhas do buffer e escreve todas com um único print
+    private int drenar(StringBuilder lote) {
+        int lidas = 0;
+        while (lidas < LOTE) {
+            int indice = (int) (proximaLeitura & mascara);
+            if (sequencias.get(indice) != proximaLeitura + 1) {
+                break; // posição ainda não publicada: buffer vazio
+            }
+            lote.append(linhas[indice]).append(System.lineSeparator());
+            linhas[indice] = null;
+            // Libera a posição para o produtor da próxima volta do buffer
+            sequencias.set(indice, proximaLeitura + linhas.length);
+            proximaLeitura++;
+            lidas++;
+        }
+
+        long totalDescartadas = descartadas.sum();
+        if (totalDescartadas > descartesInformados) {
+            lote.append("[log] ").append(totalDescartadas - descartesInformados)
+                    .append(" linhas descartadas (buffer cheio)").append(System.lineSeparator());
+            descartesInformados = totalDescartadas;
+        }
+        if (!lote.isEmpty()) {
+            saida.print(lote);
+            saida.flush();
+            lote.setLength(0);
+        }
+        return lidas;
+    }
+}
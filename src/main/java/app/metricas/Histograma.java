@@ -0,0 +1,96 @@
+package app.metricas;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histograma de latências em microssegundos, sem travas.
+//
+// As faixas são log-lineares: cada potência de 2 é dividida em 8 faixas iguais, então o erro
+// relativo de um percentil fica abaixo de 12,5% em qualquer escala (de 1 µs a horas) com só
+// ~300 contadores. Registrar um valor é um cálculo de índice e um incremento atômico.
+//
+// Para que threads registrando a mesma faixa não disputem o mesmo contador, há uma cópia dos
+// contadores por "listra" (escolhida pelo ID da thread); a leitura soma as listras.
+public class Histograma {
+
+    private static final int BITS_SUBFAIXA = 3;
+    private static final int SUBFAIXAS = 1 << BITS_SUBFAIXA;
+    private static final int EXPOENTE_MAXIMO = 40; // 2^40 µs, ~12 dias
+    static final int FAIXAS = SUBFAIXAS + (EXPOENTE_MAXIMO - BITS_SUBFAIXA + 1) * SUBFAIXAS;
+    private static final int LISTRAS = Math.min(16, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1);
+
+    private final AtomicLongArray contagens = new AtomicLongArray(LISTRAS * FAIXAS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder soma = new LongAdder();
+
+    public void registrar(long micros) {
+        long valor = Math.max(0, micros);
+        int listra = (int) (Thread.currentThread().threadId() & (LISTRAS - 1));
+        contagens.incrementAndGet(listra * FAIXAS + indice(valor));
+        total.increment();
+        soma.add(valor);
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public long getSomaMicros() {
+        return soma.sum();
+    }
+
+    // Contagem por faixa, somando as listras; use com percentil() para calcular vários percentis de uma vez
+    public long[] contagens() {
+        long[] resultado = new long[FAIXAS];
+        for (int listra = 0; listra < LISTRAS; listra++) {
+            int base = listra * FAIXAS;
+            for (int i = 0; i < FAIXAS; i++) {
+                resultado[i] += contagens.get(base + i);
+            }
+        }
+        return resultado;
+    }
+
+    // Menor valor (limite superior de faixa) que cobre a fração q das amostras; 0 sem amostras
+    public static long percentil(long[] contagens, double q) {
+        long quantidade = 0;
+        for (long contagem : contagens) {
+            quantidade += contagem;
+        }
+        if (quantidade == 0) {
+            return 0;
+        }
+        long alvo = Math.max(1, (long) Math.ceil(q * quantidade));
+        long acumulado = 0;
+        for (int i = 0; i < contagens.length; i++) {
+            acumulado += contagens[i];
+            if (acumulado >= alvo) {
+                return limiteSuperior(i);
+            }
+        }
+        return limiteSuperior(contagens.length - 1);
+    }
+
+    // Valores até 7 têm faixa própria; acima disso, o expoente escolhe o grupo e os 3 bits
+    // seguintes ao mais significativo escolhem a faixa dentro do grupo
+    static int indice(long valor) {
+        if (valor < SUBFAIXAS) {
+            return (int) valor;
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        if (expoente > EXPOENTE_MAXIMO) {
+            return FAIXAS - 1;
+        }
+        int subfaixa = (int) (valor >>> (expoente - BITS_SUBFAIXA)) & (SUBFAIXAS - 1);
+        return (expoente - BITS_SUBFAIXA + 1) * SUBFAIXAS + subfaixa;
+    }
+
+    static long limiteSuperior(int indice) {
+        if (indice < SUBFAIXAS) {
+            return indice;
+        }
+        int expoente = indice / SUBFAIXAS + BITS_SUBFAIXA - 1;
+        long inicio = (long) (SUBFAIXAS + indice % SUBFAIXAS) << (expoente - BITS_SUBFAIXA);
+        return inicio + (1L << (expoente - BITS_SUBFAIXA)) - 1;
+    }
+}
@@ -0,0 +1,136 @@
+package app.metricas;
+
+import io.javalin.http.Context;
+import org.eclipse.jetty.server.Request;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Métricas das requisições HTTP: latência, bytes recebidos e enviados por rota, método e status,
+// e quantas requisições estão em andamento. Exportadas no formato texto do Prometheus.
+//
+// A rota é o caminho cadastrado ("/tarefas/{id}"), não o caminho da requisição, para que a
+// quantidade de séries não cresça com os IDs. Os percentis são acumulados desde o início do
+// processo.
+public class MetricasHttp {
+
+    private static final double[] QUANTIS = {0.5, 0.99, 0.999};
+    private static final String ROTA_DESCONHECIDA = "desconhecida";
+
+    private record ChaveSerie(String metodo, String rota, int status) {
+    }
+
+    private static final class Serie {
+        final Histograma latencia = new Histograma();
+        final LongAdder bytesRecebidos = new LongAdder();
+        final LongAdder bytesEnviados = new LongAdder();
+    }
+
+    private final Map<ChaveSerie, Serie> series = new ConcurrentHashMap<>();
+    private final AtomicLong emAndamento = new AtomicLong();
+    private final AtomicLong picoEmAndamento = new AtomicLong();
+
+    // Chamado no início de cada requisição (app.before)
+    public void iniciar(Context ctx) {
+        long atual = emAndamento.incrementAndGet();
+        if (atual > picoEmAndamento.get()) {
+            picoEmAndamento.accumulateAndGet(atual, Math::max);
+        }
+    }
+
+    // Chamado ao fim de cada requisição (requestLogger), com o tempo medido pelo Javalin
+    public void registrar(Context ctx, float tempoMs) {
+        emAndamento.decrementAndGet();
+        ChaveSerie chave = new ChaveSerie(ctx.method().name(), rota(ctx), ctx.statusCode());
+        Serie serie = series.get(chave);
+        if (serie == null) {
+            serie = series.computeIfAbsent(chave, c -> new Serie());
+        }
+        serie.latencia.registrar((long) (tempoMs * 1000));
+
+        // O Jetty conta os bytes que de fato passaram pela conexão, inclusive respostas em streaming
+        Request base = Request.getBaseRequest(ctx.req());
+        if (base != null) {
+            serie.bytesRecebidos.add(base.getHttpInput().getContentReceived());
+            serie.bytesEnviados.add(base.getResponse().getHttpChannel().getBytesWritten());
+        } else if (ctx.contentLength() > 0) {
+            serie.bytesRecebidos.add(ctx.contentLength());
+        }
+    }
+
+    public long getEmAndamento() {
+        return emAndamento.get();
+    }
+
+    // Texto no formato de exposição do Prometheus (text/plain; version=0.0.4)
+    public String exportar() {
+        List<Map.Entry<ChaveSerie, Serie>> ordenadas = series.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.comparing(ChaveSerie::rota)
+                        .thenComparing(ChaveSerie::metodo).thenComparingInt(ChaveSerie::status)))
+                .toList();
+        StringBuilder saida = new StringBuilder(4096);
+
+        saida.append("# HELP http_server_requests_seconds Latência das requisições por rota, método e status\n");
+        saida.append("# TYPE http_server_requests_seconds summary\n");
+        for (Map.Entry<ChaveSerie, Serie> entrada : ordenadas) {
+            String rotulos = rotulos(entrada.getKey());
+            Histograma latencia = entrada.getValue().latencia;
+            long[] contagens = latencia.contagens();
+            for (double quantil : QUANTIS) {
+                saida.append("http_server_requests_seconds{").append(rotulos).append(",quantile=\"").append(quantil).append("\"} ")
+                        .append(segundos(Histograma.percentil(contagens, quantil))).append('\n');
+            }
+            saida.append("http_server_requests_seconds_sum{").append(rotulos).append("} ")
+                    .append(segundos(latencia.getSomaMicros())).append('\n');
+            saida.append("http_server_requests_seconds_count{").append(rotulos).append("} ")
+                    .append(latencia.getTotal()).append('\n');
+        }
+
+        saida.append("# HELP http_server_request_bytes_total Bytes recebidos no corpo das requisições\n");
+        saida.append("# TYPE http_server_request_bytes_total counter\n");
+        for (Map.Entry<ChaveSerie, Serie> entrada : ordenadas) {
+            saida.append("http_server_request_bytes_total{").append(rotulos(entrada.getKey())).append("} ")
+                    .append(entrada.getValue().bytesRecebidos.sum()).append('\n');
+        }
+        saida.append("# HELP http_server_response_bytes_total Bytes enviados nas respostas, com cabeçalhos\n");
+        saida.append("# TYPE http_server_response_bytes_total counter\n");
+        for (Map.Entry<ChaveSerie, Serie> entrada : ordenadas) {
+            saida.append("http_server_response_bytes_total{").append(rotulos(entrada.getKey())).append("} ")
+                    .append(entrada.getValue().bytesEnviados.sum()).append('\n');
+        }
+
+        saida.append("# HELP http_server_requests_in_flight Requisições em andamento\n");
+        saida.append("# TYPE http_server_requests_in_flight gauge\n");
+        saida.append("http_server_requests_in_flight ").append(emAndamento.get()).append('\n');
+        saida.append("# HELP http_server_requests_in_flight_max Maior quantidade de requisições simultâneas observada\n");
+        saida.append("# TYPE http_server_requests_in_flight_max gauge\n");
+        saida.append("http_server_requests_in_flight_max ").append(picoEmAndamento.get()).append('\n');
+        return saida.toString();
+    }
+
+    // Requisições que não casaram com nenhuma rota (404) ficam todas numa série só
+    private static String rota(Context ctx) {
+        try {
+            String rota = ctx.endpointHandlerPath();
+            return rota == null || rota.isEmpty() ? ROTA_DESCONHECIDA : rota;
+        } catch (RuntimeException e) {
+            return ROTA_DESCONHECIDA;
+        }
+    }
+
+    private static String rotulos(ChaveSerie chave) {
+        return "method=\"" + chave.metodo() + "\",route=\"" + escapar(chave.rota()) + "\",status=\"" + chave.status() + "\"";
+    }
+
+    private static String escapar(String valor) {
+        return valor.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String segundos(long micros) {
+        return Double.toString(micros / 1_000_000.0);
+    }
+}
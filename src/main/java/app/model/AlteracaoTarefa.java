@@ -0,0 +1,49 @@
+package app.model;
+
+// Corpo de PATCH /tarefas/{id}: só os campos presentes no JSON são alterados (JSON Merge Patch).
+// O Jackson chama apenas os setters dos campos que vieram, então "presente" inclui um null explícito.
+public class AlteracaoTarefa {
+    private String titulo;
+    private String descricao;
+    private Boolean concluida;
+    private boolean temTitulo;
+    private boolean temDescricao;
+    private boolean temConcluida;
+
+    public void setTitulo(String titulo) {
+        this.titulo = titulo;
+        this.temTitulo = true;
+    }
+
+    public void setDescricao(String descricao) {
+        this.descricao = descricao;
+        this.temDescricao = true;
+    }
+
+    public void setConcluida(Boolean concluida) {
+        this.concluida = concluida;
+        this.temConcluida = true;
+    }
+
+    public void validar() {
+        if (temTitulo && (titulo == null || titulo.trim().isEmpty())) {
+            throw new IllegalArgumentException("Título é obrigatório");
+        }
+        if (temConcluida && concluida == null) {
+            throw new IllegalArgumentException("concluida não pode ser nulo");
+        }
+    }
+
+    public boolean isVazia() {
+        return !temTitulo && !temDescricao && !temConcluida;
+    }
+
+    // Nova tarefa com os campos alterados; a atual não é modificada, porque leitores e o cache de JSON ainda a usam
+    public Tarefa aplicar(Tarefa atual) {
+        Tarefa nova = new Tarefa(temTitulo ? titulo : atual.getTitulo(),
+                temDescricao ? descricao : atual.getDescricao(),
+                temConcluida ? concluida : atual.isConcluida());
+        nova.setId(atual.getId());
+        return nova;
+    }
+}
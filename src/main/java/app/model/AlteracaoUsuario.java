@@ -0,0 +1,46 @@
+package app.model;
+
+// Corpo de PATCH /usuarios/{email}: só os campos presentes no JSON são alterados (JSON Merge Patch).
+// O email identifica o usuário e só muda pelo PUT.
+public class AlteracaoUsuario {
+    private String nome;
+    private Integer idade;
+    private String email;
+    private boolean temNome;
+    private boolean temIdade;
+    private boolean temEmail;
+
+    public void setNome(String nome) {
+        this.nome = nome;
+        this.temNome = true;
+    }
+
+    public void setIdade(Integer idade) {
+        this.idade = idade;
+        this.temIdade = true;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+        this.temEmail = true;
+    }
+
+    // email é o do path; no corpo ele só é aceito se for o mesmo, sem diferenciar maiúsculas
+    public void validar(String email) {
+        if (temEmail && (this.email == null || !email.trim().equalsIgnoreCase(this.email.trim()))) {
+            throw new IllegalArgumentException("O email não pode ser alterado pelo PATCH; use PUT.");
+        }
+        if (temIdade && idade == null) {
+            throw new IllegalArgumentException("idade não pode ser nula");
+        }
+    }
+
+    public boolean isVazia() {
+        return !temNome && !temIdade;
+    }
+
+    // Novo usuário com os campos alterados; o atual não é modificado, porque leitores e o cache de JSON ainda o usam
+    public Usuario aplicar(Usuario atual) {
+        return new Usuario(temNome ? nome : atual.getNome(), atual.getEmail(), temIdade ? idade : atual.getIdade());
+    }
+}
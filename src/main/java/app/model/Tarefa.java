@@ -1,10 +1,14 @@
 package app.model; 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class Tarefa {
     private int id;
     private String titulo;
     private String descricao;
     private boolean concluida;
+    // Atribuída pelo serviço a cada gravação; serve de ETag e não faz parte do JSON
+    private long versao;
 
     public Tarefa() {
     }
@@ -47,6 +51,16 @@ public class Tarefa {
         this.concluida = concluida;
     }
 
+    @JsonIgnore
+    public long getVersao() {
+        return versao;
+    }
+
+    @JsonIgnore
+    public void setVersao(long versao) {
+        this.versao = versao;
+    }
+
     @Override
     public String toString() {
         return "Tarefa{" +
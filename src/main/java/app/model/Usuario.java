@@ -1,9 +1,13 @@
 package app.model; 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class Usuario {
     private String nome;
     private String email;
     private int idade;
+    // Atribuída pelo serviço a cada gravação; serve de ETag e não faz parte do JSON
+    private long versao;
 
     public Usuario() {
     }
@@ -38,6 +42,16 @@ public class Usuario {
         this.idade = idade;
     }
 
+    @JsonIgnore
+    public long getVersao() {
+        return versao;
+    }
+
+    @JsonIgnore
+    public void setVersao(long versao) {
+        this.versao = versao;
+    }
+
     @Override
     public String toString() {
         return "Usuario{" +
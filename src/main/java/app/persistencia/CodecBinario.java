@@ -0,0 +1,120 @@
+package app.persistencia;
+
+import app.model.Tarefa;
+import app.model.Usuario;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Formato binário compacto de Tarefa e Usuario, usado no write-ahead log.
+// Strings são gravadas como tamanho (int, -1 para null) seguido dos bytes UTF-8.
+public final class CodecBinario {
+
+    private CodecBinario() {
+    }
+
+    public static byte[] codificarTarefa(Tarefa tarefa) {
+        byte[] titulo = utf8(tarefa.getTitulo());
+        byte[] descricao = utf8(tarefa.getDescricao());
+        ByteBuffer buffer = ByteBuffer.allocate(4 + tamanho(titulo) + tamanho(descricao) + 1);
+        buffer.putInt(tarefa.getId());
+        escreverTexto(buffer, titulo);
+        escreverTexto(buffer, descricao);
+        buffer.put((byte) (tarefa.isConcluida() ? 1 : 0));
+        return buffer.array();
+    }
+
+    public static Tarefa decodificarTarefa(ByteBuffer buffer) {
+        Tarefa tarefa = new Tarefa();
+        tarefa.setId(buffer.getInt());
+        tarefa.setTitulo(lerTexto(buffer));
+        tarefa.setDescricao(lerTexto(buffer));
+        tarefa.setConcluida(buffer.get() != 0);
+        return tarefa;
+    }
+
+    public static byte[] codificarUsuario(Usuario usuario) {
+        byte[] nome = utf8(usuario.getNome());
+        byte[] email = utf8(usuario.getEmail());
+        ByteBuffer buffer = ByteBuffer.allocate(tamanho(nome) + tamanho(email) + 4);
+        escreverTexto(buffer, nome);
+        escreverTexto(buffer, email);
+        buffer.putInt(usuario.getIdade());
+        return buffer.array();
+    }
+
+    public static Usuario decodificarUsuario(ByteBuffer buffer) {
+        Usuario usuario = new Usuario();
+        usuario.setNome(lerTexto(buffer));
+        usuario.setEmail(lerTexto(buffer));
+        usuario.setIdade(buffer.getInt());
+        return usuario;
+    }
+
+    public static byte[] codificarId(int id) {
+        return ByteBuffer.allocate(4).putInt(id).array();
+    }
+
+    public static int decodificarId(ByteBuffer buffer) {
+        return buffer.getInt();
+    }
+
+    public static byte[] codificarTexto(String texto) {
+        byte[] bytes = utf8(texto);
+        ByteBuffer buffer = ByteBuffer.allocate(tamanho(bytes));
+        escreverTexto(buffer, bytes);
+        return buffer.array();
+    }
+
+    public static String decodificarTexto(ByteBuffer buffer) {
+        return lerTexto(buffer);
+    }
+
+    // Troca de email: o email antigo seguido do usuário já com o novo. Lê-se com decodificarTexto e depois
+    // decodificarUsuario no mesmo buffer
+    public static byte[] codificarRenomeacao(String emailAnterior, Usuario usuario) {
+        byte[] anterior = utf8(emailAnterior);
+        byte[] nome = utf8(usuario.getNome());
+        byte[] email = utf8(usuario.getEmail());
+        ByteBuffer buffer = ByteBuffer.allocate(tamanho(anterior) + tamanho(nome) + tamanho(email) + 4);
+        escreverTexto(buffer, anterior);
+        escreverTexto(buffer, nome);
+        escreverTexto(buffer, email);
+        buffer.putInt(usuario.getIdade());
+        return buffer.array();
+    }
+
+    private static byte[] utf8(String texto) {
+        return texto == null ? null : texto.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int tamanho(byte[] bytes) {
+        return 4 + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void escreverTexto(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String lerTexto(ByteBuffer buffer) {
+        int tamanho = buffer.getInt();
+        if (tamanho < 0) {
+            return null;
+        }
+        String texto;
+        if (buffer.hasArray()) {
+            texto = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), tamanho, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[tamanho];
+            buffer.get(buffer.position(), bytes);
+            texto = new String(bytes, StandardCharsets.UTF_8);
+        }
+        buffer.position(buffer.position() + tamanho);
+        return texto;
+    }
+}
@@ -0,0 +1,35 @@
+package app.persistencia;
+
+import app.model.Tarefa;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+
+// Gera um snapshot de tarefas sintéticas para medir o tempo de inicialização com muitos dados.
+// Uso: .\gradlew gerarSnapshot --args="dados 1000000"
+public class GeradorSnapshot {
+
+    public static void main(String[] args) throws IOException {
+        Path diretorio = Paths.get(args.length > 0 ? args[0] : "dados");
+        int quantidade = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        Files.createDirectories(diretorio);
+
+        Iterator<byte[]> tarefas = IntStream.rangeClosed(1, quantidade).mapToObj(id -> {
+            Tarefa tarefa = new Tarefa("Tarefa " + id, "Descrição da tarefa número " + id, id % 3 == 0);
+            tarefa.setId(id);
+            return CodecBinario.codificarTarefa(tarefa);
+        }).iterator();
+
+        long inicio = System.nanoTime();
+        Snapshot.gravar(diretorio.resolve("tarefas.snapshot"), tarefas);
+        Files.deleteIfExists(diretorio.resolve("tarefas.wal"));
+        Files.deleteIfExists(diretorio.resolve("tarefas.ids"));
+        System.out.printf("Snapshot com %d tarefas gravado em %s (%d ms, %d bytes)%n", quantidade,
+                diretorio.toAbsolutePath(), (System.nanoTime() - inicio) / 1_000_000,
+                Files.size(diretorio.resolve("tarefas.snapshot")));
+    }
+}
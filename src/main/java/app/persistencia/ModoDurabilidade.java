@@ -0,0 +1,11 @@
+package app.persistencia;
+
+// Quanto uma escrita espera antes de ser confirmada ao cliente
+public enum ModoDurabilidade {
+    // Cada escrita espera o fsync do seu registro; escritas concorrentes dividem o mesmo fsync (group commit)
+    SINCRONO,
+    // O fsync acontece a cada intervalo; as escritas esperam o próximo fsync
+    AGRUPADO,
+    // O fsync acontece a cada intervalo, mas as escritas não esperam por ele
+    ASSINCRONO
+}
@@ -0,0 +1,37 @@
+package app.persistencia;
+
+import app.config.Configuracao;
+
+// Opções do write-ahead log, lidas de app.wal.* (veja Configuracao)
+public class OpcoesLog {
+    private final ModoDurabilidade modo;
+    private final long intervaloMs;
+    private final long compactarApos;
+
+    public OpcoesLog(ModoDurabilidade modo, long intervaloMs, long compactarApos) {
+        this.modo = modo;
+        this.intervaloMs = intervaloMs;
+        this.compactarApos = compactarApos;
+    }
+
+    public static OpcoesLog daConfiguracao() {
+        return new OpcoesLog(
+                Configuracao.opcao("app.wal.modo", ModoDurabilidade.class, ModoDurabilidade.SINCRONO),
+                Configuracao.longo("app.wal.intervaloMs", 5),
+                Configuracao.longo("app.wal.compactarApos", 100_000));
+    }
+
+    public ModoDurabilidade getModo() {
+        return modo;
+    }
+
+    // Intervalo entre fsyncs nos modos AGRUPADO e ASSINCRONO
+    public long getIntervaloMs() {
+        return intervaloMs;
+    }
+
+    // Quantidade de registros anexados que dispara uma compactação em segundo plano
+    public long getCompactarApos() {
+        return compactarApos;
+    }
+}
@@ -0,0 +1,104 @@
+package app.persistencia;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+// Snapshot binário de um store: um cabeçalho seguido das entidades codificadas com CodecBinario,
+// uma após a outra, sem separadores.
+//
+//   [magia "SNP1" (4)][quantidade de entidades (8)][tamanho dos dados (8)][entidades...]
+//
+// A carga mapeia o arquivo com MappedByteBuffer e decodifica tudo numa única passada sequencial,
+// sem Jackson e sem cópias intermediárias. A gravação vai para um arquivo temporário que só
+// substitui o snapshot anterior (rename atômico) depois do fsync, então um snapshot visível está
+// sempre completo.
+public final class Snapshot {
+
+    private static final int MAGIA = 0x534E5031; // "SNP1"
+    private static final int CABECALHO = 4 + 8 + 8;
+
+    private Snapshot() {
+    }
+
+    // Grava as entidades e devolve quantas foram gravadas
+    public static long gravar(Path arquivo, Iterator<byte[]> entidades) throws IOException {
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        long quantidade = 0;
+        long tamanhoDados = 0;
+        try (FileChannel saida = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            saida.position(CABECALHO);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1024 * 1024);
+            while (entidades.hasNext()) {
+                byte[] entidade = entidades.next();
+                if (buffer.remaining() < entidade.length) {
+                    escreverTudo(saida, buffer);
+                    if (buffer.capacity() < entidade.length) {
+                        buffer = ByteBuffer.allocate(entidade.length);
+                    }
+                }
+                buffer.put(entidade);
+                quantidade++;
+                tamanhoDados += entidade.length;
+            }
+            escreverTudo(saida, buffer);
+
+            ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO);
+            cabecalho.putInt(MAGIA).putLong(quantidade).putLong(tamanhoDados).flip();
+            long posicao = 0;
+            while (cabecalho.hasRemaining()) {
+                posicao += saida.write(cabecalho, posicao);
+            }
+            saida.force(true);
+        }
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return quantidade;
+    }
+
+    // Mapeia o snapshot e chama o leitor uma vez por entidade, com o buffer posicionado no início
+    // dela; o leitor deve consumir exatamente uma entidade. Devolve quantas entidades foram lidas.
+    public static long carregar(Path arquivo, Consumer<ByteBuffer> leitor) throws IOException {
+        if (!Files.exists(arquivo)) {
+            return 0;
+        }
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            if (tamanho > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot maior que 2 GB não suportado: " + arquivo);
+            }
+            MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanho);
+            if (tamanho < CABECALHO || mapa.getInt() != MAGIA) {
+                throw new IOException("Arquivo não é um snapshot válido: " + arquivo);
+            }
+            long quantidade = mapa.getLong();
+            long tamanhoDados = mapa.getLong();
+            if (tamanhoDados != tamanho - CABECALHO) {
+                throw new IOException("Snapshot truncado: " + arquivo);
+            }
+
+            for (long i = 0; i < quantidade; i++) {
+                leitor.accept(mapa);
+            }
+            if (mapa.hasRemaining()) {
+                throw new IOException("Snapshot corrompido: sobraram " + mapa.remaining() + " bytes em " + arquivo);
+            }
+            return quantidade;
+        }
+    }
+
+    private static void escreverTudo(FileChannel saida, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            saida.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,401 @@
+package app.persistencia;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+// Log de escrita antecipada (write-ahead log) de um store.
+//
+// Cada registro é gravado como [tamanho][crc][operação][payload]. As escritas são acumuladas num
+// buffer em memória e uma única thread descarrega o buffer no FileChannel e faz o fsync: quem
+// chegou enquanto o fsync anterior estava em andamento sai no próximo, dividindo o mesmo fsync.
+//
+// Arquivos no diretório de dados:
+//   <nome>.snapshot    estado compactado (veja Snapshot), carregado via arquivo mapeado
+//   <nome>.wal.antigo  log rotacionado durante uma compactação ainda não concluída
+//   <nome>.wal         log ativo
+// Na abertura, os três são reproduzidos nessa ordem. Como cada registro carrega a entidade
+// inteira (ou a chave removida), reproduzir um registro duas vezes não muda o resultado.
+//
+// Quem anexa o registro antes de aplicar a escrita na memória (os serviços anexam dentro da gravação atômica do
+// armazém) deve envolver a escrita em iniciarEscrita/concluirEscrita: a compactação espera essas escritas
+// terminarem antes de fotografar o estado, senão um registro que só está no log antigo ficaria fora do snapshot.
+public class WriteAheadLog implements Closeable {
+
+    public static final byte GRAVAR = 1;
+    public static final byte REMOVER = 2;
+    // Troca de chave numa escrita só: a chave antiga seguida da entidade inteira, já com a chave nova
+    public static final byte RENOMEAR = 3;
+
+    private static final int CABECALHO = 8; // tamanho (4) + crc (4)
+    private static final int TAMANHO_MAXIMO_REGISTRO = 64 * 1024 * 1024;
+
+    // Recebe cada registro durante a reprodução do log
+    public interface ConsumidorRegistro {
+        void aplicar(byte operacao, ByteBuffer payload);
+    }
+
+    private final Path arquivoLog;
+    private final Path arquivoAntigo;
+    private final Path arquivoSnapshot;
+    private final OpcoesLog opcoes;
+    private final Supplier<Iterator<byte[]>> estadoAtual;
+
+    // Protege o buffer pendente e os contadores de registros
+    private final ReentrantLock trava = new ReentrantLock();
+    private final Condition haPendencias = trava.newCondition();
+    private final Condition gravado = trava.newCondition();
+    private ByteBuffer pendente = ByteBuffer.allocate(64 * 1024);
+    private long anexados;
+    private long duraveis;
+    private boolean fechado;
+    private IOException falha;
+
+    // Protege o canal do arquivo (descarga e rotação)
+    private final ReentrantLock travaCanal = new ReentrantLock();
+    private ByteBuffer emEscrita = ByteBuffer.allocate(64 * 1024);
+    private FileChannel canal;
+
+    private final AtomicLong registrosDesdeCompactacao = new AtomicLong();
+    private final AtomicBoolean compactando = new AtomicBoolean();
+    // Escritas em andamento por geração (a paridade indexa o contador); cada rotação do log abre uma geração
+    private final LongAdder[] emAndamento = {new LongAdder(), new LongAdder()};
+    private volatile long geracao;
+    private final Thread descarregador;
+
+    private WriteAheadLog(Path diretorio, String nome, OpcoesLog opcoes, Supplier<Iterator<byte[]>> estadoAtual) {
+        this.arquivoLog = diretorio.resolve(nome + ".wal");
+        this.arquivoAntigo = diretorio.resolve(nome + ".wal.antigo");
+        this.arquivoSnapshot = diretorio.resolve(nome + ".snapshot");
+        this.opcoes = opcoes;
+        this.estadoAtual = estadoAtual;
+        this.descarregador = new Thread(this::executarDescarregador, "wal-" + nome);
+        this.descarregador.setDaemon(true);
+    }
+
+    // Reproduz o que já está em disco no consumidor e abre o log para novas escritas.
+    // estadoAtual fornece os payloads GRAVAR de todas as entidades vivas, usado na compactação.
+    public static WriteAheadLog abrir(Path diretorio, String nome, OpcoesLog opcoes,
+                                      Supplier<Iterator<byte[]>> estadoAtual,
+                                      ConsumidorRegistro consumidor) throws IOException {
+        Files.createDirectories(diretorio);
+        WriteAheadLog log = new WriteAheadLog(diretorio, nome, opcoes, estadoAtual);
+        Snapshot.carregar(log.arquivoSnapshot, entidade -> consumidor.aplicar(GRAVAR, entidade));
+        log.reproduzir(log.arquivoAntigo, consumidor);
+        long validos = log.reproduzir(log.arquivoLog, consumidor);
+
+        log.canal = FileChannel.open(log.arquivoLog, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        // Um registro incompleto no fim vem de uma queda no meio da escrita: é descartado
+        log.canal.truncate(validos);
+        log.canal.position(validos);
+        log.descarregador.start();
+
+        if (Files.exists(log.arquivoAntigo)) {
+            // Uma compactação anterior não terminou: o estado já está em memória, então termina agora
+            log.compactar();
+        }
+        return log;
+    }
+
+    // Anexa um registro e espera a confirmação exigida pelo modo de durabilidade
+    public void anexar(byte operacao, byte[] payload) {
+        aguardar(anexarSemEsperar(operacao, payload));
+    }
+
+    // Anexa um registro sem esperar; o ticket devolvido pode ser passado a aguardar().
+    // Útil para lotes: vários registros anexados e uma única espera pelo último.
+    public long anexarSemEsperar(byte operacao, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(operacao);
+        crc.update(payload);
+
+        long ticket;
+        trava.lock();
+        try {
+            verificarEstado();
+            garantirEspaco(CABECALHO + 1 + payload.length);
+            pendente.putInt(1 + payload.length);
+            pendente.putInt((int) crc.getValue());
+            pendente.put(operacao);
+            pendente.put(payload);
+            ticket = ++anexados;
+            if (opcoes.getModo() == ModoDurabilidade.SINCRONO) {
+                haPendencias.signal();
+            }
+        } finally {
+            trava.unlock();
+        }
+
+        if (registrosDesdeCompactacao.incrementAndGet() >= opcoes.getCompactarApos()
+                && compactando.compareAndSet(false, true)) {
+            Thread.ofPlatform().daemon().name("wal-compactacao").start(() -> {
+                try {
+                    executarCompactacao();
+                } catch (IOException e) {
+                    System.err.println("Erro ao compactar o log " + arquivoLog + ": " + e.getMessage());
+                }
+            });
+        }
+        return ticket;
+    }
+
+    // Espera até o registro do ticket estar em disco (no modo ASSINCRONO não espera)
+    public void aguardar(long ticket) {
+        if (opcoes.getModo() == ModoDurabilidade.ASSINCRONO) {
+            return;
+        }
+        trava.lock();
+        try {
+            while (duraveis < ticket) {
+                // Depois de close() a última descarga ainda confirma os tickets pendentes
+                if (falha != null) {
+                    throw new UncheckedIOException("Falha ao gravar o log " + arquivoLog, falha);
+                }
+                gravado.awaitUninterruptibly();
+            }
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    // Marca o início de uma escrita que anexa ao log e depois a aplica na memória; a marca vai para concluirEscrita
+    public long iniciarEscrita() {
+        while (true) {
+            long atual = geracao;
+            LongAdder contador = emAndamento[(int) (atual & 1)];
+            contador.increment();
+            if (geracao == atual) {
+                return atual;
+            }
+            contador.decrement(); // o log rotacionou no meio: a escrita pertence à geração nova
+        }
+    }
+
+    public void concluirEscrita(long marca) {
+        emAndamento[(int) (marca & 1)].decrement();
+    }
+
+    // Grava o estado atual como snapshot e descarta o log antigo.
+    // O log ativo é rotacionado antes: as escritas continuam no log novo durante a compactação.
+    public void compactar() throws IOException {
+        if (compactando.compareAndSet(false, true)) {
+            executarCompactacao();
+        }
+    }
+
+    private void executarCompactacao() throws IOException {
+        try {
+            long anterior;
+            travaCanal.lock();
+            try {
+                descarregar();
+                // Se sobrou um log antigo, o snapshot que vamos gravar já cobre o conteúdo dele e do log ativo
+                if (!Files.exists(arquivoAntigo)) {
+                    canal.close();
+                    Files.move(arquivoLog, arquivoAntigo, StandardCopyOption.ATOMIC_MOVE);
+                    canal = FileChannel.open(arquivoLog, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                }
+                registrosDesdeCompactacao.set(0);
+                // Escritas iniciadas daqui em diante anexam no log novo
+                anterior = geracao;
+                geracao = anterior + 1;
+            } finally {
+                travaCanal.unlock();
+            }
+
+            // As escritas da geração anterior podem ter registros no log antigo sem ter chegado à memória ainda
+            aguardarEscritas(anterior);
+            Snapshot.gravar(arquivoSnapshot, estadoAtual.get());
+            Files.deleteIfExists(arquivoAntigo);
+        } finally {
+            compactando.set(false);
+        }
+    }
+
+    private void aguardarEscritas(long marca) {
+        LongAdder contador = emAndamento[(int) (marca & 1)];
+        while (contador.sum() != 0) {
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    // Descarrega o que estiver pendente e fecha o arquivo
+    @Override
+    public void close() throws IOException {
+        trava.lock();
+        try {
+            if (fechado) {
+                return;
+            }
+            fechado = true;
+            haPendencias.signalAll();
+            gravado.signalAll();
+        } finally {
+            trava.unlock();
+        }
+        try {
+            descarregador.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        travaCanal.lock();
+        try {
+            descarregar();
+            canal.close();
+        } finally {
+            travaCanal.unlock();
+        }
+    }
+
+    private void executarDescarregador() {
+        long intervalo = TimeUnit.MILLISECONDS.toNanos(Math.max(1, opcoes.getIntervaloMs()));
+        while (true) {
+            trava.lock();
+            try {
+                if (opcoes.getModo() == ModoDurabilidade.SINCRONO) {
+                    while (pendente.position() == 0 && !fechado) {
+                        haPendencias.awaitUninterruptibly();
+                    }
+                } else if (!fechado) {
+                    haPendencias.awaitNanos(intervalo);
+                }
+                if (fechado) {
+                    return; // close() faz a última descarga
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                trava.unlock();
+            }
+
+            try {
+                descarregar();
+            } catch (IOException e) {
+                registrarFalha(e);
+                return;
+            }
+        }
+    }
+
+    // Troca o buffer pendente por um vazio e grava o cheio no disco, com um único fsync
+    private void descarregar() throws IOException {
+        travaCanal.lock();
+        try {
+            long ate;
+            trava.lock();
+            try {
+                if (pendente.position() == 0) {
+                    return;
+                }
+                ByteBuffer cheio = pendente;
+                pendente = emEscrita;
+                emEscrita = cheio;
+                ate = anexados;
+            } finally {
+                trava.unlock();
+            }
+
+            emEscrita.flip();
+            while (emEscrita.hasRemaining()) {
+                canal.write(emEscrita);
+            }
+            canal.force(false);
+            emEscrita.clear();
+
+            trava.lock();
+            try {
+                duraveis = ate;
+                gravado.signalAll();
+            } finally {
+                trava.unlock();
+            }
+        } finally {
+            travaCanal.unlock();
+        }
+    }
+
+    // Reproduz um arquivo de log e devolve quantos bytes dele formam registros válidos
+    private long reproduzir(Path arquivo, ConsumidorRegistro consumidor) throws IOException {
+        if (!Files.exists(arquivo)) {
+            return 0;
+        }
+        long validos = 0;
+        try (InputStream entrada = Files.newInputStream(arquivo);
+             DataInputStream dados = new DataInputStream(new BufferedInputStream(entrada, 256 * 1024))) {
+            while (true) {
+                int tamanho;
+                int crcGravado;
+                byte[] registro;
+                try {
+                    tamanho = dados.readInt();
+                    crcGravado = dados.readInt();
+                    if (tamanho < 1 || tamanho > TAMANHO_MAXIMO_REGISTRO) {
+                        break;
+                    }
+                    registro = new byte[tamanho];
+                    dados.readFully(registro);
+                } catch (EOFException e) {
+                    break;
+                }
+
+                CRC32C crc = new CRC32C();
+                crc.update(registro);
+                if ((int) crc.getValue() != crcGravado) {
+                    break;
+                }
+                consumidor.aplicar(registro[0], ByteBuffer.wrap(registro, 1, tamanho - 1).slice());
+                validos += CABECALHO + tamanho;
+            }
+        }
+        return validos;
+    }
+
+    private void garantirEspaco(int bytes) {
+        if (pendente.remaining() >= bytes) {
+            return;
+        }
+        ByteBuffer maior = ByteBuffer.allocate(Math.max(pendente.capacity() * 2, pendente.position() + bytes));
+        pendente.flip();
+        maior.put(pendente);
+        pendente = maior;
+    }
+
+    private void verificarEstado() {
+        if (falha != null) {
+            throw new UncheckedIOException("Falha ao gravar o log " + arquivoLog, falha);
+        }
+        if (fechado) {
+            throw new IllegalStateException("Log fechado: " + arquivoLog);
+        }
+    }
+
+    private void registrarFalha(IOException e) {
+        trava.lock();
+        try {
+            falha = e;
+            gravado.signalAll();
+        } finally {
+            trava.unlock();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package app.replicacao;
+
+import app.eventos.FeedAlteracoes;
+import app.model.Tarefa;
+import app.model.Usuario;
+import app.persistencia.CodecBinario;
+import app.service.TarefaService;
+import app.service.UsuarioService;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+
+// Os canais replicados pelo servidor: tarefas e usuários, no mesmo formato binário do write-ahead log
+public final class CanaisReplicacao {
+
+    private CanaisReplicacao() {
+    }
+
+    public static List<CanalReplicacao<?>> dos(TarefaService tarefaService, UsuarioService usuarioService) {
+        return List.of(tarefas(tarefaService), usuarios(usuarioService));
+    }
+
+    static CanalReplicacao<Tarefa> tarefas(TarefaService service) {
+        return new CanalReplicacao<>() {
+            @Override
+            public String nome() {
+                return "tarefas";
+            }
+
+            @Override
+            public FeedAlteracoes<Tarefa> feed() {
+                return service.getFeed();
+            }
+
+            @Override
+            public Iterator<Tarefa> percorrer() {
+                return service.percorrerTarefas(null);
+            }
+
+            @Override
+            public String chave(Tarefa tarefa) {
+                return Integer.toString(tarefa.getId());
+            }
+
+            @Override
+            public long versao(Tarefa tarefa) {
+                return tarefa.getVersao();
+            }
+
+            @Override
+            public byte[] codificar(Tarefa tarefa) {
+                return CodecBinario.codificarTarefa(tarefa);
+            }
+
+            @Override
+            public Tarefa decodificar(ByteBuffer buffer) {
+                return CodecBinario.decodificarTarefa(buffer);
+            }
+
+            @Override
+            public void aplicar(String chave, long versao, Tarefa tarefa) {
+                service.aplicarReplicada(Integer.parseInt(chave), versao, tarefa);
+            }
+        };
+    }
+
+    static CanalReplicacao<Usuario> usuarios(UsuarioService service) {
+        return new CanalReplicacao<>() {
+            @Override
+            public String nome() {
+                return "usuarios";
+            }
+
+            @Override
+            public FeedAlteracoes<Usuario> feed() {
+                return service.getFeed();
+            }
+
+            @Override
+            public Iterator<Usuario> percorrer() {
+                return service.percorrerUsuarios(null);
+            }
+
+            @Override
+            public String chave(Usuario usuario) {
+                return usuario.getEmail();
+            }
+
+            @Override
+            public long versao(Usuario usuario) {
+                return usuario.getVersao();
+            }
+
+            @Override
+            public byte[] codificar(Usuario usuario) {
+                return CodecBinario.codificarUsuario(usuario);
+            }
+
+            @Override
+            public Usuario decodificar(ByteBuffer buffer) {
+                return CodecBinario.decodificarUsuario(buffer);
+            }
+
+            @Override
+            public void aplicar(String chave, long versao, Usuario usuario) {
+                service.aplicarReplicada(chave, versao, usuario);
+            }
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package app.replicacao;
+
+import app.eventos.FeedAlteracoes;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+// Uma coleção replicada: de onde o líder lê as alterações (o feed) e o estado completo (para a fotografia
+// inicial), e como o seguidor as aplica. Líder e seguidor usam os canais na mesma ordem; veja CanaisReplicacao.
+public interface CanalReplicacao<T> {
+
+    String nome();
+
+    FeedAlteracoes<T> feed();
+
+    // Todas as entidades, sem trava nem cópia: o estado pode mudar durante o percurso (veja LiderReplicacao)
+    Iterator<T> percorrer();
+
+    String chave(T valor);
+
+    long versao(T valor);
+
+    byte[] codificar(T valor);
+
+    T decodificar(ByteBuffer buffer);
+
+    // Grava a entidade com a versão do líder; valor == null remove a chave
+    void aplicar(String chave, long versao, T valor);
+}
@@ -0,0 +1,295 @@
+package app.replicacao;
+
+import app.eventos.EventoAlteracao;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Lado do líder: aceita seguidores numa porta TCP e transmite a cada um, em ordem, as alterações de cada canal.
+//
+// A sequência de alterações é o próprio feed de cada serviço (FeedAlteracoes), que já sai na ordem em que as
+// escritas foram aplicadas a cada chave. Cada seguidor tem uma thread virtual que lê o feed a partir do cursor
+// dele, como um assinante SSE, e é acordada pelo feed a cada publicação.
+//
+// Um seguidor novo, de outra época (o líder reiniciou e as sequências recomeçaram) ou que ficou mais atrás do que o
+// anel do feed guarda recebe antes uma fotografia do canal. Ela é lida sem parar as escritas: o cursor é tirado
+// antes do percurso, e os eventos seguintes são reenviados depois dele. Uma chave alterada durante o percurso pode
+// chegar ao seguidor num estado mais novo e depois voltar por um instante, mas o último evento dela é sempre
+// reaplicado, então o seguidor converge para o estado do líder.
+public class LiderReplicacao implements NoReplicacao {
+    // Eventos lidos do feed por vez, antes de passar ao próximo canal
+    private static final int LOTE = 256;
+    // Eventos anteriores ao início da fotografia que são reenviados junto: uma escrita tira a sequência do feed um
+    // pouco antes de ficar visível no armazém, então as últimas podem não aparecer no percurso
+    private static final int MARGEM_FOTOGRAFIA = 1024;
+
+    private final OpcoesReplicacao opcoes;
+    private final List<CanalReplicacao<?>> canais;
+    private final ServerSocket servidor;
+    // Identifica esta execução do líder; cursores de outra época não valem mais
+    private final long epoca;
+    private final Set<Seguidor> seguidores = ConcurrentHashMap.newKeySet();
+    private final LongAdder fotografias = new LongAdder();
+
+    private final class Seguidor {
+        private final String endereco;
+        private final Socket socket;
+        // Sequência do último evento enviado, por canal (-1 = fotografia pendente)
+        private final AtomicLongArray cursores;
+
+        private Seguidor(Socket socket, long[] cursores) {
+            this.endereco = socket.getRemoteSocketAddress().toString();
+            this.socket = socket;
+            this.cursores = new AtomicLongArray(cursores);
+        }
+    }
+
+    private LiderReplicacao(OpcoesReplicacao opcoes, List<CanalReplicacao<?>> canais, long epoca) throws IOException {
+        this.opcoes = opcoes;
+        this.canais = canais;
+        this.epoca = epoca;
+        this.servidor = new ServerSocket(opcoes.getPorta());
+    }
+
+    public static LiderReplicacao iniciar(OpcoesReplicacao opcoes, List<CanalReplicacao<?>> canais) throws IOException {
+        return iniciar(opcoes, canais, ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE));
+    }
+
+    static LiderReplicacao iniciar(OpcoesReplicacao opcoes, List<CanalReplicacao<?>> canais, long epoca)
+            throws IOException {
+        LiderReplicacao lider = new LiderReplicacao(opcoes, canais, epoca);
+        Thread thread = new Thread(lider::aceitar, "replicacao-lider");
+        thread.setDaemon(true);
+        thread.start();
+        return lider;
+    }
+
+    // Porta em que os seguidores se conectam (a escolhida pelo sistema quando a configurada é 0)
+    public int getPorta() {
+        return servidor.getLocalPort();
+    }
+
+    @Override
+    public long getEpoca() {
+        return epoca;
+    }
+
+    public int getSeguidores() {
+        return seguidores.size();
+    }
+
+    private void aceitar() {
+        while (!servidor.isClosed()) {
+            try {
+                Socket socket = servidor.accept();
+                Thread.ofVirtual().name("replicacao-" + socket.getRemoteSocketAddress()).start(() -> atender(socket));
+            } catch (IOException e) {
+                if (!servidor.isClosed()) {
+                    System.err.println("Erro ao aceitar seguidor: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void atender(Socket socket) {
+        Seguidor seguidor = null;
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            DataInputStream entrada = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+            seguidor = new Seguidor(socket, lerApresentacao(entrada));
+            seguidores.add(seguidor);
+            for (CanalReplicacao<?> canal : canais) {
+                canal.feed().inscrever(Thread.currentThread()); // sem vaga, o batimento ainda faz a thread olhar o feed
+            }
+            saida.writeByte(ProtocoloReplicacao.INICIO);
+            saida.writeLong(epoca);
+            transmitir(seguidor, saida);
+        } catch (IOException e) {
+            // O seguidor desconectou ou o líder está encerrando; o seguidor reconecta e retoma do seu cursor
+        } finally {
+            if (seguidor != null) {
+                seguidores.remove(seguidor);
+            }
+            for (CanalReplicacao<?> canal : canais) {
+                canal.feed().desinscrever(Thread.currentThread());
+            }
+        }
+    }
+
+    // Devolve de onde continuar cada canal. Cursores de outra época pedem fotografia
+    private long[] lerApresentacao(DataInputStream entrada) throws IOException {
+        int versao = entrada.readInt();
+        if (versao != ProtocoloReplicacao.VERSAO) {
+            throw new IOException("Versão de protocolo não suportada: " + versao);
+        }
+        long epocaSeguidor = entrada.readLong();
+        int quantidade = entrada.readInt();
+        if (quantidade != canais.size()) {
+            throw new IOException("Seguidor com " + quantidade + " canais, esperados " + canais.size());
+        }
+        long[] cursores = new long[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            String nome = entrada.readUTF();
+            if (!nome.equals(canais.get(i).nome())) {
+                throw new IOException("Canal inesperado: " + nome);
+            }
+            long cursor = entrada.readLong();
+            cursores[i] = epocaSeguidor == epoca ? cursor : -1;
+        }
+        return cursores;
+    }
+
+    private void transmitir(Seguidor seguidor, DataOutputStream saida) throws IOException {
+        long batimento = TimeUnit.MILLISECONDS.toNanos(opcoes.getBatimentoMs());
+        long ultimoEnvio = System.nanoTime();
+        while (true) {
+            boolean enviou = false;
+            for (int i = 0; i < canais.size(); i++) {
+                enviou |= enviar(seguidor, i, canais.get(i), saida);
+            }
+            if (enviou) {
+                ultimoEnvio = System.nanoTime();
+                continue;
+            }
+            saida.flush();
+            long espera = batimento - (System.nanoTime() - ultimoEnvio);
+            if (espera > 0) {
+                LockSupport.parkNanos(espera);
+                continue;
+            }
+            saida.writeByte(ProtocoloReplicacao.BATIMENTO);
+            saida.writeLong(System.currentTimeMillis());
+            for (CanalReplicacao<?> canal : canais) {
+                saida.writeLong(canal.feed().getUltimaSequencia());
+            }
+            saida.flush();
+            ultimoEnvio = System.nanoTime();
+        }
+    }
+
+    // Envia o que o seguidor ainda não tem deste canal; false se não havia nada
+    private <T> boolean enviar(Seguidor seguidor, int indice, CanalReplicacao<T> canal, DataOutputStream saida)
+            throws IOException {
+        long cursor = seguidor.cursores.get(indice);
+        if (cursor < 0) {
+            enviarFotografia(seguidor, indice, canal, saida);
+            return true;
+        }
+        List<EventoAlteracao<T>> lote = new ArrayList<>();
+        if (!canal.feed().ler(cursor, lote, LOTE)) {
+            seguidor.cursores.set(indice, -1); // ficou para trás do anel: a próxima volta manda a fotografia
+            return true;
+        }
+        for (EventoAlteracao<T> evento : lote) {
+            ProtocoloReplicacao.escreverRegistro(saida, indice, canal, evento.getSequencia(), evento.getVersao(),
+                    evento.getInstante(), evento.getChave(), evento.getValor());
+        }
+        if (lote.isEmpty()) {
+            return false;
+        }
+        seguidor.cursores.set(indice, lote.get(lote.size() - 1).getSequencia());
+        return true;
+    }
+
+    private <T> void enviarFotografia(Seguidor seguidor, int indice, CanalReplicacao<T> canal, DataOutputStream saida)
+            throws IOException {
+        int margem = Math.min(MARGEM_FOTOGRAFIA, canal.feed().getCapacidade() / 4);
+        long inicio = Math.max(0, canal.feed().getUltimaSequencia() - margem);
+        long instante = System.currentTimeMillis();
+        saida.writeByte(ProtocoloReplicacao.FOTO_INICIO);
+        saida.writeByte(indice);
+        for (Iterator<T> it = canal.percorrer(); it.hasNext(); ) {
+            T valor = it.next();
+            ProtocoloReplicacao.escreverRegistro(saida, indice, canal, 0, canal.versao(valor), instante,
+                    canal.chave(valor), valor);
+        }
+        saida.writeByte(ProtocoloReplicacao.FOTO_FIM);
+        saida.writeByte(indice);
+        saida.writeLong(inicio);
+        seguidor.cursores.set(indice, inicio);
+        fotografias.increment();
+    }
+
+    @Override
+    public Map<String, Object> status() {
+        List<Map<String, Object>> conectados = new ArrayList<>();
+        for (Seguidor seguidor : seguidores) {
+            Map<String, Object> atrasos = new LinkedHashMap<>();
+            for (int i = 0; i < canais.size(); i++) {
+                atrasos.put(canais.get(i).nome(), atraso(seguidor, i));
+            }
+            conectados.add(Map.of("endereco", seguidor.endereco, "atrasoEventos", atrasos));
+        }
+        Map<String, Object> sequencias = new LinkedHashMap<>();
+        for (CanalReplicacao<?> canal : canais) {
+            sequencias.put(canal.nome(), canal.feed().getUltimaSequencia());
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("papel", PapelReplicacao.LIDER);
+        status.put("porta", getPorta());
+        status.put("epoca", epoca);
+        status.put("sequencias", sequencias);
+        status.put("seguidores", conectados);
+        status.put("fotografias", fotografias.sum());
+        return status;
+    }
+
+    // Eventos publicados que ainda não foram enviados ao seguidor (toda a fila, enquanto a fotografia não termina)
+    private long atraso(Seguidor seguidor, int indice) {
+        long ultima = canais.get(indice).feed().getUltimaSequencia();
+        long cursor = seguidor.cursores.get(indice);
+        return cursor < 0 ? ultima : Math.max(0, ultima - cursor);
+    }
+
+    @Override
+    public String exportar() {
+        StringBuilder saida = new StringBuilder();
+        saida.append("# HELP replication_followers Seguidores conectados ao líder\n");
+        saida.append("# TYPE replication_followers gauge\n");
+        saida.append("replication_followers ").append(seguidores.size()).append('\n');
+        saida.append("# HELP replication_follower_lag_events Eventos publicados ainda não enviados a cada seguidor\n");
+        saida.append("# TYPE replication_follower_lag_events gauge\n");
+        for (Seguidor seguidor : seguidores) {
+            for (int i = 0; i < canais.size(); i++) {
+                saida.append("replication_follower_lag_events{canal=\"").append(canais.get(i).nome())
+                        .append("\",seguidor=\"").append(seguidor.endereco).append("\"} ")
+                        .append(atraso(seguidor, i)).append('\n');
+            }
+        }
+        saida.append("# HELP replication_snapshots_total Fotografias enviadas a seguidores\n");
+        saida.append("# TYPE replication_snapshots_total counter\n");
+        saida.append("replication_snapshots_total ").append(fotografias.sum()).append('\n');
+        return saida.toString();
+    }
+
+    // Derruba as conexões atuais sem fechar a porta; os seguidores reconectam e retomam dos seus cursores
+    void desconectarSeguidores() throws IOException {
+        for (Seguidor seguidor : seguidores) {
+            seguidor.socket.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        servidor.close();
+        desconectarSeguidores();
+    }
+}
@@ -0,0 +1,18 @@
+package app.replicacao;
+
+import java.io.Closeable;
+import java.util.Map;
+
+// O lado da replicação que roda neste servidor (LiderReplicacao ou SeguidorReplicacao)
+public interface NoReplicacao extends Closeable {
+
+    // Estado para o GET /replicacao: papel, conexões, sequências e atraso por canal
+    Map<String, Object> status();
+
+    // Época do líder de que vêm as versões dos dados deste servidor (0 = nenhuma ainda); as ETags de entidade
+    // são derivadas dela
+    long getEpoca();
+
+    // Texto no formato de exposição do Prometheus, anexado ao GET /metrics
+    String exportar();
+}
@@ -0,0 +1,63 @@
+package app.replicacao;
+
+import app.config.Configuracao;
+
+// Opções da replicação líder–seguidor, lidas de app.replicacao.* (veja Configuracao)
+public class OpcoesReplicacao {
+    private final PapelReplicacao papel;
+    private final int porta;
+    private final String lider;
+    private final String liderHttp;
+    private final int batimentoMs;
+    private final int reconexaoMs;
+
+    public OpcoesReplicacao(PapelReplicacao papel, int porta, String lider, String liderHttp, int batimentoMs,
+                            int reconexaoMs) {
+        this.papel = papel;
+        this.porta = porta;
+        this.lider = lider;
+        this.liderHttp = liderHttp;
+        this.batimentoMs = batimentoMs;
+        this.reconexaoMs = reconexaoMs;
+    }
+
+    public static OpcoesReplicacao daConfiguracao() {
+        return new OpcoesReplicacao(
+                Configuracao.opcao("app.replicacao.papel", PapelReplicacao.class, PapelReplicacao.INDEPENDENTE),
+                Configuracao.inteiro("app.replicacao.porta", 7100),
+                Configuracao.texto("app.replicacao.lider", "localhost:7100"),
+                Configuracao.texto("app.replicacao.liderHttp", "http://localhost:7000"),
+                Configuracao.inteiro("app.replicacao.batimentoMs", 1000),
+                Configuracao.inteiro("app.replicacao.reconexaoMs", 500));
+    }
+
+    public PapelReplicacao getPapel() {
+        return papel;
+    }
+
+    // Porta TCP em que o líder aceita seguidores (0 = uma livre, usado nos testes)
+    public int getPorta() {
+        return porta;
+    }
+
+    // host:porta de replicação do líder, para onde o seguidor se conecta
+    public String getLider() {
+        return lider;
+    }
+
+    // Endereço HTTP do líder, usado no Location das escritas que o seguidor redireciona (307)
+    public String getLiderHttp() {
+        return liderHttp;
+    }
+
+    // Sem alterações por esse tempo, o líder envia um batimento com suas sequências; o seguidor desiste da conexão
+    // depois de três batimentos perdidos
+    public int getBatimentoMs() {
+        return batimentoMs;
+    }
+
+    // Espera do seguidor antes de tentar de novo quando a conexão com o líder cai ou é recusada
+    public int getReconexaoMs() {
+        return reconexaoMs;
+    }
+}
@@ -0,0 +1,8 @@
+package app.replicacao;
+
+// Papel do servidor na replicação (app.replicacao.papel)
+public enum PapelReplicacao {
+    INDEPENDENTE, // sem replicação: lê e escreve só os próprios dados
+    LIDER,        // aceita as escritas e transmite a sequência de alterações aos seguidores pela porta de replicação
+    SEGUIDOR      // aplica as alterações do líder e atende as leituras; as escritas são redirecionadas ao líder
+}
@@ -0,0 +1,45 @@
+package app.replicacao;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+// Formato da conversa entre líder e seguidor, sobre DataOutputStream/DataInputStream.
+//
+// O seguidor abre a conexão e se apresenta: VERSAO (int), a época do líder que conhece (long, 0 = nenhuma), a
+// quantidade de canais (int) e, para cada um, o nome (UTF) e a sequência do último evento aplicado (long, -1 =
+// precisa da fotografia). Daí em diante só o líder fala, um quadro por vez, começando pelo tipo (byte):
+//   INICIO       época (long)
+//   FOTO_INICIO  canal (byte)
+//   REGISTRO     canal (byte), sequência (long, 0 dentro da fotografia), versão (long), instante da publicação
+//                (long), chave (UTF), tamanho (int, -1 = exclusão) e a entidade no formato do CodecBinario
+//   FOTO_FIM     canal (byte), sequência depois da qual os eventos continuam (long)
+//   BATIMENTO    instante (long) e a última sequência publicada em cada canal (long)
+final class ProtocoloReplicacao {
+    static final int VERSAO = 1;
+
+    static final byte INICIO = 1;
+    static final byte FOTO_INICIO = 2;
+    static final byte REGISTRO = 3;
+    static final byte FOTO_FIM = 4;
+    static final byte BATIMENTO = 5;
+
+    private ProtocoloReplicacao() {
+    }
+
+    static <T> void escreverRegistro(DataOutputStream saida, int canal, CanalReplicacao<T> replicado, long sequencia,
+                                     long versao, long instante, String chave, T valor) throws IOException {
+        saida.writeByte(REGISTRO);
+        saida.writeByte(canal);
+        saida.writeLong(sequencia);
+        saida.writeLong(versao);
+        saida.writeLong(instante);
+        saida.writeUTF(chave);
+        if (valor == null) {
+            saida.writeInt(-1);
+        } else {
+            byte[] bytes = replicado.codificar(valor);
+            saida.writeInt(bytes.length);
+            saida.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package app.replicacao;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lado do seguidor: conecta ao líder, aplica as alterações na ordem em que chegam e guarda, por canal, a sequência
+// do último evento aplicado. Se a conexão cai, reconecta e retoma desse ponto; o líder só manda a fotografia de novo
+// se o cursor não servir mais (outra época ou atraso maior que o anel do feed).
+//
+// As alterações passam pelos serviços como as escritas locais (aplicarReplicada), então índices, caches, log e os
+// feeds SSE do seguidor continuam valendo. Uma fotografia é aplicada por cima dos dados que o seguidor já tem; no
+// fim dela, as chaves que não vieram são removidas.
+public class SeguidorReplicacao implements NoReplicacao {
+    private final OpcoesReplicacao opcoes;
+    private final List<CanalReplicacao<?>> canais;
+    private final InetSocketAddress lider;
+    private final Thread thread;
+    // Sequência do último evento aplicado, por canal (-1 = sem fotografia desta época)
+    private final AtomicLongArray aplicadas;
+    // Última sequência publicada pelo líder de que se tem notícia, por canal
+    private final AtomicLongArray sequenciasLider;
+    private final LongAdder fotografias = new LongAdder();
+    private final LongAdder reconexoes = new LongAdder();
+    private volatile long epoca;
+    private volatile boolean conectado;
+    private volatile boolean encerrado;
+    private volatile Socket socket;
+    // Instante (no relógio do líder) em que foi publicado o último evento aplicado; -1 = nenhum ainda
+    private volatile long instanteAplicado = -1;
+
+    private SeguidorReplicacao(OpcoesReplicacao opcoes, List<CanalReplicacao<?>> canais) {
+        this.opcoes = opcoes;
+        this.canais = canais;
+        this.lider = endereco(opcoes.getLider());
+        this.aplicadas = new AtomicLongArray(canais.size());
+        this.sequenciasLider = new AtomicLongArray(canais.size());
+        for (int i = 0; i < canais.size(); i++) {
+            aplicadas.set(i, -1);
+        }
+        this.thread = new Thread(this::seguir, "replicacao-seguidor");
+        this.thread.setDaemon(true);
+    }
+
+    public static SeguidorReplicacao iniciar(OpcoesReplicacao opcoes, List<CanalReplicacao<?>> canais) {
+        SeguidorReplicacao seguidor = new SeguidorReplicacao(opcoes, canais);
+        seguidor.thread.start();
+        return seguidor;
+    }
+
+    private static InetSocketAddress endereco(String hostPorta) {
+        int separador = hostPorta.lastIndexOf(':');
+        if (separador < 0) {
+            throw new IllegalArgumentException("app.replicacao.lider deve ser host:porta: " + hostPorta);
+        }
+        return InetSocketAddress.createUnresolved(hostPorta.substring(0, separador),
+                Integer.parseInt(hostPorta.substring(separador + 1)));
+    }
+
+    public boolean isConectado() {
+        return conectado;
+    }
+
+    public long getAplicada(int canal) {
+        return aplicadas.get(canal);
+    }
+
+    // Época do líder de onde vêm os dados aplicados: 0 enquanto falta a fotografia de algum canal, porque até lá
+    // pode haver dados de outra época (de antes do líder reiniciar)
+    @Override
+    public long getEpoca() {
+        long atual = epoca;
+        for (int i = 0; i < canais.size(); i++) {
+            if (aplicadas.get(i) < 0) {
+                return 0;
+            }
+        }
+        return atual == epoca ? atual : 0;
+    }
+
+    // Eventos que o líder já publicou e este seguidor ainda não aplicou
+    public long getAtrasoEventos(int canal) {
+        return Math.max(0, sequenciasLider.get(canal) - Math.max(0, aplicadas.get(canal)));
+    }
+
+    // Idade dos dados: 0 em dia com o líder; senão, há quanto tempo foi publicado o último evento aplicado
+    public long getAtrasoMs() {
+        boolean emDia = conectado;
+        for (int i = 0; i < canais.size() && emDia; i++) {
+            emDia = aplicadas.get(i) >= 0 && getAtrasoEventos(i) == 0;
+        }
+        long instante = instanteAplicado;
+        if (emDia) {
+            return 0;
+        }
+        return instante < 0 ? -1 : Math.max(0, System.currentTimeMillis() - instante);
+    }
+
+    private void seguir() {
+        while (!encerrado) {
+            try (Socket atual = new Socket()) {
+                socket = atual;
+                atual.connect(new InetSocketAddress(lider.getHostString(), lider.getPort()), opcoes.getReconexaoMs() * 4);
+                if (atual.getLocalSocketAddress().equals(atual.getRemoteSocketAddress())) {
+                    // Com o líder fora do ar e a porta dele na faixa efêmera, o TCP pode conectar o socket a si mesmo
+                    throw new IOException("conexão consigo mesmo");
+                }
+                atual.setSoTimeout(opcoes.getBatimentoMs() * 3);
+                atual.setTcpNoDelay(true);
+                receber(atual);
+            } catch (IOException | RuntimeException e) {
+                if (conectado && !encerrado) {
+                    System.err.println("Conexão com o líder " + opcoes.getLider() + " perdida: "
+                            + Objects.toString(e.getMessage(), e.getClass().getSimpleName()));
+                }
+            }
+            conectado = false;
+            if (!encerrado) {
+                reconexoes.increment();
+                try {
+                    Thread.sleep(opcoes.getReconexaoMs());
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receber(Socket atual) throws IOException {
+        DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(atual.getOutputStream()));
+        saida.writeInt(ProtocoloReplicacao.VERSAO);
+        saida.writeLong(epoca);
+        saida.writeInt(canais.size());
+        for (int i = 0; i < canais.size(); i++) {
+            saida.writeUTF(canais.get(i).nome());
+            saida.writeLong(aplicadas.get(i));
+        }
+        saida.flush();
+
+        DataInputStream entrada = new DataInputStream(new BufferedInputStream(atual.getInputStream(), 64 * 1024));
+        // Chaves recebidas na fotografia em andamento de cada canal (null fora de uma fotografia)
+        List<Set<String>> vistas = new ArrayList<>();
+        for (int i = 0; i < canais.size(); i++) {
+            vistas.add(null);
+        }
+        while (true) {
+            byte tipo = entrada.readByte();
+            switch (tipo) {
+                case ProtocoloReplicacao.INICIO -> {
+                    long nova = entrada.readLong();
+                    if (nova != epoca) {
+                        // Outra execução do líder: os cursores antigos não valem, mesmo se esta conexão cair
+                        // antes das fotografias terminarem
+                        for (int i = 0; i < canais.size(); i++) {
+                            aplicadas.set(i, -1);
+                        }
+                        epoca = nova;
+                    }
+                    conectado = true;
+                    System.out.println("Replicação: seguindo o líder " + opcoes.getLider() + " (época " + nova + ")");
+                }
+                case ProtocoloReplicacao.FOTO_INICIO -> {
+                    int canal = entrada.readUnsignedByte();
+                    aplicadas.set(canal, -1);
+                    vistas.set(canal, new HashSet<>());
+                }
+                case ProtocoloReplicacao.REGISTRO -> {
+                    int canal = entrada.readUnsignedByte();
+                    aplicar(canal, canais.get(canal), entrada, vistas.get(canal));
+                }
+                case ProtocoloReplicacao.FOTO_FIM -> {
+                    int canal = entrada.readUnsignedByte();
+                    long sequencia = entrada.readLong();
+                    removerAusentes(canais.get(canal), vistas.get(canal));
+                    vistas.set(canal, null);
+                    aplicadas.set(canal, sequencia);
+                    sequenciasLider.accumulateAndGet(canal, sequencia, Math::max);
+                    fotografias.increment();
+                }
+                case ProtocoloReplicacao.BATIMENTO -> {
+                    long instante = entrada.readLong();
+                    boolean emDia = true;
+                    for (int i = 0; i < canais.size(); i++) {
+                        sequenciasLider.set(i, entrada.readLong());
+                        emDia &= aplicadas.get(i) >= sequenciasLider.get(i);
+                    }
+                    if (emDia) {
+                        instanteAplicado = instante;
+                    }
+                }
+                default -> throw new IOException("Quadro de replicação desconhecido: " + tipo);
+            }
+        }
+    }
+
+    private <T> void aplicar(int indice, CanalReplicacao<T> canal, DataInputStream entrada, Set<String> vistas)
+            throws IOException {
+        long sequencia = entrada.readLong();
+        long versao = entrada.readLong();
+        long instante = entrada.readLong();
+        String chave = entrada.readUTF();
+        int tamanho = entrada.readInt();
+        T valor = null;
+        if (tamanho >= 0) {
+            byte[] bytes = new byte[tamanho];
+            entrada.readFully(bytes);
+            valor = canal.decodificar(ByteBuffer.wrap(bytes));
+        }
+        canal.aplicar(chave, versao, valor);
+        if (vistas != null) {
+            vistas.add(chave);
+            return;
+        }
+        aplicadas.set(indice, sequencia);
+        sequenciasLider.accumulateAndGet(indice, sequencia, Math::max);
+        instanteAplicado = instante;
+    }
+
+    // Depois de uma fotografia: o que o seguidor tinha e o líder não mandou foi removido enquanto estavam separados
+    private static <T> void removerAusentes(CanalReplicacao<T> canal, Set<String> vistas) {
+        List<String> ausentes = new ArrayList<>();
+        for (Iterator<T> it = canal.percorrer(); it.hasNext(); ) {
+            String chave = canal.chave(it.next());
+            if (!vistas.contains(chave)) {
+                ausentes.add(chave);
+            }
+        }
+        for (String chave : ausentes) {
+            canal.aplicar(chave, 0, null);
+        }
+    }
+
+    @Override
+    public Map<String, Object> status() {
+        Map<String, Object> porCanal = new LinkedHashMap<>();
+        for (int i = 0; i < canais.size(); i++) {
+            Map<String, Object> canal = new LinkedHashMap<>();
+            canal.put("aplicada", aplicadas.get(i));
+            canal.put("lider", sequenciasLider.get(i));
+            canal.put("atrasoEventos", getAtrasoEventos(i));
+            porCanal.put(canais.get(i).nome(), canal);
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("papel", PapelReplicacao.SEGUIDOR);
+        status.put("lider", opcoes.getLider());
+        status.put("conectado", conectado);
+        status.put("epoca", epoca);
+        status.put("atrasoMs", getAtrasoMs());
+        status.put("canais", porCanal);
+        status.put("fotografias", fotografias.sum());
+        status.put("reconexoes", reconexoes.sum());
+        return status;
+    }
+
+    @Override
+    public String exportar() {
+        StringBuilder saida = new StringBuilder();
+        saida.append("# HELP replication_connected 1 se o seguidor está conectado ao líder\n");
+        saida.append("# TYPE replication_connected gauge\n");
+        saida.append("replication_connected ").append(conectado ? 1 : 0).append('\n');
+        saida.append("# HELP replication_lag_events Eventos publicados pelo líder e ainda não aplicados\n");
+        saida.append("# TYPE replication_lag_events gauge\n");
+        for (int i = 0; i < canais.size(); i++) {
+            saida.append("replication_lag_events{canal=\"").append(canais.get(i).nome()).append("\"} ")
+                    .append(getAtrasoEventos(i)).append('\n');
+        }
+        saida.append("# HELP replication_lag_ms Idade do último evento aplicado quando o seguidor está atrasado\n");
+        saida.append("# TYPE replication_lag_ms gauge\n");
+        saida.append("replication_lag_ms ").append(getAtrasoMs()).append('\n');
+        saida.append("# HELP replication_snapshots_total Fotografias recebidas do líder\n");
+        saida.append("# TYPE replication_snapshots_total counter\n");
+        saida.append("replication_snapshots_total ").append(fotografias.sum()).append('\n');
+        saida.append("# HELP replication_reconnects_total Conexões com o líder perdidas ou recusadas\n");
+        saida.append("# TYPE replication_reconnects_total counter\n");
+        saida.append("replication_reconnects_total ").append(reconexoes.sum()).append('\n');
+        return saida.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        encerrado = true;
+        thread.interrupt();
+        Socket atual = socket;
+        if (atual != null) {
+            atual.close();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package app.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Alocação de IDs sem disputa por um contador único.
+// Existe uma marca máxima compartilhada (o primeiro ID ainda não entregue a ninguém) e várias
+// faixas: cada thread usa a faixa da sua posição e só toca na marca compartilhada quando a sua
+// faixa acaba. Cada faixa guarda "próximo" e "fim" num único long, avançado com CAS.
+public class AlocadorIds {
+
+    private static final int RESERVA_EM_DISCO = 64; // quantas faixas são reservadas a cada gravação
+    // Os IDs são int: a marca nunca passa do teto, e todo ID entregue ou reservado fica abaixo dele
+    static final long TETO = Integer.MAX_VALUE;
+
+    private final int tamanhoFaixa;
+    private final AtomicLongArray faixas;
+    private final int mascaraFaixas;
+    private final AtomicLong marcaMaxima = new AtomicLong(1);
+    private final Path arquivo;
+    private volatile long marcaPersistida;
+    // Trava (e não synchronized) porque a gravação faz fsync: numa thread virtual, synchronized
+    // prenderia a thread portadora durante toda a espera pelo disco
+    private final ReentrantLock travaMarca = new ReentrantLock();
+
+    // arquivo pode ser null: nesse caso a marca vive só em memória
+    public AlocadorIds(int tamanhoFaixa, Path arquivo) {
+        this.tamanhoFaixa = tamanhoFaixa;
+        int quantidade = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1) << 1);
+        this.faixas = new AtomicLongArray(quantidade);
+        this.mascaraFaixas = quantidade - 1;
+        this.arquivo = arquivo;
+        if (arquivo != null) {
+            carregarMarca();
+        }
+    }
+
+    // Entrega um ID nunca entregue antes (nem antes de um reinício, se houver arquivo).
+    // IllegalStateException quando não sobra ID abaixo do teto
+    public int proximoId() {
+        int posicao = (int) Thread.currentThread().threadId() & mascaraFaixas;
+        while (true) {
+            long faixa = faixas.get(posicao);
+            int proximo = (int) (faixa >>> 32);
+            int fim = (int) faixa;
+            if (proximo < fim) {
+                if (faixas.compareAndSet(posicao, faixa, faixa + (1L << 32))) {
+                    return proximo;
+                }
+                continue;
+            }
+
+            // Faixa esgotada: aluga outra da marca compartilhada, cortada no teto
+            long inicio = marcaMaxima.get();
+            if (inicio >= TETO) {
+                throw new IllegalStateException("IDs esgotados: não há ID livre abaixo de " + TETO);
+            }
+            long fimFaixa = Math.min(inicio + tamanhoFaixa, TETO);
+            if (!marcaMaxima.compareAndSet(inicio, fimFaixa)) {
+                continue;
+            }
+            garantirPersistida(fimFaixa);
+            if (faixas.compareAndSet(posicao, faixa, compactar(inicio + 1, fimFaixa))) {
+                return (int) inicio;
+            }
+            // Outra thread trocou a faixa antes: a faixa alugada vira uma lacuna, o que é aceitável
+        }
+    }
+
+    // Registra um ID informado pelo cliente, garantindo que a marca passe dele. IDs a partir do teto são
+    // recusados (IllegalArgumentException): a marca passaria do maior int
+    public void reservar(int id) {
+        if (id >= TETO) {
+            throw new IllegalArgumentException("ID deve ser menor que " + TETO);
+        }
+        long marca = marcaMaxima.accumulateAndGet(id + 1L, Math::max);
+        garantirPersistida(marca);
+    }
+
+    // Volta ao estado inicial (para testes)
+    public void reiniciar() {
+        travaMarca.lock();
+        try {
+            for (int i = 0; i < faixas.length(); i++) {
+                faixas.set(i, 0);
+            }
+            marcaMaxima.set(1);
+            marcaPersistida = 0;
+            if (arquivo != null) {
+                gravarMarca(1);
+            }
+        } finally {
+            travaMarca.unlock();
+        }
+    }
+
+    private static long compactar(long proximo, long fim) {
+        return (proximo << 32) | (fim & 0xFFFFFFFFL);
+    }
+
+    // A marca em disco fica sempre à frente de qualquer ID entregue; só há escrita
+    // quando a marca em memória passa da reserva gravada, então o custo é raro.
+    private void garantirPersistida(long marca) {
+        if (arquivo == null || marca <= marcaPersistida) {
+            return;
+        }
+        travaMarca.lock();
+        try {
+            if (marca > marcaPersistida) {
+                long novaReserva = Math.min(marca + (long) tamanhoFaixa * RESERVA_EM_DISCO, TETO);
+                gravarMarca(novaReserva);
+                marcaPersistida = novaReserva;
+            }
+        } finally {
+            travaMarca.unlock();
+        }
+    }
+
+    private void carregarMarca() {
+        try {
+            if (Files.exists(arquivo)) {
+                long marca = Long.parseLong(Files.readString(arquivo, StandardCharsets.UTF_8).trim());
+                marcaMaxima.set(marca);
+                marcaPersistida = marca;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível ler " + arquivo, e);
+        }
+    }
+
+    private void gravarMarca(long marca) {
+        try {
+            Files.createDirectories(arquivo.toAbsolutePath().getParent());
+            Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+            try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                canal.write(ByteBuffer.wrap(Long.toString(marca).getBytes(StandardCharsets.UTF_8)));
+                canal.force(true);
+            }
+            Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível gravar " + arquivo, e);
+        }
+    }
+}
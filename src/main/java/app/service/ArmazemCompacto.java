@@ -0,0 +1,166 @@
+package app.service;
+
+import app.model.Tarefa;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+// Armazém em colunas: cada tarefa ocupa uma posição nos arrays de versão e de referências de texto, os textos
+// ficam em UTF-8 num único byte[] (TextosCompactos) e um MapaInt leva do ID à posição. Presença e conclusão
+// são bits em páginas de 4096 IDs (PaginasIds), que também dão a ordem por ID. Sem objetos por tarefa, o custo
+// fica em torno de 60 bytes além dos textos, contra uns 290 no ArmazemMapa (veja ComparacaoArmazenamento).
+//
+// As instâncias de Tarefa são montadas a cada leitura. Uma trava de leitura e escrita protege tudo: leituras
+// correm juntas, mas as escritas são serializadas (inclusive o que o serviço faz dentro de gravar).
+class ArmazemCompacto implements ArmazemTarefas {
+
+    private static final int CAPACIDADE_INICIAL = 1024;
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    // ID -> posição nas colunas
+    private final MapaInt posicoes = new MapaInt();
+    private final TextosCompactos textos = new TextosCompactos();
+    // Presença, conclusão e ordem dos IDs
+    private final PaginasIds paginas = new PaginasIds();
+
+    // Colunas, indexadas pela posição. Posição livre tem versão 0 e textos NULO
+    private long[] versoes;
+    private long[] titulos;
+    private long[] descricoes;
+    // Posições já usadas alguma vez; as liberadas por exclusões voltam pela pilha de livres
+    private int ocupadas;
+    private int[] livres;
+    private int quantidadeLivres;
+
+    ArmazemCompacto() {
+        alocarColunas();
+    }
+
+    @Override
+    public Tarefa obter(int id) {
+        trava.readLock().lock();
+        try {
+            int posicao = posicoes.obter(id);
+            return posicao == MapaInt.AUSENTE ? null : montar(id, posicao);
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Tarefa gravar(int id, UnaryOperator<Tarefa> alteracao) {
+        trava.writeLock().lock();
+        try {
+            int posicao = posicoes.obter(id);
+            Tarefa atual = posicao == MapaInt.AUSENTE ? null : montar(id, posicao);
+            Tarefa nova = alteracao.apply(atual);
+            if (nova == atual) {
+                return atual;
+            }
+            if (atual != null) {
+                textos.liberar(titulos[posicao]);
+                textos.liberar(descricoes[posicao]);
+            }
+            if (nova == null) {
+                remover(id, posicao);
+            } else {
+                if (posicao == MapaInt.AUSENTE) {
+                    posicao = novaPosicao();
+                    posicoes.colocar(id, posicao);
+                }
+                versoes[posicao] = nova.getVersao();
+                titulos[posicao] = textos.guardar(nova.getTitulo());
+                descricoes[posicao] = textos.guardar(nova.getDescricao());
+                paginas.marcar(id, nova.isConcluida());
+            }
+            if (textos.precisaCompactar()) {
+                textos.compactar(ocupadas, titulos, descricoes);
+            }
+            return nova;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Iterator<Tarefa> percorrer(Integer depoisDe) {
+        return paginas.percorrer(trava.readLock(), depoisDe == null ? Integer.MIN_VALUE : depoisDe + 1L,
+                PaginasIds.TODAS, id -> montar(id, posicoes.obter(id)));
+    }
+
+    @Override
+    public Iterator<Tarefa> percorrer(boolean concluida) {
+        return paginas.percorrer(trava.readLock(), Integer.MIN_VALUE,
+                concluida ? PaginasIds.CONCLUIDAS : PaginasIds.ABERTAS, id -> montar(id, posicoes.obter(id)));
+    }
+
+    @Override
+    public int tamanho() {
+        trava.readLock().lock();
+        try {
+            return posicoes.tamanho();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void limpar() {
+        trava.writeLock().lock();
+        try {
+            posicoes.limpar();
+            textos.limpar();
+            paginas.limpar();
+            alocarColunas();
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    private Tarefa montar(int id, int posicao) {
+        Tarefa tarefa = new Tarefa(textos.ler(titulos[posicao]), textos.ler(descricoes[posicao]), paginas.concluida(id));
+        tarefa.setId(id);
+        tarefa.setVersao(versoes[posicao]);
+        return tarefa;
+    }
+
+    private void remover(int id, int posicao) {
+        posicoes.remover(id);
+        versoes[posicao] = 0;
+        titulos[posicao] = TextosCompactos.NULO;
+        descricoes[posicao] = TextosCompactos.NULO;
+        if (quantidadeLivres == livres.length) {
+            livres = Arrays.copyOf(livres, Math.max(16, livres.length * 2));
+        }
+        livres[quantidadeLivres++] = posicao;
+        paginas.desmarcar(id);
+    }
+
+    private int novaPosicao() {
+        if (quantidadeLivres > 0) {
+            return livres[--quantidadeLivres];
+        }
+        if (ocupadas == versoes.length) {
+            int capacidade = versoes.length + (versoes.length >> 1);
+            versoes = Arrays.copyOf(versoes, capacidade);
+            titulos = Arrays.copyOf(titulos, capacidade);
+            descricoes = Arrays.copyOf(descricoes, capacidade);
+            Arrays.fill(titulos, ocupadas, capacidade, TextosCompactos.NULO);
+            Arrays.fill(descricoes, ocupadas, capacidade, TextosCompactos.NULO);
+        }
+        return ocupadas++;
+    }
+
+    private void alocarColunas() {
+        versoes = new long[CAPACIDADE_INICIAL];
+        titulos = new long[CAPACIDADE_INICIAL];
+        descricoes = new long[CAPACIDADE_INICIAL];
+        Arrays.fill(titulos, TextosCompactos.NULO);
+        Arrays.fill(descricoes, TextosCompactos.NULO);
+        ocupadas = 0;
+        livres = new int[0];
+        quantidadeLivres = 0;
+    }
+}
@@ -0,0 +1,113 @@
+package app.service;
+
+import app.model.Tarefa;
+import app.persistencia.CodecBinario;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+// Armazém com as tarefas fora do heap (RegistrosForaDoHeap), no mesmo formato binário do write-ahead log.
+// No heap ficam só os bits de presença e conclusão por ID (PaginasIds). Uma Tarefa só é montada quando uma
+// leitura precisa dela; a trava segue o ArmazemCompacto: leituras juntas, escritas serializadas.
+class ArmazemForaDoHeap implements ArmazemTarefas {
+
+    private static final RegistrosForaDoHeap.Formato<Integer, Tarefa> FORMATO = new RegistrosForaDoHeap.Formato<>() {
+        @Override
+        public int hash(Integer id) {
+            return id;
+        }
+
+        @Override
+        public boolean confere(Integer id, ByteBuffer registro) {
+            return registro.getInt(0) == id; // o ID é o primeiro campo do CodecBinario
+        }
+
+        @Override
+        public byte[] codificar(Tarefa tarefa) {
+            return CodecBinario.codificarTarefa(tarefa);
+        }
+
+        @Override
+        public long versao(Tarefa tarefa) {
+            return tarefa.getVersao();
+        }
+
+        @Override
+        public Tarefa decodificar(ByteBuffer registro, long versao) {
+            Tarefa tarefa = CodecBinario.decodificarTarefa(registro);
+            tarefa.setVersao(versao);
+            return tarefa;
+        }
+    };
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private final RegistrosForaDoHeap<Integer, Tarefa> registros = new RegistrosForaDoHeap<>(FORMATO);
+    private final PaginasIds paginas = new PaginasIds();
+
+    @Override
+    public Tarefa obter(int id) {
+        trava.readLock().lock();
+        try {
+            return registros.obter(id);
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Tarefa gravar(int id, UnaryOperator<Tarefa> alteracao) {
+        trava.writeLock().lock();
+        try {
+            Tarefa atual = registros.obter(id);
+            Tarefa nova = alteracao.apply(atual);
+            if (nova == atual) {
+                return atual;
+            }
+            if (nova == null) {
+                registros.remover(id);
+                paginas.desmarcar(id);
+            } else {
+                registros.gravar(id, nova);
+                paginas.marcar(id, nova.isConcluida());
+            }
+            return nova;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Iterator<Tarefa> percorrer(Integer depoisDe) {
+        return paginas.percorrer(trava.readLock(), depoisDe == null ? Integer.MIN_VALUE : depoisDe + 1L,
+                PaginasIds.TODAS, registros::obter);
+    }
+
+    @Override
+    public Iterator<Tarefa> percorrer(boolean concluida) {
+        return paginas.percorrer(trava.readLock(), Integer.MIN_VALUE,
+                concluida ? PaginasIds.CONCLUIDAS : PaginasIds.ABERTAS, registros::obter);
+    }
+
+    @Override
+    public int tamanho() {
+        trava.readLock().lock();
+        try {
+            return registros.tamanho();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void limpar() {
+        trava.writeLock().lock();
+        try {
+            registros.limpar();
+            paginas.limpar();
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package app.service;
+
+import app.model.Tarefa;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.UnaryOperator;
+
+// Armazém padrão: as próprias instâncias de Tarefa num ConcurrentHashMap. Leituras não travam e escritas
+// em IDs diferentes não se esperam, ao custo de uns 290 bytes por tarefa além dos textos.
+class ArmazemMapa implements ArmazemTarefas {
+
+    private final Map<Integer, Tarefa> tarefas = new ConcurrentHashMap<>();
+    // IDs em ordem crescente, usados para listar e paginar com uma ordem estável
+    private final NavigableSet<Integer> ordemIds = new ConcurrentSkipListSet<>();
+    // IDs por estado de conclusão
+    private final NavigableSet<Integer> idsConcluidas = new ConcurrentSkipListSet<>();
+    private final NavigableSet<Integer> idsAbertas = new ConcurrentSkipListSet<>();
+
+    @Override
+    public Tarefa obter(int id) {
+        return tarefas.get(id);
+    }
+
+    @Override
+    public Tarefa gravar(int id, UnaryOperator<Tarefa> alteracao) {
+        return tarefas.compute(id, (chave, atual) -> {
+            Tarefa nova = alteracao.apply(atual);
+            if (nova != atual) {
+                atualizarIndices(atual, nova);
+            }
+            return nova;
+        });
+    }
+
+    private void atualizarIndices(Tarefa anterior, Tarefa nova) {
+        if (anterior != null) {
+            (anterior.isConcluida() ? idsConcluidas : idsAbertas).remove(anterior.getId());
+            if (nova == null) {
+                ordemIds.remove(anterior.getId());
+            }
+        }
+        if (nova != null) {
+            ordemIds.add(nova.getId());
+            (nova.isConcluida() ? idsConcluidas : idsAbertas).add(nova.getId());
+        }
+    }
+
+    @Override
+    public Iterator<Tarefa> percorrer(Integer depoisDe) {
+        NavigableSet<Integer> ids = depoisDe == null ? ordemIds : ordemIds.tailSet(depoisDe, false);
+        return Iteradores.valoresPorChave(ids.iterator(), tarefas::get);
+    }
+
+    @Override
+    public Iterator<Tarefa> percorrer(boolean concluida) {
+        NavigableSet<Integer> ids = concluida ? idsConcluidas : idsAbertas;
+        // Confere a tarefa atual: uma escrita concorrente pode ter mudado o estado depois da leitura do índice
+        return Iteradores.valoresPorChave(ids.iterator(), id -> {
+            Tarefa tarefa = tarefas.get(id);
+            return tarefa != null && tarefa.isConcluida() == concluida ? tarefa : null;
+        });
+    }
+
+    @Override
+    public int tamanho() {
+        return tarefas.size();
+    }
+
+    @Override
+    public void limpar() {
+        tarefas.clear();
+        ordemIds.clear();
+        idsConcluidas.clear();
+        idsAbertas.clear();
+    }
+}
@@ -0,0 +1,191 @@
+package app.service;
+
+import app.config.Configuracao;
+import app.model.Tarefa;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.UnaryOperator;
+
+// Armazém dividido em partições pelo hash do ID, cada uma com uma única thread escritora.
+//
+// Cada partição é um ArmazemMapa que só a sua escritora altera. As escritas chegam por uma fila sem trava
+// (ConcurrentLinkedQueue) e são aplicadas uma por vez, na ordem de chegada: escritas em partições diferentes não
+// disputam o mesmo mapa nem os mesmos conjuntos ordenados, e dentro de uma partição nenhum CAS falha por disputa.
+// Quem chama gravar espera a sua escrita ser aplicada, então o contrato de ArmazemTarefas (atômico por ID, com a
+// alteração rodando dentro da gravação) continua o mesmo. Leituras vão direto ao mapa da partição, sem trava;
+// a listagem percorre todas as partições juntas, intercalando os IDs em ordem.
+class ArmazemParticionado implements ArmazemTarefas {
+    // Voltas de espera ativa da escritora antes de estacionar, quando há mais de um núcleo: sob carga, a próxima
+    // escrita costuma chegar nesse intervalo e evita o custo de acordar a thread
+    private static final int VOLTAS_ANTES_DE_ESTACIONAR =
+            Runtime.getRuntime().availableProcessors() > 1 ? 200 : 0;
+
+    private final Particao[] particoes;
+    private final int mascara;
+
+    // Uma escrita na fila, com o resultado que a escritora devolve a quem a enviou
+    private static final class Operacao {
+        private final int id;
+        private final UnaryOperator<Tarefa> alteracao;
+        private final Thread chamador = Thread.currentThread();
+        private Tarefa resultado;
+        private Throwable erro;
+        // Escrito por último pela escritora: quem lê true enxerga resultado e erro
+        private volatile boolean concluida;
+
+        private Operacao(int id, UnaryOperator<Tarefa> alteracao) {
+            this.id = id;
+            this.alteracao = alteracao;
+        }
+
+        private void executar(ArmazemMapa armazem) {
+            try {
+                resultado = armazem.gravar(id, alteracao);
+            } catch (Throwable e) {
+                erro = e;
+            }
+            concluida = true;
+            LockSupport.unpark(chamador);
+        }
+
+        private Tarefa aguardar() {
+            boolean interrompida = false;
+            while (!concluida) {
+                LockSupport.park(this);
+                // A escrita já está na fila e será aplicada de qualquer jeito; a interrupção fica para depois
+                interrompida |= Thread.interrupted();
+            }
+            if (interrompida) {
+                Thread.currentThread().interrupt();
+            }
+            if (erro instanceof RuntimeException e) {
+                throw e;
+            }
+            if (erro instanceof Error e) {
+                throw e;
+            }
+            return resultado;
+        }
+    }
+
+    private static final class Particao {
+        private final ArmazemMapa armazem = new ArmazemMapa();
+        private final Queue<Operacao> fila = new ConcurrentLinkedQueue<>();
+        // true enquanto a escritora está (ou vai ficar) estacionada esperando a fila
+        private final AtomicBoolean dormindo = new AtomicBoolean();
+        private final Thread escritora;
+
+        private Particao(int indice) {
+            escritora = new Thread(this::escrever, "tarefas-particao-" + indice);
+            escritora.setDaemon(true);
+            escritora.start();
+        }
+
+        private Tarefa gravar(int id, UnaryOperator<Tarefa> alteracao) {
+            if (Thread.currentThread() == escritora) {
+                return armazem.gravar(id, alteracao); // uma alteração que grava de novo na mesma partição
+            }
+            Operacao operacao = new Operacao(id, alteracao);
+            fila.offer(operacao);
+            if (dormindo.get() && dormindo.compareAndSet(true, false)) {
+                LockSupport.unpark(escritora);
+            }
+            return operacao.aguardar();
+        }
+
+        private void escrever() {
+            while (true) {
+                Operacao operacao = fila.poll();
+                if (operacao != null) {
+                    operacao.executar(armazem);
+                    continue;
+                }
+                for (int i = 0; i < VOLTAS_ANTES_DE_ESTACIONAR && fila.isEmpty(); i++) {
+                    Thread.onSpinWait();
+                }
+                dormindo.set(true);
+                // Confere a fila depois de marcar: quem enfileirou antes da marca não viu a escritora dormindo
+                if (fila.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                dormindo.set(false);
+            }
+        }
+    }
+
+    ArmazemParticionado() {
+        this(Configuracao.inteiro("app.tarefas.particoes", Runtime.getRuntime().availableProcessors()));
+    }
+
+    // quantidade é arredondada para cima até uma potência de 2
+    ArmazemParticionado(int quantidade) {
+        int total = quantidade <= 1 ? 1 : Integer.highestOneBit(quantidade - 1) << 1;
+        this.particoes = new Particao[total];
+        this.mascara = total - 1;
+        for (int i = 0; i < total; i++) {
+            particoes[i] = new Particao(i);
+        }
+    }
+
+    int getParticoes() {
+        return particoes.length;
+    }
+
+    // Mistura os bits do ID (como o HashMap): IDs vizinhos, que as faixas do AlocadorIds entregam a uma mesma
+    // thread, se espalham pelas partições
+    private Particao particao(int id) {
+        int hash = id * 0x9E3779B9;
+        return particoes[(hash ^ (hash >>> 16)) & mascara];
+    }
+
+    @Override
+    public Tarefa obter(int id) {
+        return particao(id).armazem.obter(id);
+    }
+
+    @Override
+    public Tarefa gravar(int id, UnaryOperator<Tarefa> alteracao) {
+        return particao(id).gravar(id, alteracao);
+    }
+
+    @Override
+    public Iterator<Tarefa> percorrer(Integer depoisDe) {
+        List<Iterator<Tarefa>> partes = new ArrayList<>(particoes.length);
+        for (Particao particao : particoes) {
+            partes.add(particao.armazem.percorrer(depoisDe));
+        }
+        return Iteradores.intercalar(partes, Comparator.comparingInt(Tarefa::getId));
+    }
+
+    @Override
+    public Iterator<Tarefa> percorrer(boolean concluida) {
+        List<Iterator<Tarefa>> partes = new ArrayList<>(particoes.length);
+        for (Particao particao : particoes) {
+            partes.add(particao.armazem.percorrer(concluida));
+        }
+        return Iteradores.intercalar(partes, Comparator.comparingInt(Tarefa::getId));
+    }
+
+    @Override
+    public int tamanho() {
+        int total = 0;
+        for (Particao particao : particoes) {
+            total += particao.armazem.tamanho();
+        }
+        return total;
+    }
+
+    @Override
+    public void limpar() {
+        for (Particao particao : particoes) {
+            particao.armazem.limpar();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package app.service;
+
+import app.model.Tarefa;
+
+import java.util.Iterator;
+import java.util.function.UnaryOperator;
+
+// Onde o TarefaService guarda as tarefas. Além do mapa por ID, cada armazém mantém a ordem dos IDs
+// e o estado de conclusão, que são o que a listagem e o filtro por concluida percorrem.
+interface ArmazemTarefas {
+
+    static ArmazemTarefas criar(ArmazenamentoTarefas tipo) {
+        return switch (tipo) {
+            case MAPA -> new ArmazemMapa();
+            case COMPACTO -> new ArmazemCompacto();
+            case FORA_DO_HEAP -> new ArmazemForaDoHeap();
+            case PARTICIONADO -> new ArmazemParticionado();
+        };
+    }
+
+    Tarefa obter(int id);
+
+    // Atômico por ID, como ConcurrentHashMap.compute: 'alteracao' recebe a tarefa atual (null = ausente) e devolve
+    // a que fica no lugar (a mesma para não mudar nada, null para remover). Devolve a que ficou.
+    // Uma exceção lançada por 'alteracao' deixa tudo como estava.
+    Tarefa gravar(int id, UnaryOperator<Tarefa> alteracao);
+
+    // Em ordem crescente de ID, sem copiar a coleção; depoisDe é o cursor da paginação (null = do início)
+    Iterator<Tarefa> percorrer(Integer depoisDe);
+
+    // Só as tarefas com o estado pedido, em ordem crescente de ID
+    Iterator<Tarefa> percorrer(boolean concluida);
+
+    int tamanho();
+
+    void limpar();
+}
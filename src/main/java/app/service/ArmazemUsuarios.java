@@ -0,0 +1,37 @@
+package app.service;
+
+import app.model.Usuario;
+
+import java.util.Iterator;
+import java.util.function.UnaryOperator;
+
+// Onde o UsuarioService guarda os usuários: o mapa por email e a ordem dos emails usada na listagem
+interface ArmazemUsuarios {
+
+    static ArmazemUsuarios criar(ArmazenamentoUsuarios tipo) {
+        return switch (tipo) {
+            case MAPA -> new ArmazemUsuariosMapa();
+            case FORA_DO_HEAP -> new ArmazemUsuariosForaDoHeap();
+        };
+    }
+
+    Usuario obter(String email);
+
+    // Atômico por email, como ConcurrentHashMap.compute: 'alteracao' recebe o usuário atual (null = ausente) e
+    // devolve o que fica no lugar (o mesmo para não mudar nada, null para remover). Devolve o que ficou.
+    // Uma exceção lançada por 'alteracao' deixa tudo como estava.
+    Usuario gravar(String email, UnaryOperator<Usuario> alteracao);
+
+    // Em ordem de email, sem copiar a coleção; depoisDe é o cursor da paginação (null = do início)
+    default Iterator<Usuario> percorrer(String depoisDe) {
+        return percorrer(depoisDe, false);
+    }
+
+    // Em ordem de email a partir de 'inicio' (null = do início); incluirInicio diz se o próprio 'inicio' entra,
+    // o que a busca por prefixo precisa quando o prefixo já é um email inteiro
+    Iterator<Usuario> percorrer(String inicio, boolean incluirInicio);
+
+    int tamanho();
+
+    void limpar();
+}
@@ -0,0 +1,134 @@
+package app.service;
+
+import app.model.Usuario;
+import app.persistencia.CodecBinario;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+// Armazém com os usuários fora do heap (RegistrosForaDoHeap), no mesmo formato binário do write-ahead log.
+// A ordem dos emails, que a listagem e a paginação precisam, continua no heap num TreeSet: é o que sobra por
+// usuário (uns 100 bytes), contra o usuário inteiro com seus objetos no ArmazemUsuariosMapa.
+// Leituras correm juntas e escritas são serializadas, como no ArmazemForaDoHeap das tarefas.
+class ArmazemUsuariosForaDoHeap implements ArmazemUsuarios {
+
+    private static final RegistrosForaDoHeap.Formato<String, Usuario> FORMATO = new RegistrosForaDoHeap.Formato<>() {
+        @Override
+        public int hash(String email) {
+            return email.hashCode();
+        }
+
+        // Compara os bytes do email sem montar o usuário. No CodecBinario o email vem depois do nome,
+        // cada texto como tamanho (int, -1 para null) seguido dos bytes UTF-8
+        @Override
+        public boolean confere(String email, ByteBuffer registro) {
+            int inicioEmail = 4 + Math.max(registro.getInt(0), 0);
+            int tamanhoEmail = registro.getInt(inicioEmail);
+            byte[] esperado = email.getBytes(StandardCharsets.UTF_8);
+            return tamanhoEmail == esperado.length
+                    && registro.slice(inicioEmail + 4, tamanhoEmail).equals(ByteBuffer.wrap(esperado));
+        }
+
+        @Override
+        public byte[] codificar(Usuario usuario) {
+            return CodecBinario.codificarUsuario(usuario);
+        }
+
+        @Override
+        public long versao(Usuario usuario) {
+            return usuario.getVersao();
+        }
+
+        @Override
+        public Usuario decodificar(ByteBuffer registro, long versao) {
+            Usuario usuario = CodecBinario.decodificarUsuario(registro);
+            usuario.setVersao(versao);
+            return usuario;
+        }
+    };
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private final RegistrosForaDoHeap<String, Usuario> registros = new RegistrosForaDoHeap<>(FORMATO);
+    private final NavigableSet<String> ordemEmails = new TreeSet<>();
+
+    @Override
+    public Usuario obter(String email) {
+        trava.readLock().lock();
+        try {
+            return registros.obter(email);
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Usuario gravar(String email, UnaryOperator<Usuario> alteracao) {
+        trava.writeLock().lock();
+        try {
+            Usuario atual = registros.obter(email);
+            Usuario novo = alteracao.apply(atual);
+            if (novo == atual) {
+                return atual;
+            }
+            if (novo == null) {
+                registros.remover(email);
+                ordemEmails.remove(email);
+            } else {
+                registros.gravar(email, novo);
+                ordemEmails.add(email);
+            }
+            return novo;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Iterator<Usuario> percorrer(String inicio, boolean incluirInicio) {
+        return new PercursoEmLotes<>(trava.readLock()) {
+            private String cursor = inicio;
+            // Só o primeiro lote pode incluir o início; depois o cursor é o último email já entregue
+            private boolean incluirCursor = incluirInicio;
+
+            @Override
+            protected void buscar(List<Usuario> lote, int maximo) {
+                NavigableSet<String> emails = cursor == null ? ordemEmails : ordemEmails.tailSet(cursor, incluirCursor);
+                for (String email : emails) {
+                    if (lote.size() == maximo) {
+                        return;
+                    }
+                    lote.add(registros.obter(email));
+                    cursor = email;
+                    incluirCursor = false;
+                }
+            }
+        };
+    }
+
+    @Override
+    public int tamanho() {
+        trava.readLock().lock();
+        try {
+            return registros.tamanho();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void limpar() {
+        trava.writeLock().lock();
+        try {
+            registros.limpar();
+            ordemEmails.clear();
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package app.service;
+
+import app.model.Usuario;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.UnaryOperator;
+
+// Armazém padrão: as próprias instâncias de Usuario num ConcurrentHashMap. Leituras não travam e escritas
+// em emails diferentes não se esperam.
+class ArmazemUsuariosMapa implements ArmazemUsuarios {
+
+    private final Map<String, Usuario> usuarios = new ConcurrentHashMap<>();
+    // Emails em ordem alfabética, usados para listar e paginar com uma ordem estável
+    private final NavigableSet<String> ordemEmails = new ConcurrentSkipListSet<>();
+
+    @Override
+    public Usuario obter(String email) {
+        return usuarios.get(email);
+    }
+
+    @Override
+    public Usuario gravar(String email, UnaryOperator<Usuario> alteracao) {
+        return usuarios.compute(email, (chave, atual) -> {
+            Usuario novo = alteracao.apply(atual);
+            if (novo != atual) {
+                if (novo != null) {
+                    ordemEmails.add(email);
+                } else {
+                    ordemEmails.remove(email);
+                }
+            }
+            return novo;
+        });
+    }
+
+    @Override
+    public Iterator<Usuario> percorrer(String inicio, boolean incluirInicio) {
+        NavigableSet<String> emails = inicio == null ? ordemEmails : ordemEmails.tailSet(inicio, incluirInicio);
+        return Iteradores.valoresPorChave(emails.iterator(), usuarios::get);
+    }
+
+    @Override
+    public int tamanho() {
+        return usuarios.size();
+    }
+
+    @Override
+    public void limpar() {
+        usuarios.clear();
+        ordemEmails.clear();
+    }
+}
@@ -0,0 +1,10 @@
+package app.service;
+
+// Como o TarefaService guarda as tarefas em memória (app.tarefas.armazenamento)
+public enum ArmazenamentoTarefas {
+    MAPA,         // um objeto Tarefa por entrada num ConcurrentHashMap: leituras sem trava, mais memória por tarefa
+    COMPACTO,     // colunas de tipos primitivos e textos UTF-8 num único byte[]: bem menos memória, escritas serializadas
+    FORA_DO_HEAP, // registros binários em ByteBuffers diretos: o heap e as pausas do coletor não crescem com as tarefas
+    PARTICIONADO  // mapas separados pelo hash do ID, cada um com uma thread escritora: escritas sem disputa entre partições
+                  // (ganho ainda não medido em vários núcleos; veja o README antes de trocar o padrão)
+}
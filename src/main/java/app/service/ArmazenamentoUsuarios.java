@@ -0,0 +1,7 @@
+package app.service;
+
+// Como o UsuarioService guarda os usuários em memória (app.usuarios.armazenamento)
+public enum ArmazenamentoUsuarios {
+    MAPA,        // um objeto Usuario por entrada num ConcurrentHashMap: leituras sem trava, mais memória por usuário
+    FORA_DO_HEAP // registros binários em ByteBuffers diretos; no heap fica só a ordem dos emails
+}
@@ -0,0 +1,132 @@
+package app.service;
+
+import app.model.Tarefa;
+import app.model.Usuario;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.Iterator;
+import java.util.function.Supplier;
+
+// Mede a memória e o custo para o coletor de lixo de cada armazenamento de tarefas (app.tarefas.armazenamento)
+// e de usuários (app.usuarios.armazenamento), com dados sintéticos como os do GeradorSnapshot:
+//   .\gradlew compararArmazenamento --args="1000000"
+//
+// Heap e memória direta são medidos antes e depois da carga, com coletas de lixo no meio. "pausas GC" soma o
+// tempo que os coletores gastaram durante a carga e "GC completo" é a duração de um System.gc() com os dados
+// carregados: é o que cresce com o número de objetos vivos no heap. Entram o armazém e suas estruturas de ordem;
+// os índices de títulos e textual do TarefaService e os caches de JSON são iguais em todos e ficam de fora.
+// Rode com -Xmx folgado para a coleta não distorcer a carga (o mapa com 1 milhão de tarefas ocupa mais de 300 MB).
+public class ComparacaoArmazenamento {
+
+    public static void main(String[] args) throws InterruptedException {
+        int quantidade = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.printf("%d registros por armazém, %d núcleos, coletor %s%n%n", quantidade,
+                Runtime.getRuntime().availableProcessors(), coletores());
+        System.out.printf("%-22s %12s %14s %10s %10s %11s %11s%n", "armazém", "heap B/item", "direta B/item",
+                "carga ms", "leitura ms", "pausas GC ms", "GC completo ms");
+
+        for (ArmazenamentoTarefas tipo : ArmazenamentoTarefas.values()) {
+            medir("tarefas " + tipo, quantidade, () -> ArmazemTarefas.criar(tipo),
+                    (armazem, id) -> {
+                        Tarefa tarefa = new Tarefa("Tarefa " + id, "Descrição da tarefa número " + id, id % 3 == 0);
+                        tarefa.setId(id);
+                        tarefa.setVersao(id);
+                        armazem.gravar(id, atual -> tarefa);
+                    },
+                    armazem -> armazem.percorrer(null));
+        }
+        for (ArmazenamentoUsuarios tipo : ArmazenamentoUsuarios.values()) {
+            medir("usuarios " + tipo, quantidade, () -> ArmazemUsuarios.criar(tipo),
+                    (armazem, id) -> {
+                        String email = "usuario" + id + "@example.com";
+                        Usuario usuario = new Usuario("Usuário " + id, email, 18 + id % 60);
+                        usuario.setVersao(id);
+                        armazem.gravar(email, atual -> usuario);
+                    },
+                    armazem -> armazem.percorrer(null));
+        }
+    }
+
+    private interface Carga<A> {
+        void gravar(A armazem, int id);
+    }
+
+    private interface Percurso<A> {
+        Iterator<?> percorrer(A armazem);
+    }
+
+    private static <A> void medir(String nome, int quantidade, Supplier<A> criar, Carga<A> carga, Percurso<A> percurso)
+            throws InterruptedException {
+        long heapAntes = heapUsado();
+        long diretaAntes = memoriaDireta();
+        long gcAntes = tempoColetas();
+
+        A armazem = criar.get();
+        long inicio = System.nanoTime();
+        for (int id = 1; id <= quantidade; id++) {
+            carga.gravar(armazem, id);
+        }
+        long tempoCarga = System.nanoTime() - inicio;
+        long pausas = tempoColetas() - gcAntes;
+
+        inicio = System.nanoTime();
+        int lidos = 0;
+        for (Iterator<?> it = percurso.percorrer(armazem); it.hasNext(); it.next()) {
+            lidos++;
+        }
+        long tempoLeitura = System.nanoTime() - inicio;
+        if (lidos != quantidade) {
+            throw new IllegalStateException("Percurso incompleto em " + nome + ": " + lidos);
+        }
+
+        inicio = System.nanoTime();
+        System.gc();
+        long gcCompleto = System.nanoTime() - inicio;
+        long heap = heapUsado() - heapAntes;
+        long direta = memoriaDireta() - diretaAntes;
+
+        System.out.printf("%-22s %12.1f %14.1f %10d %10d %11d %11d%n", nome, (double) heap / quantidade,
+                (double) direta / quantidade, tempoCarga / 1_000_000, tempoLeitura / 1_000_000, pausas,
+                gcCompleto / 1_000_000);
+        Reference.reachabilityFence(armazem);
+    }
+
+    private static long heapUsado() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long memoriaDireta() {
+        long total = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                total += pool.getMemoryUsed();
+            }
+        }
+        return total;
+    }
+
+    // Milissegundos acumulados por todos os coletores
+    private static long tempoColetas() {
+        long total = 0;
+        for (GarbageCollectorMXBean coletor : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, coletor.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static String coletores() {
+        StringBuilder nomes = new StringBuilder();
+        for (GarbageCollectorMXBean coletor : ManagementFactory.getGarbageCollectorMXBeans()) {
+            nomes.append(nomes.length() > 0 ? " + " : "").append(coletor.getName());
+        }
+        return nomes.toString();
+    }
+}
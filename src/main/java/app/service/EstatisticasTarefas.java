@@ -0,0 +1,6 @@
+package app.service;
+
+// Resposta de GET /tarefas/stats. Os contadores são lidos um a um, não numa foto atômica: com escritas em
+// andamento, total e concluidas podem refletir instantes ligeiramente diferentes
+public record EstatisticasTarefas(long total, long concluidas, long abertas, double taxaConclusao) {
+}
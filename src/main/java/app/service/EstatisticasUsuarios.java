@@ -0,0 +1,8 @@
+package app.service;
+
+import java.util.Map;
+
+// Resposta de GET /usuarios/stats: total, idade média e quantos usuários há em cada faixa de idade ("0-17",
+// "18-24", ..., "65+"), na ordem das faixas. Como em EstatisticasTarefas, não é uma foto atômica
+public record EstatisticasUsuarios(long total, double idadeMedia, Map<String, Long> faixasIdade) {
+}
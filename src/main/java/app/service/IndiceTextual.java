@@ -0,0 +1,155 @@
+package app.service;
+
+import app.model.Tarefa;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+import java.util.regex.Pattern;
+
+// Índice invertido sobre título e descrição das tarefas.
+//
+// Cada termo aponta para uma lista de postings (ID da tarefa -> peso do termo na tarefa). O peso
+// conta ocorrências, com as do título valendo mais. O índice é atualizado a cada escrita a partir
+// da versão anterior e da nova da tarefa, então não guarda os termos de cada documento.
+//
+// Consultas com vários termos exigem todos eles (AND): a lista mais curta é percorrida e os outros
+// termos são consultados por ID, então o custo acompanha o termo mais raro da consulta.
+public class IndiceTextual {
+
+    private static final int PESO_TITULO = 3;
+    private static final double K1 = 1.2;
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Set<String> PALAVRAS_VAZIAS = Set.of(
+            "a", "o", "as", "os", "e", "de", "da", "do", "das", "dos", "em", "no", "na", "nos", "nas",
+            "um", "uma", "para", "por", "com", "que", "se", "ao", "aos");
+
+    private final Map<String, Map<Integer, Integer>> postings = new ConcurrentHashMap<>();
+
+    // Resultado de uma busca: a tarefa e a pontuação usada na ordenação
+    public record ResultadoBusca(Tarefa tarefa, double pontuacao) {
+    }
+
+    // Aplica uma escrita: anterior é null numa criação, nova é null numa exclusão
+    public void atualizar(Tarefa anterior, Tarefa nova) {
+        Map<String, Integer> termosAnteriores = anterior != null ? pesos(anterior) : Map.of();
+        Map<String, Integer> termosNovos = nova != null ? pesos(nova) : Map.of();
+        int id = nova != null ? nova.getId() : anterior.getId();
+
+        for (String termo : termosAnteriores.keySet()) {
+            if (!termosNovos.containsKey(termo)) {
+                // compute trava só a entrada do termo: a lista vazia some sem corrida com quem adiciona
+                postings.computeIfPresent(termo, (t, lista) -> {
+                    lista.remove(id);
+                    return lista.isEmpty() ? null : lista;
+                });
+            }
+        }
+        termosNovos.forEach((termo, peso) -> {
+            if (!peso.equals(termosAnteriores.get(termo))) {
+                postings.compute(termo, (t, lista) -> {
+                    Map<Integer, Integer> atual = lista != null ? lista : new ConcurrentHashMap<>();
+                    atual.put(id, peso);
+                    return atual;
+                });
+            }
+        });
+    }
+
+    // Devolve até "limite" tarefas que contêm todos os termos da consulta, da mais relevante para a menos.
+    // totalDocumentos entra no cálculo do IDF; buscarTarefa resolve o ID para a tarefa atual.
+    public List<ResultadoBusca> buscar(String consulta, int limite, int totalDocumentos, IntFunction<Tarefa> buscarTarefa) {
+        List<Map<Integer, Integer>> listas = new ArrayList<>();
+        for (String termo : new LinkedHashSet<>(tokenizar(consulta))) {
+            Map<Integer, Integer> lista = postings.get(termo);
+            if (lista == null) {
+                return List.of(); // um termo sem ocorrências zera o AND
+            }
+            listas.add(lista);
+        }
+        if (listas.isEmpty()) {
+            return List.of();
+        }
+        listas.sort(Comparator.comparingInt(Map::size));
+
+        double[] idf = new double[listas.size()];
+        for (int i = 0; i < idf.length; i++) {
+            idf[i] = Math.log(1 + (double) Math.max(totalDocumentos, listas.get(i).size()) / listas.get(i).size());
+        }
+
+        // Heap de mínimo com os K melhores até agora
+        PriorityQueue<ResultadoBusca> melhores = new PriorityQueue<>(Comparator.comparingDouble(ResultadoBusca::pontuacao));
+        candidatos:
+        for (Map.Entry<Integer, Integer> posting : listas.get(0).entrySet()) {
+            int id = posting.getKey();
+            double pontuacao = pontuar(posting.getValue(), idf[0]);
+            for (int i = 1; i < listas.size(); i++) {
+                Integer peso = listas.get(i).get(id);
+                if (peso == null) {
+                    continue candidatos;
+                }
+                pontuacao += pontuar(peso, idf[i]);
+            }
+            if (melhores.size() < limite || pontuacao > melhores.peek().pontuacao()) {
+                Tarefa tarefa = buscarTarefa.apply(id);
+                if (tarefa != null) {
+                    melhores.add(new ResultadoBusca(tarefa, pontuacao));
+                    if (melhores.size() > limite) {
+                        melhores.poll();
+                    }
+                }
+            }
+        }
+
+        List<ResultadoBusca> resultado = new ArrayList<>(melhores);
+        resultado.sort(Collections.reverseOrder(Comparator.comparingDouble(ResultadoBusca::pontuacao)));
+        return resultado;
+    }
+
+    public void limpar() {
+        postings.clear();
+    }
+
+    // Saturação do peso (como no BM25): repetir um termo ajuda cada vez menos
+    private static double pontuar(int peso, double idf) {
+        return idf * (peso * (K1 + 1)) / (peso + K1);
+    }
+
+    private static Map<String, Integer> pesos(Tarefa tarefa) {
+        Map<String, Integer> pesos = new HashMap<>();
+        for (String termo : tokenizar(tarefa.getTitulo())) {
+            pesos.merge(termo, PESO_TITULO, Integer::sum);
+        }
+        for (String termo : tokenizar(tarefa.getDescricao())) {
+            pesos.merge(termo, 1, Integer::sum);
+        }
+        return pesos;
+    }
+
+    // Minúsculas, sem acentos ("Reunião" -> "reuniao"), separando por tudo que não é letra ou dígito
+    static List<String> tokenizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        String normalizado = ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> termos = new ArrayList<>();
+        for (String termo : SEPARADORES.split(normalizado)) {
+            if (!termo.isEmpty() && !PALAVRAS_VAZIAS.contains(termo)) {
+                termos.add(termo);
+            }
+        }
+        return termos;
+    }
+}
@@ -0,0 +1,125 @@
+package app.service;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// Utilitários para percorrer os mapas dos serviços sem copiar os valores para uma lista
+public final class Iteradores {
+
+    private Iteradores() {
+    }
+
+    // Percorre as chaves na ordem recebida, buscando cada valor sob demanda.
+    // Chaves cujo valor foi removido no meio do caminho são simplesmente puladas.
+    public static <K, V> Iterator<V> valoresPorChave(Iterator<K> chaves, Function<K, V> busca) {
+        return new Iterator<>() {
+            private V proximo;
+
+            @Override
+            public boolean hasNext() {
+                while (proximo == null && chaves.hasNext()) {
+                    proximo = busca.apply(chaves.next());
+                }
+                return proximo != null;
+            }
+
+            @Override
+            public V next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                V valor = proximo;
+                proximo = null;
+                return valor;
+            }
+        };
+    }
+
+    // Percorre os itens enquanto a condição valer (útil para intervalos de um conjunto ordenado)
+    public static <T> Iterator<T> enquanto(Iterator<T> itens, Predicate<T> condicao) {
+        return new Iterator<>() {
+            private T proximo;
+            private boolean terminou;
+
+            @Override
+            public boolean hasNext() {
+                if (proximo == null && !terminou && itens.hasNext()) {
+                    T item = itens.next();
+                    if (condicao.test(item)) {
+                        proximo = item;
+                    } else {
+                        terminou = true;
+                    }
+                }
+                return proximo != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T item = proximo;
+                proximo = null;
+                return item;
+            }
+        };
+    }
+
+    // Limita a quantidade de itens percorridos
+    public static <T> Iterator<T> limitar(Iterator<T> itens, int limite) {
+        return new Iterator<>() {
+            private int entregues;
+
+            @Override
+            public boolean hasNext() {
+                return entregues < limite && itens.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                entregues++;
+                return itens.next();
+            }
+        };
+    }
+
+    // Intercala iteradores já ordenados num só, também ordenado; cada um só avança quando o seu item é entregue
+    public static <T> Iterator<T> intercalar(List<Iterator<T>> partes, Comparator<T> ordem) {
+        record Cabeca<T>(T item, Iterator<T> resto) {
+        }
+        PriorityQueue<Cabeca<T>> cabecas = new PriorityQueue<>(Math.max(1, partes.size()),
+                (a, b) -> ordem.compare(a.item(), b.item()));
+        for (Iterator<T> parte : partes) {
+            if (parte.hasNext()) {
+                cabecas.add(new Cabeca<>(parte.next(), parte));
+            }
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !cabecas.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                Cabeca<T> menor = cabecas.poll();
+                if (menor == null) {
+                    throw new NoSuchElementException();
+                }
+                if (menor.resto().hasNext()) {
+                    cabecas.add(new Cabeca<>(menor.resto().next(), menor.resto()));
+                }
+                return menor.item();
+            }
+        };
+    }
+}
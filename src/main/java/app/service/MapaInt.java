@@ -0,0 +1,119 @@
+package app.service;
+
+import java.util.Arrays;
+
+// Mapa de int para int (não negativo) com endereçamento aberto e sondagem linear: dois int[] paralelos,
+// sem objetos por entrada. Não é thread-safe; quem usa sincroniza por fora.
+final class MapaInt {
+
+    static final int AUSENTE = -1;
+    private static final int CAPACIDADE_MINIMA = 16;
+
+    private int[] chaves;
+    // AUSENTE marca posição vazia, então a chave pode ser qualquer int (inclusive 0)
+    private int[] valores;
+    private int tamanho;
+
+    MapaInt() {
+        alocar(CAPACIDADE_MINIMA);
+    }
+
+    int obter(int chave) {
+        int mascara = chaves.length - 1;
+        for (int i = posicao(chave, mascara); ; i = (i + 1) & mascara) {
+            if (valores[i] == AUSENTE) {
+                return AUSENTE;
+            }
+            if (chaves[i] == chave) {
+                return valores[i];
+            }
+        }
+    }
+
+    void colocar(int chave, int valor) {
+        int mascara = chaves.length - 1;
+        int i = posicao(chave, mascara);
+        while (valores[i] != AUSENTE) {
+            if (chaves[i] == chave) {
+                valores[i] = valor;
+                return;
+            }
+            i = (i + 1) & mascara;
+        }
+        chaves[i] = chave;
+        valores[i] = valor;
+        // Carga máxima de 2/3: acima disso as sequências de sondagem crescem rápido
+        if (++tamanho * 3 > chaves.length * 2) {
+            redimensionar(chaves.length * 2);
+        }
+    }
+
+    // Remove deslocando para trás as entradas seguintes da mesma sequência, então não há marcas de removido
+    // e as buscas continuam terminando na primeira posição vazia
+    int remover(int chave) {
+        int mascara = chaves.length - 1;
+        int i = posicao(chave, mascara);
+        while (valores[i] != AUSENTE && chaves[i] != chave) {
+            i = (i + 1) & mascara;
+        }
+        int removido = valores[i];
+        if (removido == AUSENTE) {
+            return AUSENTE;
+        }
+        int vazio = i;
+        for (int j = (i + 1) & mascara; valores[j] != AUSENTE; j = (j + 1) & mascara) {
+            int ideal = posicao(chaves[j], mascara);
+            // A entrada em j pode ocupar o buraco se o buraco estiver entre a posição ideal dela e j (circularmente)
+            if (((j - ideal) & mascara) >= ((j - vazio) & mascara)) {
+                chaves[vazio] = chaves[j];
+                valores[vazio] = valores[j];
+                vazio = j;
+            }
+        }
+        valores[vazio] = AUSENTE;
+        tamanho--;
+        if (chaves.length > CAPACIDADE_MINIMA && tamanho * 8 < chaves.length) {
+            redimensionar(chaves.length / 2);
+        }
+        return removido;
+    }
+
+    int tamanho() {
+        return tamanho;
+    }
+
+    void limpar() {
+        alocar(CAPACIDADE_MINIMA);
+    }
+
+    private void redimensionar(int capacidade) {
+        int[] chavesAntigas = chaves;
+        int[] valoresAntigos = valores;
+        alocar(capacidade);
+        int mascara = capacidade - 1;
+        for (int i = 0; i < chavesAntigas.length; i++) {
+            if (valoresAntigos[i] != AUSENTE) {
+                int j = posicao(chavesAntigas[i], mascara);
+                while (valores[j] != AUSENTE) {
+                    j = (j + 1) & mascara;
+                }
+                chaves[j] = chavesAntigas[i];
+                valores[j] = valoresAntigos[i];
+                tamanho++;
+            }
+        }
+    }
+
+    private void alocar(int capacidade) {
+        chaves = new int[capacidade];
+        valores = new int[capacidade];
+        Arrays.fill(valores, AUSENTE);
+        tamanho = 0;
+    }
+
+    // Chaves com padrão (múltiplos de potências de 2) cairiam todas nas mesmas posições; o embaralhamento as espalha
+    private static int posicao(int chave, int mascara) {
+        int h = chave * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mascara;
+    }
+}
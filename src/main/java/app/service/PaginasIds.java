@@ -0,0 +1,114 @@
+package app.service;
+
+import app.model.Tarefa;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.IntFunction;
+
+// Presença e conclusão das tarefas como bits, em páginas de 4096 IDs guardadas em ordem. Dá a ordem por ID e o
+// filtro por concluida aos armazéns sem objetos por tarefa, a 2 bits por ID da faixa ocupada (IDs gerados
+// pelo AlocadorIds são densos). Não é thread-safe; quem usa sincroniza por fora.
+final class PaginasIds {
+
+    // Filtros de proximo
+    static final int TODAS = 0;
+    static final int CONCLUIDAS = 1;
+    static final int ABERTAS = 2;
+    // Devolvido por proximo quando não há mais IDs
+    static final long FIM = Long.MAX_VALUE;
+
+    private static final int BITS_PAGINA = 12;
+    private static final int TAMANHO_PAGINA = 1 << BITS_PAGINA;
+
+    // Bits dos IDs de uma faixa: presentes e, entre eles, os concluídos
+    private static final class Pagina {
+        final BitSet presentes = new BitSet(TAMANHO_PAGINA);
+        final BitSet concluidas = new BitSet(TAMANHO_PAGINA);
+
+        // Primeiro bit a partir de 'inicio' que passa no filtro, ou -1
+        int proximo(int inicio, int filtro) {
+            if (filtro == CONCLUIDAS) {
+                return concluidas.nextSetBit(inicio);
+            }
+            int bit = presentes.nextSetBit(inicio);
+            while (filtro == ABERTAS && bit >= 0 && concluidas.get(bit)) {
+                bit = presentes.nextSetBit(bit + 1);
+            }
+            return bit;
+        }
+    }
+
+    // Índice da página (ID >> BITS_PAGINA, com sinal) -> bits dos IDs dela
+    private final TreeMap<Integer, Pagina> paginas = new TreeMap<>();
+
+    void marcar(int id, boolean concluida) {
+        Pagina pagina = paginas.computeIfAbsent(id >> BITS_PAGINA, indice -> new Pagina());
+        pagina.presentes.set(id & (TAMANHO_PAGINA - 1));
+        pagina.concluidas.set(id & (TAMANHO_PAGINA - 1), concluida);
+    }
+
+    void desmarcar(int id) {
+        Integer indice = id >> BITS_PAGINA;
+        Pagina pagina = paginas.get(indice);
+        if (pagina == null) {
+            return;
+        }
+        pagina.presentes.clear(id & (TAMANHO_PAGINA - 1));
+        pagina.concluidas.clear(id & (TAMANHO_PAGINA - 1));
+        if (pagina.presentes.isEmpty()) {
+            paginas.remove(indice);
+        }
+    }
+
+    boolean concluida(int id) {
+        Pagina pagina = paginas.get(id >> BITS_PAGINA);
+        return pagina != null && pagina.concluidas.get(id & (TAMANHO_PAGINA - 1));
+    }
+
+    // Menor ID >= aPartirDe que passa no filtro, ou FIM
+    long proximo(long aPartirDe, int filtro) {
+        while (aPartirDe <= Integer.MAX_VALUE) {
+            int id = (int) aPartirDe;
+            Map.Entry<Integer, Pagina> entrada = paginas.ceilingEntry(id >> BITS_PAGINA);
+            if (entrada == null) {
+                return FIM;
+            }
+            int base = entrada.getKey() << BITS_PAGINA;
+            int bit = entrada.getValue().proximo(entrada.getKey() == id >> BITS_PAGINA ? id - base : 0, filtro);
+            if (bit >= 0) {
+                return base + bit;
+            }
+            aPartirDe = (long) base + TAMANHO_PAGINA;
+        }
+        return FIM;
+    }
+
+    void limpar() {
+        paginas.clear();
+    }
+
+    // Percorre em ordem de ID a partir de aPartirDe, montando cada tarefa com 'montar' sob a trava de leitura
+    Iterator<Tarefa> percorrer(Lock trava, long aPartirDe, int filtro, IntFunction<Tarefa> montar) {
+        return new PercursoEmLotes<>(trava) {
+            private long cursor = aPartirDe;
+
+            @Override
+            protected void buscar(List<Tarefa> lote, int maximo) {
+                while (lote.size() < maximo) {
+                    long id = proximo(cursor, filtro);
+                    if (id == FIM) {
+                        cursor = FIM;
+                        return;
+                    }
+                    lote.add(montar.apply((int) id));
+                    cursor = id + 1;
+                }
+            }
+        };
+    }
+}
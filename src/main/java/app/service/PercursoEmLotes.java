@@ -0,0 +1,52 @@
+package app.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.Lock;
+
+// Iterador sobre um armazém protegido por trava: cada lote é buscado com a trava de leitura, solta entre um
+// lote e outro. Como nos iteradores fracamente consistentes dos conjuntos concorrentes, cada lote enxerga as
+// escritas concluídas antes dele, e uma listagem longa não segura as escritas até o fim.
+abstract class PercursoEmLotes<T> implements Iterator<T> {
+
+    private static final int TAMANHO_LOTE = 64;
+
+    private final Lock trava;
+    private final List<T> lote = new ArrayList<>(TAMANHO_LOTE);
+    private int posicao;
+    private boolean terminou;
+
+    PercursoEmLotes(Lock trava) {
+        this.trava = trava;
+    }
+
+    // Acrescenta ao lote até 'maximo' itens a partir do cursor da subclasse e avança o cursor; roda com a trava.
+    // Acrescentar menos que 'maximo' encerra o percurso.
+    protected abstract void buscar(List<T> lote, int maximo);
+
+    @Override
+    public boolean hasNext() {
+        if (posicao == lote.size() && !terminou) {
+            lote.clear();
+            posicao = 0;
+            trava.lock();
+            try {
+                buscar(lote, TAMANHO_LOTE);
+            } finally {
+                trava.unlock();
+            }
+            terminou = lote.size() < TAMANHO_LOTE;
+        }
+        return posicao < lote.size();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return lote.get(posicao++);
+    }
+}
@@ -0,0 +1,308 @@
+package app.service;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Registros codificados (o formato do CodecBinario) guardados fora do heap, em blocos de ByteBuffers diretos de
+// 16 MiB, com um índice hash próprio também fora do heap. Para o coletor de lixo, milhões de registros são só
+// algumas dezenas de objetos, e o heap não cresce com eles. O teto é -XX:MaxDirectMemorySize (por padrão, o -Xmx).
+//
+// Cada registro ocupa uma fatia de uma classe de tamanho (32, 48, 64, 96, 128... até 1 MiB): cabeçalho de 16
+// bytes (classe, tamanho do registro e versão) seguido do registro. Fatias liberadas por exclusões ou por
+// registros que mudaram de classe vão para a lista de livres da sua classe e são as primeiras a ser
+// reaproveitadas. Registros maiores que a maior classe (raros: o corpo HTTP já é limitado) ganham um ByteBuffer
+// só para eles, devolvido ao coletor quando saem.
+//
+// O índice é endereçamento aberto com sondagem linear: entradas de 12 bytes (hash, endereço), endereço 0 = vazia.
+// O hash guardado evita decodificar registros de outras chaves e permite a remoção por deslocamento para trás.
+// Não é thread-safe; quem usa sincroniza por fora.
+final class RegistrosForaDoHeap<K, V> {
+
+    // Como chaves e valores viram bytes e voltam
+    interface Formato<K, V> {
+        int hash(K chave);
+
+        // Se o registro codificado é o da chave
+        boolean confere(K chave, ByteBuffer registro);
+
+        byte[] codificar(V valor);
+
+        long versao(V valor);
+
+        V decodificar(ByteBuffer registro, long versao);
+    }
+
+    private static final int TAMANHO_BLOCO = 16 * 1024 * 1024;
+    // Maior classe de tamanho; o desperdício no fim de cada bloco fica abaixo disso
+    private static final int MAIOR_FATIA = 1024 * 1024;
+    private static final int CABECALHO = 16;
+    private static final int ENTRADA_INDICE = 12;
+    private static final int CAPACIDADE_MINIMA_INDICE = 1024;
+    // Maior potência de 2 cujo índice cabe num ByteBuffer (2^27 entradas, uns 89 milhões de registros)
+    private static final int CAPACIDADE_MAXIMA_INDICE = 1 << 27;
+    private static final int[] CLASSES = classes();
+    // Classe dos registros com ByteBuffer próprio
+    private static final int GRANDE = CLASSES.length;
+
+    private final Formato<K, V> formato;
+    // O endereço de uma fatia é (posição do bloco nesta lista + 1) nos 32 bits altos e a posição no bloco nos baixos,
+    // então nenhum endereço válido é 0. Blocos de registros grandes que saíram deixam null, reaproveitado depois
+    private final List<ByteBuffer> blocos = new ArrayList<>();
+    private final List<Integer> blocosVazios = new ArrayList<>();
+    // Bloco onde as fatias novas são cortadas e a próxima posição livre nele
+    private int blocoAtual = -1;
+    private int topo = TAMANHO_BLOCO;
+    // Primeira fatia livre de cada classe (0 = nenhuma); a próxima fica gravada na própria fatia livre
+    private final long[] livres = new long[CLASSES.length];
+    private long bytesEmUso;
+    private long bytesReservados;
+
+    private ByteBuffer indice;
+    private int capacidadeIndice;
+    private int tamanho;
+
+    RegistrosForaDoHeap(Formato<K, V> formato) {
+        this.formato = formato;
+        alocarIndice(CAPACIDADE_MINIMA_INDICE);
+    }
+
+    V obter(K chave) {
+        int entrada = localizar(chave, hash(chave));
+        return entrada < 0 ? null : ler(enderecoNaEntrada(entrada));
+    }
+
+    // Grava o valor da chave, no lugar do anterior quando a classe de tamanho não muda
+    void gravar(K chave, V valor) {
+        byte[] registro = formato.codificar(valor);
+        int classe = classe(CABECALHO + registro.length);
+        int hash = hash(chave);
+        int entrada = localizar(chave, hash);
+        long endereco;
+        if (entrada >= 0) {
+            long atual = enderecoNaEntrada(entrada);
+            if (classe != GRANDE && bloco(atual).get(posicao(atual)) == classe) {
+                escrever(atual, registro, formato.versao(valor));
+                return;
+            }
+            endereco = alocar(classe, CABECALHO + registro.length);
+            escrever(endereco, registro, formato.versao(valor));
+            indice.putLong(entrada * ENTRADA_INDICE + 4, endereco);
+            liberar(atual);
+            return;
+        }
+        // Carga máxima de 2/3, como no MapaInt; cresce antes de gravar para um índice cheio não deixar lixo
+        if ((tamanho + 1) * 3L > capacidadeIndice * 2L) {
+            redimensionarIndice();
+        }
+        endereco = alocar(classe, CABECALHO + registro.length);
+        escrever(endereco, registro, formato.versao(valor));
+        inserirNoIndice(hash, endereco);
+        tamanho++;
+    }
+
+    boolean remover(K chave) {
+        int entrada = localizar(chave, hash(chave));
+        if (entrada < 0) {
+            return false;
+        }
+        liberar(enderecoNaEntrada(entrada));
+        removerDoIndice(entrada);
+        tamanho--;
+        return true;
+    }
+
+    int tamanho() {
+        return tamanho;
+    }
+
+    // Bytes das fatias ocupadas por registros (inclui cabeçalhos e a folga das classes)
+    long getBytesEmUso() {
+        return bytesEmUso;
+    }
+
+    // Memória direta reservada: blocos de registros mais o índice
+    long getBytesReservados() {
+        return bytesReservados + (long) capacidadeIndice * ENTRADA_INDICE;
+    }
+
+    // Solta os blocos; a memória direta volta quando o coletor recolher os ByteBuffers
+    void limpar() {
+        blocos.clear();
+        blocosVazios.clear();
+        blocoAtual = -1;
+        topo = TAMANHO_BLOCO;
+        Arrays.fill(livres, 0);
+        bytesEmUso = 0;
+        bytesReservados = 0;
+        tamanho = 0;
+        alocarIndice(CAPACIDADE_MINIMA_INDICE);
+    }
+
+    private V ler(long endereco) {
+        ByteBuffer bloco = bloco(endereco);
+        int posicao = posicao(endereco);
+        return formato.decodificar(bloco.slice(posicao + CABECALHO, bloco.getInt(posicao + 4)), bloco.getLong(posicao + 8));
+    }
+
+    private void escrever(long endereco, byte[] registro, long versao) {
+        ByteBuffer bloco = bloco(endereco);
+        int posicao = posicao(endereco);
+        bloco.putInt(posicao + 4, registro.length);
+        bloco.putLong(posicao + 8, versao);
+        bloco.put(posicao + CABECALHO, registro);
+    }
+
+    private long alocar(int classe, int bytes) {
+        long endereco;
+        if (classe == GRANDE) {
+            endereco = (long) (novoBloco(bytes) + 1) << 32;
+            bytesEmUso += bytes;
+        } else {
+            endereco = livres[classe];
+            if (endereco != 0) {
+                livres[classe] = bloco(endereco).getLong(posicao(endereco) + 8);
+            } else {
+                if (topo + CLASSES[classe] > TAMANHO_BLOCO) {
+                    blocoAtual = novoBloco(TAMANHO_BLOCO);
+                    topo = 0;
+                }
+                endereco = ((long) (blocoAtual + 1) << 32) | topo;
+                topo += CLASSES[classe];
+            }
+            bytesEmUso += CLASSES[classe];
+        }
+        bloco(endereco).put(posicao(endereco), (byte) classe);
+        return endereco;
+    }
+
+    private void liberar(long endereco) {
+        ByteBuffer bloco = bloco(endereco);
+        int posicao = posicao(endereco);
+        int classe = bloco.get(posicao);
+        if (classe == GRANDE) {
+            int indiceBloco = (int) (endereco >>> 32) - 1;
+            blocos.set(indiceBloco, null);
+            blocosVazios.add(indiceBloco);
+            bytesEmUso -= bloco.capacity();
+            bytesReservados -= bloco.capacity();
+            return;
+        }
+        bloco.putLong(posicao + 8, livres[classe]);
+        livres[classe] = endereco;
+        bytesEmUso -= CLASSES[classe];
+    }
+
+    // Posição do bloco novo na lista
+    private int novoBloco(int bytes) {
+        ByteBuffer bloco = ByteBuffer.allocateDirect(bytes);
+        bytesReservados += bytes;
+        if (!blocosVazios.isEmpty()) {
+            int indiceBloco = blocosVazios.remove(blocosVazios.size() - 1);
+            blocos.set(indiceBloco, bloco);
+            return indiceBloco;
+        }
+        blocos.add(bloco);
+        return blocos.size() - 1;
+    }
+
+    private ByteBuffer bloco(long endereco) {
+        return blocos.get((int) (endereco >>> 32) - 1);
+    }
+
+    private static int posicao(long endereco) {
+        return (int) endereco;
+    }
+
+    // Entrada do índice com a chave, ou -1
+    private int localizar(K chave, int hash) {
+        int mascara = capacidadeIndice - 1;
+        for (int i = hash & mascara; ; i = (i + 1) & mascara) {
+            long endereco = enderecoNaEntrada(i);
+            if (endereco == 0) {
+                return -1;
+            }
+            if (indice.getInt(i * ENTRADA_INDICE) == hash && confere(chave, endereco)) {
+                return i;
+            }
+        }
+    }
+
+    private boolean confere(K chave, long endereco) {
+        ByteBuffer bloco = bloco(endereco);
+        int posicao = posicao(endereco);
+        return formato.confere(chave, bloco.slice(posicao + CABECALHO, bloco.getInt(posicao + 4)));
+    }
+
+    private long enderecoNaEntrada(int entrada) {
+        return indice.getLong(entrada * ENTRADA_INDICE + 4);
+    }
+
+    private void inserirNoIndice(int hash, long endereco) {
+        int mascara = capacidadeIndice - 1;
+        int i = hash & mascara;
+        while (enderecoNaEntrada(i) != 0) {
+            i = (i + 1) & mascara;
+        }
+        indice.putInt(i * ENTRADA_INDICE, hash);
+        indice.putLong(i * ENTRADA_INDICE + 4, endereco);
+    }
+
+    // Como no MapaInt: desloca para trás as entradas seguintes da mesma sequência, sem marcas de removido
+    private void removerDoIndice(int entrada) {
+        int mascara = capacidadeIndice - 1;
+        int vazio = entrada;
+        for (int j = (entrada + 1) & mascara; enderecoNaEntrada(j) != 0; j = (j + 1) & mascara) {
+            int hash = indice.getInt(j * ENTRADA_INDICE);
+            if (((j - (hash & mascara)) & mascara) >= ((j - vazio) & mascara)) {
+                indice.putInt(vazio * ENTRADA_INDICE, hash);
+                indice.putLong(vazio * ENTRADA_INDICE + 4, enderecoNaEntrada(j));
+                vazio = j;
+            }
+        }
+        indice.putLong(vazio * ENTRADA_INDICE + 4, 0);
+    }
+
+    private void redimensionarIndice() {
+        if (capacidadeIndice >= CAPACIDADE_MAXIMA_INDICE) {
+            throw new IllegalStateException("Índice fora do heap no limite de " + capacidadeIndice + " entradas");
+        }
+        ByteBuffer antigo = indice;
+        int capacidadeAntiga = capacidadeIndice;
+        alocarIndice(capacidadeAntiga * 2);
+        for (int i = 0; i < capacidadeAntiga; i++) {
+            long endereco = antigo.getLong(i * ENTRADA_INDICE + 4);
+            if (endereco != 0) {
+                inserirNoIndice(antigo.getInt(i * ENTRADA_INDICE), endereco);
+            }
+        }
+    }
+
+    private void alocarIndice(int capacidade) {
+        indice = ByteBuffer.allocateDirect(capacidade * ENTRADA_INDICE);
+        capacidadeIndice = capacidade;
+    }
+
+    private int hash(K chave) {
+        int h = formato.hash(chave) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Menor classe que comporta os bytes, ou GRANDE
+    private static int classe(int bytes) {
+        int classe = Arrays.binarySearch(CLASSES, bytes);
+        return classe >= 0 ? classe : -classe - 1;
+    }
+
+    // Alterna passos de 1,5x e 4/3x (32, 48, 64, 96, 128...): no pior caso um quarto da fatia fica sem uso
+    private static int[] classes() {
+        List<Integer> tamanhos = new ArrayList<>();
+        for (int tamanho = 32; tamanho < MAIOR_FATIA; tamanho *= 2) {
+            tamanhos.add(tamanho);
+            tamanhos.add(tamanho + tamanho / 2);
+        }
+        tamanhos.add(MAIOR_FATIA);
+        return tamanhos.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
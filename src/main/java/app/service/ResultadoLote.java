@@ -0,0 +1,22 @@
+package app.service;
+
+// Resultado de um item numa escrita em lote: a chave criada (id ou email) ou o motivo da recusa
+public record ResultadoLote(Object chave, String erro, boolean conflito) {
+
+    public static ResultadoLote sucesso(Object chave) {
+        return new ResultadoLote(chave, null, false);
+    }
+
+    public static ResultadoLote invalido(String erro) {
+        return new ResultadoLote(null, erro, false);
+    }
+
+    // O item é válido mas já existe
+    public static ResultadoLote conflito(String erro) {
+        return new ResultadoLote(null, erro, true);
+    }
+
+    public boolean isSucesso() {
+        return erro == null;
+    }
+}
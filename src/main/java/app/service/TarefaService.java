@@ -1,44 +1,191 @@
 package app.service;
 
+import app.cache.CacheJson;
+import app.cache.OpcoesCache;
+import app.config.Configuracao;
+import app.eventos.FeedAlteracoes;
+import app.eventos.OpcoesEventos;
+import app.eventos.TipoAlteracao;
+import app.model.AlteracaoTarefa;
 import app.model.Tarefa;
+import app.persistencia.CodecBinario;
+import app.persistencia.OpcoesLog;
+import app.persistencia.WriteAheadLog;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
 
 public class TarefaService {
-    private static final Map<Integer, Tarefa> tarefas = new ConcurrentHashMap<>();
-    private static int proximoIdTarefa = 1;
+    // Tarefas, ordem dos IDs e estado de conclusão; o tipo vem de app.tarefas.armazenamento
+    private static final ArmazemTarefas tarefas = ArmazemTarefas.criar(
+            Configuracao.opcao("app.tarefas.armazenamento", ArmazenamentoTarefas.class, ArmazenamentoTarefas.MAPA));
+    // Índice secundário de pares (título normalizado, ID) em ordem
+    private static final NavigableSet<ChaveTitulo> indiceTitulos = new ConcurrentSkipListSet<>();
+    // Índice invertido para a busca textual em título e descrição
+    private static final IndiceTextual indiceTextual = new IndiceTextual();
+    // Contagens para GET /tarefas/stats, atualizadas a cada escrita; LongAdder para não disputar um contador só
+    private static final LongAdder contagemTotal = new LongAdder();
+    private static final LongAdder contagemConcluidas = new LongAdder();
+    private static final AlocadorIds alocadorIds = criarAlocadorIds();
+    // Versões usadas nas ETags. Cada gravação tira um número novo para a tarefa; a versão da coleção
+    // só avança depois que a escrita está visível, então quem a lê antes de listar nunca fica adiantado
+    private static final AtomicLong relogioVersoes = new AtomicLong();
+    private static final AtomicLong versaoColecao = new AtomicLong();
+    // JSON já serializado de cada tarefa, por versão; invalidado a cada atualização ou exclusão
+    private static final CacheJson<Integer> cacheJson = new CacheJson<>("tarefas", OpcoesCache.daConfiguracao());
+    // Criações, atualizações e exclusões para GET /tarefas/changes (SSE)
+    private static final FeedAlteracoes<Tarefa> feed = new FeedAlteracoes<>("tarefas", OpcoesEventos.daConfiguracao());
+    // Write-ahead log das tarefas; null enquanto a aplicação roda só em memória
+    private static volatile WriteAheadLog log;
+
+    // O que uma chamada a gravar fez: a tarefa antes e depois (null = ausente) e o ticket do log
+    private record Escrita(Tarefa anterior, Tarefa nova, long ticket) {
+    }
+
+    // Entrada do índice de títulos: ordena pelo título normalizado e desempata pelo ID
+    private record ChaveTitulo(String titulo, int id) implements Comparable<ChaveTitulo> {
+        @Override
+        public int compareTo(ChaveTitulo outra) {
+            int comparacao = titulo.compareTo(outra.titulo);
+            return comparacao != 0 ? comparacao : Integer.compare(id, outra.id);
+        }
+    }
+
+    // Com app.dados.dir configurado, a marca de IDs sobrevive a reinícios
+    private static AlocadorIds criarAlocadorIds() {
+        Path dados = Configuracao.diretorioDados();
+        return new AlocadorIds(Configuracao.inteiro("app.ids.faixa", 32),
+                dados != null ? dados.resolve("tarefas.ids") : null);
+    }
 
     // Adicionar nova tarefa (C - Create)
     public Tarefa adicionarTarefa(Tarefa novaTarefa) {
+        aguardarLog(inserir(novaTarefa));
+        return novaTarefa;
+    }
+
+    // Adiciona um lote de tarefas; o log é esperado uma única vez, no fim do lote
+    public List<ResultadoLote> adicionarTarefas(List<Tarefa> lote) {
+        List<ResultadoLote> resultados = new ArrayList<>(lote.size());
+        long ultimoTicket = 0;
+        for (Tarefa tarefa : lote) {
+            try {
+                if (tarefa == null) {
+                    throw new IllegalArgumentException("Item vazio");
+                }
+                ultimoTicket = Math.max(ultimoTicket, inserir(tarefa));
+                resultados.add(ResultadoLote.sucesso(tarefa.getId()));
+            } catch (IllegalArgumentException e) {
+                resultados.add(ResultadoLote.invalido(e.getMessage()));
+            }
+        }
+        aguardarLog(ultimoTicket);
+        return resultados;
+    }
+
+    // Valida e grava a tarefa; devolve o ticket do log (0 sem persistência) sem esperar por ele
+    private long inserir(Tarefa novaTarefa) {
         if (novaTarefa.getTitulo() == null || novaTarefa.getTitulo().trim().isEmpty()) {
             throw new IllegalArgumentException("Título é obrigatório");
         }
         
         if (novaTarefa.getId() == 0) { 
-            novaTarefa.setId(proximoIdTarefa++);
-        } else if (novaTarefa.getId() >= proximoIdTarefa) {
-            proximoIdTarefa = novaTarefa.getId() + 1;
+            // Um ID gerado nunca sobrescreve: se um ID explícito já ocupou o valor, pega o próximo
+            Escrita escrita;
+            do {
+                novaTarefa.setId(alocadorIds.proximoId());
+                escrita = gravar(novaTarefa.getId(), atual -> atual == null ? novaTarefa : atual);
+            } while (escrita.nova() != novaTarefa);
+            return escrita.ticket();
         }
-
-        tarefas.put(novaTarefa.getId(), novaTarefa);
-        return novaTarefa;
+        alocadorIds.reservar(novaTarefa.getId());
+        return gravar(novaTarefa.getId(), atual -> novaTarefa).ticket();
     }
 
     
     public Tarefa buscarTarefaPorId(int id) {
-        return tarefas.get(id);
+        return tarefas.obter(id);
     }
 
     // Listar todas as tarefas
     public List<Tarefa> listarTarefas() {
-        return new ArrayList<>(tarefas.values());
+        List<Tarefa> lista = new ArrayList<>(tarefas.tamanho());
+        tarefas.percorrer(null).forEachRemaining(lista::add);
+        return lista;
+    }
+
+    // Muda a cada criação, atualização ou exclusão; nunca volta atrás, nem em resetState
+    public long getVersaoColecao() {
+        return versaoColecao.get();
+    }
+
+    public FeedAlteracoes<Tarefa> getFeed() {
+        return feed;
+    }
+
+    public CacheJson<Integer> getCacheJson() {
+        return cacheJson;
+    }
+
+    public int contarTarefas() {
+        return tarefas.tamanho();
+    }
+
+    // Percorre as tarefas em ordem de ID sem copiá-las; depoisDe é o cursor da paginação (null = do início)
+    public Iterator<Tarefa> percorrerTarefas(Integer depoisDe) {
+        return tarefas.percorrer(depoisDe);
+    }
+
+    // Filtra pelos índices secundários; o custo é proporcional ao resultado, não ao total de tarefas.
+    // Com tituloPrefix o resultado vem em ordem de título (sem diferenciar maiúsculas); só com concluida, em ordem de ID.
+    public Iterator<Tarefa> filtrarTarefas(Boolean concluida, String tituloPrefix) {
+        if (tituloPrefix != null) {
+            String prefixo = normalizarTitulo(tituloPrefix);
+            Iterator<ChaveTitulo> chaves = Iteradores.enquanto(
+                    indiceTitulos.tailSet(new ChaveTitulo(prefixo, Integer.MIN_VALUE)).iterator(),
+                    chave -> chave.titulo().startsWith(prefixo));
+            // Confere a tarefa atual: uma escrita concorrente pode ter mudado o título depois da leitura do índice
+            return Iteradores.valoresPorChave(chaves, chave -> {
+                Tarefa tarefa = tarefas.obter(chave.id());
+                boolean confere = tarefa != null && normalizarTitulo(tarefa.getTitulo()).equals(chave.titulo())
+                        && (concluida == null || tarefa.isConcluida() == concluida);
+                return confere ? tarefa : null;
+            });
+        }
+        if (concluida != null) {
+            return tarefas.percorrer(concluida.booleanValue());
+        }
+        return percorrerTarefas(null);
+    }
+
+    // Tempo constante: só lê os contadores mantidos a cada escrita, sem percorrer as tarefas nem travar
+    public EstatisticasTarefas calcularEstatisticas() {
+        long concluidas = Math.max(0, contagemConcluidas.sum());
+        long total = Math.max(concluidas, contagemTotal.sum());
+        return new EstatisticasTarefas(total, concluidas, total - concluidas, total == 0 ? 0 : (double) concluidas / total);
+    }
+
+    // Busca textual ranqueada em título e descrição (sem acentos e sem diferenciar maiúsculas)
+    public List<IndiceTextual.ResultadoBusca> buscarTexto(String consulta, int limite) {
+        return indiceTextual.buscar(consulta, limite, tarefas.tamanho(), tarefas::obter);
     }
 
     // Atualizar tarefa (U - Update) 
     public Tarefa atualizarTarefa(int id, Tarefa tarefaAtualizada) {
+        return atualizarTarefa(id, tarefaAtualizada, 0);
+    }
+
+    // versaoEsperada vem do If-Match: 0 aceita qualquer versão; outro valor exige que a tarefa ainda esteja nela
+    public Tarefa atualizarTarefa(int id, Tarefa tarefaAtualizada, long versaoEsperada) {
         // Validação: título não pode ser nulo ou vazio
         if (tarefaAtualizada.getTitulo() == null || tarefaAtualizada.getTitulo().trim().isEmpty()) {
             throw new IllegalArgumentException("Título é obrigatório");
@@ -48,22 +195,200 @@ public class TarefaService {
              tarefaAtualizada.setId(id); // Força o ID do corpo a ser o mesmo do path
         }
 
-        if (tarefas.containsKey(id)) {
-            tarefas.put(id, tarefaAtualizada); // Sobrescreve a tarefa existente
+        // Sobrescreve só se a tarefa existir, conferindo a versão dentro da gravação atômica
+        Escrita escrita = gravar(id, atual -> {
+            if (atual == null) {
+                return null;
+            }
+            conferirVersao(atual, versaoEsperada);
             return tarefaAtualizada;
+        });
+        if (escrita.nova() == null) {
+            return null; // Tarefa não encontrada para atualização
         }
-        return null; // Tarefa não encontrada para atualização
+        aguardarLog(escrita.ticket());
+        return tarefaAtualizada;
+    }
+
+    // Atualização parcial (PATCH): aplica os campos presentes sobre a versão atual, dentro da gravação atômica,
+    // então edições concorrentes de campos diferentes na mesma tarefa não se perdem
+    public Tarefa alterarTarefa(int id, AlteracaoTarefa alteracao, long versaoEsperada) {
+        alteracao.validar();
+        Escrita escrita = gravar(id, atual -> {
+            if (atual == null) {
+                return null;
+            }
+            conferirVersao(atual, versaoEsperada);
+            return alteracao.isVazia() ? atual : alteracao.aplicar(atual);
+        });
+        aguardarLog(escrita.ticket());
+        return escrita.nova();
     }
 
     // Deletar tarefa (D - Delete)
     public boolean deletarTarefa(int id) {
+        return deletarTarefa(id, 0);
+    }
+
+    public boolean deletarTarefa(int id, long versaoEsperada) {
         // Retorna true se a tarefa foi removida, false caso contrário (não encontrada)
-        return tarefas.remove(id) != null;
+        Escrita escrita = gravar(id, atual -> {
+            if (atual != null) {
+                conferirVersao(atual, versaoEsperada);
+            }
+            return null;
+        });
+        aguardarLog(escrita.ticket());
+        return escrita.anterior() != null;
+    }
+
+    private static void conferirVersao(Tarefa atual, long versaoEsperada) {
+        if (versaoEsperada != 0 && atual.getVersao() != versaoEsperada) {
+            throw new VersaoDivergenteException(atual.getVersao());
+        }
+    }
+
+    // Única porta de escrita no armazém. 'alteracao' recebe a tarefa atual (null se não existe) e devolve a que fica
+    // no lugar: a mesma para não mudar nada, null para remover. Versão, índices, cache e anexação ao log rodam
+    // dentro da gravação atômica do armazém, então escritas concorrentes no mesmo ID chegam ao log na ordem em que foram aplicadas.
+    // Uma exceção lançada por 'alteracao' ou pela anexação ao log deixa tudo como estava.
+    private static Escrita gravar(int id, UnaryOperator<Tarefa> alteracao) {
+        return gravar(id, alteracao, 0);
+    }
+
+    // versaoReplicada: versão vinda do líder, que a tarefa mantém (0 = tira uma nova do relógio)
+    private static Escrita gravar(int id, UnaryOperator<Tarefa> alteracao, long versaoReplicada) {
+        Escrita[] resultado = new Escrita[1];
+        WriteAheadLog registro = log;
+        // A compactação do log espera esta escrita chegar ao armazém (veja WriteAheadLog.iniciarEscrita)
+        long marca = registro != null ? registro.iniciarEscrita() : 0;
+        try {
+            tarefas.gravar(id, atual -> {
+                Tarefa nova = alteracao.apply(atual);
+                if (nova == atual) {
+                    resultado[0] = new Escrita(atual, atual, 0);
+                    return atual;
+                }
+                if (versaoReplicada != 0) {
+                    // O relógio acompanha o líder, para que as versões continuem crescendo se este nó passar
+                    // a liderar
+                    relogioVersoes.accumulateAndGet(versaoReplicada, Math::max);
+                }
+                if (nova != null) {
+                    nova.setVersao(versaoReplicada != 0 ? versaoReplicada : relogioVersoes.incrementAndGet());
+                }
+                // O log vem antes dos índices: se a anexação falhar (log com erro ou já fechado), a exceção aborta
+                // a gravação sem ter mexido em índices, contagens, cache nem feed
+                long ticket = nova != null ? registrarGravacao(nova) : registrarRemocao(id);
+                atualizarIndices(atual, nova);
+                resultado[0] = new Escrita(atual, nova, ticket);
+                feed.publicar(TipoAlteracao.de(atual, nova), Integer.toString(id),
+                        (nova != null ? nova : atual).getVersao(), nova);
+                return nova;
+            });
+        } finally {
+            if (registro != null) {
+                registro.concluirEscrita(marca);
+            }
+        }
+        if (resultado[0].anterior() != resultado[0].nova()) {
+            // Só depois da gravação a escrita está visível; antes disso a versão da coleção ficaria adiantada
+            versaoColecao.incrementAndGet();
+        }
+        return resultado[0];
+    }
+
+    // Aplica uma escrita vinda do líder (veja app.replicacao), que a tarefa recebe com a versão dada pelo líder.
+    // Passa pelo mesmo caminho das escritas locais: índices, cache, log e feed de alterações. nova == null remove
+    public void aplicarReplicada(int id, long versao, Tarefa nova) {
+        if (nova != null) {
+            alocadorIds.reservar(id);
+        }
+        gravar(id, atual -> nova, versao);
+    }
+
+    // Liga a persistência em disco: reproduz o que já foi gravado e passa a registrar cada escrita
+    public void ativarPersistencia(Path diretorio, OpcoesLog opcoes) throws IOException {
+        log = WriteAheadLog.abrir(diretorio, "tarefas", opcoes,
+                () -> Iteradores.valoresPorChave(tarefas.percorrer(null), CodecBinario::codificarTarefa),
+                // Durante a reprodução o log ainda não está ligado, então gravar não anexa nada de novo
+                (operacao, payload) -> {
+                    if (operacao == WriteAheadLog.GRAVAR) {
+                        Tarefa tarefa = CodecBinario.decodificarTarefa(payload);
+                        alocadorIds.reservar(tarefa.getId());
+                        gravar(tarefa.getId(), atual -> tarefa);
+                    } else {
+                        gravar(CodecBinario.decodificarId(payload), atual -> null);
+                    }
+                });
+    }
+
+    // Log em uso (null sem persistência); os testes o fecham por baixo do serviço para simular uma falha
+    WriteAheadLog getLog() {
+        return log;
+    }
+
+    // Descarrega e fecha o log (chamado no desligamento da aplicação)
+    public void encerrarPersistencia() throws IOException {
+        WriteAheadLog atual = log;
+        log = null;
+        if (atual != null) {
+            atual.close();
+        }
+    }
+
+    // Mantém os índices e as contagens em dia depois de uma escrita: anterior é null numa criação, nova é null numa exclusão
+    private static void atualizarIndices(Tarefa anterior, Tarefa nova) {
+        if (anterior != null) {
+            contagemTotal.decrement();
+            if (anterior.isConcluida()) {
+                contagemConcluidas.decrement();
+            }
+            cacheJson.invalidar(anterior.getId());
+            indiceTitulos.remove(new ChaveTitulo(normalizarTitulo(anterior.getTitulo()), anterior.getId()));
+        }
+        if (nova != null) {
+            contagemTotal.increment();
+            if (nova.isConcluida()) {
+                contagemConcluidas.increment();
+            }
+            indiceTitulos.add(new ChaveTitulo(normalizarTitulo(nova.getTitulo()), nova.getId()));
+        }
+        indiceTextual.atualizar(anterior, nova);
+    }
+
+    private static String normalizarTitulo(String titulo) {
+        return titulo == null ? "" : titulo.toLowerCase(Locale.ROOT);
+    }
+
+    // Anexa a escrita ao log sem esperar; o ticket devolvido vai para aguardarLog (0 sem persistência)
+    private static long registrarGravacao(Tarefa tarefa) {
+        WriteAheadLog atual = log;
+        return atual != null ? atual.anexarSemEsperar(WriteAheadLog.GRAVAR, CodecBinario.codificarTarefa(tarefa)) : 0;
+    }
+
+    private static long registrarRemocao(int id) {
+        WriteAheadLog atual = log;
+        return atual != null ? atual.anexarSemEsperar(WriteAheadLog.REMOVER, CodecBinario.codificarId(id)) : 0;
+    }
+
+    // Espera o log confirmar a escrita, conforme o modo de durabilidade
+    private void aguardarLog(long ticket) {
+        WriteAheadLog atual = log;
+        if (atual != null && ticket > 0) {
+            atual.aguardar(ticket);
+        }
     }
 
     // Resetar estado (para testes)
     public void resetState() {
-        tarefas.clear();
-        proximoIdTarefa = 1;
+        tarefas.limpar();
+        indiceTitulos.clear();
+        indiceTextual.limpar();
+        contagemTotal.reset();
+        contagemConcluidas.reset();
+        alocadorIds.reiniciar();
+        cacheJson.limpar();
+        versaoColecao.incrementAndGet();
     }
 }
\ No newline at end of file
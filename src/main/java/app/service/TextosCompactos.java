@@ -0,0 +1,88 @@
+package app.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Textos em UTF-8, um atrás do outro num único byte[]. Cada texto é identificado por uma referência long
+// (posição nos 32 bits altos, tamanho nos baixos), então guardar um título custa os bytes dele e nada mais:
+// sem cabeçalho de String nem de array. Textos liberados viram lixo até a próxima compactação, que o dono
+// das referências conduz (só ele sabe quais ainda estão em uso). Não é thread-safe.
+final class TextosCompactos {
+
+    static final long NULO = -1;
+    private static final int CAPACIDADE_INICIAL = 4096;
+    // Abaixo disso não vale a pena compactar, por maior que seja a proporção de lixo
+    private static final int LIXO_MINIMO = 64 * 1024;
+
+    private byte[] dados = new byte[CAPACIDADE_INICIAL];
+    private int usado;
+    private long lixo;
+
+    long guardar(String texto) {
+        if (texto == null) {
+            return NULO;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        garantirEspaco(bytes.length);
+        System.arraycopy(bytes, 0, dados, usado, bytes.length);
+        long referencia = ((long) usado << 32) | bytes.length;
+        usado += bytes.length;
+        return referencia;
+    }
+
+    String ler(long referencia) {
+        if (referencia == NULO) {
+            return null;
+        }
+        return new String(dados, (int) (referencia >>> 32), (int) referencia, StandardCharsets.UTF_8);
+    }
+
+    void liberar(long referencia) {
+        if (referencia != NULO) {
+            lixo += (int) referencia;
+        }
+    }
+
+    // Verdadeiro quando mais da metade dos bytes é lixo
+    boolean precisaCompactar() {
+        return lixo > LIXO_MINIMO && lixo * 2 > usado;
+    }
+
+    // Copia os textos em uso para um array novo, reescrevendo no lugar as referências das colunas recebidas
+    // (as 'quantidade' primeiras posições de cada uma; posições livres devem estar com NULO)
+    void compactar(int quantidade, long[]... colunas) {
+        byte[] novos = new byte[(int) Math.max(CAPACIDADE_INICIAL, Math.min(Integer.MAX_VALUE - 8, (usado - lixo) * 3 / 2))];
+        int posicao = 0;
+        for (long[] referencias : colunas) {
+            for (int i = 0; i < quantidade; i++) {
+                long referencia = referencias[i];
+                if (referencia == NULO) {
+                    continue;
+                }
+                int tamanho = (int) referencia;
+                System.arraycopy(dados, (int) (referencia >>> 32), novos, posicao, tamanho);
+                referencias[i] = ((long) posicao << 32) | tamanho;
+                posicao += tamanho;
+            }
+        }
+        dados = novos;
+        usado = posicao;
+        lixo = 0;
+    }
+
+    void limpar() {
+        dados = new byte[CAPACIDADE_INICIAL];
+        usado = 0;
+        lixo = 0;
+    }
+
+    private void garantirEspaco(int tamanho) {
+        long necessario = (long) usado + tamanho;
+        if (necessario > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Textos das tarefas passaram de 2 GiB no armazenamento compacto");
+        }
+        if (necessario > dados.length) {
+            dados = Arrays.copyOf(dados, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(necessario, dados.length * 3L / 2)));
+        }
+    }
+}
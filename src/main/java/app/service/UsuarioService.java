@@ -1,71 +1,525 @@
 package app.service;
 
+import app.cache.CacheJson;
+import app.cache.OpcoesCache;
+import app.config.Configuracao;
+import app.eventos.FeedAlteracoes;
+import app.eventos.OpcoesEventos;
+import app.eventos.TipoAlteracao;
+import app.model.AlteracaoUsuario;
 import app.model.Usuario;
+import app.persistencia.CodecBinario;
+import app.persistencia.OpcoesLog;
+import app.persistencia.WriteAheadLog;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiPredicate;
+import java.util.function.UnaryOperator;
 
+// Os emails são guardados na forma canônica (sem espaços nas pontas e em minúsculas): Maria@Email.com e
+// maria@email.com são o mesmo usuário, e toda busca, atualização ou exclusão normaliza o email recebido antes.
 public class UsuarioService {
-    private static final Map<String, Usuario> usuarios = new ConcurrentHashMap<>();
+    // Usuários e ordem dos emails, pelo email canônico; o tipo vem de app.usuarios.armazenamento
+    private static final ArmazemUsuarios usuarios = ArmazemUsuarios.criar(
+            Configuracao.opcao("app.usuarios.armazenamento", ArmazenamentoUsuarios.class, ArmazenamentoUsuarios.MAPA));
+    // Índice secundário de pares (domínio, email) em ordem, para listar um domínio sem percorrer todos os usuários
+    private static final NavigableSet<ChaveDominio> indiceDominios = new ConcurrentSkipListSet<>();
+    // Contagens para GET /usuarios/stats, atualizadas a cada escrita; LongAdder para não disputar um contador só.
+    // Faixas de idade: [0, 18), [18, 25), ..., [65, ∞); idades negativas contam na primeira
+    private static final int[] INICIO_FAIXAS = {18, 25, 35, 45, 55, 65};
+    private static final LongAdder contagemTotal = new LongAdder();
+    private static final LongAdder somaIdades = new LongAdder();
+    private static final LongAdder[] contagemFaixas = criarContadores(INICIO_FAIXAS.length + 1);
+    // Emails reservados por uma troca de email em andamento (veja renomear). As escritas comuns não tomam trava:
+    // só conferem, dentro da gravação atômica, se o seu email está aqui, e nesse caso esperam a troca terminar
+    private static final Set<String> emTroca = ConcurrentHashMap.newKeySet();
+    private static final long ESPERA_TROCA_NANOS = 20_000;
+    // Versões usadas nas ETags. Cada gravação tira um número novo para o usuário; a versão da coleção
+    // só avança depois que a escrita está visível, então quem a lê antes de listar nunca fica adiantado
+    private static final AtomicLong relogioVersoes = new AtomicLong();
+    private static final AtomicLong versaoColecao = new AtomicLong();
+    // JSON já serializado de cada usuário, por versão; invalidado a cada atualização ou exclusão
+    private static final CacheJson<String> cacheJson = new CacheJson<>("usuarios", OpcoesCache.daConfiguracao());
+    // Criações, atualizações e exclusões para GET /usuarios/changes (SSE)
+    private static final FeedAlteracoes<Usuario> feed = new FeedAlteracoes<>("usuarios", OpcoesEventos.daConfiguracao());
+    // Write-ahead log dos usuários; null enquanto a aplicação roda só em memória
+    private static volatile WriteAheadLog log;
+
+    // O que uma chamada a gravar fez: o usuário antes e depois (null = ausente) e o ticket do log
+    private record Escrita(Usuario anterior, Usuario nova, long ticket) {
+    }
+
+    // Entrada do índice de domínios: ordena pelo domínio e desempata pelo email, ambos canônicos
+    private record ChaveDominio(String dominio, String email) implements Comparable<ChaveDominio> {
+        @Override
+        public int compareTo(ChaveDominio outra) {
+            int comparacao = dominio.compareTo(outra.dominio);
+            return comparacao != 0 ? comparacao : email.compareTo(outra.email);
+        }
+    }
 
     // Adicionar novo usuário (C - Create)
     public Usuario adicionarUsuario(Usuario novoUsuario) {
-        if (novoUsuario.getEmail() == null || novoUsuario.getEmail().trim().isEmpty()) {
-            throw new IllegalArgumentException("Email é obrigatório");
-        }
-        if (usuarios.containsKey(novoUsuario.getEmail())) {
+        long ticket = inserir(novoUsuario);
+        if (ticket < 0) {
             return null; // Usuário já existe, retorna null para indicar falha
         }
-        usuarios.put(novoUsuario.getEmail(), novoUsuario);
+        aguardarLog(ticket);
         return novoUsuario;
     }
 
+    // Adiciona um lote de usuários; o log é esperado uma única vez, no fim do lote
+    public List<ResultadoLote> adicionarUsuarios(List<Usuario> lote) {
+        List<ResultadoLote> resultados = new ArrayList<>(lote.size());
+        long ultimoTicket = 0;
+        for (Usuario usuario : lote) {
+            try {
+                if (usuario == null) {
+                    throw new IllegalArgumentException("Item vazio");
+                }
+                long ticket = inserir(usuario);
+                if (ticket < 0) {
+                    resultados.add(ResultadoLote.conflito("Usuário já existe"));
+                } else {
+                    ultimoTicket = Math.max(ultimoTicket, ticket);
+                    resultados.add(ResultadoLote.sucesso(usuario.getEmail()));
+                }
+            } catch (IllegalArgumentException e) {
+                resultados.add(ResultadoLote.invalido(e.getMessage()));
+            }
+        }
+        aguardarLog(ultimoTicket);
+        return resultados;
+    }
+
+    // Valida e grava o usuário sem esperar o log; devolve o ticket do log (0 sem persistência)
+    // ou -1 se o email já estiver em uso
+    private long inserir(Usuario novoUsuario) {
+        if (novoUsuario.getEmail() == null || novoUsuario.getEmail().trim().isEmpty()) {
+            throw new IllegalArgumentException("Email é obrigatório");
+        }
+        novoUsuario.setEmail(normalizarEmail(novoUsuario.getEmail()));
+        Escrita escrita = gravar(novoUsuario.getEmail(), atual -> atual == null ? novoUsuario : atual);
+        return escrita.nova() == novoUsuario ? escrita.ticket() : -1;
+    }
+
     // Buscar usuário por email (R - Read)
     public Usuario buscarUsuarioPorEmail(String email) {
-        return usuarios.get(email);
+        return usuarios.obter(normalizarEmail(email));
     }
 
     // Listar todos os usuários (R - Read)
     public List<Usuario> listarUsuarios() {
-        return new ArrayList<>(usuarios.values());
+        List<Usuario> lista = new ArrayList<>(usuarios.tamanho());
+        usuarios.percorrer(null).forEachRemaining(lista::add);
+        return lista;
+    }
+
+    // Muda a cada criação, atualização ou exclusão; nunca volta atrás, nem em resetState
+    public long getVersaoColecao() {
+        return versaoColecao.get();
+    }
+
+    public FeedAlteracoes<Usuario> getFeed() {
+        return feed;
+    }
+
+    public CacheJson<String> getCacheJson() {
+        return cacheJson;
+    }
+
+    public int contarUsuarios() {
+        return usuarios.tamanho();
+    }
+
+    // Percorre os usuários em ordem de email sem copiá-los; depoisDe é o cursor da paginação (null = do início)
+    public Iterator<Usuario> percorrerUsuarios(String depoisDe) {
+        return usuarios.percorrer(depoisDe != null ? normalizarEmail(depoisDe) : null);
+    }
+
+    // Tempo constante: só lê os contadores mantidos a cada escrita, sem percorrer os usuários nem travar
+    public EstatisticasUsuarios calcularEstatisticas() {
+        Map<String, Long> faixas = new LinkedHashMap<>();
+        for (int i = 0; i < contagemFaixas.length; i++) {
+            faixas.put(nomeFaixa(i), Math.max(0, contagemFaixas[i].sum()));
+        }
+        long total = Math.max(0, contagemTotal.sum());
+        return new EstatisticasUsuarios(total, total == 0 ? 0 : (double) somaIdades.sum() / total, faixas);
+    }
+
+    // Filtra por domínio e/ou prefixo do email (sem diferenciar maiúsculas), em ordem de email. O domínio usa o
+    // índice de domínios e o prefixo sozinho usa a própria ordem dos emails: o custo é proporcional ao resultado.
+    public Iterator<Usuario> filtrarUsuarios(String dominio, String emailPrefix) {
+        String prefixo = emailPrefix != null ? normalizarEmail(emailPrefix) : "";
+        if (dominio != null) {
+            String alvo = normalizarEmail(dominio.startsWith("@") ? dominio.substring(1) : dominio);
+            Iterator<ChaveDominio> chaves = Iteradores.enquanto(
+                    indiceDominios.tailSet(new ChaveDominio(alvo, prefixo)).iterator(),
+                    chave -> chave.dominio().equals(alvo) && chave.email().startsWith(prefixo));
+            // O domínio faz parte da chave, então basta o usuário ainda existir
+            return Iteradores.valoresPorChave(chaves, chave -> usuarios.obter(chave.email()));
+        }
+        return Iteradores.enquanto(usuarios.percorrer(prefixo, true), usuario -> usuario.getEmail().startsWith(prefixo));
     }
 
     // Atualizar usuário (U - Update)
     public Usuario atualizarUsuario(String email, Usuario usuarioAtualizado) {
+        return atualizarUsuario(email, usuarioAtualizado, 0);
+    }
+
+    // versaoEsperada vem do If-Match: 0 aceita qualquer versão; outro valor exige que o usuário ainda esteja nela
+    public Usuario atualizarUsuario(String email, Usuario usuarioAtualizado, long versaoEsperada) {
         // Validação: email não pode ser nulo ou vazio
         if (usuarioAtualizado.getEmail() == null || usuarioAtualizado.getEmail().trim().isEmpty()) {
             throw new IllegalArgumentException("Email é obrigatório");
         }
-        // Validação: verifica se o email no path corresponde ao email no corpo
-        if (!email.equals(usuarioAtualizado.getEmail())) {
-             // Caso os emails sejam diferentes, verifica se o novo email já existe para outro usuário.
-            if (usuarios.containsKey(usuarioAtualizado.getEmail()) && !usuarios.get(usuarioAtualizado.getEmail()).getEmail().equals(email)) {
-                throw new IllegalArgumentException("Novo email já está em uso por outro usuário.");
+        email = normalizarEmail(email);
+        usuarioAtualizado.setEmail(normalizarEmail(usuarioAtualizado.getEmail()));
+        // Se o email não mudou, apenas substitui o usuário existente, conferindo a versão dentro da gravação atômica
+        if (email.equals(usuarioAtualizado.getEmail())) {
+            Escrita escrita = gravar(email, atual -> {
+                if (atual == null) {
+                    return null;
+                }
+                conferirVersao(atual, versaoEsperada);
+                return usuarioAtualizado;
+            });
+            if (escrita.nova() == null) {
+                return null; // Usuário não encontrado para atualização
             }
-             // Remove o usuário com o email antigo e adiciona com o novo email
-            usuarios.remove(email);
-            usuarios.put(usuarioAtualizado.getEmail(), usuarioAtualizado);
+            aguardarLog(escrita.ticket());
             return usuarioAtualizado;
         }
 
-        // Se o email não mudou, apenas atualiza o objeto existente
-        if (usuarios.containsKey(email)) {
-            usuarios.put(email, usuarioAtualizado); // Sobrescreve o usuário existente
-            return usuarioAtualizado;
+        // Troca de email: uma escrita só, com um registro no log e um evento no feed (veja renomear). Nada é gravado
+        // antes de a versão e o email novo serem conferidos, então uma troca recusada não deixa rastro no log nem
+        // nos feeds
+        Escrita escrita = renomear(email, usuarioAtualizado, (atual, ocupante) -> {
+            if (atual == null) {
+                return false;
+            }
+            conferirVersao(atual, versaoEsperada);
+            if (ocupante != null) {
+                throw new IllegalArgumentException("Novo email já está em uso por outro usuário.");
+            }
+            return true;
+        }, 0);
+        if (escrita.nova() == null) {
+            return null; // Usuário não encontrado para atualização
         }
-        return null; // Usuário não encontrado para atualização
+        aguardarLog(escrita.ticket());
+        return usuarioAtualizado;
+    }
+
+    // Atualização parcial (PATCH): aplica os campos presentes sobre a versão atual, dentro da gravação atômica,
+    // então edições concorrentes de campos diferentes no mesmo usuário não se perdem
+    public Usuario alterarUsuario(String email, AlteracaoUsuario alteracao, long versaoEsperada) {
+        alteracao.validar(email);
+        Escrita escrita = gravar(normalizarEmail(email), atual -> {
+            if (atual == null) {
+                return null;
+            }
+            conferirVersao(atual, versaoEsperada);
+            return alteracao.isVazia() ? atual : alteracao.aplicar(atual);
+        });
+        aguardarLog(escrita.ticket());
+        return escrita.nova();
     }
 
     // Deletar usuário (D - Delete) 
     public boolean deletarUsuario(String email) {
+        return deletarUsuario(email, 0);
+    }
+
+    public boolean deletarUsuario(String email, long versaoEsperada) {
         // Retorna true se o usuário foi removido, false caso contrário (não encontrado)
-        return usuarios.remove(email) != null;
+        Escrita escrita = gravar(normalizarEmail(email), atual -> {
+            if (atual != null) {
+                conferirVersao(atual, versaoEsperada);
+            }
+            return null;
+        });
+        aguardarLog(escrita.ticket());
+        return escrita.anterior() != null;
+    }
+
+    private static void conferirVersao(Usuario atual, long versaoEsperada) {
+        if (versaoEsperada != 0 && atual.getVersao() != versaoEsperada) {
+            throw new VersaoDivergenteException(atual.getVersao());
+        }
+    }
+
+    // Única porta de escrita no armazém. 'alteracao' recebe o usuário atual (null se não existe) e devolve o que fica
+    // no lugar: o mesmo para não mudar nada, null para remover. Versão, cache e anexação ao log rodam dentro da
+    // gravação atômica do armazém, então escritas concorrentes no mesmo email chegam ao log na ordem em que foram
+    // aplicadas. Uma exceção lançada por 'alteracao' ou pela anexação ao log deixa tudo como estava.
+    private static Escrita gravar(String email, UnaryOperator<Usuario> alteracao) {
+        return gravar(email, alteracao, 0);
+    }
+
+    // versaoReplicada: versão vinda do líder, que o usuário mantém (0 = tira uma nova do relógio)
+    private static Escrita gravar(String email, UnaryOperator<Usuario> alteracao, long versaoReplicada) {
+        Escrita escrita;
+        while ((escrita = tentarGravar(email, alteracao, versaoReplicada)) == null) {
+            // O email está numa troca em andamento: 'alteracao' é aplicada sobre o que a troca deixar
+            while (emTroca.contains(email)) {
+                LockSupport.parkNanos(ESPERA_TROCA_NANOS);
+            }
+        }
+        return escrita;
+    }
+
+    // Uma tentativa de gravar; null, sem ter mudado nada, se o email estiver reservado por uma troca
+    private static Escrita tentarGravar(String email, UnaryOperator<Usuario> alteracao, long versaoReplicada) {
+        Escrita[] resultado = new Escrita[1];
+        WriteAheadLog registro = log;
+        // A compactação do log espera esta escrita chegar ao armazém (veja WriteAheadLog.iniciarEscrita)
+        long marca = registro != null ? registro.iniciarEscrita() : 0;
+        try {
+            usuarios.gravar(email, atual -> {
+                if (emTroca.contains(email)) {
+                    return atual;
+                }
+                Usuario novo = alteracao.apply(atual);
+                if (novo == atual) {
+                    resultado[0] = new Escrita(atual, atual, 0);
+                    return atual;
+                }
+                if (versaoReplicada != 0) {
+                    // O relógio acompanha o líder, para que as versões continuem crescendo se este nó passar
+                    // a liderar
+                    relogioVersoes.accumulateAndGet(versaoReplicada, Math::max);
+                }
+                if (novo != null) {
+                    novo.setVersao(versaoReplicada != 0 ? versaoReplicada : relogioVersoes.incrementAndGet());
+                }
+                // O log vem antes dos índices: se a anexação falhar (log com erro ou já fechado), a exceção aborta
+                // a gravação sem ter mexido em índices, contagens, cache nem feed
+                long ticket = novo != null ? registrarGravacao(novo) : registrarRemocao(email);
+                atualizarDerivados(email, atual, novo);
+                resultado[0] = new Escrita(atual, novo, ticket);
+                feed.publicar(TipoAlteracao.de(atual, novo), email, (novo != null ? novo : atual).getVersao(), novo);
+                return novo;
+            });
+        } finally {
+            if (registro != null) {
+                registro.concluirEscrita(marca);
+            }
+        }
+        if (resultado[0] == null) {
+            return null;
+        }
+        if (resultado[0].anterior() != resultado[0].nova()) {
+            // Só depois da gravação a escrita está visível; antes disso a versão da coleção ficaria adiantada
+            versaoColecao.incrementAndGet();
+        }
+        return resultado[0];
+    }
+
+    // Troca de email: tira o usuário de 'anterior' e o grava em novo.getEmail(), com um único registro RENOMEAR no
+    // log e um único evento RENOMEACAO no feed, então a reprodução do log e os seguidores aplicam a troca inteira ou
+    // nada dela. 'conferencia' recebe o usuário atual e o que ocupa o email novo (null = ausente) e diz se a troca
+    // segue; uma exceção lançada por ela ou pela anexação ao log deixa tudo como estava.
+    // Os dois emails ficam reservados em emTroca do começo ao fim: as escritas comuns neles esperam (veja gravar)
+    // e as dos outros emails seguem sem trava alguma
+    private static Escrita renomear(String anterior, Usuario novo, BiPredicate<Usuario, Usuario> conferencia,
+                                    long versaoReplicada) {
+        String destino = novo.getEmail();
+        reservarTroca(anterior, destino);
+        Escrita escrita;
+        WriteAheadLog registro = log;
+        long marca = registro != null ? registro.iniciarEscrita() : 0;
+        try {
+            // Gravar o mesmo valor não muda nada, mas espera a escrita que já estava em andamento em cada email
+            // terminar; depois da reserva nenhuma outra entra, então os dois lidos aqui não mudam até o fim
+            Usuario atual = usuarios.gravar(anterior, valor -> valor);
+            Usuario ocupante = usuarios.gravar(destino, valor -> valor);
+            if (!conferencia.test(atual, ocupante)) {
+                return new Escrita(atual, atual, 0);
+            }
+            if (versaoReplicada != 0) {
+                relogioVersoes.accumulateAndGet(versaoReplicada, Math::max);
+            }
+            novo.setVersao(versaoReplicada != 0 ? versaoReplicada : relogioVersoes.incrementAndGet());
+            // O log vem antes de tudo, como nas outras escritas
+            long ticket = registrarRenomeacao(anterior, novo);
+            // O antigo sai antes de o novo entrar: quem lê sem trava pode não achar nenhum dos dois por um instante,
+            // mas nunca acha os dois
+            usuarios.gravar(anterior, valor -> null);
+            usuarios.gravar(destino, valor -> novo);
+            atualizarDerivados(anterior, atual, null);
+            atualizarDerivados(destino, ocupante, novo);
+            feed.publicar(TipoAlteracao.RENOMEACAO, anterior, novo.getVersao(), novo);
+            escrita = new Escrita(atual, novo, ticket);
+        } finally {
+            if (registro != null) {
+                registro.concluirEscrita(marca);
+            }
+            emTroca.remove(anterior);
+            emTroca.remove(destino);
+        }
+        versaoColecao.incrementAndGet();
+        return escrita;
+    }
+
+    // Reserva os dois emails, sempre em ordem, para duas trocas cruzadas não se esperarem para sempre
+    private static void reservarTroca(String anterior, String destino) {
+        boolean anteriorPrimeiro = anterior.compareTo(destino) < 0;
+        for (String email : anteriorPrimeiro ? List.of(anterior, destino) : List.of(destino, anterior)) {
+            while (!emTroca.add(email)) {
+                LockSupport.parkNanos(ESPERA_TROCA_NANOS);
+            }
+        }
+    }
+
+    // Índice de domínios, contagens e cache depois de 'email' passar de 'atual' para 'novo' (null = ausente)
+    private static void atualizarDerivados(String email, Usuario atual, Usuario novo) {
+        if (atual == null && novo != null) {
+            indiceDominios.add(new ChaveDominio(dominio(email), email));
+        } else if (atual != null && novo == null) {
+            indiceDominios.remove(new ChaveDominio(dominio(email), email));
+        }
+        contar(atual, -1);
+        contar(novo, 1);
+        cacheJson.invalidar(email);
+    }
+
+    private static void contar(Usuario usuario, int sinal) {
+        if (usuario != null) {
+            contagemTotal.add(sinal);
+            somaIdades.add((long) sinal * usuario.getIdade());
+            contagemFaixas[faixa(usuario.getIdade())].add(sinal);
+        }
+    }
+
+    private static int faixa(int idade) {
+        int faixa = 0;
+        while (faixa < INICIO_FAIXAS.length && idade >= INICIO_FAIXAS[faixa]) {
+            faixa++;
+        }
+        return faixa;
+    }
+
+    private static String nomeFaixa(int faixa) {
+        if (faixa == INICIO_FAIXAS.length) {
+            return INICIO_FAIXAS[faixa - 1] + "+";
+        }
+        return (faixa == 0 ? 0 : INICIO_FAIXAS[faixa - 1]) + "-" + (INICIO_FAIXAS[faixa] - 1);
+    }
+
+    private static LongAdder[] criarContadores(int quantidade) {
+        LongAdder[] contadores = new LongAdder[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            contadores[i] = new LongAdder();
+        }
+        return contadores;
+    }
+
+    static String normalizarEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Parte depois do último @ ("" se não houver)
+    private static String dominio(String email) {
+        int arroba = email.lastIndexOf('@');
+        return arroba < 0 ? "" : email.substring(arroba + 1);
+    }
+
+    // Aplica uma escrita vinda do líder, como TarefaService.aplicarReplicada. O email já vem normalizado
+    // pelo líder. novo == null remove; um usuário com outro email é uma troca de email (evento RENOMEACAO, cuja
+    // chave é o email antigo), aplicada como no líder, sem conferir nada
+    public void aplicarReplicada(String email, long versao, Usuario novo) {
+        if (novo != null && !novo.getEmail().equals(email)) {
+            renomear(email, novo, (atual, ocupante) -> true, versao);
+        } else {
+            gravar(email, atual -> novo, versao);
+        }
+    }
+
+    // Liga a persistência em disco: reproduz o que já foi gravado e passa a registrar cada escrita
+    public void ativarPersistencia(Path diretorio, OpcoesLog opcoes) throws IOException {
+        log = WriteAheadLog.abrir(diretorio, "usuarios", opcoes,
+                () -> Iteradores.valoresPorChave(usuarios.percorrer(null), CodecBinario::codificarUsuario),
+                // Durante a reprodução o log ainda não está ligado, então gravar não anexa nada de novo.
+                // Logs gravados antes dos emails canônicos são normalizados aqui
+                (operacao, payload) -> {
+                    if (operacao == WriteAheadLog.GRAVAR) {
+                        Usuario usuario = CodecBinario.decodificarUsuario(payload);
+                        usuario.setEmail(normalizarEmail(usuario.getEmail()));
+                        gravar(usuario.getEmail(), atual -> usuario);
+                    } else if (operacao == WriteAheadLog.RENOMEAR) {
+                        String anterior = CodecBinario.decodificarTexto(payload);
+                        renomear(anterior, CodecBinario.decodificarUsuario(payload), (atual, ocupante) -> true, 0);
+                    } else {
+                        gravar(normalizarEmail(CodecBinario.decodificarTexto(payload)), atual -> null);
+                    }
+                });
+    }
+
+    // Log em uso (null sem persistência); os testes o fecham por baixo do serviço para simular uma falha
+    WriteAheadLog getLog() {
+        return log;
+    }
+
+    // Descarrega e fecha o log (chamado no desligamento da aplicação)
+    public void encerrarPersistencia() throws IOException {
+        WriteAheadLog atual = log;
+        log = null;
+        if (atual != null) {
+            atual.close();
+        }
+    }
+
+    // Anexa a escrita ao log sem esperar; o ticket devolvido vai para aguardarLog (0 sem persistência)
+    private static long registrarGravacao(Usuario usuario) {
+        WriteAheadLog atual = log;
+        return atual != null ? atual.anexarSemEsperar(WriteAheadLog.GRAVAR, CodecBinario.codificarUsuario(usuario)) : 0;
+    }
+
+    private static long registrarRemocao(String email) {
+        WriteAheadLog atual = log;
+        return atual != null ? atual.anexarSemEsperar(WriteAheadLog.REMOVER, CodecBinario.codificarTexto(email)) : 0;
+    }
+
+    private static long registrarRenomeacao(String anterior, Usuario usuario) {
+        WriteAheadLog atual = log;
+        return atual != null
+                ? atual.anexarSemEsperar(WriteAheadLog.RENOMEAR, CodecBinario.codificarRenomeacao(anterior, usuario))
+                : 0;
+    }
+
+    // Espera o log confirmar a escrita, conforme o modo de durabilidade
+    private void aguardarLog(long ticket) {
+        WriteAheadLog atual = log;
+        if (atual != null && ticket > 0) {
+            atual.aguardar(ticket);
+        }
     }
 
     // Resetar estado (para testes)
     public void resetState() {
-        usuarios.clear();
+        usuarios.limpar();
+        indiceDominios.clear();
+        contagemTotal.reset();
+        somaIdades.reset();
+        for (LongAdder contador : contagemFaixas) {
+            contador.reset();
+        }
+        cacheJson.limpar();
+        versaoColecao.incrementAndGet();
     }
 }
\ No newline at end of file
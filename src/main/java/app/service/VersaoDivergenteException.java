@@ -0,0 +1,17 @@
+package app.service;
+
+// Lançada quando uma escrita condicional (If-Match) encontra a entidade numa versão diferente da esperada
+public class VersaoDivergenteException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long versaoAtual;
+
+    public VersaoDivergenteException(long versaoAtual) {
+        super("A versão atual é " + versaoAtual);
+        this.versaoAtual = versaoAtual;
+    }
+
+    public long getVersaoAtual() {
+        return versaoAtual;
+    }
+}
@@ -1,7 +1,17 @@
 package app;
 
+import app.admissao.OpcoesAdmissao;
+import app.client.GeradorCarga;
+import app.client.OpcoesCarga;
+import app.client.ResultadoCarga;
+import app.config.ModoExecucao;
+import app.config.OpcoesServidor;
+import app.replicacao.OpcoesReplicacao;
+import app.replicacao.PapelReplicacao;
 import io.javalin.Javalin;
 import io.javalin.testtools.HttpClient; 
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
 import okhttp3.Response;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,7 +24,23 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import okhttp3.RequestBody;
 import okhttp3.MediaType;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
 
 public class AppTest {
 
@@ -27,7 +53,7 @@ public class AppTest {
         App.resetState(); 
         app = App.createApp(); 
         app.start(0); 
-        client = new HttpClient(app); 
+        client = new HttpClient(app, new OkHttpClient()); 
     }
 
     @AfterEach
@@ -44,6 +70,20 @@ public class AppTest {
         return RequestBody.create(json, MediaType.parse("application/json; charset=utf-8"));
     }
 
+    // O HttpClient do javalin-testtools serializa com o JsonMapper da app qualquer corpo passado a post/put/patch
+    // (até uma String ou um RequestBody); estes enviam o corpo como está
+    private static Response post(HttpClient cliente, String caminho, RequestBody corpo) {
+        return cliente.request(caminho, req -> req.post(corpo));
+    }
+
+    private static Response put(HttpClient cliente, String caminho, RequestBody corpo) {
+        return cliente.request(caminho, req -> req.put(corpo));
+    }
+
+    private static Response patch(HttpClient cliente, String caminho, RequestBody corpo) {
+        return cliente.request(caminho, req -> req.patch(corpo));
+    }
+
     // --- Testes de Endpoints Básicos ---
 
     @Test
@@ -66,10 +106,73 @@ public class AppTest {
         assertNotNull(actualJson.get("timestamp").asText());
     }
 
+    @Test
+    public void testServidorEmThreadsVirtuais() throws IOException {
+        OpcoesServidor opcoes = new OpcoesServidor(ModoExecucao.VIRTUAL, 8, 250, 60_000, 1, 1);
+        Javalin appVirtual = App.createApp(opcoes).start(0);
+        try {
+            HttpClient clienteVirtual = new HttpClient(appVirtual, new OkHttpClient());
+            Response response = post(clienteVirtual, "/tarefas", createJsonRequestBody("{\"titulo\": \"Em thread virtual\"}"));
+            assertEquals(201, response.code());
+            assertEquals(200, clienteVirtual.get("/tarefas/1").code());
+        } finally {
+            appVirtual.stop();
+        }
+    }
+
+    @Test
+    public void testControleDeAdmissaoPorCliente() throws IOException {
+        // 3 tokens por cliente, repostos a 1 por segundo; um lote gasta os 3
+        OpcoesAdmissao admissao = new OpcoesAdmissao(true, 1, 3, 3, 16, 16, 16, 2.0, 5, 0.5, 100, 1000);
+        Javalin appLimitado = App.createApp(OpcoesServidor.daConfiguracao(), admissao).start(0);
+        try {
+            HttpClient clienteLimitado = new HttpClient(appLimitado, new OkHttpClient());
+            Response lote = post(clienteLimitado, "/tarefas/batch", createJsonRequestBody("[{\"titulo\": \"Lote\"}]"));
+            assertEquals(200, lote.code());
+
+            Response recusada = clienteLimitado.get("/tarefas");
+            assertEquals(429, recusada.code());
+            assertEquals("1", recusada.header("Retry-After"));
+            // As rotas essenciais não gastam tokens
+            assertEquals(200, clienteLimitado.get("/status").code());
+            assertTrue(clienteLimitado.get("/metrics").body().string().contains("admissao_recusadas_total{motivo=\"taxa\"} 1"));
+        } finally {
+            appLimitado.stop();
+        }
+    }
+
+    @Test
+    public void testGeradorCargaContraApi() throws Exception {
+        OpcoesCarga opcoes = OpcoesCarga.deArgumentos("--url=http://localhost:" + app.port(), "--modo=aberto",
+                "--taxa=200", "--conexoes=8", "--duracao=1", "--aquecimento=0", "--dados=50");
+        ResultadoCarga resultado = new GeradorCarga(opcoes).executar();
+        assertTrue(resultado.getRequisicoes() > 100, "requisições: " + resultado.getRequisicoes());
+        assertEquals(0, resultado.getErros());
+    }
+
+    @Test
+    public void testMetricasPorRota() throws Exception {
+        post(client, "/tarefas", createJsonRequestBody("{\"titulo\": \"Medida\"}"));
+        client.get("/tarefas/1");
+        client.get("/tarefas/999");
+
+        // A requisição é registrada logo depois da resposta, então a métrica pode demorar um instante
+        String metricas = "";
+        for (int tentativa = 0; tentativa < 50 && !metricas.contains("status=\"404\""); tentativa++) {
+            Thread.sleep(10);
+            metricas = client.get("/metrics").body().string();
+        }
+        assertTrue(metricas.contains("# TYPE http_server_requests_seconds summary"));
+        assertTrue(metricas.contains("http_server_requests_seconds{method=\"GET\",route=\"/tarefas/{id}\",status=\"200\",quantile=\"0.99\"}"));
+        assertTrue(metricas.contains("http_server_requests_seconds_count{method=\"GET\",route=\"/tarefas/{id}\",status=\"404\"}"));
+        assertTrue(metricas.contains("http_server_request_bytes_total{method=\"POST\",route=\"/tarefas\",status=\"201\"}"));
+        assertTrue(metricas.contains("http_server_requests_in_flight "));
+    }
+
     @Test
     public void testEchoEndpoint() throws IOException {
         String jsonInput = "{\"message\": \"olá\", \"value\": 123}";
-        Response postResponse = client.post("/echo", createJsonRequestBody(jsonInput));
+        Response postResponse = post(client, "/echo", createJsonRequestBody(jsonInput));
 
         assertEquals(200, postResponse.code());
         JsonNode actualJson = objectMapper.readTree(postResponse.body().string());
@@ -89,7 +192,7 @@ public class AppTest {
     @Test
     public void testCriarListarUsuario() throws IOException {
         String userJson = "{\"nome\": \"Teste\", \"email\": \"teste@example.com\", \"idade\": 30}";
-        Response postResponse = client.post("/usuarios", createJsonRequestBody(userJson));
+        Response postResponse = post(client, "/usuarios", createJsonRequestBody(userJson));
         assertEquals(201, postResponse.code()); 
 
         JsonNode actualJson = objectMapper.readTree(postResponse.body().string());
@@ -118,7 +221,7 @@ public class AppTest {
     @Test
     public void testBuscarUsuarioPorEmail() throws IOException {
         String userJson = "{\"nome\": \"Busca\", \"email\": \"busca@example.com\", \"idade\": 25}";
-        client.post("/usuarios", createJsonRequestBody(userJson));
+        post(client, "/usuarios", createJsonRequestBody(userJson));
 
         Response getResponse = client.get("/usuarios/busca@example.com");
         assertEquals(200, getResponse.code());
@@ -133,14 +236,86 @@ public class AppTest {
         assertEquals("Usuário não encontrado", notFoundResponse.body().string());
     }
 
+    @Test
+    public void testListarUsuariosPaginado() throws IOException {
+        for (String nome : new String[]{"carla", "ana", "bruno"}) {
+            String userJson = "{\"nome\": \"" + nome + "\", \"email\": \"" + nome + "@example.com\", \"idade\": 20}";
+            assertEquals(201, post(client, "/usuarios", createJsonRequestBody(userJson)).code());
+        }
+
+        JsonNode pagina = objectMapper.readTree(client.get("/usuarios?limit=2").body().string());
+        assertEquals("ana@example.com", pagina.get("itens").get(0).get("email").asText());
+        assertEquals("bruno@example.com", pagina.get("itens").get(1).get("email").asText());
+        assertEquals("bruno@example.com", pagina.get("proximoCursor").asText());
+
+        JsonNode ultimaPagina = objectMapper.readTree(client.get("/usuarios?after=bruno@example.com").body().string());
+        assertEquals(1, ultimaPagina.get("itens").size());
+        assertEquals("carla@example.com", ultimaPagina.get("itens").get(0).get("email").asText());
+        assertTrue(ultimaPagina.get("proximoCursor").isNull());
+    }
+
+    @Test
+    public void testEmailsSemDiferenciarMaiusculasEFiltros() throws IOException {
+        String userJson = "{\"nome\": \"Maria\", \"email\": \" Maria@Email.com \", \"idade\": 30}";
+        Response postResponse = post(client, "/usuarios", createJsonRequestBody(userJson));
+        assertEquals(201, postResponse.code());
+        assertEquals("maria@email.com", objectMapper.readTree(postResponse.body().string()).get("email").asText());
+        String duplicado = "{\"nome\": \"Outra\", \"email\": \"maria@email.com\", \"idade\": 40}";
+        assertEquals(409, post(client, "/usuarios", createJsonRequestBody(duplicado)).code());
+        assertEquals(200, client.get("/usuarios/MARIA@email.com").code());
+
+        for (String email : new String[]{"joao@email.com", "ana@outro.com", "mariana@outro.com"}) {
+            String json = "{\"nome\": \"X\", \"email\": \"" + email + "\", \"idade\": 20}";
+            assertEquals(201, post(client, "/usuarios", createJsonRequestBody(json)).code());
+        }
+
+        JsonNode doDominio = objectMapper.readTree(client.get("/usuarios?dominio=Email.com").body().string());
+        assertEquals(2, doDominio.size());
+        assertEquals("joao@email.com", doDominio.get(0).get("email").asText());
+        assertEquals("maria@email.com", doDominio.get(1).get("email").asText());
+
+        JsonNode porPrefixo = objectMapper.readTree(client.get("/usuarios?emailPrefix=Mari").body().string());
+        assertEquals(2, porPrefixo.size());
+        assertEquals("maria@email.com", porPrefixo.get(0).get("email").asText());
+        assertEquals("mariana@outro.com", porPrefixo.get(1).get("email").asText());
+
+        JsonNode ambos = objectMapper.readTree(client.get("/usuarios?dominio=outro.com&emailPrefix=mari").body().string());
+        assertEquals(1, ambos.size());
+        assertEquals("mariana@outro.com", ambos.get(0).get("email").asText());
+
+        // Trocar o email pelo PUT tira o usuário do domínio antigo
+        String novoEmail = "{\"nome\": \"Maria\", \"email\": \"maria@outro.com\", \"idade\": 30}";
+        assertEquals(200, put(client, "/usuarios/Maria@Email.com", createJsonRequestBody(novoEmail)).code());
+        assertEquals(1, objectMapper.readTree(client.get("/usuarios?dominio=email.com").body().string()).size());
+        assertEquals(3, objectMapper.readTree(client.get("/usuarios?dominio=outro.com").body().string()).size());
+        assertEquals(204, client.delete("/usuarios/JOAO@EMAIL.COM").code());
+        assertEquals(0, objectMapper.readTree(client.get("/usuarios?dominio=email.com").body().string()).size());
+    }
+
+    @Test
+    public void testCriarUsuariosEmLote() throws IOException {
+        post(client, "/usuarios", createJsonRequestBody("{\"nome\": \"Ana\", \"email\": \"ana@example.com\", \"idade\": 30}"));
+
+        String lote = "[{\"nome\": \"Bia\", \"email\": \"bia@example.com\", \"idade\": 20},"
+                + " {\"nome\": \"Ana\", \"email\": \"ana@example.com\", \"idade\": 30},"
+                + " {\"nome\": \"Sem email\", \"idade\": 40}]";
+        JsonNode resultados = objectMapper.readTree(post(client, "/usuarios/batch", createJsonRequestBody(lote)).body().string());
+        assertEquals(201, resultados.get(0).get("status").asInt());
+        assertEquals("bia@example.com", resultados.get(0).get("email").asText());
+        assertEquals(409, resultados.get(1).get("status").asInt());
+        assertEquals("Usuário já existe", resultados.get(1).get("erro").asText());
+        assertEquals(400, resultados.get(2).get("status").asInt());
+        assertEquals(200, client.get("/usuarios/bia@example.com").code());
+    }
+
     @Test // Teste para Atualizar Usuário (Adicionado)
     public void testAtualizarUsuario() throws IOException {
         String originalEmail = "original@example.com";
         String userJsonOriginal = "{\"nome\": \"Original\", \"email\": \"" + originalEmail + "\", \"idade\": 20}";
-        client.post("/usuarios", createJsonRequestBody(userJsonOriginal));
+        post(client, "/usuarios", createJsonRequestBody(userJsonOriginal));
 
         String updatedUserJson = "{\"nome\": \"Atualizado\", \"email\": \"novo.email@example.com\", \"idade\": 21}";
-        Response putResponse = client.put("/usuarios/" + originalEmail, createJsonRequestBody(updatedUserJson));
+        Response putResponse = put(client, "/usuarios/" + originalEmail, createJsonRequestBody(updatedUserJson));
         assertEquals(200, putResponse.code());
 
         JsonNode actualJson = objectMapper.readTree(putResponse.body().string());
@@ -157,7 +332,7 @@ public class AppTest {
     public void testAtualizarUsuarioNaoEncontrado() throws IOException {
         String nonExistentEmail = "naoexiste@example.com";
         String updatedUserJson = "{\"nome\": \"Atualizado\", \"email\": \"naoexiste@example.com\", \"idade\": 99}";
-        Response putResponse = client.put("/usuarios/" + nonExistentEmail, createJsonRequestBody(updatedUserJson));
+        Response putResponse = put(client, "/usuarios/" + nonExistentEmail, createJsonRequestBody(updatedUserJson));
         assertEquals(404, putResponse.code());
         assertEquals("Usuário não encontrado para atualização.", putResponse.body().string());
     }
@@ -166,7 +341,7 @@ public class AppTest {
     public void testDeletarUsuario() throws IOException {
         String emailParaDeletar = "deletar@example.com";
         String userJson = "{\"nome\": \"Para Deletar\", \"email\": \"" + emailParaDeletar + "\", \"idade\": 10}";
-        client.post("/usuarios", createJsonRequestBody(userJson)); // Cria o usuário
+        post(client, "/usuarios", createJsonRequestBody(userJson)); // Cria o usuário
 
         Response deleteResponse = client.delete("/usuarios/" + emailParaDeletar);
         assertEquals(204, deleteResponse.code()); // 204 No Content para sucesso de DELETE
@@ -190,7 +365,7 @@ public class AppTest {
     @Test
     public void testCriarListarTarefa() throws IOException {
         String tarefaJson = "{\"titulo\": \"Comprar pão\", \"descricao\": \"Pão francês\", \"concluida\": false}";
-        Response postResponse = client.post("/tarefas", createJsonRequestBody(tarefaJson));
+        Response postResponse = post(client, "/tarefas", createJsonRequestBody(tarefaJson));
         assertEquals(201, postResponse.code()); 
         
         ObjectNode jsonNode = (ObjectNode) objectMapper.readTree(postResponse.body().string());
@@ -222,7 +397,7 @@ public class AppTest {
     @Test
     public void testBuscarTarefaPorId() throws IOException {
         String tarefaJson = "{\"titulo\": \"Estudar Java\", \"descricao\": \"Fazer exercícios\", \"concluida\": false}";
-        Response postResponse = client.post("/tarefas", createJsonRequestBody(tarefaJson));
+        Response postResponse = post(client, "/tarefas", createJsonRequestBody(tarefaJson));
         assertEquals(201, postResponse.code());
 
         ObjectNode jsonNode = (ObjectNode) objectMapper.readTree(postResponse.body().string());
@@ -239,16 +414,579 @@ public class AppTest {
         assertTrue(actualResponseJson.has("id"), "A tarefa retornada deve ter um ID.");
     }
 
+    @Test
+    public void testListarTarefasPaginado() throws IOException {
+        for (int i = 1; i <= 3; i++) {
+            String tarefaJson = "{\"titulo\": \"Tarefa " + i + "\", \"descricao\": \"Desc\", \"concluida\": false}";
+            assertEquals(201, post(client, "/tarefas", createJsonRequestBody(tarefaJson)).code());
+        }
+
+        Response primeira = client.get("/tarefas?limit=2");
+        assertEquals(200, primeira.code());
+        JsonNode pagina = objectMapper.readTree(primeira.body().string());
+        assertEquals(2, pagina.get("itens").size());
+        int primeiroId = pagina.get("itens").get(0).get("id").asInt();
+        int segundoId = pagina.get("itens").get(1).get("id").asInt();
+        assertTrue(primeiroId < segundoId, "As tarefas devem vir em ordem crescente de ID.");
+        assertEquals(segundoId, pagina.get("proximoCursor").asInt());
+
+        Response segunda = client.get("/tarefas?limit=2&after=" + segundoId);
+        JsonNode ultimaPagina = objectMapper.readTree(segunda.body().string());
+        assertEquals(1, ultimaPagina.get("itens").size());
+        assertTrue(ultimaPagina.get("proximoCursor").isNull(), "A última página não deve ter cursor.");
+
+        assertEquals(400, client.get("/tarefas?limit=0").code());
+        assertEquals(400, client.get("/tarefas?after=abc").code());
+    }
+
+    @Test
+    public void testCacheDeJsonInvalidadoNaEscrita() throws IOException {
+        String tarefaJson = "{\"titulo\": \"Cache\", \"descricao\": \"Antes\", \"concluida\": false}";
+        int id = objectMapper.readTree(post(client, "/tarefas", createJsonRequestBody(tarefaJson)).body().string()).get("id").asInt();
+        for (int i = 0; i < 3; i++) {
+            assertEquals("Antes", objectMapper.readTree(client.get("/tarefas/" + id).body().string()).get("descricao").asText());
+        }
+
+        String atualizada = "{\"titulo\": \"Cache\", \"descricao\": \"Depois\", \"concluida\": true}";
+        assertEquals(200, put(client, "/tarefas/" + id, createJsonRequestBody(atualizada)).code());
+        assertEquals("Depois", objectMapper.readTree(client.get("/tarefas/" + id).body().string()).get("descricao").asText());
+        JsonNode lista = objectMapper.readTree(client.get("/tarefas").body().string());
+        assertEquals(1, lista.size());
+        assertEquals("Depois", lista.get(0).get("descricao").asText());
+        JsonNode pagina = objectMapper.readTree(client.get("/tarefas?limit=1").body().string());
+        assertEquals("Depois", pagina.get("itens").get(0).get("descricao").asText());
+        assertTrue(pagina.get("proximoCursor").isNull());
+
+        assertEquals(204, client.delete("/tarefas/" + id).code());
+        assertEquals("[]", client.get("/tarefas").body().string());
+
+        String metricas = client.get("/metrics").body().string();
+        assertTrue(metricas.contains("json_cache_hits_total{cache=\"tarefas\"}"), metricas);
+        assertTrue(metricas.contains("json_cache_entries{cache=\"tarefas\"} 0"), metricas);
+    }
+
+    @Test
+    public void testListagemComprimidaComGzip() throws IOException {
+        for (int i = 0; i < 50; i++) {
+            String tarefaJson = "{\"titulo\": \"Comprimida " + i + "\", \"descricao\": \"Texto repetido\", \"concluida\": false}";
+            assertEquals(201, post(client, "/tarefas", createJsonRequestBody(tarefaJson)).code());
+        }
+        Response identidade = client.get("/tarefas", req -> req.header("Accept-Encoding", "identity"));
+        String etagIdentidade = identidade.header("ETag");
+        String semCompressao = identidade.body().string();
+
+        String etagGzip = null;
+        for (int vez = 0; vez < 2; vez++) {
+            Response comprimida = client.get("/tarefas", req -> req.header("Accept-Encoding", "gzip"));
+            assertEquals(200, comprimida.code());
+            assertEquals("gzip", comprimida.header("Content-Encoding"));
+            assertEquals("Accept-Encoding", comprimida.header("Vary"));
+            byte[] corpo = comprimida.body().bytes();
+            assertTrue(corpo.length < semCompressao.length() / 2);
+            String descomprimido = new String(new GZIPInputStream(new ByteArrayInputStream(corpo)).readAllBytes(),
+                    StandardCharsets.UTF_8);
+            assertEquals(semCompressao, descomprimido);
+            // Outros bytes, outra tag forte: a da versão sem compressão com o sufixo da codificação
+            etagGzip = comprimida.header("ETag");
+            assertEquals(etagIdentidade.substring(0, etagIdentidade.length() - 1) + "-gzip\"", etagGzip);
+        }
+        // Qualquer uma das duas tags revalida a listagem, com ou sem compressão
+        for (String etag : new String[]{etagIdentidade, etagGzip}) {
+            assertEquals(304, client.get("/tarefas", req -> req.header("Accept-Encoding", "gzip")
+                    .header("If-None-Match", etag)).code());
+            assertEquals(304, client.get("/tarefas", req -> req.header("Accept-Encoding", "identity")
+                    .header("If-None-Match", etag)).code());
+        }
+        // A segunda chamada veio do cache, sem comprimir de novo
+        String metricas = client.get("/metrics").body().string();
+        assertTrue(metricas.contains("json_cache_hits_total{cache=\"tarefas_listas\"} 1"), metricas);
+
+        // Abaixo do limiar a resposta vai sem compressão
+        Response pagina = client.get("/tarefas?limit=1", req -> req.header("Accept-Encoding", "gzip"));
+        assertNull(pagina.header("Content-Encoding"));
+        assertEquals(1, objectMapper.readTree(pagina.body().string()).get("itens").size());
+    }
+
+    @Test
+    public void testPatchAlteraSoOsCamposEnviados() throws IOException {
+        String tarefaJson = "{\"titulo\": \"Parcial\", \"descricao\": \"Fica\", \"concluida\": false}";
+        int id = objectMapper.readTree(post(client, "/tarefas", createJsonRequestBody(tarefaJson)).body().string()).get("id").asInt();
+
+        Response patch = patch(client, "/tarefas/" + id, createJsonRequestBody("{\"concluida\": true}"));
+        assertEquals(200, patch.code());
+        JsonNode tarefa = objectMapper.readTree(patch.body().string());
+        assertEquals("Parcial", tarefa.get("titulo").asText());
+        assertEquals("Fica", tarefa.get("descricao").asText());
+        assertTrue(tarefa.get("concluida").asBoolean());
+
+        assertEquals(400, patch(client, "/tarefas/" + id, createJsonRequestBody("{\"titulo\": \"\"}")).code());
+        assertEquals(404, patch(client, "/tarefas/999", createJsonRequestBody("{\"concluida\": true}")).code());
+
+        String usuarioJson = "{\"nome\": \"Pat\", \"email\": \"pat@example.com\", \"idade\": 30}";
+        assertEquals(201, post(client, "/usuarios", createJsonRequestBody(usuarioJson)).code());
+        Response patchUsuario = patch(client, "/usuarios/pat@example.com", createJsonRequestBody("{\"idade\": 31}"));
+        assertEquals(200, patchUsuario.code());
+        JsonNode usuario = objectMapper.readTree(patchUsuario.body().string());
+        assertEquals("Pat", usuario.get("nome").asText());
+        assertEquals(31, usuario.get("idade").asInt());
+        assertEquals(400, patch(client, "/usuarios/pat@example.com",
+                createJsonRequestBody("{\"email\": \"outro@example.com\"}")).code());
+    }
+
+    @Test
+    public void testIfMatchRecusaVersaoDesatualizada() throws IOException {
+        String tarefaJson = "{\"titulo\": \"Otimista\", \"descricao\": \"v1\", \"concluida\": false}";
+        Response criada = post(client, "/tarefas", createJsonRequestBody(tarefaJson));
+        int id = objectMapper.readTree(criada.body().string()).get("id").asInt();
+        String etagV1 = criada.header("ETag");
+        assertNotNull(etagV1);
+
+        String v2 = "{\"titulo\": \"Otimista\", \"descricao\": \"v2\", \"concluida\": false}";
+        Response atualizada = client.request("/tarefas/" + id,
+                req -> req.put(createJsonRequestBody(v2)).header("If-Match", etagV1));
+        assertEquals(200, atualizada.code());
+        String etagV2 = atualizada.header("ETag");
+        assertNotEquals(etagV1, etagV2);
+
+        // Quem ainda tem a v1 recebe 412 e a ETag atual, e nada é gravado
+        String atrasada = "{\"titulo\": \"Otimista\", \"descricao\": \"perdida\", \"concluida\": false}";
+        Response recusada = client.request("/tarefas/" + id,
+                req -> req.put(createJsonRequestBody(atrasada)).header("If-Match", etagV1));
+        assertEquals(412, recusada.code());
+        assertEquals(etagV2, recusada.header("ETag"));
+        assertEquals(412, client.request("/tarefas/" + id,
+                req -> req.patch(createJsonRequestBody("{\"concluida\": true}")).header("If-Match", etagV1)).code());
+        assertEquals(412, client.request("/tarefas/" + id, req -> req.delete().header("If-Match", etagV1)).code());
+        assertEquals("v2", objectMapper.readTree(client.get("/tarefas/" + id).body().string()).get("descricao").asText());
+
+        assertEquals(204, client.request("/tarefas/" + id, req -> req.delete().header("If-Match", etagV2)).code());
+    }
+
+    @Test
+    public void testAtualizacoesConcorrentesSemPerda() throws Exception {
+        String tarefaJson = "{\"titulo\": \"Contador\", \"descricao\": \"0\", \"concluida\": false}";
+        int id = objectMapper.readTree(post(client, "/tarefas", createJsonRequestBody(tarefaJson)).body().string()).get("id").asInt();
+
+        // Cada thread lê, incrementa e grava com If-Match; um 412 significa que outra chegou antes e ela tenta de novo
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Void>> tarefas = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            tarefas.add(executor.submit(() -> {
+                for (int i = 0; i < 10; i++) {
+                    while (true) {
+                        Response leitura = client.get("/tarefas/" + id);
+                        String etag = leitura.header("ETag");
+                        int valor = objectMapper.readTree(leitura.body().string()).get("descricao").asInt();
+                        String corpo = "{\"descricao\": \"" + (valor + 1) + "\"}";
+                        Response escrita = client.request("/tarefas/" + id,
+                                req -> req.patch(createJsonRequestBody(corpo)).header("If-Match", etag));
+                        if (escrita.code() == 200) {
+                            break;
+                        }
+                        assertEquals(412, escrita.code());
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<Void> tarefa : tarefas) {
+            tarefa.get();
+        }
+        executor.shutdown();
+        assertEquals(80, objectMapper.readTree(client.get("/tarefas/" + id).body().string()).get("descricao").asInt());
+    }
+
+    @Test
+    public void testGetCondicionalComEtag() throws IOException {
+        String tarefaJson = "{\"titulo\": \"Etag\", \"descricao\": \"Desc\", \"concluida\": false}";
+        int id = objectMapper.readTree(post(client, "/tarefas", createJsonRequestBody(tarefaJson)).body().string()).get("id").asInt();
+
+        Response primeira = client.get("/tarefas/" + id);
+        String etag = primeira.header("ETag");
+        assertNotNull(etag, "A leitura da tarefa deve trazer ETag.");
+        assertFalse(objectMapper.readTree(primeira.body().string()).has("versao"), "A versão não deve aparecer no JSON.");
+
+        Response naoModificada = client.get("/tarefas/" + id, req -> req.header("If-None-Match", etag));
+        assertEquals(304, naoModificada.code());
+        assertEquals("", naoModificada.body().string());
+        assertEquals(304, client.get("/tarefas/" + id, req -> req.header("If-None-Match", "\"outra\", W/" + etag)).code());
+
+        String etagLista = client.get("/tarefas").header("ETag");
+        String etagPagina = client.get("/tarefas?limit=1").header("ETag");
+        assertNotEquals(etagLista, etagPagina, "Parâmetros diferentes são representações diferentes.");
+        assertEquals(304, client.get("/tarefas", req -> req.header("If-None-Match", etagLista)).code());
+
+        // Qualquer escrita muda a versão da tarefa e a da coleção
+        String atualizada = "{\"titulo\": \"Etag 2\", \"descricao\": \"Desc\", \"concluida\": true}";
+        assertEquals(200, put(client, "/tarefas/" + id, createJsonRequestBody(atualizada)).code());
+        Response modificada = client.get("/tarefas/" + id, req -> req.header("If-None-Match", etag));
+        assertEquals(200, modificada.code());
+        assertNotEquals(etag, modificada.header("ETag"));
+        assertEquals(200, client.get("/tarefas", req -> req.header("If-None-Match", etagLista)).code());
+
+        String usuarioJson = "{\"nome\": \"Eta\", \"email\": \"eta@example.com\", \"idade\": 30}";
+        assertEquals(201, post(client, "/usuarios", createJsonRequestBody(usuarioJson)).code());
+        String etagUsuario = client.get("/usuarios/eta@example.com").header("ETag");
+        assertEquals(304, client.get("/usuarios/eta@example.com", req -> req.header("If-None-Match", etagUsuario)).code());
+        String etagUsuarios = client.get("/usuarios").header("ETag");
+        assertEquals(204, client.delete("/usuarios/eta@example.com").code());
+        assertEquals(200, client.get("/usuarios", req -> req.header("If-None-Match", etagUsuarios)).code());
+    }
+
+    @Test
+    public void testCriarTarefasConcorrentesSemIdsDuplicados() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String tarefaJson = "{\"titulo\": \"Concorrente " + i + "\", \"descricao\": \"Desc\", \"concluida\": false}";
+            ids.add(executor.submit(() -> {
+                Response response = post(client, "/tarefas", createJsonRequestBody(tarefaJson));
+                assertEquals(201, response.code());
+                return objectMapper.readTree(response.body().string()).get("id").asInt();
+            }));
+        }
+        Set<Integer> unicos = new HashSet<>();
+        for (Future<Integer> id : ids) {
+            assertTrue(unicos.add(id.get()), "IDs de tarefas não podem se repetir.");
+        }
+        executor.shutdown();
+
+        // Um ID informado pelo cliente avança a marca: o próximo ID gerado não pode colidir com ele
+        int idExplicito = 1_000_000;
+        String tarefaJson = "{\"id\": " + idExplicito + ", \"titulo\": \"Explícita\", \"descricao\": \"Desc\", \"concluida\": false}";
+        assertEquals(201, post(client, "/tarefas", createJsonRequestBody(tarefaJson)).code());
+        JsonNode todas = objectMapper.readTree(client.get("/tarefas").body().string());
+        assertEquals(201, todas.size());
+    }
+
+    @Test
+    public void testFiltrarTarefasPorConclusaoETitulo() throws IOException {
+        String[][] dados = {{"Comprar pão", "false"}, {"comprar leite", "true"}, {"Estudar Java", "false"}};
+        for (String[] d : dados) {
+            String tarefaJson = "{\"titulo\": \"" + d[0] + "\", \"descricao\": \"Desc\", \"concluida\": " + d[1] + "}";
+            assertEquals(201, post(client, "/tarefas", createJsonRequestBody(tarefaJson)).code());
+        }
+
+        JsonNode abertas = objectMapper.readTree(client.get("/tarefas?concluida=false").body().string());
+        assertEquals(2, abertas.size());
+
+        JsonNode comprar = objectMapper.readTree(client.get("/tarefas?tituloPrefix=Comp").body().string());
+        assertEquals(2, comprar.size(), "O prefixo não deve diferenciar maiúsculas de minúsculas.");
+
+        JsonNode comprarAbertas = objectMapper.readTree(client.get("/tarefas?tituloPrefix=comp&concluida=false").body().string());
+        assertEquals(1, comprarAbertas.size());
+        assertEquals("Comprar pão", comprarAbertas.get(0).get("titulo").asText());
+
+        // Os índices acompanham a atualização
+        int id = comprarAbertas.get(0).get("id").asInt();
+        String atualizada = "{\"titulo\": \"Pagar contas\", \"descricao\": \"Desc\", \"concluida\": true}";
+        assertEquals(200, put(client, "/tarefas/" + id, createJsonRequestBody(atualizada)).code());
+        assertEquals(1, objectMapper.readTree(client.get("/tarefas?tituloPrefix=comp").body().string()).size());
+        assertEquals(2, objectMapper.readTree(client.get("/tarefas?concluida=true").body().string()).size());
+
+        assertEquals(400, client.get("/tarefas?concluida=talvez").code());
+    }
+
+    @Test
+    public void testEstatisticasMantidasACadaEscrita() throws IOException {
+        post(client, "/tarefas", createJsonRequestBody("{\"titulo\": \"A\", \"concluida\": true}"));
+        String b = post(client, "/tarefas", createJsonRequestBody("{\"titulo\": \"B\", \"concluida\": false}")).body().string();
+        String c = post(client, "/tarefas", createJsonRequestBody("{\"titulo\": \"C\", \"concluida\": false}")).body().string();
+        // Os ids vêm das faixas de cada thread, então não dá para supor 1, 2, 3
+        int idB = objectMapper.readTree(b).get("id").asInt();
+        int idC = objectMapper.readTree(c).get("id").asInt();
+        assertEquals(200, client.request("/tarefas/" + idB, req -> req.patch(createJsonRequestBody("{\"concluida\": true}"))).code());
+        assertEquals(204, client.delete("/tarefas/" + idC).code());
+
+        Response resposta = client.get("/tarefas/stats");
+        JsonNode tarefas = objectMapper.readTree(resposta.body().string());
+        assertEquals(2, tarefas.get("total").asInt());
+        assertEquals(2, tarefas.get("concluidas").asInt());
+        assertEquals(0, tarefas.get("abertas").asInt());
+        assertEquals(1.0, tarefas.get("taxaConclusao").asDouble());
+        String etag = resposta.header("ETag");
+        assertEquals(304, client.request("/tarefas/stats", req -> req.get().header("If-None-Match", etag)).code());
+
+        post(client, "/usuarios", createJsonRequestBody("{\"nome\": \"A\", \"email\": \"a@example.com\", \"idade\": 17}"));
+        post(client, "/usuarios", createJsonRequestBody("{\"nome\": \"B\", \"email\": \"b@example.com\", \"idade\": 30}"));
+        post(client, "/usuarios", createJsonRequestBody("{\"nome\": \"C\", \"email\": \"c@example.com\", \"idade\": 70}"));
+        put(client, "/usuarios/a@example.com", createJsonRequestBody("{\"nome\": \"A\", \"email\": \"a@example.com\", \"idade\": 20}"));
+        client.delete("/usuarios/c@example.com");
+
+        JsonNode usuarios = objectMapper.readTree(client.get("/usuarios/stats").body().string());
+        assertEquals(2, usuarios.get("total").asInt());
+        assertEquals(25.0, usuarios.get("idadeMedia").asDouble());
+        JsonNode faixas = usuarios.get("faixasIdade");
+        assertEquals(0, faixas.get("0-17").asInt());
+        assertEquals(1, faixas.get("18-24").asInt());
+        assertEquals(1, faixas.get("25-34").asInt());
+        assertEquals(0, faixas.get("65+").asInt());
+    }
+
+    // Lê o stream SSE até o primeiro evento com o nome pedido e devolve {id, data}
+    private static String[] proximoEvento(BufferedReader leitor, String nome) throws IOException {
+        String evento = null;
+        String id = null;
+        for (String linha = leitor.readLine(); linha != null; linha = leitor.readLine()) {
+            if (linha.startsWith("event:")) {
+                evento = linha.substring(6).trim();
+            } else if (linha.startsWith("id:")) {
+                id = linha.substring(3).trim();
+            } else if (linha.startsWith("data:") && nome.equals(evento)) {
+                return new String[]{id, linha.substring(5).trim()};
+            } else if (linha.isEmpty()) {
+                evento = null;
+                id = null;
+            }
+        }
+        throw new IOException("Stream terminou antes do evento " + nome);
+    }
+
+    private HttpURLConnection assinar(String caminho, String ultimoId) throws IOException {
+        HttpURLConnection conexao = (HttpURLConnection) URI.create("http://localhost:" + app.port() + caminho).toURL().openConnection();
+        conexao.setRequestProperty("Accept", "text/event-stream");
+        if (ultimoId != null) {
+            conexao.setRequestProperty("Last-Event-ID", ultimoId);
+        }
+        conexao.setReadTimeout(5_000);
+        return conexao;
+    }
+
+    @Test
+    public void testSeguidorAtendeLeiturasERedirecionaEscritas() throws IOException {
+        assertEquals("INDEPENDENTE", objectMapper.readTree(client.get("/replicacao").body().string()).get("papel").asText());
+
+        // O líder não está no ar: o seguidor segue tentando conectar, mas já atende leituras e redireciona escritas
+        App.iniciarReplicacao(new OpcoesReplicacao(PapelReplicacao.SEGUIDOR, 0, "localhost:1", "http://lider:7000", 1000, 500));
+        try {
+            HttpURLConnection escrita = (HttpURLConnection) URI.create("http://localhost:" + app.port() + "/tarefas?origem=teste").toURL().openConnection();
+            escrita.setInstanceFollowRedirects(false);
+            escrita.setRequestMethod("POST");
+            escrita.setDoOutput(true);
+            escrita.getOutputStream().write("{\"titulo\": \"Para o líder\"}".getBytes(StandardCharsets.UTF_8));
+            assertEquals(307, escrita.getResponseCode());
+            assertEquals("http://lider:7000/tarefas?origem=teste", escrita.getHeaderField("Location"));
+            escrita.disconnect();
+
+            assertEquals(200, client.get("/tarefas").code());
+            assertEquals(404, client.get("/tarefas/1").code());
+            JsonNode status = objectMapper.readTree(client.get("/replicacao").body().string());
+            assertEquals("SEGUIDOR", status.get("papel").asText());
+            assertFalse(status.get("conectado").asBoolean());
+            assertTrue(client.get("/metrics").body().string().contains("replication_connected 0"));
+        } finally {
+            App.encerrarReplicacao();
+        }
+        assertEquals(201, post(client, "/tarefas", createJsonRequestBody("{\"titulo\": \"De volta\"}")).code());
+    }
+
+    private static int portaLivre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    // Espera até a resposta de GET url ter o status pedido, devolvendo-a
+    private static Response aguardarStatus(OkHttpClient http, String url, int status) throws Exception {
+        long limite = System.currentTimeMillis() + 15_000;
+        while (true) {
+            try {
+                Response resposta = http.newCall(new Request.Builder().url(url).build()).execute();
+                if (resposta.code() == status) {
+                    return resposta;
+                }
+                resposta.close();
+            } catch (IOException e) {
+                // ainda subindo
+            }
+            assertTrue(System.currentTimeMillis() < limite, "sem status " + status + " em " + url);
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    public void testIfMatchLidoNoSeguidorValeNoLider() throws Exception {
+        // O líder roda em outro processo: os serviços são estáticos, e este processo faz o papel do seguidor
+        int portaHttp = portaLivre();
+        int portaReplicacao = portaLivre();
+        String lider = "http://localhost:" + portaHttp;
+        Process processo = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), "-Dapp.servidor.porta=" + portaHttp,
+                "-Dapp.replicacao.papel=LIDER", "-Dapp.replicacao.porta=" + portaReplicacao, "app.App")
+                .redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        OkHttpClient http = new OkHttpClient.Builder().followRedirects(false).build();
+        try {
+            aguardarStatus(http, lider + "/status", 200).close();
+            Response criada = http.newCall(new Request.Builder().url(lider + "/tarefas")
+                    .post(createJsonRequestBody("{\"titulo\": \"Replicada\"}")).build()).execute();
+            assertEquals(201, criada.code());
+            int id = objectMapper.readTree(criada.body().string()).get("id").asInt();
+
+            App.iniciarReplicacao(new OpcoesReplicacao(PapelReplicacao.SEGUIDOR, 0, "localhost:" + portaReplicacao,
+                    lider, 1000, 100));
+            String seguidor = "http://localhost:" + app.port();
+            aguardarStatus(http, seguidor + "/tarefas/" + id, 200).close();
+            aguardarEpoca();
+
+            // A tag lida no seguidor é a mesma do líder: vale no If-None-Match de qualquer um dos dois
+            String etag = aguardarStatus(http, seguidor + "/tarefas/" + id, 200).header("ETag");
+            Response liderLido = aguardarStatus(http, lider + "/tarefas/" + id, 200);
+            assertEquals(etag, liderLido.header("ETag"));
+            liderLido.close();
+            assertEquals(304, http.newCall(new Request.Builder().url(lider + "/tarefas/" + id)
+                    .header("If-None-Match", etag).build()).execute().code());
+
+            // Escrita condicional no seguidor: 307 para o líder, que aceita o mesmo If-Match
+            RequestBody corpo = createJsonRequestBody("{\"titulo\": \"Alterada no líder\", \"concluida\": true}");
+            Response redirecionada = http.newCall(new Request.Builder().url(seguidor + "/tarefas/" + id)
+                    .put(corpo).header("If-Match", etag).build()).execute();
+            assertEquals(307, redirecionada.code());
+            String destino = redirecionada.header("Location");
+            redirecionada.close();
+            assertEquals(lider + "/tarefas/" + id, destino);
+            Response gravada = http.newCall(new Request.Builder().url(destino)
+                    .put(corpo).header("If-Match", etag).build()).execute();
+            assertEquals(200, gravada.code());
+            String novaEtag = gravada.header("ETag");
+            gravada.close();
+            assertNotEquals(etag, novaEtag);
+
+            // A tag antiga agora é recusada pelo líder, e a nova chega ao seguidor com a alteração
+            assertEquals(412, http.newCall(new Request.Builder().url(destino)
+                    .put(corpo).header("If-Match", etag).build()).execute().code());
+            long limite = System.currentTimeMillis() + 15_000;
+            while (!novaEtag.equals(client.get("/tarefas/" + id).header("ETag"))) {
+                assertTrue(System.currentTimeMillis() < limite, "alteração não chegou ao seguidor");
+                Thread.sleep(50);
+            }
+            assertTrue(client.get("/tarefas/" + id).body().string().contains("Alterada no líder"));
+        } finally {
+            App.encerrarReplicacao();
+            processo.destroy();
+            processo.waitFor();
+        }
+    }
+
+    // Espera o seguidor terminar as fotografias da época do líder (até lá as tags usam a origem do processo)
+    private void aguardarEpoca() throws Exception {
+        long limite = System.currentTimeMillis() + 15_000;
+        while (true) {
+            JsonNode status = objectMapper.readTree(client.get("/replicacao").body().string());
+            boolean emDia = status.get("conectado").asBoolean();
+            for (JsonNode canal : status.get("canais")) {
+                emDia &= canal.get("aplicada").asLong() >= 0;
+            }
+            if (emDia) {
+                return;
+            }
+            assertTrue(System.currentTimeMillis() < limite, "seguidor não recebeu a fotografia: " + status);
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    public void testFeedDeAlteracoesPorSse() throws IOException {
+        HttpURLConnection conexao = assinar("/tarefas/changes", null);
+        String inicio;
+        String id;
+        try (BufferedReader leitor = new BufferedReader(new InputStreamReader(conexao.getInputStream(), StandardCharsets.UTF_8))) {
+            assertEquals("text/event-stream", conexao.getContentType().split(";")[0]);
+            inicio = Long.toString(objectMapper.readTree(proximoEvento(leitor, "conectado")[1]).get("sequencia").asLong());
+
+            post(client, "/tarefas", createJsonRequestBody("{\"titulo\": \"No feed\"}"));
+            String[] criacao = proximoEvento(leitor, "criacao");
+            id = criacao[0];
+            JsonNode evento = objectMapper.readTree(criacao[1]);
+            assertEquals(Long.parseLong(inicio) + 1, Long.parseLong(id));
+            assertEquals("No feed", evento.get("dados").get("titulo").asText());
+
+            int tarefa = evento.get("dados").get("id").asInt();
+            client.delete("/tarefas/" + tarefa);
+            JsonNode exclusao = objectMapper.readTree(proximoEvento(leitor, "exclusao")[1]);
+            assertEquals(Integer.toString(tarefa), exclusao.get("chave").asText());
+            assertFalse(exclusao.has("dados"));
+        } finally {
+            conexao.disconnect();
+        }
+
+        // Retomando com o Last-Event-ID do evento de criação, o próximo é a exclusão
+        HttpURLConnection retomada = assinar("/tarefas/changes", id);
+        try (BufferedReader leitor = new BufferedReader(new InputStreamReader(retomada.getInputStream(), StandardCharsets.UTF_8))) {
+            assertEquals(Long.toString(Long.parseLong(id) + 1), proximoEvento(leitor, "exclusao")[0]);
+        } finally {
+            retomada.disconnect();
+        }
+
+        // Um cursor que o servidor não conhece pede ressincronização
+        HttpURLConnection perdida = assinar("/usuarios/changes?desde=999999999", null);
+        try (BufferedReader leitor = new BufferedReader(new InputStreamReader(perdida.getInputStream(), StandardCharsets.UTF_8))) {
+            assertTrue(objectMapper.readTree(proximoEvento(leitor, "ressincronizar")[1]).has("sequencia"));
+        } finally {
+            perdida.disconnect();
+        }
+    }
+
+    @Test
+    public void testBuscaTextualTarefas() throws IOException {
+        String[][] dados = {
+                {"Reunião com a equipe", "Preparar a pauta da reunião semanal"},
+                {"Relatório mensal", "Enviar o relatório para a diretoria"},
+                {"Comprar café", "Café para a reunião"}};
+        for (String[] d : dados) {
+            String tarefaJson = "{\"titulo\": \"" + d[0] + "\", \"descricao\": \"" + d[1] + "\", \"concluida\": false}";
+            assertEquals(201, post(client, "/tarefas", createJsonRequestBody(tarefaJson)).code());
+        }
+
+        // Sem acento e em maiúsculas: a tarefa com "reunião" no título vem antes da que só cita na descrição
+        JsonNode reuniao = objectMapper.readTree(client.get("/tarefas/search?q=REUNIAO").body().string());
+        assertEquals(2, reuniao.size());
+        assertEquals("Reunião com a equipe", reuniao.get(0).get("tarefa").get("titulo").asText());
+        assertTrue(reuniao.get(0).get("pontuacao").asDouble() > reuniao.get(1).get("pontuacao").asDouble());
+
+        // Todos os termos precisam aparecer
+        JsonNode relatorio = objectMapper.readTree(client.get("/tarefas/search?q=relatorio diretoria").body().string());
+        assertEquals(1, relatorio.size());
+        assertEquals(0, objectMapper.readTree(client.get("/tarefas/search?q=relatorio cafe").body().string()).size());
+
+        assertEquals(1, objectMapper.readTree(client.get("/tarefas/search?q=reuniao&limit=1").body().string()).size());
+        assertEquals(400, client.get("/tarefas/search").code());
+    }
+
+    @Test
+    public void testCriarTarefasEmLote() throws IOException {
+        String lote = "[{\"titulo\": \"Lote 1\"}, {\"titulo\": \"\"}, {\"titulo\": \"Lote 2\", \"concluida\": true}]";
+        Response response = post(client, "/tarefas/batch", createJsonRequestBody(lote));
+        assertEquals(200, response.code());
+        JsonNode resultados = objectMapper.readTree(response.body().string());
+        assertEquals(3, resultados.size());
+        assertEquals(201, resultados.get(0).get("status").asInt());
+        assertTrue(resultados.get(0).get("id").asInt() > 0);
+        assertEquals(400, resultados.get(1).get("status").asInt());
+        assertEquals("Título é obrigatório", resultados.get(1).get("erro").asText());
+        assertEquals(201, resultados.get(2).get("status").asInt());
+
+        // NDJSON: um objeto por linha; um item mal-formado encerra a ingestão
+        String ndjson = "{\"titulo\": \"Linha 1\"}\n{\"titulo\": \"Linha 2\"}\n{\"titulo\": \"Linha 3\",}\n";
+        Response ndjsonResponse = post(client, "/tarefas/batch",
+                RequestBody.create(ndjson, MediaType.parse("application/x-ndjson")));
+        JsonNode resultadosNdjson = objectMapper.readTree(ndjsonResponse.body().string());
+        assertEquals(3, resultadosNdjson.size());
+        assertEquals(201, resultadosNdjson.get(1).get("status").asInt());
+        assertEquals(400, resultadosNdjson.get(2).get("status").asInt());
+
+        assertEquals(4, objectMapper.readTree(client.get("/tarefas").body().string()).size());
+    }
+
     @Test // Teste para Atualizar Tarefa (Adicionado)
     public void testAtualizarTarefa() throws IOException {
         String tarefaJsonOriginal = "{\"titulo\": \"Tarefa Antiga\", \"descricao\": \"Descrição Antiga\", \"concluida\": false}";
-        Response postResponse = client.post("/tarefas", createJsonRequestBody(tarefaJsonOriginal));
+        Response postResponse = post(client, "/tarefas", createJsonRequestBody(tarefaJsonOriginal));
         assertEquals(201, postResponse.code());
         ObjectNode originalTask = (ObjectNode) objectMapper.readTree(postResponse.body().string());
         int taskId = originalTask.get("id").asInt();
 
         String updatedTaskJson = "{\"id\": " + taskId + ", \"titulo\": \"Tarefa Nova\", \"descricao\": \"Nova Descrição\", \"concluida\": true}";
-        Response putResponse = client.put("/tarefas/" + taskId, createJsonRequestBody(updatedTaskJson));
+        Response putResponse = put(client, "/tarefas/" + taskId, createJsonRequestBody(updatedTaskJson));
         assertEquals(200, putResponse.code());
 
         JsonNode actualJson = objectMapper.readTree(putResponse.body().string());
@@ -265,7 +1003,7 @@ public class AppTest {
     @Test // Teste para Atualizar Tarefa Não Encontrada (Adicionado)
     public void testAtualizarTarefaNaoEncontrada() throws IOException {
         String updatedTaskJson = "{\"titulo\": \"Tarefa Não Existente\", \"descricao\": \"Desc\", \"concluida\": false}";
-        Response putResponse = client.put("/tarefas/999", createJsonRequestBody(updatedTaskJson));
+        Response putResponse = put(client, "/tarefas/999", createJsonRequestBody(updatedTaskJson));
         assertEquals(404, putResponse.code());
         assertEquals("Tarefa não encontrada para atualização.", putResponse.body().string());
     }
@@ -273,7 +1011,7 @@ public class AppTest {
     @Test // Teste para Deletar Tarefa (Adicionado)
     public void testDeletarTarefa() throws IOException {
         String tarefaJson = "{\"titulo\": \"Tarefa para deletar\", \"descricao\": \"Desc\", \"concluida\": false}";
-        Response postResponse = client.post("/tarefas", createJsonRequestBody(tarefaJson));
+        Response postResponse = post(client, "/tarefas", createJsonRequestBody(tarefaJson));
         assertEquals(201, postResponse.code());
         ObjectNode createdTask = (ObjectNode) objectMapper.readTree(postResponse.body().string());
         int taskId = createdTask.get("id").asInt();
@@ -298,17 +1036,17 @@ public class AppTest {
     @Test
     public void testCriarUsuarioComEmailInvalido() throws IOException {
         String userJsonNullEmail = "{\"nome\": \"Invalido\", \"email\": null, \"idade\": 20}";
-        Response responseNull = client.post("/usuarios", createJsonRequestBody(userJsonNullEmail));
+        Response responseNull = post(client, "/usuarios", createJsonRequestBody(userJsonNullEmail));
         assertEquals(400, responseNull.code());
         assertEquals("Email é obrigatório", responseNull.body().string());
 
         String userJsonEmptyEmail = "{\"nome\": \"Invalido\", \"email\": \"\", \"idade\": 20}";
-        Response responseEmpty = client.post("/usuarios", createJsonRequestBody(userJsonEmptyEmail));
+        Response responseEmpty = post(client, "/usuarios", createJsonRequestBody(userJsonEmptyEmail));
         assertEquals(400, responseEmpty.code());
         assertEquals("Email é obrigatório", responseEmpty.body().string());
 
         String userJsonBlankEmail = "{\"nome\": \"Invalido\", \"email\": \"   \", \"idade\": 20}";
-        Response responseBlank = client.post("/usuarios", createJsonRequestBody(userJsonBlankEmail));
+        Response responseBlank = post(client, "/usuarios", createJsonRequestBody(userJsonBlankEmail));
         assertEquals(400, responseBlank.code());
         assertEquals("Email é obrigatório", responseBlank.body().string());
     }
@@ -316,17 +1054,17 @@ public class AppTest {
     @Test
     public void testCriarTarefaComTituloInvalido() throws IOException {
         String tarefaJsonNullTitulo = "{\"titulo\": null, \"descricao\": \"descr\", \"concluida\": false}";
-        Response responseNull = client.post("/tarefas", createJsonRequestBody(tarefaJsonNullTitulo));
+        Response responseNull = post(client, "/tarefas", createJsonRequestBody(tarefaJsonNullTitulo));
         assertEquals(400, responseNull.code());
         assertEquals("Título é obrigatório", responseNull.body().string());
 
         String tarefaJsonEmptyTitulo = "{\"titulo\": \"\", \"descricao\": \"descr\", \"concluida\": false}";
-        Response responseEmpty = client.post("/tarefas", createJsonRequestBody(tarefaJsonEmptyTitulo));
+        Response responseEmpty = post(client, "/tarefas", createJsonRequestBody(tarefaJsonEmptyTitulo));
         assertEquals(400, responseEmpty.code());
         assertEquals("Título é obrigatório", responseEmpty.body().string());
 
         String tarefaJsonBlankTitulo = "{\"titulo\": \"   \", \"descricao\": \"descr\", \"concluida\": false}";
-        Response responseBlank = client.post("/tarefas", createJsonRequestBody(tarefaJsonBlankTitulo));
+        Response responseBlank = post(client, "/tarefas", createJsonRequestBody(tarefaJsonBlankTitulo));
         assertEquals(400, responseBlank.code());
         assertEquals("Título é obrigatório", responseBlank.body().string());
     }
@@ -334,10 +1072,10 @@ public class AppTest {
     @Test
     public void testCriarUsuarioDuplicado() throws IOException {
         String userJsonDuplicado = "{\"nome\": \"Duplicado\", \"email\": \"duplicado@example.com\", \"idade\": 40}";
-        Response postResponse1 = client.post("/usuarios", createJsonRequestBody(userJsonDuplicado));
+        Response postResponse1 = post(client, "/usuarios", createJsonRequestBody(userJsonDuplicado));
         assertEquals(201, postResponse1.code());
 
-        Response postResponse2 = client.post("/usuarios", createJsonRequestBody(userJsonDuplicado));
+        Response postResponse2 = post(client, "/usuarios", createJsonRequestBody(userJsonDuplicado));
         assertEquals(409, postResponse2.code()); // 409 Conflito (já existe)
         assertEquals("Usuário já existe", postResponse2.body().string());
     }
@@ -345,7 +1083,7 @@ public class AppTest {
     @Test
     public void testJsonMalformed() throws IOException {
         String malformedJson = "{ \"nome\": \"Teste\", \"email\": \"teste@example.com\", \"idade\": 30, }"; 
-        Response malformedResponse = client.post("/usuarios", createJsonRequestBody(malformedJson));
+        Response malformedResponse = post(client, "/usuarios", createJsonRequestBody(malformedJson));
 
         assertEquals(400, malformedResponse.code());
         assertEquals("JSON mal-formado ou formato de dados inválido.", malformedResponse.body().string());
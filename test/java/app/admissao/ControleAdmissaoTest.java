@@ -0,0 +1,98 @@
+package app.admissao;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ControleAdmissaoTest {
+
+    private static final long SEGUNDO = 1_000_000_000L;
+
+    private static OpcoesAdmissao opcoes(double taxa, double rajada, int limite, int atrasoMaximoMs, int filaMaxima) {
+        return new OpcoesAdmissao(true, taxa, rajada, 5, limite, limite, limite, 2.0, 0, 0.5, atrasoMaximoMs, filaMaxima);
+    }
+
+    @Test
+    public void testTokensPorClienteELotes() {
+        ControleAdmissao controle = new ControleAdmissao(opcoes(10, 20, 8, 10, 10));
+        long agora = 0;
+        for (int i = 0; i < 20; i++) {
+            assertEquals(0, controle.consumirTokens("a", Prioridade.NORMAL, agora));
+        }
+        // Sem tokens: a espera é o tempo de repor um (1/10 s)
+        assertEquals(SEGUNDO / 10, controle.consumirTokens("a", Prioridade.NORMAL, agora));
+        assertEquals(0, controle.consumirTokens("b", Prioridade.NORMAL, agora));
+
+        // Um segundo depois há 10 tokens: dois lotes de 5 e mais nada
+        agora += SEGUNDO;
+        assertEquals(0, controle.consumirTokens("a", Prioridade.LOTE, agora));
+        assertEquals(0, controle.consumirTokens("a", Prioridade.LOTE, agora));
+        assertTrue(controle.consumirTokens("a", Prioridade.NORMAL, agora) > 0);
+    }
+
+    @Test
+    public void testDescartaQuandoAEsperaPassaDoLimite() {
+        ControleAdmissao controle = new ControleAdmissao(opcoes(0, 0, 2, 30, 10));
+        assertTrue(controle.ocupar(Prioridade.LOTE));
+        // Lotes só usam metade do limite: o segundo espera e é descartado, mas uma requisição normal entra
+        long inicio = System.nanoTime();
+        assertFalse(controle.ocupar(Prioridade.LOTE));
+        assertTrue(System.nanoTime() - inicio >= 30_000_000L);
+        assertTrue(controle.ocupar(Prioridade.NORMAL));
+        assertFalse(controle.ocupar(Prioridade.NORMAL));
+
+        controle.desocupar(Prioridade.LOTE, 1_000_000);
+        assertTrue(controle.ocupar(Prioridade.NORMAL));
+        assertTrue(controle.exportar().contains("admissao_recusadas_total{motivo=\"atraso\"} 2"));
+    }
+
+    @Test
+    public void testVagaLiberadaAcordaQuemEspera() throws InterruptedException {
+        ControleAdmissao controle = new ControleAdmissao(opcoes(0, 0, 1, 5_000, 10));
+        assertTrue(controle.ocupar(Prioridade.NORMAL));
+        boolean[] admitida = new boolean[1];
+        Thread espera = new Thread(() -> admitida[0] = controle.ocupar(Prioridade.NORMAL));
+        espera.start();
+        Thread.sleep(50);
+        controle.desocupar(Prioridade.NORMAL, 1_000_000);
+        espera.join(2_000);
+        assertTrue(admitida[0]);
+    }
+
+    @Test
+    public void testFilaCheiaDescartaNaHora() {
+        ControleAdmissao controle = new ControleAdmissao(opcoes(0, 0, 1, 5_000, 0));
+        assertTrue(controle.ocupar(Prioridade.NORMAL));
+        long inicio = System.nanoTime();
+        assertFalse(controle.ocupar(Prioridade.NORMAL));
+        assertTrue(System.nanoTime() - inicio < 1_000_000_000L);
+        assertTrue(controle.exportar().contains("admissao_recusadas_total{motivo=\"fila\"} 1"));
+    }
+
+    @Test
+    public void testLimiteSegueALatencia() {
+        LimiteAdaptativo limite = new LimiteAdaptativo(10, 2, 20, 2.0, 0);
+        long agora = 0;
+        long milissegundo = 1_000_000L;
+        // Respostas rápidas com o limite em uso: ele sobe
+        for (int i = 0; i < 200; i++) {
+            agora += milissegundo;
+            limite.registrar(milissegundo, 10, agora);
+        }
+        int depoisDasRapidas = limite.getLimite();
+        assertTrue(depoisDasRapidas > 10, "limite: " + depoisDasRapidas);
+
+        // Uma rajada de respostas lentas no mesmo instante reduz uma vez só
+        for (int i = 0; i < 10; i++) {
+            limite.registrar(10 * milissegundo, 10, agora);
+        }
+        assertEquals((int) (depoisDasRapidas * 0.9), limite.getLimite(), 1);
+
+        // Lentas espaçadas continuam reduzindo, até o mínimo
+        for (int i = 0; i < 100; i++) {
+            agora += 10 * milissegundo;
+            limite.registrar(10 * milissegundo, 10, agora);
+        }
+        assertEquals(2, limite.getLimite());
+    }
+}
@@ -0,0 +1,73 @@
+package app.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheJsonTest {
+
+    private static final int TAMANHO = 100;
+    // Espaço para exatamente três entradas de TAMANHO bytes
+    private static final long LIMITE = 3L * (TAMANHO + CacheJson.CUSTO_ENTRADA);
+
+    private static byte[] json(String texto) {
+        byte[] bytes = new byte[TAMANHO];
+        byte[] conteudo = texto.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(conteudo, 0, bytes, 0, conteudo.length);
+        return bytes;
+    }
+
+    @Test
+    public void testServeSoAMesmaVersao() throws IOException {
+        CacheJson<Integer> cache = new CacheJson<>("teste", new OpcoesCache(LIMITE, PoliticaDespejo.FIFO));
+        AtomicInteger serializacoes = new AtomicInteger();
+        cache.obter(1, 5, () -> { serializacoes.incrementAndGet(); return json("v5"); });
+        cache.obter(1, 5, () -> { serializacoes.incrementAndGet(); return json("v5"); });
+        assertEquals(1, serializacoes.get());
+        assertEquals(1, cache.getAcertos());
+
+        // Uma versão nova substitui a antiga; uma leitura atrasada com a antiga não a traz de volta
+        cache.obter(1, 6, () -> json("v6"));
+        cache.obter(1, 5, () -> json("v5"));
+        assertArrayEquals(json("v6"), cache.obter(1, 6, () -> fail("deveria vir do cache")));
+
+        cache.invalidar(1);
+        assertEquals(0, cache.getEntradas());
+        assertEquals(0, cache.getBytes());
+    }
+
+    @Test
+    public void testLimiteDeMemoriaEPoliticas() throws IOException {
+        CacheJson<Integer> fifo = new CacheJson<>("fifo", new OpcoesCache(LIMITE, PoliticaDespejo.FIFO));
+        CacheJson<Integer> segundaChance = new CacheJson<>("clock", new OpcoesCache(LIMITE, PoliticaDespejo.SEGUNDA_CHANCE));
+        for (CacheJson<Integer> cache : List.of(fifo, segundaChance)) {
+            for (int id = 1; id <= 3; id++) {
+                cache.obter(id, 1, () -> json("x"));
+            }
+            cache.obter(1, 1, () -> fail("deveria vir do cache")); // 1 é lida de novo antes de faltar espaço
+            cache.obter(4, 1, () -> json("x"));
+            assertEquals(3, cache.getEntradas());
+            assertTrue(cache.getBytes() <= LIMITE);
+            assertEquals(1, cache.getDespejos());
+        }
+        // FIFO despeja a mais antiga mesmo lida; a segunda chance poupa a 1 e despeja a 2
+        fifo.obter(1, 1, () -> json("x"));
+        assertEquals(5, fifo.getFaltas());
+        segundaChance.obter(1, 1, () -> fail("a entrada lida deveria ter sido poupada"));
+        segundaChance.obter(2, 1, () -> json("x"));
+        assertEquals(5, segundaChance.getFaltas());
+    }
+
+    @Test
+    public void testLimiteZeroDesligaOCache() throws IOException {
+        CacheJson<String> cache = new CacheJson<>("desligado", new OpcoesCache(0, PoliticaDespejo.FIFO));
+        cache.obter("a@b.com", 1, () -> json("x"));
+        assertEquals(0, cache.getEntradas());
+        assertEquals(0, cache.getBytes());
+    }
+}
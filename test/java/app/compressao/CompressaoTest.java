@@ -0,0 +1,55 @@
+package app.compressao;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressaoTest {
+
+    private static final OpcoesCompressao OPCOES = new OpcoesCompressao(true, 1024, 6, 0);
+
+    @Test
+    public void testNegociacao() {
+        assertEquals(Codificacao.GZIP, Codificacao.negociar("gzip, deflate, br"));
+        assertEquals(Codificacao.DEFLATE, Codificacao.negociar("gzip;q=0.5, deflate"));
+        assertEquals(Codificacao.GZIP, Codificacao.negociar("br, *;q=0.1"));
+        assertNull(Codificacao.negociar("gzip;q=0, identity"));
+        assertNull(Codificacao.negociar("br, zstd"));
+        assertNull(Codificacao.negociar(null));
+    }
+
+    @Test
+    public void testComprimeSoAcimaDoLimiar() throws IOException {
+        byte[] pequeno = Compressao.montar(saida -> saida.write("[{\"id\":1}]".getBytes(StandardCharsets.UTF_8)),
+                Codificacao.GZIP, OPCOES);
+        assertFalse(Compressao.estaComprimido(pequeno));
+        assertEquals("[{\"id\":1}]", new String(pequeno, StandardCharsets.UTF_8));
+
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 500; i++) {
+            json.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"titulo\":\"Tarefa ").append(i).append("\"}");
+        }
+        String esperado = json.append(']').toString();
+        for (Codificacao codificacao : Codificacao.values()) {
+            // Escrito byte a byte e em blocos, atravessando o limiar no meio
+            byte[] grande = Compressao.montar(saida -> {
+                byte[] bytes = esperado.getBytes(StandardCharsets.UTF_8);
+                saida.write(bytes[0]);
+                saida.write(bytes, 1, bytes.length - 1);
+            }, codificacao, OPCOES);
+            assertTrue(Compressao.estaComprimido(grande));
+            assertTrue(grande.length < esperado.length() / 3, codificacao + ": " + grande.length);
+            InputStream entrada = codificacao == Codificacao.GZIP
+                    ? new GZIPInputStream(new ByteArrayInputStream(grande))
+                    : new InflaterInputStream(new ByteArrayInputStream(grande));
+            assertEquals(esperado, new String(entrada.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package app.eventos;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FeedAlteracoesTest {
+
+    private static FeedAlteracoes<String> feed(int capacidade) {
+        return new FeedAlteracoes<>("teste", new OpcoesEventos(capacidade, 100, 15));
+    }
+
+    private static List<Long> sequencias(List<EventoAlteracao<String>> eventos) {
+        List<Long> sequencias = new ArrayList<>();
+        eventos.forEach(evento -> sequencias.add(evento.getSequencia()));
+        return sequencias;
+    }
+
+    @Test
+    public void testLerEmOrdemERetomarDeUmCursor() {
+        FeedAlteracoes<String> feed = feed(8);
+        feed.publicar(TipoAlteracao.CRIACAO, "1", 1, "a");
+        feed.publicar(TipoAlteracao.ATUALIZACAO, "1", 2, "b");
+        feed.publicar(TipoAlteracao.EXCLUSAO, "1", 2, null);
+
+        List<EventoAlteracao<String>> eventos = new ArrayList<>();
+        assertTrue(feed.ler(0, eventos, 10));
+        assertEquals(List.of(1L, 2L, 3L), sequencias(eventos));
+        assertEquals(TipoAlteracao.EXCLUSAO, eventos.get(2).getTipo());
+        assertNull(eventos.get(2).getValor());
+
+        eventos.clear();
+        assertTrue(feed.ler(1, eventos, 10));
+        assertEquals(List.of(2L, 3L), sequencias(eventos));
+        eventos.clear();
+        assertTrue(feed.ler(3, eventos, 10));
+        assertTrue(eventos.isEmpty());
+        // Cursor de outra execução do servidor
+        assertFalse(feed.ler(4, eventos, 10));
+    }
+
+    @Test
+    public void testAssinanteAtrasadoPrecisaRessincronizar() {
+        FeedAlteracoes<String> feed = feed(8);
+        for (int i = 1; i <= 20; i++) {
+            feed.publicar(TipoAlteracao.CRIACAO, Integer.toString(i), i, "v" + i);
+        }
+        List<EventoAlteracao<String>> eventos = new ArrayList<>();
+        assertFalse(feed.ler(0, eventos, 100));
+        assertFalse(feed.ler(11, eventos, 100));
+        assertTrue(feed.ler(12, eventos, 100));
+        assertEquals(8, eventos.size());
+        assertEquals(13, eventos.get(0).getSequencia());
+        assertTrue(FeedAlteracoes.exportar(feed).contains("change_feed_resyncs_total{feed=\"teste\"} 2"));
+    }
+
+    @Test
+    public void testAssinanteAcordadoRecebeTudoComEscritoresConcorrentes() throws InterruptedException {
+        FeedAlteracoes<String> feed = feed(1 << 16);
+        int escritores = 4;
+        int porEscritor = 10_000;
+        AtomicLong recebidos = new AtomicLong();
+        AtomicLong foraDeOrdem = new AtomicLong();
+        Thread assinante = new Thread(() -> {
+            long cursor = 0;
+            List<EventoAlteracao<String>> lote = new ArrayList<>();
+            while (cursor < (long) escritores * porEscritor) {
+                lote.clear();
+                assertTrue(feed.ler(cursor, lote, 64));
+                for (EventoAlteracao<String> evento : lote) {
+                    if (evento.getSequencia() != cursor + 1) {
+                        foraDeOrdem.incrementAndGet();
+                    }
+                    cursor = evento.getSequencia();
+                    recebidos.incrementAndGet();
+                }
+                if (lote.isEmpty()) {
+                    LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(5));
+                }
+            }
+        });
+        assertTrue(feed.inscrever(assinante));
+        assinante.start();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < escritores; t++) {
+            Thread escritor = new Thread(() -> {
+                for (int i = 0; i < porEscritor; i++) {
+                    feed.publicar(TipoAlteracao.CRIACAO, "x", i, "x");
+                }
+            });
+            threads.add(escritor);
+            escritor.start();
+        }
+        for (Thread escritor : threads) {
+            escritor.join();
+        }
+        assinante.join(10_000);
+        assertFalse(assinante.isAlive());
+        assertEquals((long) escritores * porEscritor, recebidos.get());
+        assertEquals(0, foraDeOrdem.get());
+        feed.desinscrever(assinante);
+        assertEquals(0, feed.getAssinantes());
+    }
+
+    @Test
+    public void testLimiteDeAssinantes() {
+        FeedAlteracoes<String> feed = new FeedAlteracoes<>("teste", new OpcoesEventos(8, 1, 15));
+        assertTrue(feed.inscrever(new Thread(() -> { })));
+        assertFalse(feed.inscrever(new Thread(() -> { })));
+    }
+}
@@ -0,0 +1,132 @@
+package app.json;
+
+import app.App;
+import app.model.AlteracaoTarefa;
+import app.model.AlteracaoUsuario;
+import app.model.Tarefa;
+import app.model.Usuario;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.javalin.json.JavalinJackson;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CodecJsonTest {
+
+    private final ObjectMapper mapper = App.criarObjectMapper();
+    private final MapeadorJson mapeador = new MapeadorJson(mapper, new JavalinJackson(mapper, false));
+
+    // Textos que exercitam o escape do gerador: aspas, barras, controles, não-ASCII fora do BMP e null
+    private static final String[] TEXTOS = {
+            "", "simples", "com \"aspas\" e \\barra\\", "linha\nnova\ttab\u0001\u001f", "acentuação ç ã é",
+            "emoji 🚀 e   ", "</script>", "x".repeat(5000), null
+    };
+
+    private static Tarefa tarefa(int id, String titulo, String descricao, boolean concluida) {
+        Tarefa tarefa = new Tarefa(titulo, descricao, concluida);
+        tarefa.setId(id);
+        tarefa.setVersao(99);
+        return tarefa;
+    }
+
+    @Test
+    public void testEscritaIgualAoObjectMapper() throws Exception {
+        int[] ids = {0, 1, -7, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for (int i = 0; i < TEXTOS.length; i++) {
+            Tarefa tarefa = tarefa(ids[i % ids.length], TEXTOS[i], TEXTOS[TEXTOS.length - 1 - i], i % 2 == 0);
+            assertArrayEquals(mapper.writeValueAsBytes(tarefa), CodecJson.serializarTarefa(mapper, tarefa));
+            assertEquals(mapper.writeValueAsString(tarefa), mapeador.toJsonString(tarefa, Tarefa.class));
+
+            Usuario usuario = new Usuario(TEXTOS[i], TEXTOS[TEXTOS.length - 1 - i], ids[i % ids.length]);
+            assertArrayEquals(mapper.writeValueAsBytes(usuario), CodecJson.serializarUsuario(mapper, usuario));
+            assertEquals(mapper.writeValueAsString(usuario), mapeador.toJsonString(usuario, Usuario.class));
+        }
+    }
+
+    @Test
+    public void testListasIguaisAoObjectMapper() throws Exception {
+        List<Tarefa> tarefas = List.of(tarefa(1, "a", null, true), tarefa(2, "bé", "c", false));
+        assertEquals(mapper.writeValueAsString(tarefas), mapeador.toJsonString(tarefas, List.class));
+        List<Usuario> usuarios = List.of(new Usuario("Ana", "ana@x.com", 30), new Usuario(null, "b@x.com", 0));
+        assertEquals(mapper.writeValueAsString(usuarios), mapeador.toJsonString(usuarios, List.class));
+
+        String json = mapper.writeValueAsString(tarefas);
+        List<Tarefa> lidas = mapeador.fromJsonString(json, new TypeReference<List<Tarefa>>() { }.getType());
+        assertEquals(json, mapper.writeValueAsString(lidas));
+    }
+
+    @Test
+    public void testLeituraIgualAoObjectMapper() throws Exception {
+        String[] corpos = {
+                "{\"id\":3,\"titulo\":\"T\",\"descricao\":\"D\",\"concluida\":true}",
+                "{\"titulo\":\"só título\"}",
+                "{\"concluida\":false,\"titulo\":\"fora de ordem\",\"id\":9}",
+                "{\"titulo\":\"esc\\u00e7\\n\\\"\",\"descricao\":null}",
+                // Campos desconhecidos (inclusive aninhados) e a versão são ignorados
+                "{\"versao\":12,\"extra\":{\"a\":[1,{\"b\":2}]},\"titulo\":\"x\",\"lista\":[]}",
+                // Coerções que ficam com o Jackson
+                "{\"id\":\"42\",\"titulo\":7,\"concluida\":\"true\"}",
+                "{\"id\":4.9,\"concluida\":1}",
+                "{\"id\":null,\"concluida\":null,\"titulo\":true}",
+                "{\"titulo\":\"repetido\",\"titulo\":\"último vence\"}",
+                "{}",
+                "  {\"titulo\":\"espaços\"}  "
+        };
+        for (String corpo : corpos) {
+            Tarefa esperada = mapper.readValue(corpo, Tarefa.class);
+            Tarefa lida = mapeador.fromJsonString(corpo, Tarefa.class);
+            assertEquals(mapper.writeValueAsString(esperada), mapper.writeValueAsString(lida), corpo);
+        }
+
+        String[] usuarios = {
+                "{\"nome\":\"Ana\",\"email\":\"ana@x.com\",\"idade\":30}",
+                "{\"idade\":\"31\",\"email\":\"b@x.com\",\"versao\":5,\"x\":[null]}",
+                "{\"nome\":null,\"idade\":null}"
+        };
+        for (String corpo : usuarios) {
+            Usuario esperado = mapper.readValue(corpo, Usuario.class);
+            Usuario lido = mapeador.fromJsonString(corpo, Usuario.class);
+            assertEquals(mapper.writeValueAsString(esperado), mapper.writeValueAsString(lido), corpo);
+        }
+        assertNull(mapeador.fromJsonString("null", Tarefa.class));
+    }
+
+    @Test
+    public void testEntradasInvalidasFalhamComoNoObjectMapper() {
+        String[] corpos = {"", "{", "{\"titulo\":}", "{\"titulo\":{}}", "{\"id\":[1]}", "[1]", "\"texto\"",
+                "{\"id\":99999999999}", "{\"titulo\":\"a\" \"descricao\":\"b\"}"};
+        for (String corpo : corpos) {
+            assertThrows(Exception.class, () -> mapper.readValue(corpo, Tarefa.class));
+            assertThrows(Exception.class, () -> mapeador.fromJsonString(corpo, Tarefa.class));
+        }
+    }
+
+    @Test
+    public void testAlteracoesSoMarcamCamposPresentes() {
+        Tarefa atual = tarefa(5, "original", "desc", false);
+
+        AlteracaoTarefa vazia = mapeador.fromJsonString("{\"versao\":3}", AlteracaoTarefa.class);
+        assertTrue(vazia.isVazia());
+
+        AlteracaoTarefa alteracao = mapeador.fromJsonString("{\"descricao\":null,\"concluida\":true}",
+                AlteracaoTarefa.class);
+        alteracao.validar();
+        Tarefa nova = alteracao.aplicar(atual);
+        assertEquals("original", nova.getTitulo());
+        assertNull(nova.getDescricao());
+        assertTrue(nova.isConcluida());
+
+        AlteracaoTarefa nula = mapeador.fromJsonString("{\"concluida\":null}", AlteracaoTarefa.class);
+        assertThrows(IllegalArgumentException.class, nula::validar);
+
+        AlteracaoUsuario usuario = mapeador.fromJsonString("{\"idade\":\"40\",\"email\":\"A@X.com\"}",
+                AlteracaoUsuario.class);
+        usuario.validar("a@x.com");
+        assertEquals(40, usuario.aplicar(new Usuario("Ana", "a@x.com", 30)).getIdade());
+        AlteracaoUsuario semIdade = mapeador.fromJsonString("{\"idade\":null}", AlteracaoUsuario.class);
+        assertThrows(IllegalArgumentException.class, () -> semIdade.validar("a@x.com"));
+    }
+}
@@ -0,0 +1,64 @@
+package app.log;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegistroAssincronoTest {
+
+    @Test
+    public void testBufferCheioDescartaSemBloquear() throws Exception {
+        // A saída fica travada até a liberação, como um terminal lento
+        CountDownLatch liberar = new CountDownLatch(1);
+        ByteArrayOutputStream gravado = new ByteArrayOutputStream();
+        PrintStream saidaLenta = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public synchronized void write(byte[] b, int off, int len) {
+                try {
+                    liberar.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                gravado.write(b, off, len);
+            }
+        }, false, StandardCharsets.UTF_8);
+
+        RegistroAssincrono registro = RegistroAssincrono.iniciar(new OpcoesRegistro(true, 1.0, 64, 8), saidaLenta);
+        int aceitas = 0;
+        for (int i = 0; i < 100; i++) {
+            if (registro.registrar("linha " + i)) {
+                aceitas++;
+            }
+        }
+        assertTrue(aceitas < 100);
+        assertEquals(100 - aceitas, registro.getDescartadas());
+
+        liberar.countDown();
+        registro.close();
+        String saida = gravado.toString(StandardCharsets.UTF_8);
+        assertTrue(saida.startsWith("linha 0"));
+        assertTrue(saida.contains("linhas descartadas"));
+    }
+
+    @Test
+    public void testResumirCorpo() {
+        RegistroAssincrono registro = RegistroAssincrono.iniciar(new OpcoesRegistro(false, 1.0, 5, 8), System.out);
+        assertEquals("{\"a\":...", registro.resumirCorpo("{\"a\":1}".getBytes(StandardCharsets.UTF_8)));
+        // Cada "ç" ocupa 2 bytes: o corte não deixa um caractere pela metade
+        assertEquals("çç...", registro.resumirCorpo("ççç".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("l1\\nl2", registro.resumirCorpo("l1\nl2".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(registro.deveRegistrar(200));
+    }
+}
@@ -0,0 +1,34 @@
+package app.metricas;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistogramaTest {
+
+    @Test
+    public void testFaixasCobremTodosOsValores() {
+        for (long valor = 0; valor < 100_000; valor++) {
+            long limite = Histograma.limiteSuperior(Histograma.indice(valor));
+            assertTrue(limite >= valor, "valor " + valor);
+            assertTrue(limite - valor <= valor / 8, "erro acima de 12,5% em " + valor);
+        }
+        assertEquals(Histograma.FAIXAS - 1, Histograma.indice(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testPercentis() {
+        Histograma histograma = new Histograma();
+        for (int i = 1; i <= 1000; i++) {
+            histograma.registrar(i * 10L); // 10 µs a 10 ms
+        }
+        long[] contagens = histograma.contagens();
+        long p50 = Histograma.percentil(contagens, 0.5);
+        long p99 = Histograma.percentil(contagens, 0.99);
+        assertTrue(p50 >= 5000 && p50 <= 5000 * 1.125, "p50 = " + p50);
+        assertTrue(p99 >= 9900 && p99 <= 9900 * 1.125, "p99 = " + p99);
+        assertEquals(1000, histograma.getTotal());
+        assertEquals(5_005_000, histograma.getSomaMicros());
+        assertEquals(0, Histograma.percentil(new Histograma().contagens(), 0.5));
+    }
+}
@@ -0,0 +1,175 @@
+package app.persistencia;
+
+import app.model.Tarefa;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteAheadLogTest {
+
+    @TempDir
+    Path diretorio;
+
+    // Abre o log reproduzindo os registros num mapa id -> título, como os serviços fazem
+    private WriteAheadLog abrir(Map<Integer, String> estado, ModoDurabilidade modo) throws IOException {
+        return WriteAheadLog.abrir(diretorio, "tarefas", new OpcoesLog(modo, 2, 1_000_000),
+                () -> estado.entrySet().stream()
+                        .map(e -> CodecBinario.codificarTarefa(tarefa(e.getKey(), e.getValue())))
+                        .iterator(),
+                (operacao, payload) -> {
+                    if (operacao == WriteAheadLog.GRAVAR) {
+                        Tarefa tarefa = CodecBinario.decodificarTarefa(payload);
+                        estado.put(tarefa.getId(), tarefa.getTitulo());
+                    } else {
+                        estado.remove(CodecBinario.decodificarId(payload));
+                    }
+                });
+    }
+
+    private static Tarefa tarefa(int id, String titulo) {
+        Tarefa tarefa = new Tarefa(titulo, "descrição", false);
+        tarefa.setId(id);
+        return tarefa;
+    }
+
+    @Test
+    public void testRegistrosSobrevivemAReaberturaEmTodosOsModos() throws IOException {
+        for (ModoDurabilidade modo : ModoDurabilidade.values()) {
+            Files.deleteIfExists(diretorio.resolve("tarefas.wal"));
+            Map<Integer, String> estado = new TreeMap<>();
+            try (WriteAheadLog log = abrir(estado, modo)) {
+                log.anexar(WriteAheadLog.GRAVAR, CodecBinario.codificarTarefa(tarefa(1, "Comprar pão")));
+                log.anexar(WriteAheadLog.GRAVAR, CodecBinario.codificarTarefa(tarefa(2, "Estudar")));
+                log.anexar(WriteAheadLog.GRAVAR, CodecBinario.codificarTarefa(tarefa(1, "Comprar leite")));
+                log.anexar(WriteAheadLog.REMOVER, CodecBinario.codificarId(2));
+            }
+
+            Map<Integer, String> reaberto = new TreeMap<>();
+            abrir(reaberto, modo).close();
+            assertEquals(Map.of(1, "Comprar leite"), reaberto, "Modo " + modo);
+        }
+    }
+
+    @Test
+    public void testRegistroIncompletoNoFimEDescartado() throws IOException {
+        try (WriteAheadLog log = abrir(new TreeMap<>(), ModoDurabilidade.SINCRONO)) {
+            log.anexar(WriteAheadLog.GRAVAR, CodecBinario.codificarTarefa(tarefa(1, "Inteira")));
+        }
+        // Simula uma queda no meio da escrita de um registro
+        Files.write(diretorio.resolve("tarefas.wal"), new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        Map<Integer, String> estado = new TreeMap<>();
+        try (WriteAheadLog log = abrir(estado, ModoDurabilidade.SINCRONO)) {
+            assertEquals(Map.of(1, "Inteira"), estado);
+            log.anexar(WriteAheadLog.GRAVAR, CodecBinario.codificarTarefa(tarefa(2, "Depois da queda")));
+        }
+
+        Map<Integer, String> reaberto = new TreeMap<>();
+        abrir(reaberto, ModoDurabilidade.SINCRONO).close();
+        assertEquals(Map.of(1, "Inteira", 2, "Depois da queda"), reaberto);
+    }
+
+    @Test
+    public void testCompactacaoPreservaEstado() throws IOException {
+        Map<Integer, String> estado = new ConcurrentHashMap<>();
+        try (WriteAheadLog log = abrir(estado, ModoDurabilidade.AGRUPADO)) {
+            for (int i = 1; i <= 100; i++) {
+                estado.put(i, "Tarefa " + i);
+                log.anexar(WriteAheadLog.GRAVAR, CodecBinario.codificarTarefa(tarefa(i, "Tarefa " + i)));
+            }
+            log.compactar();
+            estado.remove(50);
+            log.anexar(WriteAheadLog.REMOVER, CodecBinario.codificarId(50));
+        }
+
+        assertTrue(Files.exists(diretorio.resolve("tarefas.snapshot")));
+        assertFalse(Files.exists(diretorio.resolve("tarefas.wal.antigo")));
+        Map<Integer, String> reaberto = new TreeMap<>();
+        abrir(reaberto, ModoDurabilidade.AGRUPADO).close();
+        assertEquals(new TreeMap<>(estado), reaberto);
+    }
+
+    @Test
+    public void testEscritoresConcorrentesCompartilhamFsync() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        try (WriteAheadLog log = abrir(new TreeMap<>(), ModoDurabilidade.SINCRONO)) {
+            for (int t = 0; t < 8; t++) {
+                int base = t * 1000;
+                threads.add(Thread.ofPlatform().start(() -> {
+                    for (int i = 1; i <= 200; i++) {
+                        log.anexar(WriteAheadLog.GRAVAR, CodecBinario.codificarTarefa(tarefa(base + i, "T")));
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        Map<Integer, String> reaberto = new TreeMap<>();
+        abrir(reaberto, ModoDurabilidade.SINCRONO).close();
+        assertEquals(1600, reaberto.size());
+    }
+
+    @Test
+    public void testCompactacaoEsperaEscritaAnexadaAindaForaDaMemoria() throws Exception {
+        Map<Integer, String> estado = new ConcurrentHashMap<>();
+        CountDownLatch anexado = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        try (WriteAheadLog log = abrir(estado, ModoDurabilidade.SINCRONO)) {
+            Thread escritor = Thread.ofPlatform().start(() -> {
+                long marca = log.iniciarEscrita();
+                try {
+                    estado.compute(7, (chave, atual) -> {
+                        log.anexar(WriteAheadLog.GRAVAR, CodecBinario.codificarTarefa(tarefa(7, "Confirmada")));
+                        anexado.countDown();
+                        try {
+                            liberar.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return "Confirmada";
+                    });
+                } finally {
+                    log.concluirEscrita(marca);
+                }
+            });
+            assertTrue(anexado.await(5, TimeUnit.SECONDS));
+
+            // O registro já está em disco (SINCRONO), mas ainda não no mapa que o snapshot percorre
+            Thread compactacao = Thread.ofPlatform().start(() -> {
+                try {
+                    log.compactar();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            try {
+                compactacao.join(200);
+                assertTrue(compactacao.isAlive(), "a compactação não esperou a escrita em andamento");
+            } finally {
+                liberar.countDown();
+            }
+            escritor.join();
+            compactacao.join();
+        }
+
+        assertFalse(Files.exists(diretorio.resolve("tarefas.wal.antigo")));
+        Map<Integer, String> reaberto = new TreeMap<>();
+        abrir(reaberto, ModoDurabilidade.SINCRONO).close();
+        assertEquals(Map.of(7, "Confirmada"), reaberto);
+    }
+}
@@ -0,0 +1,227 @@
+package app.replicacao;
+
+import app.eventos.FeedAlteracoes;
+import app.eventos.OpcoesEventos;
+import app.eventos.TipoAlteracao;
+import org.junit.jupiter.api.Test;
+
+import java.net.BindException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplicacaoTest {
+
+    record Item(String chave, String texto, long versao) {
+    }
+
+    // Canal sobre um mapa, que publica no próprio feed como os serviços fazem
+    static class CanalMemoria implements CanalReplicacao<Item> {
+        final ConcurrentSkipListMap<String, Item> itens = new ConcurrentSkipListMap<>();
+        final FeedAlteracoes<Item> feed = new FeedAlteracoes<>("itens", new OpcoesEventos(64, 10, 15));
+        final AtomicLong relogio = new AtomicLong();
+
+        void escrever(String chave, String texto) {
+            itens.compute(chave, (k, atual) -> {
+                Item novo = new Item(chave, texto, relogio.incrementAndGet());
+                feed.publicar(atual == null ? TipoAlteracao.CRIACAO : TipoAlteracao.ATUALIZACAO, chave, novo.versao(), novo);
+                return novo;
+            });
+        }
+
+        void remover(String chave) {
+            itens.computeIfPresent(chave, (k, atual) -> {
+                feed.publicar(TipoAlteracao.EXCLUSAO, chave, atual.versao(), null);
+                return null;
+            });
+        }
+
+        @Override
+        public String nome() {
+            return "itens";
+        }
+
+        @Override
+        public FeedAlteracoes<Item> feed() {
+            return feed;
+        }
+
+        @Override
+        public Iterator<Item> percorrer() {
+            return itens.values().iterator();
+        }
+
+        @Override
+        public String chave(Item item) {
+            return item.chave();
+        }
+
+        @Override
+        public long versao(Item item) {
+            return item.versao();
+        }
+
+        @Override
+        public byte[] codificar(Item item) {
+            return (item.chave() + "\n" + item.texto()).getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Item decodificar(ByteBuffer buffer) {
+            String[] partes = StandardCharsets.UTF_8.decode(buffer).toString().split("\n", 2);
+            return new Item(partes[0], partes[1], 0);
+        }
+
+        @Override
+        public void aplicar(String chave, long versao, Item item) {
+            if (item == null) {
+                itens.remove(chave);
+            } else {
+                itens.put(chave, new Item(chave, item.texto(), versao));
+            }
+        }
+    }
+
+    private static OpcoesReplicacao opcoes(PapelReplicacao papel, int porta) {
+        return new OpcoesReplicacao(papel, porta, "localhost:" + porta, "http://localhost:7000", 100, 50);
+    }
+
+    // A porta do líder fechado pode estar, por um instante, com uma tentativa de reconexão do seguidor
+    private static LiderReplicacao reabrir(int porta, CanalMemoria canal, long epoca) throws Exception {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                return epoca == 0 ? LiderReplicacao.iniciar(opcoes(PapelReplicacao.LIDER, porta), List.of(canal))
+                        : LiderReplicacao.iniciar(opcoes(PapelReplicacao.LIDER, porta), List.of(canal), epoca);
+            } catch (BindException e) {
+                if (tentativa == 50) {
+                    throw e;
+                }
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    private static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condicao.getAsBoolean()) {
+            assertTrue(System.nanoTime() < limite, "replicação não convergiu a tempo");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testFotografiaSeguidaDeAlteracoesAoVivo() throws Exception {
+        CanalMemoria origem = new CanalMemoria();
+        CanalMemoria copia = new CanalMemoria();
+        copia.itens.put("sobra", new Item("sobra", "só no seguidor", 99));
+        origem.escrever("a", "1");
+        origem.escrever("b", "2");
+        origem.escrever("c", "3");
+
+        try (LiderReplicacao lider = LiderReplicacao.iniciar(opcoes(PapelReplicacao.LIDER, 0), List.of(origem));
+             SeguidorReplicacao seguidor = SeguidorReplicacao.iniciar(opcoes(PapelReplicacao.SEGUIDOR, lider.getPorta()),
+                     List.of(copia))) {
+            aguardar(() -> seguidor.getAplicada(0) >= 0);
+            assertEquals(origem.itens, copia.itens); // a chave que o líder não tem foi removida
+            assertEquals(3, copia.itens.get("c").versao());
+
+            origem.escrever("b", "2b");
+            origem.remover("a");
+            origem.escrever("d", "4");
+            aguardar(() -> seguidor.getAplicada(0) == origem.feed.getUltimaSequencia());
+            assertEquals(origem.itens, copia.itens);
+            assertEquals(0, seguidor.getAtrasoEventos(0));
+            assertEquals(1L, seguidor.status().get("fotografias"));
+            assertTrue(seguidor.exportar().contains("replication_lag_events{canal=\"itens\"} 0"));
+            aguardar(() -> lider.getSeguidores() == 1);
+            assertTrue(lider.exportar().contains("replication_followers 1"));
+        }
+    }
+
+    @Test
+    public void testReconexaoRetomaDoCursorSemNovaFotografia() throws Exception {
+        CanalMemoria origem = new CanalMemoria();
+        CanalMemoria copia = new CanalMemoria();
+        origem.escrever("a", "1");
+
+        try (LiderReplicacao lider = LiderReplicacao.iniciar(opcoes(PapelReplicacao.LIDER, 0), List.of(origem));
+             SeguidorReplicacao seguidor = SeguidorReplicacao.iniciar(opcoes(PapelReplicacao.SEGUIDOR, lider.getPorta()),
+                     List.of(copia))) {
+            aguardar(() -> seguidor.getAplicada(0) == 1);
+            aguardar(() -> lider.getSeguidores() == 1);
+
+            lider.desconectarSeguidores();
+            origem.escrever("b", "2");
+            origem.escrever("a", "1b");
+            aguardar(() -> seguidor.getAplicada(0) == 3);
+            assertEquals(origem.itens, copia.itens);
+            assertEquals(1L, seguidor.status().get("fotografias"));
+            assertTrue((Long) seguidor.status().get("reconexoes") >= 1);
+        }
+    }
+
+    @Test
+    public void testLiderReiniciadoMandaNovaFotografia() throws Exception {
+        CanalMemoria origem = new CanalMemoria();
+        CanalMemoria copia = new CanalMemoria();
+        origem.escrever("a", "1");
+        origem.escrever("b", "2");
+
+        LiderReplicacao lider = LiderReplicacao.iniciar(opcoes(PapelReplicacao.LIDER, 0), List.of(origem));
+        int porta = lider.getPorta();
+        try (SeguidorReplicacao seguidor = SeguidorReplicacao.iniciar(opcoes(PapelReplicacao.SEGUIDOR, porta),
+                List.of(copia))) {
+            aguardar(() -> copia.itens.size() == 2);
+            long epoca = lider.getEpoca();
+            lider.close();
+
+            // Nova execução do líder, com as sequências recomeçando e "b" removido enquanto o seguidor não via
+            CanalMemoria reiniciada = new CanalMemoria();
+            reiniciada.escrever("a", "1");
+            reiniciada.escrever("c", "3");
+            try (LiderReplicacao novo = reabrir(porta, reiniciada, 0)) {
+                assertNotEquals(epoca, novo.getEpoca());
+                aguardar(() -> copia.itens.equals(reiniciada.itens));
+                aguardar(() -> seguidor.getAplicada(0) == 2);
+                assertEquals(novo.getEpoca(), seguidor.status().get("epoca"));
+                assertEquals(2L, seguidor.status().get("fotografias"));
+                Map<?, ?> canais = (Map<?, ?>) seguidor.status().get("canais");
+                assertEquals(0L, ((Map<?, ?>) canais.get("itens")).get("atrasoEventos"));
+            }
+        }
+    }
+
+    @Test
+    public void testSeguidorAtrasadoAlemDoAnelRecebeFotografia() throws Exception {
+        CanalMemoria origem = new CanalMemoria();
+        CanalMemoria copia = new CanalMemoria();
+        origem.escrever("a", "1");
+
+        LiderReplicacao lider = LiderReplicacao.iniciar(opcoes(PapelReplicacao.LIDER, 0), List.of(origem));
+        try (SeguidorReplicacao seguidor = SeguidorReplicacao.iniciar(opcoes(PapelReplicacao.SEGUIDOR, lider.getPorta()),
+                List.of(copia))) {
+            aguardar(() -> seguidor.getAplicada(0) == 1);
+            aguardar(() -> lider.getSeguidores() == 1);
+            lider.close(); // o seguidor fica tentando reconectar enquanto o anel de 64 eventos dá várias voltas
+            for (int i = 0; i < 500; i++) {
+                origem.escrever("k" + (i % 50), "v" + i);
+            }
+            origem.remover("a");
+            // Mesma época: o cursor do seguidor vale, mas os eventos depois dele já saíram do anel
+            try (LiderReplicacao reaberto = reabrir(lider.getPorta(), origem, lider.getEpoca())) {
+                assertEquals(lider.getEpoca(), reaberto.getEpoca());
+                aguardar(() -> seguidor.getAplicada(0) == origem.feed.getUltimaSequencia());
+                assertEquals(origem.itens, copia.itens);
+                assertEquals(2L, seguidor.status().get("fotografias"));
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package app.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Os IDs são int: nem um ID explícito nem a marca em disco podem levar a marca além do maior int
+public class AlocadorIdsTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    public void testIdExplicitoNoTetoERecusado() {
+        AlocadorIds alocador = new AlocadorIds(32, null);
+        assertThrows(IllegalArgumentException.class, () -> alocador.reservar(Integer.MAX_VALUE));
+        // A recusa não mexe na marca
+        assertEquals(1, alocador.proximoId());
+    }
+
+    @Test
+    public void testEsgotamentoPertoDoTeto() {
+        AlocadorIds alocador = new AlocadorIds(32, null);
+        alocador.reservar(Integer.MAX_VALUE - 4);
+
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(alocador.proximoId());
+        }
+        assertEquals(List.of(Integer.MAX_VALUE - 3, Integer.MAX_VALUE - 2, Integer.MAX_VALUE - 1), ids);
+        IllegalStateException erro = assertThrows(IllegalStateException.class, alocador::proximoId);
+        assertTrue(erro.getMessage().contains("esgotados"), erro.getMessage());
+    }
+
+    @Test
+    public void testReservaEmDiscoNaoPassaDoTeto() throws Exception {
+        Path arquivo = diretorio.resolve("ids.marca");
+        AlocadorIds alocador = new AlocadorIds(32, arquivo);
+        alocador.reservar(Integer.MAX_VALUE - 1);
+        assertEquals(Integer.MAX_VALUE, Long.parseLong(Files.readString(arquivo).trim()));
+
+        assertThrows(IllegalStateException.class, new AlocadorIds(32, arquivo)::proximoId);
+    }
+}
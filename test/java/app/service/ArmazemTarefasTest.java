@@ -0,0 +1,164 @@
+package app.service;
+
+import app.model.Tarefa;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Todos os armazenamentos precisam se comportar igual; cada teste roda contra todos
+public class ArmazemTarefasTest {
+
+    private static Tarefa tarefa(int id, String titulo, String descricao, boolean concluida, long versao) {
+        Tarefa tarefa = new Tarefa(titulo, descricao, concluida);
+        tarefa.setId(id);
+        tarefa.setVersao(versao);
+        return tarefa;
+    }
+
+    private static List<Integer> ids(Iterator<Tarefa> tarefas) {
+        List<Integer> ids = new ArrayList<>();
+        tarefas.forEachRemaining(tarefa -> ids.add(tarefa.getId()));
+        return ids;
+    }
+
+    @Test
+    public void testGravarLerERemover() {
+        for (ArmazenamentoTarefas tipo : ArmazenamentoTarefas.values()) {
+            ArmazemTarefas armazem = ArmazemTarefas.criar(tipo);
+            armazem.gravar(7, atual -> tarefa(7, "Comprar pão", null, false, 1));
+            armazem.gravar(7, atual -> tarefa(7, "Comprar pão de queijo", "Na padaria é mais barato", true, 2));
+
+            Tarefa lida = armazem.obter(7);
+            assertEquals("Comprar pão de queijo", lida.getTitulo(), tipo.name());
+            assertEquals("Na padaria é mais barato", lida.getDescricao());
+            assertTrue(lida.isConcluida());
+            assertEquals(2, lida.getVersao());
+            assertEquals(1, armazem.tamanho());
+
+            // Devolver a atual não muda nada; uma exceção no meio também não
+            assertEquals(2, armazem.gravar(7, atual -> atual).getVersao());
+            assertThrows(VersaoDivergenteException.class, () -> armazem.gravar(7, atual -> {
+                throw new VersaoDivergenteException(atual.getVersao());
+            }));
+            assertEquals("Comprar pão de queijo", armazem.obter(7).getTitulo());
+
+            assertNull(armazem.gravar(7, atual -> null));
+            assertNull(armazem.obter(7));
+            assertEquals(0, armazem.tamanho());
+            assertFalse(armazem.percorrer(null).hasNext());
+        }
+    }
+
+    @Test
+    public void testOrdemPorIdEFiltroPorConclusao() {
+        int[] ordem = {Integer.MAX_VALUE, 5000, -3, 3, 0, 4096, Integer.MIN_VALUE, 4095, 1_000_000};
+        for (ArmazenamentoTarefas tipo : ArmazenamentoTarefas.values()) {
+            ArmazemTarefas armazem = ArmazemTarefas.criar(tipo);
+            for (int id : ordem) {
+                armazem.gravar(id, atual -> tarefa(id, "Tarefa " + id, null, id % 2 == 0, 1));
+            }
+            assertEquals(List.of(Integer.MIN_VALUE, -3, 0, 3, 4095, 4096, 5000, 1_000_000, Integer.MAX_VALUE),
+                    ids(armazem.percorrer(null)), tipo.name());
+            assertEquals(List.of(4096, 5000, 1_000_000, Integer.MAX_VALUE), ids(armazem.percorrer(4095)));
+            assertEquals(List.of(), ids(armazem.percorrer(Integer.MAX_VALUE)));
+            assertEquals(List.of(Integer.MIN_VALUE, 0, 4096, 5000, 1_000_000), ids(armazem.percorrer(true)));
+            assertEquals(List.of(-3, 3, 4095, Integer.MAX_VALUE), ids(armazem.percorrer(false)));
+
+            // Mudar o estado move a tarefa de um filtro para o outro
+            armazem.gravar(3, atual -> tarefa(3, atual.getTitulo(), null, true, 2));
+            assertEquals(List.of(-3, 4095, Integer.MAX_VALUE), ids(armazem.percorrer(false)));
+
+            armazem.limpar();
+            assertEquals(0, armazem.tamanho());
+            assertNull(armazem.obter(3));
+        }
+    }
+
+    @Test
+    public void testMuitasEscritasReaproveitamEspaco() {
+        for (ArmazenamentoTarefas tipo : ArmazenamentoTarefas.values()) {
+            ArmazemTarefas armazem = ArmazemTarefas.criar(tipo);
+            // Bem acima da capacidade inicial das colunas e do limite de lixo dos textos
+            for (int rodada = 0; rodada < 5; rodada++) {
+                for (int i = 1; i <= 20_000; i++) {
+                    int id = i;
+                    int versao = rodada;
+                    armazem.gravar(id, atual -> tarefa(id, "Rodada " + versao + " da tarefa " + id, "ç".repeat(versao), false, versao + 1));
+                }
+                for (int id = 2; id <= 20_000; id += 2) {
+                    armazem.gravar(id, atual -> null);
+                }
+            }
+            assertEquals(10_000, armazem.tamanho(), tipo.name());
+            Tarefa lida = armazem.obter(19_999);
+            assertEquals("Rodada 4 da tarefa 19999", lida.getTitulo());
+            assertEquals("çççç", lida.getDescricao());
+            assertEquals(5, lida.getVersao());
+            assertNull(armazem.obter(20_000));
+        }
+    }
+
+    @Test
+    public void testTextosGrandesETrocaDeTamanho() {
+        String grande = "x".repeat(2_000_000);
+        for (ArmazenamentoTarefas tipo : ArmazenamentoTarefas.values()) {
+            ArmazemTarefas armazem = ArmazemTarefas.criar(tipo);
+            armazem.gravar(1, atual -> tarefa(1, "Curta", null, false, 1));
+            armazem.gravar(2, atual -> tarefa(2, "Vizinha", "Não pode ser afetada", false, 1));
+            armazem.gravar(1, atual -> tarefa(1, "Longa", grande, false, 2));
+            assertEquals(grande, armazem.obter(1).getDescricao(), tipo.name());
+            armazem.gravar(1, atual -> tarefa(1, "Curta de novo", "", true, 3));
+            assertEquals("", armazem.obter(1).getDescricao());
+            assertEquals("Não pode ser afetada", armazem.obter(2).getDescricao());
+            assertEquals(List.of(1), ids(armazem.percorrer(true)));
+        }
+    }
+
+    @Test
+    public void testParticionadoComEscritoresConcorrentes() throws Exception {
+        ArmazemParticionado armazem = new ArmazemParticionado(4);
+        assertEquals(4, armazem.getParticoes());
+        armazem.gravar(0, atual -> tarefa(0, "Quente", null, false, 0));
+        int threads = 8;
+        int porThread = 2_000;
+        List<Thread> escritores = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int base = t * porThread;
+            escritores.add(Thread.ofPlatform().start(() -> {
+                for (int i = 1; i <= porThread; i++) {
+                    int id = base + i;
+                    armazem.gravar(id, atual -> tarefa(id, "Tarefa " + id, null, id % 3 == 0, 1));
+                    // Todas as threads incrementam a mesma tarefa: a alteração é atômica por ID
+                    armazem.gravar(0, atual -> tarefa(0, "Quente", null, false, atual.getVersao() + 1));
+                }
+            }));
+        }
+        for (Thread escritor : escritores) {
+            escritor.join();
+        }
+
+        assertEquals(threads * porThread + 1, armazem.tamanho());
+        assertEquals(threads * porThread, armazem.obter(0).getVersao());
+        List<Integer> todos = ids(armazem.percorrer(null));
+        assertEquals(threads * porThread + 1, todos.size());
+        for (int i = 0; i < todos.size(); i++) {
+            assertEquals(i, todos.get(i).intValue()); // intercalado em ordem de ID a partir das 4 partições
+        }
+        assertEquals(List.of(15_998, 15_999, 16_000), ids(armazem.percorrer(15_997)));
+        List<Integer> concluidas = ids(armazem.percorrer(true));
+        assertEquals(threads * porThread / 3, concluidas.size());
+        assertEquals(3, concluidas.get(0).intValue());
+        assertEquals(15_999, concluidas.get(concluidas.size() - 1).intValue());
+
+        // Uma alteração que grava de novo roda na própria thread escritora, sem esperar por ela mesma
+        armazem.gravar(1, atual -> {
+            armazem.gravar(1, dentro -> tarefa(1, "Interna", null, false, 9));
+            return armazem.obter(1);
+        });
+        assertEquals("Interna", armazem.obter(1).getTitulo());
+    }
+}
@@ -0,0 +1,76 @@
+package app.service;
+
+import app.model.Usuario;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Os dois armazenamentos de usuários precisam se comportar igual; cada teste roda contra os dois
+public class ArmazemUsuariosTest {
+
+    private static Usuario usuario(String nome, String email, int idade, long versao) {
+        Usuario usuario = new Usuario(nome, email, idade);
+        usuario.setVersao(versao);
+        return usuario;
+    }
+
+    private static List<String> emails(Iterator<Usuario> usuarios) {
+        List<String> emails = new ArrayList<>();
+        usuarios.forEachRemaining(usuario -> emails.add(usuario.getEmail()));
+        return emails;
+    }
+
+    @Test
+    public void testGravarLerEOrdemDosEmails() {
+        for (ArmazenamentoUsuarios tipo : ArmazenamentoUsuarios.values()) {
+            ArmazemUsuarios armazem = ArmazemUsuarios.criar(tipo);
+            armazem.gravar("carla@example.com", atual -> usuario("Carla", "carla@example.com", 41, 1));
+            armazem.gravar("ana@example.com", atual -> usuario(null, "ana@example.com", 30, 2));
+            armazem.gravar("bia@example.com", atual -> usuario("Beatriz Conceição", "bia@example.com", 25, 3));
+
+            Usuario lido = armazem.obter("bia@example.com");
+            assertEquals("Beatriz Conceição", lido.getNome(), tipo.name());
+            assertEquals(25, lido.getIdade());
+            assertEquals(3, lido.getVersao());
+            assertNull(armazem.obter("ana@example.co"));
+            assertNull(armazem.obter("ana@example.com").getNome());
+
+            assertEquals(List.of("ana@example.com", "bia@example.com", "carla@example.com"), emails(armazem.percorrer(null)));
+            assertEquals(List.of("carla@example.com"), emails(armazem.percorrer("bia@example.com")));
+            assertEquals(List.of("bia@example.com", "carla@example.com"), emails(armazem.percorrer("bia@example.com", true)));
+
+            assertNull(armazem.gravar("bia@example.com", atual -> null));
+            assertEquals(List.of("ana@example.com", "carla@example.com"), emails(armazem.percorrer(null)));
+            assertEquals(2, armazem.tamanho());
+
+            armazem.limpar();
+            assertEquals(0, armazem.tamanho());
+            assertFalse(armazem.percorrer(null).hasNext());
+        }
+    }
+
+    @Test
+    public void testPercursoEmVariosLotes() {
+        for (ArmazenamentoUsuarios tipo : ArmazenamentoUsuarios.values()) {
+            ArmazemUsuarios armazem = ArmazemUsuarios.criar(tipo);
+            for (int i = 0; i < 1000; i++) {
+                String email = String.format("u%04d@example.com", i);
+                armazem.gravar(email, atual -> usuario("Usuário", email, 20, 1));
+            }
+            Iterator<Usuario> percurso = armazem.percorrer(null);
+            // Uma escrita no meio do percurso não o interrompe; os emails seguintes continuam aparecendo
+            assertEquals("u0000@example.com", percurso.next().getEmail(), tipo.name());
+            armazem.gravar("u0001@example.com", atual -> null);
+            int restantes = 0;
+            while (percurso.hasNext()) {
+                percurso.next();
+                restantes++;
+            }
+            assertTrue(restantes == 998 || restantes == 999, "restantes: " + restantes);
+        }
+    }
+}
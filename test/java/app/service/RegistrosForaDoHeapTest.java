@@ -0,0 +1,101 @@
+package app.service;
+
+import app.model.Tarefa;
+import app.persistencia.CodecBinario;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegistrosForaDoHeapTest {
+
+    private static class FormatoTarefa implements RegistrosForaDoHeap.Formato<Integer, Tarefa> {
+        @Override
+        public int hash(Integer id) {
+            return id;
+        }
+
+        @Override
+        public boolean confere(Integer id, ByteBuffer registro) {
+            return registro.getInt(0) == id;
+        }
+
+        @Override
+        public byte[] codificar(Tarefa tarefa) {
+            return CodecBinario.codificarTarefa(tarefa);
+        }
+
+        @Override
+        public long versao(Tarefa tarefa) {
+            return tarefa.getVersao();
+        }
+
+        @Override
+        public Tarefa decodificar(ByteBuffer registro, long versao) {
+            Tarefa tarefa = CodecBinario.decodificarTarefa(registro);
+            tarefa.setVersao(versao);
+            return tarefa;
+        }
+    }
+
+    // Chaves com só quatro hashes diferentes, para exercitar a sondagem e a remoção no índice
+    private static final RegistrosForaDoHeap.Formato<Integer, Tarefa> COLIDINDO = new FormatoTarefa() {
+        @Override
+        public int hash(Integer id) {
+            return id % 4;
+        }
+    };
+
+    private static Tarefa tarefa(int id, String titulo) {
+        Tarefa tarefa = new Tarefa(titulo, null, false);
+        tarefa.setId(id);
+        tarefa.setVersao(id * 10L);
+        return tarefa;
+    }
+
+    @Test
+    public void testColisoesNoIndice() {
+        RegistrosForaDoHeap<Integer, Tarefa> registros = new RegistrosForaDoHeap<>(COLIDINDO);
+        for (int id = 0; id < 2000; id++) {
+            registros.gravar(id, tarefa(id, "Tarefa " + id));
+        }
+        for (int id = 0; id < 2000; id += 3) {
+            assertTrue(registros.remover(id));
+        }
+        assertFalse(registros.remover(0));
+        for (int id = 0; id < 2000; id++) {
+            Tarefa lida = registros.obter(id);
+            if (id % 3 == 0) {
+                assertNull(lida);
+            } else {
+                assertEquals("Tarefa " + id, lida.getTitulo());
+                assertEquals(id * 10L, lida.getVersao());
+            }
+        }
+        assertEquals(2000 - 667, registros.tamanho());
+    }
+
+    @Test
+    public void testExclusoesLiberamEspacoParaReuso() {
+        RegistrosForaDoHeap<Integer, Tarefa> registros = new RegistrosForaDoHeap<>(new FormatoTarefa());
+        for (int id = 0; id < 100_000; id++) {
+            registros.gravar(id, tarefa(id, "Tarefa com um título de tamanho médio " + id));
+        }
+        long emUso = registros.getBytesEmUso();
+        long reservados = registros.getBytesReservados();
+
+        // Apagar e regravar tudo várias vezes reaproveita as fatias liberadas: nada novo é reservado
+        for (int rodada = 0; rodada < 5; rodada++) {
+            for (int id = 0; id < 100_000; id++) {
+                registros.remover(id);
+            }
+            assertEquals(0, registros.getBytesEmUso());
+            for (int id = 0; id < 100_000; id++) {
+                registros.gravar(id, tarefa(id, "Tarefa com um título de tamanho médio " + id));
+            }
+        }
+        assertEquals(emUso, registros.getBytesEmUso());
+        assertEquals(reservados, registros.getBytesReservados());
+    }
+}
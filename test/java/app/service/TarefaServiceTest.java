@@ -0,0 +1,70 @@
+package app.service;
+
+import app.model.Tarefa;
+import app.persistencia.ModoDurabilidade;
+import app.persistencia.OpcoesLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TarefaServiceTest {
+
+    @TempDir
+    Path diretorio;
+
+    private static List<Integer> ids(TarefaService service, String tituloPrefix) {
+        List<Integer> ids = new ArrayList<>();
+        service.filtrarTarefas(null, tituloPrefix).forEachRemaining(tarefa -> ids.add(tarefa.getId()));
+        return ids;
+    }
+
+    @Test
+    public void testFalhaNoLogNaoAlteraIndicesNemContagens() throws Exception {
+        TarefaService service = new TarefaService();
+        service.resetState();
+        service.ativarPersistencia(diretorio, new OpcoesLog(ModoDurabilidade.SINCRONO, 2, 1_000_000));
+        try {
+            Tarefa comprar = service.adicionarTarefa(new Tarefa("Comprar pão", "padaria", false));
+            service.adicionarTarefa(new Tarefa("Estudar", "álgebra", true));
+            EstatisticasTarefas antes = service.calcularEstatisticas();
+            long sequencia = service.getFeed().getUltimaSequencia();
+
+            // Com o log fechado por baixo do serviço, toda anexação falha
+            service.getLog().close();
+            assertThrows(IllegalStateException.class,
+                    () -> service.adicionarTarefa(new Tarefa("Comprar leite", "mercado", true)));
+            assertThrows(IllegalStateException.class,
+                    () -> service.atualizarTarefa(comprar.getId(), new Tarefa("Limpar", "casa", true)));
+            assertThrows(IllegalStateException.class, () -> service.deletarTarefa(comprar.getId()));
+
+            assertEquals(antes, service.calcularEstatisticas());
+            assertEquals(2, service.contarTarefas());
+            assertEquals(List.of(comprar.getId()), ids(service, "comprar"));
+            assertEquals(List.of(), ids(service, "limpar"));
+            assertEquals(1, service.buscarTexto("padaria", 10).size());
+            assertEquals(0, service.buscarTexto("casa", 10).size());
+            assertEquals(0, service.buscarTexto("mercado", 10).size());
+            assertEquals(sequencia, service.getFeed().getUltimaSequencia());
+        } finally {
+            service.encerrarPersistencia();
+            service.resetState();
+        }
+    }
+
+    @Test
+    public void testIdExplicitoNoTetoERecusado() {
+        TarefaService service = new TarefaService();
+        service.resetState();
+        Tarefa tarefa = new Tarefa("Comprar pão", "padaria", false);
+        tarefa.setId(Integer.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> service.adicionarTarefa(tarefa));
+        assertEquals(0, service.contarTarefas());
+        assertEquals(1, service.adicionarTarefa(new Tarefa("Estudar", "álgebra", true)).getId());
+        service.resetState();
+    }
+}
@@ -0,0 +1,196 @@
+package app.service;
+
+import app.eventos.EventoAlteracao;
+import app.eventos.TipoAlteracao;
+import app.model.AlteracaoUsuario;
+import app.model.Usuario;
+import app.persistencia.ModoDurabilidade;
+import app.persistencia.OpcoesLog;
+import app.persistencia.WriteAheadLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Troca de email (PUT com outro email) e falhas do log nas escritas de usuários
+public class UsuarioServiceTest {
+
+    @TempDir
+    Path diretorio;
+
+    private static List<String> emails(UsuarioService service, String dominio) {
+        List<String> emails = new ArrayList<>();
+        service.filtrarUsuarios(dominio, null).forEachRemaining(usuario -> emails.add(usuario.getEmail()));
+        return emails;
+    }
+
+    @Test
+    public void testFalhaNoLogNaoAlteraIndicesNemContagens() throws Exception {
+        UsuarioService service = new UsuarioService();
+        service.resetState();
+        service.ativarPersistencia(diretorio, new OpcoesLog(ModoDurabilidade.SINCRONO, 2, 1_000_000));
+        try {
+            service.adicionarUsuario(new Usuario("Ana", "ana@example.com", 30));
+            service.adicionarUsuario(new Usuario("Bia", "bia@exemplo.org", 70));
+            EstatisticasUsuarios antes = service.calcularEstatisticas();
+            long sequencia = service.getFeed().getUltimaSequencia();
+
+            // Com o log fechado por baixo do serviço, toda anexação falha
+            service.getLog().close();
+            assertThrows(IllegalStateException.class,
+                    () -> service.adicionarUsuario(new Usuario("Caio", "caio@example.com", 20)));
+            assertThrows(IllegalStateException.class,
+                    () -> service.atualizarUsuario("ana@example.com", new Usuario("Ana", "ana@example.com", 40)));
+            assertThrows(IllegalStateException.class, () -> service.deletarUsuario("bia@exemplo.org"));
+
+            assertEquals(antes, service.calcularEstatisticas());
+            assertEquals(2, service.contarUsuarios());
+            assertEquals(List.of("ana@example.com"), emails(service, "example.com"));
+            assertEquals(List.of("bia@exemplo.org"), emails(service, "exemplo.org"));
+            assertEquals(sequencia, service.getFeed().getUltimaSequencia());
+        } finally {
+            service.encerrarPersistencia();
+            service.resetState();
+        }
+    }
+
+    private static List<EventoAlteracao<Usuario>> eventosDesde(UsuarioService service, long sequencia) {
+        List<EventoAlteracao<Usuario>> eventos = new ArrayList<>();
+        assertTrue(service.getFeed().ler(sequencia, eventos, 100));
+        return eventos;
+    }
+
+    @Test
+    public void testTrocaEhUmRegistroNoLogEUmEvento() throws Exception {
+        UsuarioService service = new UsuarioService();
+        service.resetState();
+        OpcoesLog opcoes = new OpcoesLog(ModoDurabilidade.SINCRONO, 2, 1_000_000);
+        service.ativarPersistencia(diretorio, opcoes);
+        try {
+            service.adicionarUsuario(new Usuario("Ana", "ana@example.com", 30));
+            long sequencia = service.getFeed().getUltimaSequencia();
+            service.atualizarUsuario("ana@example.com", new Usuario("Ana", "ana@exemplo.org", 31));
+
+            List<EventoAlteracao<Usuario>> eventos = eventosDesde(service, sequencia);
+            assertEquals(1, eventos.size());
+            assertEquals(TipoAlteracao.RENOMEACAO, eventos.get(0).getTipo());
+            assertEquals("ana@example.com", eventos.get(0).getChave());
+            assertEquals("ana@exemplo.org", eventos.get(0).getValor().getEmail());
+            service.encerrarPersistencia();
+
+            List<Byte> operacoes = Collections.synchronizedList(new ArrayList<>());
+            WriteAheadLog.abrir(diretorio, "usuarios", opcoes, Collections::emptyIterator,
+                    (operacao, payload) -> operacoes.add(operacao)).close();
+            assertEquals(List.of(WriteAheadLog.GRAVAR, WriteAheadLog.RENOMEAR), operacoes);
+
+            // A reprodução aplica a troca inteira: um usuário só, no email novo
+            service.resetState();
+            service.ativarPersistencia(diretorio, opcoes);
+            assertNull(service.buscarUsuarioPorEmail("ana@example.com"));
+            assertEquals(31, service.buscarUsuarioPorEmail("ana@exemplo.org").getIdade());
+            assertEquals(1, service.contarUsuarios());
+            assertEquals(1L, service.calcularEstatisticas().total());
+            assertEquals(List.of(), emails(service, "example.com"));
+            assertEquals(List.of("ana@exemplo.org"), emails(service, "exemplo.org"));
+        } finally {
+            service.encerrarPersistencia();
+            service.resetState();
+        }
+    }
+
+    @Test
+    public void testSeguidorAplicaATrocaDeUmaVez() {
+        UsuarioService service = new UsuarioService();
+        service.resetState();
+        service.aplicarReplicada("ana@example.com", 10, new Usuario("Ana", "ana@example.com", 30));
+        long sequencia = service.getFeed().getUltimaSequencia();
+
+        // Evento de renomeação vindo do líder: a chave é o email antigo e o valor já traz o novo
+        service.aplicarReplicada("ana@example.com", 11, new Usuario("Ana", "ana@exemplo.org", 31));
+
+        assertNull(service.buscarUsuarioPorEmail("ana@example.com"));
+        assertEquals(11, service.buscarUsuarioPorEmail("ana@exemplo.org").getVersao());
+        assertEquals(1, service.contarUsuarios());
+        assertEquals(List.of("ana@exemplo.org"), emails(service, "exemplo.org"));
+        List<EventoAlteracao<Usuario>> eventos = eventosDesde(service, sequencia);
+        assertEquals(1, eventos.size());
+        assertEquals(TipoAlteracao.RENOMEACAO, eventos.get(0).getTipo());
+        service.resetState();
+    }
+
+    @Test
+    public void testTrocaRecusadaNaoPublicaEventos() {
+        UsuarioService service = new UsuarioService();
+        service.resetState();
+        Usuario ana = service.adicionarUsuario(new Usuario("Ana", "ana@example.com", 30));
+        service.adicionarUsuario(new Usuario("Bia", "bia@example.com", 25));
+        long sequencia = service.getFeed().getUltimaSequencia();
+
+        Usuario troca = new Usuario("Ana", "nova@example.com", 31);
+        assertThrows(VersaoDivergenteException.class,
+                () -> service.atualizarUsuario("ana@example.com", troca, ana.getVersao() + 100));
+        Usuario ocupado = new Usuario("Ana", "bia@example.com", 31);
+        assertThrows(IllegalArgumentException.class, () -> service.atualizarUsuario("ana@example.com", ocupado));
+        assertNull(service.atualizarUsuario("ninguem@example.com", new Usuario("X", "outro@example.com", 1)));
+
+        assertEquals(sequencia, service.getFeed().getUltimaSequencia());
+        assertNull(service.buscarUsuarioPorEmail("nova@example.com"));
+        assertEquals(2, service.contarUsuarios());
+    }
+
+    @Test
+    public void testEscritasNoEmailAntigoNaoSePerdemNaTroca() throws Exception {
+        UsuarioService service = new UsuarioService();
+        service.resetState();
+        service.adicionarUsuario(new Usuario("Ana", "a@example.com", 1));
+
+        // Uma thread troca o email de a para b e de volta; outra altera a idade em quem estiver com o email
+        // antigo. Cada PATCH aceito tem de estar no usuário que sobrar, nunca em uma cópia que foi removida
+        AtomicInteger ultimaIdadeAceita = new AtomicInteger(1);
+        List<Thread> threads = new ArrayList<>();
+        threads.add(Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < 2000; i++) {
+                String de = i % 2 == 0 ? "a@example.com" : "b@example.com";
+                String para = i % 2 == 0 ? "b@example.com" : "a@example.com";
+                Usuario atual = service.buscarUsuarioPorEmail(de);
+                if (atual == null) {
+                    continue;
+                }
+                try {
+                    service.atualizarUsuario(de, new Usuario("Ana", para, atual.getIdade()), atual.getVersao());
+                } catch (VersaoDivergenteException e) {
+                    // um PATCH chegou antes: a troca é recusada e tentada de novo na próxima volta
+                }
+            }
+        }));
+        threads.add(Thread.ofPlatform().start(() -> {
+            for (int idade = 2; idade < 4000; idade++) {
+                AlteracaoUsuario alteracao = new AlteracaoUsuario();
+                alteracao.setIdade(idade);
+                for (String email : new String[]{"a@example.com", "b@example.com"}) {
+                    if (service.alterarUsuario(email, alteracao, 0) != null) {
+                        ultimaIdadeAceita.set(idade);
+                        break;
+                    }
+                }
+            }
+        }));
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Usuario a = service.buscarUsuarioPorEmail("a@example.com");
+        Usuario b = service.buscarUsuarioPorEmail("b@example.com");
+        assertTrue(a == null ^ b == null, "o usuário deve existir em exatamente um email");
+        Usuario sobrou = a != null ? a : b;
+        assertEquals(ultimaIdadeAceita.get(), sobrou.getIdade());
+        assertEquals(1, service.contarUsuarios());
+        assertEquals(1L, service.calcularEstatisticas().total());
+    }
+}